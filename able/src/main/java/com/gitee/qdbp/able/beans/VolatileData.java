@@ -36,6 +36,11 @@ public class VolatileData<T> {
         return this;
     }
 
+    // 获取过期时间(绝对时间), null表示永不过期
+    public Long getExpireTime() {
+        return this.expireTime;
+    }
+
     // 移除过期时间
     public VolatileData<T> persist() {
         this.expireTime = null;
@@ -117,15 +117,19 @@ public class AntStringMatcher implements StringMatcher {
         this.pattern = pattern;
         this.fullMatch = fullMatch;
         this.reverse = mode == Matches.Negative;
+        this.compiled = new CompiledPattern(pattern, DEFAULT_PATH_SEPARATOR);
     }
 
     /** Default path separator: '/' */
     public static final char DEFAULT_PATH_SEPARATOR = '/';
     private char pathSeparator = DEFAULT_PATH_SEPARATOR;
+    /** 预编译的匹配规则, 构造时按路径分隔符拆分一次, 匹配时不再拆分 **/
+    private CompiledPattern compiled;
 
     /** Set the path separator to use for pattern parsing. */
     public void setPathSeparator(char pathSeparator) {
         this.pathSeparator = pathSeparator;
+        this.compiled = new CompiledPattern(pattern, pathSeparator);
     }
 
     /**
@@ -137,7 +141,7 @@ public class AntStringMatcher implements StringMatcher {
      */
     @Override
     public boolean matches(String source) {
-        return doMatch(pattern, source, fullMatch) != reverse;
+        return doMatch(compiled, source, fullMatch) != reverse;
     }
 
     /**
@@ -151,27 +155,51 @@ public class AntStringMatcher implements StringMatcher {
      *         <code>false</code> if it didn't
      */
     protected boolean doMatch(String pattern, String path, boolean fullMatch) {
-        if (startsWithSeparator(path) != startsWithSeparator(pattern)) {
-            return false;
+        CompiledPattern compiled = this.compiled;
+        if (!pattern.equals(compiled.pattern)) {
+            compiled = new CompiledPattern(pattern, this.pathSeparator);
         }
+        return doMatch(compiled, path, fullMatch);
+    }
 
-        String[] pattDirs = StringTools.split(pattern, this.pathSeparator);
-        String[] pathDirs = StringTools.split(path, this.pathSeparator);
+    /**
+     * 使用预编译的匹配规则进行匹配<br>
+     * 算法与原先基于StringTools.split()的实现一致(路径段同样会trim, 空的路径段也参与匹配),
+     * 区别在于路径不再拆分, 而是通过headPos/tailPos两个游标按下标遍历, 匹配过程中不创建对象
+     */
+    private static boolean doMatch(CompiledPattern compiled, String path, boolean fullMatch) {
+        if (path == null) {
+            return false;
+        }
+        char separator = compiled.separator;
+        int length = path.length();
+        boolean pathStartsWithSeparator = length > 0 && path.charAt(0) == separator;
+        boolean pathEndsWithSeparator = length > 0 && path.charAt(length - 1) == separator;
+        if (pathStartsWithSeparator != compiled.startsWithSeparator) {
+            return false;
+        }
 
+        Segment[] pattDirs = compiled.segments;
         int pattIdxStart = 0;
         int pattIdxEnd = pattDirs.length - 1;
         int pathIdxStart = 0;
-        int pathIdxEnd = pathDirs.length - 1;
+        int pathIdxEnd = countSegments(path, separator) - 1;
+        // 第1个未匹配的路径段的开始位置
+        int headPos = 0;
+        // 最后一个未匹配的路径段的结束位置
+        int tailPos = length;
 
         // Match all elements up to the first **
         while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
-            String patDir = pattDirs[pattIdxStart];
-            if ("**".equals(patDir)) {
+            Segment patDir = pattDirs[pattIdxStart];
+            if (patDir.type == Segment.DOUBLE_STAR) {
                 break;
             }
-            if (!matchStrings(patDir, pathDirs[pathIdxStart])) {
+            int end = segmentEnd(path, headPos, separator);
+            if (!patDir.matches(path, headPos, end)) {
                 return false;
             }
+            headPos = end + 1;
             pattIdxStart++;
             pathIdxStart++;
         }
@@ -179,54 +207,46 @@ public class AntStringMatcher implements StringMatcher {
         if (pathIdxStart > pathIdxEnd) {
             // Path is exhausted, only match if rest of pattern is * or **'s
             if (pattIdxStart > pattIdxEnd) {
-                return (endsWithSeparator(pattern) ? endsWithSeparator(path) : !endsWithSeparator(path));
+                return (compiled.endsWithSeparator ? pathEndsWithSeparator : !pathEndsWithSeparator);
             }
             if (!fullMatch) {
                 return true;
             }
-            if (pattIdxStart == pattIdxEnd && pattDirs[pattIdxStart].equals("*") && endsWithSeparator(path)) {
+            if (pattIdxStart == pattIdxEnd && pattDirs[pattIdxStart].type == Segment.ANY && pathEndsWithSeparator) {
                 return true;
             }
-            for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
-                if (!pattDirs[i].equals("**")) {
-                    return false;
-                }
-            }
-            return true;
+            return isAllDoubleStar(pattDirs, pattIdxStart, pattIdxEnd);
         } else if (pattIdxStart > pattIdxEnd) {
             // String not exhausted, but pattern is. Failure.
             return false;
-        } else if (!fullMatch && "**".equals(pattDirs[pattIdxStart])) {
+        } else if (!fullMatch && pattDirs[pattIdxStart].type == Segment.DOUBLE_STAR) {
             // Path start definitely matches due to "**" part in pattern.
             return true;
         }
 
         // up to last '**'
         while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
-            String patDir = pattDirs[pattIdxEnd];
-            if (patDir.equals("**")) {
+            Segment patDir = pattDirs[pattIdxEnd];
+            if (patDir.type == Segment.DOUBLE_STAR) {
                 break;
             }
-            if (!matchStrings(patDir, pathDirs[pathIdxEnd])) {
+            int start = segmentStart(path, tailPos, separator);
+            if (!patDir.matches(path, start, tailPos)) {
                 return false;
             }
+            tailPos = start - 1;
             pattIdxEnd--;
             pathIdxEnd--;
         }
         if (pathIdxStart > pathIdxEnd) {
             // String is exhausted
-            for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
-                if (!pattDirs[i].equals("**")) {
-                    return false;
-                }
-            }
-            return true;
+            return isAllDoubleStar(pattDirs, pattIdxStart, pattIdxEnd);
         }
 
         while (pattIdxStart != pattIdxEnd && pathIdxStart <= pathIdxEnd) {
             int patIdxTmp = -1;
             for (int i = pattIdxStart + 1; i <= pattIdxEnd; i++) {
-                if (pattDirs[i].equals("**")) {
+                if (pattDirs[i].type == Segment.DOUBLE_STAR) {
                     patIdxTmp = i;
                     break;
                 }
@@ -241,17 +261,23 @@ public class AntStringMatcher implements StringMatcher {
             int patLength = (patIdxTmp - pattIdxStart - 1);
             int strLength = (pathIdxEnd - pathIdxStart + 1);
             int foundIdx = -1;
+            int foundPos = -1;
+            // 本轮尝试的第1个路径段的开始位置
+            int candidate = headPos;
 
             strLoop:
             for (int i = 0; i <= strLength - patLength; i++) {
+                int pos = candidate;
                 for (int j = 0; j < patLength; j++) {
-                    String subPat = (String) pattDirs[pattIdxStart + j + 1];
-                    String subStr = (String) pathDirs[pathIdxStart + i + j];
-                    if (!matchStrings(subPat, subStr)) {
+                    int end = segmentEnd(path, pos, separator);
+                    if (!pattDirs[pattIdxStart + j + 1].matches(path, pos, end)) {
+                        candidate = segmentEnd(path, candidate, separator) + 1;
                         continue strLoop;
                     }
+                    pos = end + 1;
                 }
                 foundIdx = pathIdxStart + i;
+                foundPos = pos;
                 break;
             }
 
@@ -261,162 +287,244 @@ public class AntStringMatcher implements StringMatcher {
 
             pattIdxStart = patIdxTmp;
             pathIdxStart = foundIdx + patLength;
+            headPos = foundPos;
         }
 
-        for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
-            if (!pattDirs[i].equals("**")) {
+        return isAllDoubleStar(pattDirs, pattIdxStart, pattIdxEnd);
+    }
+
+    private static boolean isAllDoubleStar(Segment[] segments, int start, int end) {
+        for (int i = start; i <= end; i++) {
+            if (segments[i].type != Segment.DOUBLE_STAR) {
                 return false;
             }
         }
-
         return true;
     }
 
-    /**
-     * Tests whether or not a string matches against a pattern.
-     * The pattern may contain two special characters:<br>
-     * '*' means zero or more characters<br>
-     * '?' means one and only one character
-     *
-     * @param pattern pattern to match against.
-     *                Must not be <code>null</code>.
-     * @param str     string which must be matched against the pattern.
-     *                Must not be <code>null</code>.
-     * @return <code>true</code> if the string matches against the
-     *         pattern, or <code>false</code> otherwise.
-     */
-    private boolean matchStrings(String pattern, String str) {
-        char[] patArr = pattern.toCharArray();
-        char[] strArr = str.toCharArray();
-        int patIdxStart = 0;
-        int patIdxEnd = patArr.length - 1;
-        int strIdxStart = 0;
-        int strIdxEnd = strArr.length - 1;
-        char ch;
-
-        boolean containsStar = false;
-        for (char aPatArr : patArr) {
-            if (aPatArr == '*') {
-                containsStar = true;
-                break;
+    /** 路径段的数量, 与StringTools.split()的结果数量一致: 空字符串为0, 否则为分隔符数量+1 **/
+    private static int countSegments(String path, char separator) {
+        int length = path.length();
+        if (length == 0) {
+            return 0;
+        }
+        int count = 1;
+        for (int i = 0; i < length; i++) {
+            if (path.charAt(i) == separator) {
+                count++;
             }
         }
+        return count;
+    }
 
-        if (!containsStar) {
-            // No '*'s, so we make a shortcut
-            if (patIdxEnd != strIdxEnd) {
-                return false; // Pattern and string do not have the same size
-            }
-            for (int i = 0; i <= patIdxEnd; i++) {
-                ch = patArr[i];
-                if (ch != '?') {
-                    if (ch != strArr[i]) {
-                        return false;// Character mismatch
-                    }
-                }
+    /** 从start开始的路径段的结束位置(不含) **/
+    private static int segmentEnd(String path, int start, char separator) {
+        int index = path.indexOf(separator, start);
+        return index < 0 ? path.length() : index;
+    }
+
+    /** 在end结束的路径段的开始位置 **/
+    private static int segmentStart(String path, int end, char separator) {
+        return end == 0 ? 0 : path.lastIndexOf(separator, end - 1) + 1;
+    }
+
+    /** 预编译的匹配规则 **/
+    private static class CompiledPattern {
+
+        /** 匹配规则 **/
+        private final String pattern;
+        /** 路径分隔符 **/
+        private final char separator;
+        /** 匹配规则是否以分隔符开头 **/
+        private final boolean startsWithSeparator;
+        /** 匹配规则是否以分隔符结尾 **/
+        private final boolean endsWithSeparator;
+        /** 按分隔符拆分后的匹配规则 **/
+        private final Segment[] segments;
+
+        public CompiledPattern(String pattern, char separator) {
+            this.pattern = pattern;
+            this.separator = separator;
+            int length = pattern.length();
+            this.startsWithSeparator = length > 0 && pattern.charAt(0) == separator;
+            this.endsWithSeparator = length > 0 && pattern.charAt(length - 1) == separator;
+            String[] dirs = StringTools.split(pattern, separator);
+            this.segments = new Segment[dirs.length];
+            for (int i = 0; i < dirs.length; i++) {
+                this.segments[i] = new Segment(dirs[i]);
             }
-            return true; // String matches against pattern
         }
+    }
 
-
-        if (patIdxEnd == 0) {
-            return true; // Pattern contains only '*', which matches anything
+    /** 匹配规则中的一个路径段 **/
+    private static class Segment {
+
+        /** 普通字符 **/
+        private static final int LITERAL = 0;
+        /** 含有?但不含* **/
+        private static final int QUESTION = 1;
+        /** 含有* **/
+        private static final int WILDCARD = 2;
+        /** 只有一个*, 匹配任意路径段 **/
+        private static final int ANY = 3;
+        /** **, 匹配零个或多个路径段 **/
+        private static final int DOUBLE_STAR = 4;
+
+        private final int type;
+        private final String text;
+        private final char[] chars;
+
+        public Segment(String text) {
+            this.text = text;
+            this.chars = text.toCharArray();
+            if ("**".equals(text)) {
+                this.type = DOUBLE_STAR;
+            } else if ("*".equals(text)) {
+                this.type = ANY;
+            } else if (text.indexOf('*') >= 0) {
+                this.type = WILDCARD;
+            } else if (text.indexOf('?') >= 0) {
+                this.type = QUESTION;
+            } else {
+                this.type = LITERAL;
+            }
         }
 
-        // Process characters before first star
-        while ((ch = patArr[patIdxStart]) != '*' && strIdxStart <= strIdxEnd) {
-            if (ch != '?') {
-                if (ch != strArr[strIdxStart]) {
-                    return false;// Character mismatch
-                }
+        /** 判断path中[start, end)范围内的路径段是否匹配, 与StringTools.split()一致, 路径段先trim再比较 **/
+        public boolean matches(String path, int start, int end) {
+            while (start < end && path.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && path.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            switch (type) {
+            case LITERAL:
+                return end - start == chars.length && path.regionMatches(start, text, 0, chars.length);
+            case QUESTION:
+                return matchQuestion(path, start, end);
+            case WILDCARD:
+                return matchWildcard(path, start, end);
+            default: // ANY, DOUBLE_STAR
+                return true;
             }
-            patIdxStart++;
-            strIdxStart++;
         }
-        if (strIdxStart > strIdxEnd) {
-            // All characters in the string are used. Check if only '*'s are
-            // left in the pattern. If so, we succeeded. Otherwise failure.
-            for (int i = patIdxStart; i <= patIdxEnd; i++) {
-                if (patArr[i] != '*') {
-                    return false;
+
+        private boolean matchQuestion(String path, int start, int end) {
+            if (end - start != chars.length) {
+                return false; // Pattern and string do not have the same size
+            }
+            for (int i = 0; i < chars.length; i++) {
+                char ch = chars[i];
+                if (ch != '?' && ch != path.charAt(start + i)) {
+                    return false; // Character mismatch
                 }
             }
             return true;
         }
 
-        // Process characters after last star
-        while ((ch = patArr[patIdxEnd]) != '*' && strIdxStart <= strIdxEnd) {
-            if (ch != '?') {
-                if (ch != strArr[strIdxEnd]) {
-                    return false;// Character mismatch
+        /**
+         * Tests whether or not a string matches against a pattern.
+         * The pattern contains at least one '*':<br>
+         * '*' means zero or more characters<br>
+         * '?' means one and only one character
+         */
+        private boolean matchWildcard(String path, int start, int end) {
+            char[] patArr = chars;
+            int patIdxStart = 0;
+            int patIdxEnd = patArr.length - 1;
+            int strIdxStart = start;
+            int strIdxEnd = end - 1;
+            char ch;
+
+            // Process characters before first star
+            while ((ch = patArr[patIdxStart]) != '*' && strIdxStart <= strIdxEnd) {
+                if (ch != '?') {
+                    if (ch != path.charAt(strIdxStart)) {
+                        return false;// Character mismatch
+                    }
                 }
+                patIdxStart++;
+                strIdxStart++;
             }
-            patIdxEnd--;
-            strIdxEnd--;
-        }
-        if (strIdxStart > strIdxEnd) {
-            // All characters in the string are used. Check if only '*'s are
-            // left in the pattern. If so, we succeeded. Otherwise failure.
-            for (int i = patIdxStart; i <= patIdxEnd; i++) {
-                if (patArr[i] != '*') {
-                    return false;
-                }
+            if (strIdxStart > strIdxEnd) {
+                // All characters in the string are used. Check if only '*'s are
+                // left in the pattern. If so, we succeeded. Otherwise failure.
+                return isAllStar(patIdxStart, patIdxEnd);
             }
-            return true;
-        }
 
-        // process pattern between stars. padIdxStart and patIdxEnd point
-        // always to a '*'.
-        while (patIdxStart != patIdxEnd && strIdxStart <= strIdxEnd) {
-            int patIdxTmp = -1;
-            for (int i = patIdxStart + 1; i <= patIdxEnd; i++) {
-                if (patArr[i] == '*') {
-                    patIdxTmp = i;
-                    break;
+            // Process characters after last star
+            while ((ch = patArr[patIdxEnd]) != '*' && strIdxStart <= strIdxEnd) {
+                if (ch != '?') {
+                    if (ch != path.charAt(strIdxEnd)) {
+                        return false;// Character mismatch
+                    }
                 }
+                patIdxEnd--;
+                strIdxEnd--;
             }
-            if (patIdxTmp == patIdxStart + 1) {
-                // Two stars next to each other, skip the first one.
-                patIdxStart++;
-                continue;
+            if (strIdxStart > strIdxEnd) {
+                // All characters in the string are used. Check if only '*'s are
+                // left in the pattern. If so, we succeeded. Otherwise failure.
+                return isAllStar(patIdxStart, patIdxEnd);
             }
-            // Find the pattern between padIdxStart & padIdxTmp in str between
-            // strIdxStart & strIdxEnd
-            int patLength = (patIdxTmp - patIdxStart - 1);
-            int strLength = (strIdxEnd - strIdxStart + 1);
-            int foundIdx = -1;
-            strLoop:
-            for (int i = 0; i <= strLength - patLength; i++) {
-                for (int j = 0; j < patLength; j++) {
-                    ch = patArr[patIdxStart + j + 1];
-                    if (ch != '?') {
-                        if (ch != strArr[strIdxStart + i + j]) {
-                            continue strLoop;
+
+            // process pattern between stars. padIdxStart and patIdxEnd point
+            // always to a '*'.
+            while (patIdxStart != patIdxEnd && strIdxStart <= strIdxEnd) {
+                int patIdxTmp = -1;
+                for (int i = patIdxStart + 1; i <= patIdxEnd; i++) {
+                    if (patArr[i] == '*') {
+                        patIdxTmp = i;
+                        break;
+                    }
+                }
+                if (patIdxTmp == patIdxStart + 1) {
+                    // Two stars next to each other, skip the first one.
+                    patIdxStart++;
+                    continue;
+                }
+                // Find the pattern between padIdxStart & padIdxTmp in str between
+                // strIdxStart & strIdxEnd
+                int patLength = (patIdxTmp - patIdxStart - 1);
+                int strLength = (strIdxEnd - strIdxStart + 1);
+                int foundIdx = -1;
+                strLoop:
+                for (int i = 0; i <= strLength - patLength; i++) {
+                    for (int j = 0; j < patLength; j++) {
+                        ch = patArr[patIdxStart + j + 1];
+                        if (ch != '?') {
+                            if (ch != path.charAt(strIdxStart + i + j)) {
+                                continue strLoop;
+                            }
                         }
                     }
+
+                    foundIdx = strIdxStart + i;
+                    break;
                 }
 
-                foundIdx = strIdxStart + i;
-                break;
-            }
+                if (foundIdx == -1) {
+                    return false;
+                }
 
-            if (foundIdx == -1) {
-                return false;
+                patIdxStart = patIdxTmp;
+                strIdxStart = foundIdx + patLength;
             }
 
-            patIdxStart = patIdxTmp;
-            strIdxStart = foundIdx + patLength;
+            // All characters in the string are used. Check if only '*'s are left
+            // in the pattern. If so, we succeeded. Otherwise failure.
+            return isAllStar(patIdxStart, patIdxEnd);
         }
 
-        // All characters in the string are used. Check if only '*'s are left
-        // in the pattern. If so, we succeeded. Otherwise failure.
-        for (int i = patIdxStart; i <= patIdxEnd; i++) {
-            if (patArr[i] != '*') {
-                return false;
+        private boolean isAllStar(int start, int end) {
+            for (int i = start; i <= end; i++) {
+                if (chars[i] != '*') {
+                    return false;
+                }
             }
+            return true;
         }
-
-        return true;
     }
 
     /**
@@ -477,6 +585,26 @@ public class AntStringMatcher implements StringMatcher {
         return firstChar == this.pathSeparator;
     }
 
+    /** 匹配规则 **/
+    public String getPattern() {
+        return pattern;
+    }
+
+    /** 匹配模式: Positive=肯定模式, 符合条件为匹配; Negative=否定模式, 不符合条件为匹配 **/
+    public Matches getMode() {
+        return reverse ? Matches.Negative : Matches.Positive;
+    }
+
+    /** 是否开启全部匹配模式 **/
+    public boolean isFullMatch() {
+        return fullMatch;
+    }
+
+    /** 路径分隔符 **/
+    public char getPathSeparator() {
+        return pathSeparator;
+    }
+
     @Override
     public String toString() {
         if (this.fullMatch) {
@@ -0,0 +1,84 @@
+package com.gitee.qdbp.able.matches;
+
+import java.util.regex.Pattern;
+
+/**
+ * 防止正则表达式灾难性回溯<br>
+ * 将字符串包装为计数的CharSequence, java.util.regex每读取一个字符计数一次, 超过上限则中止匹配
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+class BacktrackGuard implements CharSequence {
+
+    private final String text;
+    private long remaining;
+
+    /**
+     * 构造函数
+     *
+     * @param text 字符串
+     * @param stepsPerChar 平均每个字符允许读取的次数, 0表示不限制
+     */
+    public BacktrackGuard(String text, int stepsPerChar) {
+        this.text = text;
+        this.remaining = stepsPerChar <= 0 ? Long.MAX_VALUE : (long) stepsPerChar * (text.length() + 16);
+    }
+
+    @Override
+    public int length() {
+        return text.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (--remaining < 0) {
+            throw new LimitExceededException();
+        }
+        return text.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return text.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    /**
+     * 判断字符串中是否存在匹配的子串, 超过回溯上限时抛出IllegalStateException
+     *
+     * @param pattern 正则表达式
+     * @param text 字符串
+     * @param stepsPerChar 平均每个字符允许读取的次数, 0表示不限制
+     * @return 是否存在匹配的子串
+     */
+    public static boolean find(Pattern pattern, String text, int stepsPerChar) {
+        if (stepsPerChar <= 0) {
+            return pattern.matcher(text).find();
+        }
+        try {
+            return pattern.matcher(new BacktrackGuard(text, stepsPerChar)).find();
+        } catch (LimitExceededException e) {
+            throw newLimitException(pattern);
+        }
+    }
+
+    public static IllegalStateException newLimitException(Pattern pattern) {
+        return new IllegalStateException("Regexp backtracking limit exceeded: " + pattern.pattern());
+    }
+
+    /** 超过回溯上限, 不需要堆栈 **/
+    static class LimitExceededException extends RuntimeException {
+
+        /** serialVersionUID **/
+        private static final long serialVersionUID = 1L;
+
+        public LimitExceededException() {
+            super(null, null, false, false);
+        }
+    }
+}
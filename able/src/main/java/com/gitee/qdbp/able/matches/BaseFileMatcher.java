@@ -1,6 +1,7 @@
 package com.gitee.qdbp.able.matches;
 
 import java.io.File;
+import java.nio.file.attribute.BasicFileAttributes;
 import com.gitee.qdbp.tools.files.PathTools;
 
 /**
@@ -10,12 +11,14 @@ import com.gitee.qdbp.tools.files.PathTools;
  * @version 20200816
  * @since 5.1.0
  */
-public class BaseFileMatcher implements FileMatcher {
+public class BaseFileMatcher implements FileAttributesMatcher {
 
     /** 匹配规则 **/
     private final StringMatcher matcher;
     /** 匹配目标 **/
     private final Target target;
+    /** 子类是否重写了formatFilePath(File), 重写了则按文件属性匹配时也调用它, 保持原有的行为 **/
+    private final boolean customFormatter;
 
     /**
      * 构造函数
@@ -26,6 +29,7 @@ public class BaseFileMatcher implements FileMatcher {
     public BaseFileMatcher(StringMatcher matcher, Target target) {
         this.matcher = matcher;
         this.target = target;
+        this.customFormatter = overridesFormatFilePath(getClass());
     }
 
     /**
@@ -42,14 +46,34 @@ public class BaseFileMatcher implements FileMatcher {
         return this.matcher.matches(source);
     }
 
+    /**
+     * 判断文件是否符合匹配规则, 使用已读取的文件属性判断是不是文件夹<br>
+     * 子类重写了formatFilePath(File)时, 调用formatFilePath(File), 与matches(File)一致
+     * 
+     * @param file 文件
+     * @param attrs 文件属性
+     * @return 是否匹配
+     */
+    @Override
+    public boolean matches(File file, BasicFileAttributes attrs) {
+        String source = this.customFormatter ? formatFilePath(file) : formatFilePath(file, attrs);
+        return this.matcher.matches(source);
+    }
+
     protected String formatFilePath(File file) {
+        return formatFilePath(file, null);
+    }
+
+    /** 使用已读取的文件属性生成文件路径, 子类如需修改文件路径的格式, 可以重写此方法或formatFilePath(File) **/
+    protected String formatFilePath(File file, BasicFileAttributes attrs) {
         if (this.target != Target.FilePath) {
             return file.getName();
         }
         // 路径转换为/分隔符, 方便windows/linux统一处理
         String filePath = PathTools.formatPath(file.getAbsolutePath());
         // 如果是文件夹, 固定以/结尾
-        if (file.isDirectory() && !filePath.endsWith("/")) {
+        boolean isDirectory = attrs == null ? file.isDirectory() : attrs.isDirectory();
+        if (isDirectory && !filePath.endsWith("/")) {
             filePath += "/";
         }
         if (!filePath.startsWith("/") && filePath.charAt(1) == ':') {
@@ -60,6 +84,18 @@ public class BaseFileMatcher implements FileMatcher {
         return filePath;
     }
 
+    /** 从子类到BaseFileMatcher之间, 是否有类重写了formatFilePath(File) **/
+    private static boolean overridesFormatFilePath(Class<?> type) {
+        for (Class<?> c = type; c != null && c != BaseFileMatcher.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("formatFilePath", File.class);
+                return true;
+            } catch (NoSuchMethodException ignore) {
+            }
+        }
+        return false;
+    }
+
     /** 匹配目标, 是根据文件名还是文件路径进行比对 **/
     public Target getTarget() {
         return this.target;
@@ -63,6 +63,16 @@ public class ContainsStringMatcher implements StringMatcher {
         return source.contains(pattern) != reverse;
     }
 
+    /** 匹配规则 **/
+    public String getPattern() {
+        return pattern;
+    }
+
+    /** 匹配模式: Positive=肯定模式, 符合条件为匹配; Negative=否定模式, 不符合条件为匹配 **/
+    public Matches getMode() {
+        return reverse ? Matches.Negative : Matches.Positive;
+    }
+
     @Override
     public String toString() {
         if (reverse) {
@@ -0,0 +1,23 @@
+package com.gitee.qdbp.able.matches;
+
+import java.io.File;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * 可以使用已读取的文件属性判断的文件匹配接口<br>
+ * 遍历文件夹时已经读取过文件属性, 传入之后判断是否匹配时不必再次读取(如判断是不是文件夹)
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public interface FileAttributesMatcher extends FileMatcher {
+
+    /**
+     * 判断文件是否符合匹配规则
+     * 
+     * @param source 文件
+     * @param attrs 文件属性, 为null时与matches(File)相同
+     * @return 是否匹配
+     */
+    boolean matches(File source, BasicFileAttributes attrs);
+}
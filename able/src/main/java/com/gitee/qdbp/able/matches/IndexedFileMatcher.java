@@ -0,0 +1,206 @@
+package com.gitee.qdbp.able.matches;
+
+import java.io.File;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import com.gitee.qdbp.able.matches.StringMatcher.LogicType;
+import com.gitee.qdbp.tools.utils.StringTools;
+import com.gitee.qdbp.tools.utils.VerifyTools;
+
+/**
+ * 带索引的FileMatcher多规则包装类, 适用于规则数量很多的场景<br>
+ * 按文件名和按文件路径的规则分别建立索引(见IndexedStringMatcher), 文件名和文件路径每次只计算一次<br>
+ * BaseFileMatcher及其内置子类以外的规则不能放入索引, 仍然逐一判断<br>
+ * OR模式下通过索引查找, 与WrapFileMatcher的结果一致; AND模式下仍然逐一判断<br>
+ * findMatcher()可以返回匹配的是哪一个规则
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class IndexedFileMatcher implements FileAttributesMatcher {
+
+    private final List<FileMatcher> matchers;
+    /** 多个匹配规则使用and还是or关联 **/
+    private final LogicType logicType;
+    /** 按文件名匹配的规则索引 **/
+    private final StringMatcherIndex nameIndex;
+    /** 按文件路径匹配的规则索引 **/
+    private final StringMatcherIndex pathIndex;
+    /** 用于计算文件路径 **/
+    private BaseFileMatcher pathFormatter;
+    /** 不能放入索引的规则的序号 **/
+    private final int[] unindexed;
+
+    public IndexedFileMatcher(LogicType logicType, FileMatcher... matchers) {
+        this(logicType, matchers == null ? null : Arrays.asList(matchers));
+    }
+
+    public IndexedFileMatcher(LogicType logicType, List<FileMatcher> matchers) {
+        this.logicType = logicType;
+        this.matchers = matchers == null ? new ArrayList<FileMatcher>() : new ArrayList<>(matchers);
+        this.nameIndex = new StringMatcherIndex();
+        this.pathIndex = new StringMatcherIndex();
+        int[] unindexed = new int[this.matchers.size()];
+        int count = 0;
+        for (int i = 0; i < this.matchers.size(); i++) {
+            if (!addToIndex(i, this.matchers.get(i))) {
+                unindexed[count++] = i;
+            }
+        }
+        this.nameIndex.build();
+        this.pathIndex.build();
+        this.unindexed = Arrays.copyOf(unindexed, count);
+    }
+
+    private boolean addToIndex(int index, FileMatcher matcher) {
+        if (!isBuiltinFileMatcher(matcher)) {
+            return false;
+        }
+        BaseFileMatcher m = (BaseFileMatcher) matcher;
+        if (m.getTarget() == Target.FilePath) {
+            if (pathFormatter == null) {
+                pathFormatter = m;
+            }
+            return pathIndex.add(index, m.getMatcher());
+        } else {
+            return nameIndex.add(index, m.getMatcher());
+        }
+    }
+
+    /** 自定义的BaseFileMatcher子类可能重写了formatFilePath(), 不能放入索引 **/
+    private static boolean isBuiltinFileMatcher(FileMatcher matcher) {
+        Class<?> type = matcher == null ? null : matcher.getClass();
+        return type == BaseFileMatcher.class || type == AntFileMatcher.class || type == ContainsFileMatcher.class
+                || type == EndsFileMatcher.class || type == EqualsFileMatcher.class || type == RegexpFileMatcher.class
+                || type == StartsFileMatcher.class;
+    }
+
+    @Override
+    public boolean matches(File file) {
+        return matches(file, null);
+    }
+
+    @Override
+    public boolean matches(File file, BasicFileAttributes attrs) {
+        if (this.logicType == LogicType.AND) {
+            for (FileMatcher matcher : this.matchers) {
+                if (!matches(matcher, file, attrs)) {
+                    return false;
+                }
+            }
+            return true;
+        } else {
+            return findIndex(file, attrs) >= 0;
+        }
+    }
+
+    /**
+     * 查找第一个匹配的规则(按添加顺序), 与logicType无关
+     *
+     * @param file 文件
+     * @return 匹配的规则, 全部未匹配时返回null
+     */
+    public FileMatcher findMatcher(File file) {
+        int i = findIndex(file, null);
+        return i < 0 ? null : this.matchers.get(i);
+    }
+
+    /** 第一个匹配的规则的序号, 全部未匹配时返回-1 **/
+    private int findIndex(File file, BasicFileAttributes attrs) {
+        int size = this.matchers.size();
+        int best = this.nameIndex.find(file.getName(), size);
+        if (this.pathFormatter != null) {
+            int i = this.pathIndex.find(this.pathFormatter.formatFilePath(file, attrs), best < 0 ? size : best);
+            if (i >= 0) {
+                best = i;
+            }
+        }
+        int limit = best < 0 ? size : best;
+        for (int i : this.unindexed) {
+            if (i >= limit) {
+                break;
+            }
+            if (matches(this.matchers.get(i), file, attrs)) {
+                return i;
+            }
+        }
+        return best;
+    }
+
+    private static boolean matches(FileMatcher matcher, File file, BasicFileAttributes attrs) {
+        if (attrs != null && matcher instanceof FileAttributesMatcher) {
+            return ((FileAttributesMatcher) matcher).matches(file, attrs);
+        } else {
+            return matcher.matches(file);
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (this.matchers.isEmpty()) {
+            return "NULL";
+        }
+        StringBuilder buffer = new StringBuilder();
+        String logicType = this.logicType == null ? "OR" : this.logicType.name();
+        for (FileMatcher matcher : this.matchers) {
+            if (buffer.length() > 0) {
+                buffer.append(' ').append(logicType).append(' ');
+            }
+            buffer.append(matcher.toString());
+        }
+        return buffer.toString();
+    }
+
+    /** 获取匹配规则 **/
+    public List<FileMatcher> getMatchers() {
+        return matchers;
+    }
+
+    /** 多个匹配规则使用and还是or关联 **/
+    public LogicType getLogicType() {
+        return logicType;
+    }
+
+    /**
+     * 解析FileMatcher规则列表, 以逗号或换行符分隔
+     *
+     * @param patterns 匹配规则列表
+     * @param logicType 多个匹配规则使用and还是or关联
+     * @return IndexedFileMatcher
+     * @see WrapFileMatcher#parseMatcher(String, String, String)
+     */
+    public static IndexedFileMatcher parseMatchers(String patterns, LogicType logicType) {
+        VerifyTools.requireNotBlank(patterns, "patterns");
+        return parseMatchers(patterns, logicType, "name", "equals", ',', '\n');
+    }
+
+    /**
+     * 解析FileMatcher规则列表, 规则格式与WrapFileMatcher.parseMatchers()相同<br>
+     * 如: parseMatchers(pattern, Logic.OR, "name", "ant", ',', '\n'); // 默认按文件名以ant规则匹配
+     *
+     * @param patterns 匹配规则列表
+     * @param logicType 多个匹配规则使用and还是or关联
+     * @param defaultTarget 默认匹配目标
+     * @param defaultMode 默认匹配方式
+     * @param chars 分隔符
+     * @return IndexedFileMatcher
+     * @see WrapFileMatcher#parseMatcher(String, String, String)
+     */
+    public static IndexedFileMatcher parseMatchers(String patterns, LogicType logicType, String defaultTarget,
+            String defaultMode, char... chars) {
+        VerifyTools.requireNotBlank(patterns, "patterns");
+        if (chars == null || chars.length == 0) {
+            chars = new char[] { ',', '\n' };
+        }
+        String[] array = StringTools.split(patterns, chars);
+        List<FileMatcher> matchers = new ArrayList<>();
+        for (String pattern : array) {
+            if (VerifyTools.isNotBlank(pattern)) {
+                matchers.add(WrapFileMatcher.parseMatcher(pattern, defaultTarget, defaultMode));
+            }
+        }
+        return new IndexedFileMatcher(logicType, matchers);
+    }
+}
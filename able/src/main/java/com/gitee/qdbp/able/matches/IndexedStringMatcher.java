@@ -0,0 +1,153 @@
+package com.gitee.qdbp.able.matches;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import com.gitee.qdbp.tools.utils.StringTools;
+import com.gitee.qdbp.tools.utils.VerifyTools;
+
+/**
+ * 带索引的StringMatcher多规则包装类, 适用于规则数量很多的场景<br>
+ * equals规则放入哈希表, starts/ends规则放入前缀树/后缀树, contains规则放入AC自动机, ant规则放入路径段前缀树<br>
+ * regexp规则合并为RegexpMultiMatcher; 否定模式/自定义规则不能放入索引, 仍然逐一判断<br>
+ * OR模式下通过索引查找, 与WrapStringMatcher的结果一致; AND模式下必须每个规则都判断, 索引没有意义, 仍然逐一判断<br>
+ * findMatcher()可以返回匹配的是哪一个规则
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class IndexedStringMatcher implements StringMatcher {
+
+    private final List<StringMatcher> matchers;
+    /** 多个匹配规则使用and还是or关联 **/
+    private final LogicType logicType;
+    /** 规则索引 **/
+    private final StringMatcherIndex index;
+    /** 不能放入索引的规则的序号 **/
+    private final int[] unindexed;
+
+    public IndexedStringMatcher(LogicType logicType, StringMatcher... matchers) {
+        this(logicType, matchers == null ? null : Arrays.asList(matchers));
+    }
+
+    public IndexedStringMatcher(LogicType logicType, List<StringMatcher> matchers) {
+        this.logicType = logicType;
+        this.matchers = matchers == null ? new ArrayList<StringMatcher>() : new ArrayList<>(matchers);
+        this.index = new StringMatcherIndex();
+        int[] unindexed = new int[this.matchers.size()];
+        int count = 0;
+        for (int i = 0; i < this.matchers.size(); i++) {
+            if (!this.index.add(i, this.matchers.get(i))) {
+                unindexed[count++] = i;
+            }
+        }
+        this.index.build();
+        this.unindexed = Arrays.copyOf(unindexed, count);
+    }
+
+    @Override
+    public boolean matches(String source) {
+        if (this.logicType == LogicType.AND) {
+            for (StringMatcher matcher : this.matchers) {
+                if (!matcher.matches(source)) {
+                    return false;
+                }
+            }
+            return true;
+        } else {
+            return findIndex(source) >= 0;
+        }
+    }
+
+    /**
+     * 查找第一个匹配的规则(按添加顺序), 与logicType无关
+     *
+     * @param source 字符串
+     * @return 匹配的规则, 全部未匹配时返回null
+     */
+    public StringMatcher findMatcher(String source) {
+        int i = findIndex(source);
+        return i < 0 ? null : this.matchers.get(i);
+    }
+
+    /** 第一个匹配的规则的序号, 全部未匹配时返回-1 **/
+    private int findIndex(String source) {
+        int best = this.index.find(source, this.matchers.size());
+        int limit = best < 0 ? this.matchers.size() : best;
+        for (int i : this.unindexed) {
+            if (i >= limit) {
+                break;
+            }
+            if (this.matchers.get(i).matches(source)) {
+                return i;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public String toString() {
+        if (this.matchers.isEmpty()) {
+            return "NULL";
+        }
+        StringBuilder buffer = new StringBuilder();
+        String logicType = this.logicType == null ? "OR" : this.logicType.name();
+        for (StringMatcher matcher : this.matchers) {
+            if (buffer.length() > 0) {
+                buffer.append(' ').append(logicType).append(' ');
+            }
+            buffer.append(matcher.toString());
+        }
+        return buffer.toString();
+    }
+
+    /** 获取匹配规则 **/
+    public List<StringMatcher> getMatchers() {
+        return matchers;
+    }
+
+    /** 多个匹配规则使用and还是or关联 **/
+    public LogicType getLogicType() {
+        return logicType;
+    }
+
+    /**
+     * 解析StringMatcher规则列表, 以逗号或换行符分隔
+     *
+     * @param patterns 匹配规则列表
+     * @param logicType 多个匹配规则使用and还是or关联
+     * @return IndexedStringMatcher
+     * @see WrapStringMatcher#parseMatcher(String, String)
+     */
+    public static IndexedStringMatcher parseMatchers(String patterns, LogicType logicType) {
+        VerifyTools.requireNotBlank(patterns, "patterns");
+        return parseMatchers(patterns, logicType, "equals", ',', '\n');
+    }
+
+    /**
+     * 解析StringMatcher规则列表, 规则格式与WrapStringMatcher.parseMatchers()相同<br>
+     * 如: parseMatchers(pattern, Logic.OR, "ant", ',', '\n'); // 默认以ant规则匹配
+     *
+     * @param patterns 匹配规则列表
+     * @param logicType 多个匹配规则使用and还是or关联
+     * @param defaultMode 默认匹配方式
+     * @param chars 分隔符
+     * @return IndexedStringMatcher
+     * @see WrapStringMatcher#parseMatcher(String, String)
+     */
+    public static IndexedStringMatcher parseMatchers(String patterns, LogicType logicType, String defaultMode,
+            char... chars) {
+        VerifyTools.requireNotBlank(patterns, "patterns");
+        if (chars == null || chars.length == 0) {
+            chars = new char[] { ',', '\n' };
+        }
+        String[] array = StringTools.split(patterns, chars);
+        List<StringMatcher> matchers = new ArrayList<>();
+        for (String pattern : array) {
+            if (VerifyTools.isNotBlank(pattern)) {
+                matchers.add(WrapStringMatcher.parseMatcher(pattern, defaultMode));
+            }
+        }
+        return new IndexedStringMatcher(logicType, matchers);
+    }
+}
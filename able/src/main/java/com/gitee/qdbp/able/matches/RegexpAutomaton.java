@@ -0,0 +1,954 @@
+package com.gitee.qdbp.able.matches;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 多个正则表达式合并而成的自动机(NFA按需转换为DFA), 一次扫描判断全部规则, 不会回溯<br>
+ * 只支持正则表达式的一个子集: 普通字符, 转义字符, 字符类[...], ., \d\w\s\D\W\S, 分组(...)和(?:...), 选择|,
+ * 量词* + ? {n} {n,} {n,m}(包括非贪婪模式), 开头的^和结尾的$<br>
+ * 不支持的(反向引用, 环视, 独占模式, 匹配标志, \b等)由调用方使用java.util.regex处理<br>
+ * 判断的是"字符串中是否存在匹配的子串", 与Matcher.find()的结果一致
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+class RegexpAutomaton {
+
+    /** 输入中含有代理字符(Java正则按码点匹配), 自动机不能判断 **/
+    public static final int UNKNOWN = -2;
+
+    /** NFA状态数上限, 超过则视为不支持 **/
+    private static final int MAX_NFA_STATES = 10000;
+    /** 量词展开的上限 **/
+    private static final int MAX_REPEAT = 1000;
+    /** DFA状态缓存上限, 超过则清空重建 **/
+    private static final int MAX_DFA_STATES = 2000;
+    /** 字符值上限 **/
+    private static final int MAX_CHAR = Character.MAX_VALUE;
+    /** 行终止符: NEL, LINE SEPARATOR, PARAGRAPH SEPARATOR **/
+    private static final char NEL = 0x0085;
+    private static final char LS = 0x2028;
+    private static final char PS = 0x2029;
+
+    private static final int CHAR = 0;
+    private static final int SPLIT = 1;
+    private static final int MATCH = 2;
+    private static final int EMPTY = 3;
+
+    // NFA
+    private final int[] types;
+    private final int[][] ranges;
+    private final int[] outs;
+    private final int[] outs2;
+    /** MATCH状态对应的规则序号 **/
+    private final int[] rules;
+    /** MATCH状态是否要求在结尾($) **/
+    private final boolean[] endAnchored;
+    /** 每个位置都要加入的开始状态(不以^开头的规则) **/
+    private final int[] unanchoredStarts;
+    /** 全部规则的开始状态 **/
+    private final int[] allStarts;
+    /** 规则序号的最小值 **/
+    private final int minRule;
+
+    // DFA
+    private final Map<StateKey, DState> cache = new HashMap<>();
+    private volatile DState startState;
+
+    /**
+     * 构造函数
+     *
+     * @param parsed 已解析的规则, 见{@link #parse(Pattern)}
+     * @param ruleIndexes 规则序号
+     */
+    public RegexpAutomaton(List<Parsed> parsed, int[] ruleIndexes) {
+        Builder builder = new Builder();
+        List<Integer> unanchored = new ArrayList<>();
+        int[] starts = new int[parsed.size()];
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < parsed.size(); i++) {
+            Parsed rule = parsed.get(i);
+            Frag frag = builder.compile(rule.ast);
+            int match = builder.newState(MATCH, null);
+            builder.rules.set(match, ruleIndexes[i]);
+            builder.endAnchored.set(match, rule.endAnchored);
+            builder.patch(frag.holes, match);
+            starts[i] = frag.start;
+            if (!rule.startAnchored) {
+                unanchored.add(frag.start);
+            }
+            min = Math.min(min, ruleIndexes[i]);
+        }
+        int size = builder.types.size();
+        this.types = new int[size];
+        this.ranges = new int[size][];
+        this.outs = new int[size];
+        this.outs2 = new int[size];
+        this.rules = new int[size];
+        this.endAnchored = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            this.types[i] = builder.types.get(i);
+            this.ranges[i] = builder.ranges.get(i);
+            this.outs[i] = builder.outs.get(i);
+            this.outs2[i] = builder.outs2.get(i);
+            this.rules[i] = builder.rules.get(i);
+            this.endAnchored[i] = builder.endAnchored.get(i);
+        }
+        this.unanchoredStarts = toArray(unanchored);
+        this.allStarts = starts;
+        this.minRule = min;
+        synchronized (this) {
+            this.startState = newStartState();
+        }
+    }
+
+    /**
+     * 解析正则表达式
+     *
+     * @param pattern 正则表达式
+     * @return 解析结果, 不支持时返回null
+     */
+    public static Parsed parse(Pattern pattern) {
+        if (pattern.flags() != 0) {
+            return null;
+        }
+        String regexp = pattern.pattern();
+        boolean startAnchored = regexp.startsWith("^");
+        boolean endAnchored = regexp.endsWith("$") && !isEscaped(regexp, regexp.length() - 1);
+        int start = startAnchored ? 1 : 0;
+        int end = endAnchored ? regexp.length() - 1 : regexp.length();
+        if (start > end) {
+            return null;
+        }
+        try {
+            Parser parser = new Parser(regexp.substring(start, end));
+            Ast ast = parser.parseAll();
+            if ((startAnchored || endAnchored) && ast instanceof AltAst) {
+                // ^a|b的^只作用于第1个分支
+                return null;
+            }
+            if (parser.states > MAX_NFA_STATES) {
+                return null;
+            }
+            return new Parsed(ast, startAnchored, endAnchored);
+        } catch (UnsupportedException e) {
+            return null;
+        }
+    }
+
+    private static boolean isEscaped(String string, int index) {
+        int count = 0;
+        for (int i = index - 1; i >= 0 && string.charAt(i) == '\\'; i--) {
+            count++;
+        }
+        return count % 2 == 1;
+    }
+
+    /**
+     * 查找匹配的规则
+     *
+     * @param source 字符串
+     * @param limit 只关心序号小于limit的规则
+     * @param stopAtFirst 找到任一匹配的规则就返回(返回的不一定是序号最小的)
+     * @return 匹配的规则中最小的序号, 未找到返回-1, 输入中含有代理字符返回UNKNOWN
+     */
+    public int find(String source, int limit, boolean stopAtFirst) {
+        if (minRule >= limit) {
+            return -1;
+        }
+        int length = source.length();
+        DState state = startState;
+        int best = accept(state, source, 0, limit);
+        for (int i = 0; i < length && best > minRule; i++) {
+            if (stopAtFirst && best < limit) {
+                break;
+            }
+            if (state.states.length == 0 && unanchoredStarts.length == 0) {
+                break; // 所有规则都以^开头且都已失败
+            }
+            char c = source.charAt(i);
+            if (Character.isSurrogate(c)) {
+                return UNKNOWN;
+            }
+            state = next(state, c);
+            best = accept(state, source, i + 1, best);
+        }
+        return best < limit ? best : -1;
+    }
+
+    /**
+     * 找出所有存在匹配子串的规则
+     *
+     * @param source 字符串
+     * @param matched 输出参数, 匹配的规则序号对应的位置设置为true
+     * @return 是否能判断, 输入中含有代理字符返回false
+     */
+    public boolean findAll(String source, boolean[] matched) {
+        int length = source.length();
+        DState state = startState;
+        markAccepts(state, source, 0, matched);
+        for (int i = 0; i < length; i++) {
+            if (state.states.length == 0 && unanchoredStarts.length == 0) {
+                break;
+            }
+            char c = source.charAt(i);
+            if (Character.isSurrogate(c)) {
+                return false;
+            }
+            state = next(state, c);
+            markAccepts(state, source, i + 1, matched);
+        }
+        return true;
+    }
+
+    private int accept(DState state, String source, int position, int best) {
+        if (state.acceptAny >= 0 && state.acceptAny < best) {
+            best = state.acceptAny;
+        }
+        if (state.acceptEnd >= 0 && state.acceptEnd < best && isDollarPosition(source, position)) {
+            best = state.acceptEnd;
+        }
+        return best;
+    }
+
+    private void markAccepts(DState state, String source, int position, boolean[] matched) {
+        if (state.acceptAny < 0 && state.acceptEnd < 0) {
+            return;
+        }
+        boolean dollar = state.acceptEnd >= 0 && isDollarPosition(source, position);
+        for (int s : state.states) {
+            if (types[s] == MATCH && (!endAnchored[s] || dollar)) {
+                matched[rules[s]] = true;
+            }
+        }
+    }
+
+    /** 与java.util.regex的$一致: 字符串结尾, 或结尾的行终止符之前 **/
+    private static boolean isDollarPosition(String source, int position) {
+        int length = source.length();
+        if (position == length) {
+            return true;
+        }
+        if (position == length - 2) {
+            return source.charAt(position) == '\r' && source.charAt(position + 1) == '\n';
+        }
+        if (position == length - 1) {
+            char c = source.charAt(position);
+            if (c == '\n') {
+                return position == 0 || source.charAt(position - 1) != '\r';
+            }
+            return c == '\r' || c == NEL || c == LS || c == PS;
+        }
+        return false;
+    }
+
+    private DState next(DState state, char c) {
+        DState next;
+        if (c < 128) {
+            next = state.ascii[c];
+        } else {
+            next = state.others.get(c);
+        }
+        if (next != null) {
+            return next;
+        }
+        synchronized (this) {
+            next = step(state, c);
+            if (c < 128) {
+                state.ascii[c] = next;
+            } else {
+                state.others.put(c, next);
+            }
+            return next;
+        }
+    }
+
+    /** 计算状态转移, 调用方持有锁 **/
+    private DState step(DState state, char c) {
+        List<Integer> targets = new ArrayList<>();
+        for (int s : state.states) {
+            if (types[s] == CHAR && contains(ranges[s], c)) {
+                targets.add(outs[s]);
+            }
+        }
+        for (int s : unanchoredStarts) {
+            targets.add(s);
+        }
+        return getOrCreateState(closure(targets));
+    }
+
+    /** 调用方持有锁 **/
+    private DState newStartState() {
+        List<Integer> targets = new ArrayList<>();
+        for (int s : allStarts) {
+            targets.add(s);
+        }
+        return getOrCreateState(closure(targets));
+    }
+
+    /** 调用方持有锁 **/
+    private DState getOrCreateState(int[] states) {
+        StateKey key = new StateKey(states);
+        DState state = cache.get(key);
+        if (state == null) {
+            if (cache.size() >= MAX_DFA_STATES) {
+                // 缓存已满, 清空重建; 正在使用旧状态的线程不受影响
+                cache.clear();
+                DState start = createState(closureOfStarts());
+                cache.put(new StateKey(start.states), start);
+                this.startState = start;
+                state = cache.get(key);
+                if (state != null) {
+                    return state;
+                }
+            }
+            state = createState(states);
+            cache.put(key, state);
+        }
+        return state;
+    }
+
+    private int[] closureOfStarts() {
+        List<Integer> targets = new ArrayList<>();
+        for (int s : allStarts) {
+            targets.add(s);
+        }
+        return closure(targets);
+    }
+
+    private DState createState(int[] states) {
+        int acceptAny = -1;
+        int acceptEnd = -1;
+        for (int s : states) {
+            if (types[s] != MATCH) {
+                continue;
+            }
+            if (endAnchored[s]) {
+                acceptEnd = acceptEnd < 0 ? rules[s] : Math.min(acceptEnd, rules[s]);
+            } else {
+                acceptAny = acceptAny < 0 ? rules[s] : Math.min(acceptAny, rules[s]);
+            }
+        }
+        return new DState(states, acceptAny, acceptEnd);
+    }
+
+    /** 计算ε闭包, 只保留CHAR和MATCH状态 **/
+    private int[] closure(List<Integer> starts) {
+        boolean[] visited = new boolean[types.length];
+        int[] stack = new int[types.length];
+        int top = 0;
+        List<Integer> result = new ArrayList<>();
+        for (int s : starts) {
+            if (!visited[s]) {
+                visited[s] = true;
+                stack[top++] = s;
+            }
+        }
+        while (top > 0) {
+            int s = stack[--top];
+            int type = types[s];
+            if (type == CHAR || type == MATCH) {
+                result.add(s);
+            } else {
+                int out = outs[s];
+                if (out >= 0 && !visited[out]) {
+                    visited[out] = true;
+                    stack[top++] = out;
+                }
+                int out2 = type == SPLIT ? outs2[s] : -1;
+                if (out2 >= 0 && !visited[out2]) {
+                    visited[out2] = true;
+                    stack[top++] = out2;
+                }
+            }
+        }
+        int[] array = toArray(result);
+        Arrays.sort(array);
+        return array;
+    }
+
+    private static boolean contains(int[] ranges, char c) {
+        // ranges: [lo0, hi0, lo1, hi1, ...], 已排序
+        int low = 0;
+        int high = ranges.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (c < ranges[mid * 2]) {
+                high = mid - 1;
+            } else if (c > ranges[mid * 2 + 1]) {
+                low = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /** 已解析的规则 **/
+    static class Parsed {
+
+        private final Ast ast;
+        private final boolean startAnchored;
+        private final boolean endAnchored;
+
+        private Parsed(Ast ast, boolean startAnchored, boolean endAnchored) {
+            this.ast = ast;
+            this.startAnchored = startAnchored;
+            this.endAnchored = endAnchored;
+        }
+    }
+
+    /** DFA状态 **/
+    private static class DState {
+
+        private final int[] states;
+        /** 不要求在结尾的规则中最小的序号 **/
+        private final int acceptAny;
+        /** 要求在结尾($)的规则中最小的序号 **/
+        private final int acceptEnd;
+        private final DState[] ascii = new DState[128];
+        private final Map<Character, DState> others = new ConcurrentHashMap<>(4);
+
+        public DState(int[] states, int acceptAny, int acceptEnd) {
+            this.states = states;
+            this.acceptAny = acceptAny;
+            this.acceptEnd = acceptEnd;
+        }
+    }
+
+    private static class StateKey {
+
+        private final int[] states;
+        private final int hash;
+
+        public StateKey(int[] states) {
+            this.states = states;
+            this.hash = Arrays.hashCode(states);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof StateKey && Arrays.equals(states, ((StateKey) object).states);
+        }
+    }
+
+    /** NFA片段 **/
+    private static class Frag {
+
+        private final int start;
+        /** 待连接的出口, state * 2 + (0=out, 1=out2) **/
+        private final List<Integer> holes;
+
+        public Frag(int start, List<Integer> holes) {
+            this.start = start;
+            this.holes = holes;
+        }
+    }
+
+    /** Thompson构造法生成NFA **/
+    private static class Builder {
+
+        private final List<Integer> types = new ArrayList<>();
+        private final List<int[]> ranges = new ArrayList<>();
+        private final List<Integer> outs = new ArrayList<>();
+        private final List<Integer> outs2 = new ArrayList<>();
+        private final List<Integer> rules = new ArrayList<>();
+        private final List<Boolean> endAnchored = new ArrayList<>();
+
+        public int newState(int type, int[] range) {
+            types.add(type);
+            ranges.add(range);
+            outs.add(-1);
+            outs2.add(-1);
+            rules.add(-1);
+            endAnchored.add(false);
+            return types.size() - 1;
+        }
+
+        public void patch(List<Integer> holes, int target) {
+            for (int hole : holes) {
+                if (hole % 2 == 0) {
+                    outs.set(hole / 2, target);
+                } else {
+                    outs2.set(hole / 2, target);
+                }
+            }
+        }
+
+        private static List<Integer> holes(int... values) {
+            List<Integer> list = new ArrayList<>();
+            for (int value : values) {
+                list.add(value);
+            }
+            return list;
+        }
+
+        public Frag compile(Ast ast) {
+            if (ast instanceof CharSetAst) {
+                int s = newState(CHAR, ((CharSetAst) ast).ranges);
+                return new Frag(s, holes(s * 2));
+            } else if (ast instanceof ConcatAst) {
+                List<Ast> items = ((ConcatAst) ast).items;
+                Frag first = null;
+                Frag last = null;
+                for (Ast item : items) {
+                    Frag frag = compile(item);
+                    if (first == null) {
+                        first = frag;
+                    } else {
+                        patch(last.holes, frag.start);
+                    }
+                    last = frag;
+                }
+                if (first == null) {
+                    return empty();
+                }
+                return new Frag(first.start, last.holes);
+            } else if (ast instanceof AltAst) {
+                List<Ast> items = ((AltAst) ast).items;
+                List<Integer> holes = new ArrayList<>();
+                Frag tail = compile(items.get(items.size() - 1));
+                holes.addAll(tail.holes);
+                int start = tail.start;
+                for (int i = items.size() - 2; i >= 0; i--) {
+                    Frag frag = compile(items.get(i));
+                    holes.addAll(frag.holes);
+                    int split = newState(SPLIT, null);
+                    outs.set(split, frag.start);
+                    outs2.set(split, start);
+                    start = split;
+                }
+                return new Frag(start, holes);
+            } else if (ast instanceof RepeatAst) {
+                RepeatAst repeat = (RepeatAst) ast;
+                List<Frag> frags = new ArrayList<>();
+                for (int i = 0; i < repeat.min; i++) {
+                    frags.add(compile(repeat.item));
+                }
+                if (repeat.max < 0) {
+                    Frag item = compile(repeat.item);
+                    int split = newState(SPLIT, null);
+                    outs.set(split, item.start);
+                    patch(item.holes, split);
+                    frags.add(new Frag(split, holes(split * 2 + 1)));
+                } else if (repeat.max > repeat.min) {
+                    // (x(x(x)?)?)?
+                    Frag optional = null;
+                    for (int i = repeat.min; i < repeat.max; i++) {
+                        Frag item = compile(repeat.item);
+                        if (optional != null) {
+                            patch(item.holes, optional.start);
+                            item = new Frag(item.start, optional.holes);
+                        }
+                        int split = newState(SPLIT, null);
+                        outs.set(split, item.start);
+                        List<Integer> holes = new ArrayList<>(item.holes);
+                        holes.add(split * 2 + 1);
+                        optional = new Frag(split, holes);
+                    }
+                    frags.add(optional);
+                }
+                if (frags.isEmpty()) {
+                    return empty();
+                }
+                for (int i = 1; i < frags.size(); i++) {
+                    patch(frags.get(i - 1).holes, frags.get(i).start);
+                }
+                return new Frag(frags.get(0).start, frags.get(frags.size() - 1).holes);
+            } else {
+                return empty();
+            }
+        }
+
+        private Frag empty() {
+            int s = newState(EMPTY, null);
+            return new Frag(s, holes(s * 2));
+        }
+    }
+
+    private static class Ast {
+    }
+
+    private static class CharSetAst extends Ast {
+
+        private final int[] ranges;
+
+        public CharSetAst(int[] ranges) {
+            this.ranges = ranges;
+        }
+    }
+
+    private static class ConcatAst extends Ast {
+
+        private final List<Ast> items;
+
+        public ConcatAst(List<Ast> items) {
+            this.items = items;
+        }
+    }
+
+    private static class AltAst extends Ast {
+
+        private final List<Ast> items;
+
+        public AltAst(List<Ast> items) {
+            this.items = items;
+        }
+    }
+
+    private static class RepeatAst extends Ast {
+
+        private final Ast item;
+        private final int min;
+        /** -1表示不限 **/
+        private final int max;
+
+        public RepeatAst(Ast item, int min, int max) {
+            this.item = item;
+            this.min = min;
+            this.max = max;
+        }
+    }
+
+    private static class UnsupportedException extends Exception {
+
+        /** serialVersionUID **/
+        private static final long serialVersionUID = 1L;
+
+        public UnsupportedException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final int[] DIGIT = { '0', '9' };
+    private static final int[] WORD = { '0', '9', 'A', 'Z', '_', '_', 'a', 'z' };
+    private static final int[] SPACE = { '\t', '\r', ' ', ' ' };
+    private static final int[] DOT = complement(new int[] { '\n', '\n', '\r', '\r', NEL, NEL, LS, PS });
+
+    /** 解析正则表达式子集, 已由Pattern.compile()校验过语法 **/
+    private static class Parser {
+
+        private final String text;
+        private int pos;
+        /** 估算的NFA状态数 **/
+        private int states;
+
+        public Parser(String text) {
+            this.text = text;
+        }
+
+        public Ast parseAll() throws UnsupportedException {
+            Ast ast = parseAlt();
+            if (pos != text.length()) {
+                throw new UnsupportedException();
+            }
+            return ast;
+        }
+
+        private Ast parseAlt() throws UnsupportedException {
+            List<Ast> items = new ArrayList<>();
+            items.add(parseConcat());
+            while (pos < text.length() && text.charAt(pos) == '|') {
+                pos++;
+                items.add(parseConcat());
+            }
+            return items.size() == 1 ? items.get(0) : new AltAst(items);
+        }
+
+        private Ast parseConcat() throws UnsupportedException {
+            List<Ast> items = new ArrayList<>();
+            while (pos < text.length()) {
+                char c = text.charAt(pos);
+                if (c == '|' || c == ')') {
+                    break;
+                }
+                items.add(parseRepeat());
+            }
+            return new ConcatAst(items);
+        }
+
+        private Ast parseRepeat() throws UnsupportedException {
+            int begin = states;
+            Ast atom = parseAtom();
+            int size = Math.max(1, states - begin);
+            if (pos >= text.length()) {
+                return atom;
+            }
+            char c = text.charAt(pos);
+            int min;
+            int max;
+            if (c == '*') {
+                min = 0;
+                max = -1;
+                pos++;
+            } else if (c == '+') {
+                min = 1;
+                max = -1;
+                pos++;
+            } else if (c == '?') {
+                min = 0;
+                max = 1;
+                pos++;
+            } else if (c == '{') {
+                int close = text.indexOf('}', pos);
+                if (close < 0) {
+                    throw new UnsupportedException();
+                }
+                String[] bounds = text.substring(pos + 1, close).split(",", -1);
+                try {
+                    min = Integer.parseInt(bounds[0]);
+                    if (bounds.length == 1) {
+                        max = min;
+                    } else if (bounds.length == 2) {
+                        max = bounds[1].isEmpty() ? -1 : Integer.parseInt(bounds[1]);
+                    } else {
+                        throw new UnsupportedException();
+                    }
+                } catch (NumberFormatException e) {
+                    throw new UnsupportedException();
+                }
+                if (min > MAX_REPEAT || max > MAX_REPEAT) {
+                    throw new UnsupportedException();
+                }
+                pos = close + 1;
+            } else {
+                return atom;
+            }
+            if (pos < text.length()) {
+                char suffix = text.charAt(pos);
+                if (suffix == '?') {
+                    pos++; // 非贪婪模式不影响是否存在匹配
+                } else if (suffix == '+') {
+                    throw new UnsupportedException(); // 独占模式会改变匹配结果
+                }
+                if (pos < text.length() && "*+?{".indexOf(text.charAt(pos)) >= 0) {
+                    throw new UnsupportedException();
+                }
+            }
+            states += size * (Math.max(min, max) + 1);
+            if (states > MAX_NFA_STATES) {
+                throw new UnsupportedException();
+            }
+            return new RepeatAst(atom, min, max);
+        }
+
+        private Ast parseAtom() throws UnsupportedException {
+            char c = text.charAt(pos);
+            states++;
+            if (c == '(') {
+                pos++;
+                if (text.startsWith("?:", pos)) {
+                    pos += 2;
+                } else if (pos < text.length() && text.charAt(pos) == '?') {
+                    throw new UnsupportedException(); // 环视, 命名分组, 匹配标志等
+                }
+                Ast ast = parseAlt();
+                if (pos >= text.length() || text.charAt(pos) != ')') {
+                    throw new UnsupportedException();
+                }
+                pos++;
+                return ast;
+            } else if (c == '[') {
+                return new CharSetAst(parseClass());
+            } else if (c == '.') {
+                pos++;
+                return new CharSetAst(DOT);
+            } else if (c == '\\') {
+                return new CharSetAst(parseEscape(false));
+            } else if (c == '^' || c == '$' || c == '{' || c == '*' || c == '+' || c == '?') {
+                throw new UnsupportedException();
+            } else if (Character.isSurrogate(c)) {
+                throw new UnsupportedException();
+            } else {
+                pos++;
+                return new CharSetAst(new int[] { c, c });
+            }
+        }
+
+        private int[] parseClass() throws UnsupportedException {
+            pos++; // [
+            boolean negate = false;
+            if (pos < text.length() && text.charAt(pos) == '^') {
+                negate = true;
+                pos++;
+            }
+            if (pos < text.length() && text.charAt(pos) == ']') {
+                throw new UnsupportedException();
+            }
+            List<int[]> parts = new ArrayList<>();
+            while (true) {
+                if (pos >= text.length()) {
+                    throw new UnsupportedException();
+                }
+                char c = text.charAt(pos);
+                if (c == ']') {
+                    pos++;
+                    break;
+                }
+                if (c == '[' || text.startsWith("&&", pos) || Character.isSurrogate(c)) {
+                    throw new UnsupportedException();
+                }
+                int[] item;
+                if (c == '\\') {
+                    item = parseEscape(true);
+                } else {
+                    pos++;
+                    item = new int[] { c, c };
+                }
+                boolean single = item.length == 2 && item[0] == item[1];
+                if (single && pos + 1 < text.length() && text.charAt(pos) == '-' && text.charAt(pos + 1) != ']') {
+                    pos++;
+                    char next = text.charAt(pos);
+                    int[] to;
+                    if (next == '\\') {
+                        to = parseEscape(true);
+                    } else if (next == '[' || Character.isSurrogate(next)) {
+                        throw new UnsupportedException();
+                    } else {
+                        pos++;
+                        to = new int[] { next, next };
+                    }
+                    if (to.length != 2 || to[0] != to[1] || to[0] < item[0]) {
+                        throw new UnsupportedException();
+                    }
+                    item = new int[] { item[0], to[0] };
+                }
+                parts.add(item);
+            }
+            int[] result = union(parts);
+            return negate ? complement(result) : result;
+        }
+
+        private int[] parseEscape(boolean inClass) throws UnsupportedException {
+            pos++; // \
+            if (pos >= text.length()) {
+                throw new UnsupportedException();
+            }
+            char c = text.charAt(pos++);
+            switch (c) {
+            case 'd':
+                return DIGIT;
+            case 'D':
+                return complement(DIGIT);
+            case 'w':
+                return WORD;
+            case 'W':
+                return complement(WORD);
+            case 's':
+                return SPACE;
+            case 'S':
+                return complement(SPACE);
+            case 't':
+                return single('\t');
+            case 'n':
+                return single('\n');
+            case 'r':
+                return single('\r');
+            case 'f':
+                return single('\f');
+            case 'a':
+                return single('\u0007');
+            case 'e':
+                return single('\u001B');
+            case 'x':
+                return single(parseHex(2));
+            case 'u':
+                return single(parseHex(4));
+            default:
+                if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                    // \b \B \A \z \Z \G \p{..} 反向引用 八进制等
+                    throw new UnsupportedException();
+                }
+                if (Character.isSurrogate(c)) {
+                    throw new UnsupportedException();
+                }
+                return single(c);
+            }
+        }
+
+        private char parseHex(int digits) throws UnsupportedException {
+            if (pos + digits > text.length()) {
+                throw new UnsupportedException();
+            }
+            try {
+                char c = (char) Integer.parseInt(text.substring(pos, pos + digits), 16);
+                pos += digits;
+                if (Character.isSurrogate(c)) {
+                    throw new UnsupportedException();
+                }
+                return c;
+            } catch (NumberFormatException e) {
+                throw new UnsupportedException();
+            }
+        }
+
+        private static int[] single(char c) {
+            return new int[] { c, c };
+        }
+    }
+
+    /** 合并多个字符范围 **/
+    private static int[] union(List<int[]> parts) {
+        List<int[]> pairs = new ArrayList<>();
+        for (int[] part : parts) {
+            for (int i = 0; i < part.length; i += 2) {
+                pairs.add(new int[] { part[i], part[i + 1] });
+            }
+        }
+        java.util.Collections.sort(pairs, new java.util.Comparator<int[]>() {
+
+            @Override
+            public int compare(int[] a, int[] b) {
+                return a[0] < b[0] ? -1 : (a[0] == b[0] ? 0 : 1);
+            }
+        });
+        List<Integer> result = new ArrayList<>();
+        for (int[] pair : pairs) {
+            int size = result.size();
+            if (size > 0 && pair[0] <= result.get(size - 1) + 1) {
+                result.set(size - 1, Math.max(result.get(size - 1), pair[1]));
+            } else {
+                result.add(pair[0]);
+                result.add(pair[1]);
+            }
+        }
+        return toArray(result);
+    }
+
+    /** 字符范围取反 **/
+    private static int[] complement(int[] ranges) {
+        List<Integer> result = new ArrayList<>();
+        int next = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (ranges[i] > next) {
+                result.add(next);
+                result.add(ranges[i] - 1);
+            }
+            next = ranges[i + 1] + 1;
+        }
+        if (next <= MAX_CHAR) {
+            result.add(next);
+            result.add(MAX_CHAR);
+        }
+        return toArray(result);
+    }
+}
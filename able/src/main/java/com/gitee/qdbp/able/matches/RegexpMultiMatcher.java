@@ -0,0 +1,171 @@
+package com.gitee.qdbp.able.matches;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Pattern;
+import com.gitee.qdbp.tools.utils.VerifyTools;
+
+/**
+ * 多个正则表达式的合并匹配, 任一规则匹配即为匹配(OR), 每个规则的判断方式与RegexpStringMatcher相同(find)<br>
+ * 能转换为DFA的规则(见RegexpAutomaton)合并为一个自动机, 一次扫描判断全部规则, 不会回溯<br>
+ * 其余规则逐一使用java.util.regex判断; 可以设置回溯上限(backtrackLimit, 默认不限制), 超过上限时抛出IllegalStateException<br>
+ * findRule()返回第一个匹配的规则的序号, 与按顺序逐一判断的结果一致; 每个规则被返回的次数记录在getHitCounts()中
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class RegexpMultiMatcher implements StringMatcher {
+
+    /** 默认的回溯上限: 0表示不限制, 与java.util.regex的结果一致 **/
+    public static final int DEFAULT_BACKTRACK_LIMIT = 0;
+
+    private final List<Pattern> patterns;
+    /** 能转换为DFA的规则合并而成的自动机, 没有这样的规则时为null **/
+    private final RegexpAutomaton automaton;
+    /** 不能转换为DFA的规则的序号 **/
+    private final int[] backtracking;
+    /** 每个规则的命中次数 **/
+    private final AtomicLongArray hitCounts;
+    /** 回溯上限: 平均每个字符允许读取的次数, 0表示不限制 **/
+    private volatile int backtrackLimit = DEFAULT_BACKTRACK_LIMIT;
+
+    public RegexpMultiMatcher(String... patterns) {
+        this(compile(patterns));
+    }
+
+    public RegexpMultiMatcher(List<Pattern> patterns) {
+        VerifyTools.requireNotBlank(patterns, "patterns");
+        this.patterns = Collections.unmodifiableList(new ArrayList<>(patterns));
+        List<RegexpAutomaton.Parsed> parsed = new ArrayList<>();
+        int[] dfaIndexes = new int[patterns.size()];
+        int[] backtracking = new int[patterns.size()];
+        int dfaCount = 0;
+        int backtrackingCount = 0;
+        for (int i = 0; i < patterns.size(); i++) {
+            RegexpAutomaton.Parsed item = RegexpAutomaton.parse(patterns.get(i));
+            if (item == null) {
+                backtracking[backtrackingCount++] = i;
+            } else {
+                parsed.add(item);
+                dfaIndexes[dfaCount++] = i;
+            }
+        }
+        this.automaton = dfaCount == 0 ? null : new RegexpAutomaton(parsed, Arrays.copyOf(dfaIndexes, dfaCount));
+        this.backtracking = Arrays.copyOf(backtracking, backtrackingCount);
+        this.hitCounts = new AtomicLongArray(patterns.size());
+    }
+
+    private static List<Pattern> compile(String... patterns) {
+        VerifyTools.requireNotBlank(patterns, "patterns");
+        List<Pattern> list = new ArrayList<>();
+        for (String pattern : patterns) {
+            list.add(Pattern.compile(pattern));
+        }
+        return list;
+    }
+
+    /**
+     * 判断是否有规则匹配
+     *
+     * @param source 字符串
+     * @return 是否匹配
+     * @throws IllegalStateException 设置了回溯上限, 且java.util.regex判断的规则超过上限
+     */
+    @Override
+    public boolean matches(String source) {
+        return findRule(source) >= 0;
+    }
+
+    /**
+     * 查找第一个匹配的规则
+     *
+     * @param source 字符串
+     * @return 规则序号, 全部未匹配时返回-1
+     * @throws IllegalStateException 设置了回溯上限, 且java.util.regex判断的规则超过上限
+     */
+    public int findRule(String source) {
+        int index = findRule(source, patterns.size());
+        if (index >= 0) {
+            hitCounts.incrementAndGet(index);
+        }
+        return index;
+    }
+
+    /** 查找序号小于limit的规则中第一个匹配的, 不记录命中次数 **/
+    int findRule(String source, int limit) {
+        int best = -1;
+        if (automaton != null) {
+            best = automaton.find(source, limit, false);
+            if (best == RegexpAutomaton.UNKNOWN) {
+                // 含有代理字符, 全部规则逐一判断
+                for (int i = 0; i < limit; i++) {
+                    if (BacktrackGuard.find(patterns.get(i), source, backtrackLimit)) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+        }
+        int end = best < 0 ? limit : best;
+        for (int i : backtracking) {
+            if (i >= end) {
+                break;
+            }
+            if (BacktrackGuard.find(patterns.get(i), source, backtrackLimit)) {
+                return i;
+            }
+        }
+        return best;
+    }
+
+    /** 正则表达式列表 **/
+    public List<Pattern> getPatterns() {
+        return patterns;
+    }
+
+    /** 不能转换为DFA, 需要使用java.util.regex判断的规则的序号 **/
+    public int[] getBacktrackingRules() {
+        return backtracking.clone();
+    }
+
+    /** 每个规则的命中次数 **/
+    public long[] getHitCounts() {
+        long[] counts = new long[hitCounts.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = hitCounts.get(i);
+        }
+        return counts;
+    }
+
+    /** 清空命中次数 **/
+    public void resetHitCounts() {
+        for (int i = 0; i < hitCounts.length(); i++) {
+            hitCounts.set(i, 0);
+        }
+    }
+
+    /** 回溯上限: 平均每个字符允许读取的次数, 0表示不限制 **/
+    public int getBacktrackLimit() {
+        return backtrackLimit;
+    }
+
+    /** 回溯上限: 平均每个字符允许读取的次数, 0表示不限制 **/
+    public void setBacktrackLimit(int backtrackLimit) {
+        this.backtrackLimit = backtrackLimit;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buffer = new StringBuilder();
+        for (Pattern pattern : patterns) {
+            if (buffer.length() > 0) {
+                buffer.append(" OR ");
+            }
+            buffer.append("regexp:").append(pattern.pattern());
+        }
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,326 @@
+package com.gitee.qdbp.able.matches;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import com.gitee.qdbp.tools.utils.VerifyTools;
+
+/**
+ * 多个正则表达式的合并替换<br>
+ * 与依次调用多个RegexpStringReplacer不同, 这里只生成一次结果字符串, 规则按匹配位置应用:<br>
+ * 从左到右查找, 所有规则中最靠前的匹配先替换(位置相同时序号小的规则优先), 替换后从匹配结束处继续查找<br>
+ * 因此后面的规则不会作用于前面规则的替换结果<br>
+ * 能转换为DFA的规则(见RegexpAutomaton)先合并扫描一次, 不存在匹配的规则直接跳过, 全部不匹配时返回原字符串<br>
+ * 可以设置java.util.regex匹配过程的回溯上限(backtrackLimit, 默认不限制), 超过上限时抛出IllegalStateException<br>
+ * 替换内容的格式与Matcher.appendReplacement()相同, 支持$n, ${name}和\转义; 每个规则的替换次数记录在getHitCounts()中
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class RegexpMultiReplacer implements StringReplacer {
+
+    private final List<Pattern> patterns;
+    private final List<String> replacements;
+    /** 解析后的替换内容 **/
+    private final List<Object[]> tokens;
+    /** 能转换为DFA的规则合并而成的自动机, 没有这样的规则时为null **/
+    private final RegexpAutomaton automaton;
+    /** 各规则是否能转换为DFA **/
+    private final boolean[] dfa;
+    /** 每个规则的替换次数 **/
+    private final AtomicLongArray hitCounts;
+    /** 回溯上限: 平均每个字符允许读取的次数, 0表示不限制 **/
+    private volatile int backtrackLimit = RegexpMultiMatcher.DEFAULT_BACKTRACK_LIMIT;
+
+    /**
+     * 构造函数
+     *
+     * @param patterns 正则表达式
+     * @param replacements 替换内容, 与正则表达式一一对应
+     */
+    public RegexpMultiReplacer(List<Pattern> patterns, List<String> replacements) {
+        VerifyTools.requireNotBlank(patterns, "patterns");
+        VerifyTools.requireNonNull(replacements, "replacements");
+        if (patterns.size() != replacements.size()) {
+            String msg = "patterns.size(" + patterns.size() + ") != replacements.size(" + replacements.size() + ")";
+            throw new IllegalArgumentException(msg);
+        }
+        this.patterns = Collections.unmodifiableList(new ArrayList<>(patterns));
+        this.replacements = Collections.unmodifiableList(new ArrayList<>(replacements));
+        this.tokens = new ArrayList<>();
+        this.dfa = new boolean[patterns.size()];
+        List<RegexpAutomaton.Parsed> parsed = new ArrayList<>();
+        int[] dfaIndexes = new int[patterns.size()];
+        int dfaCount = 0;
+        for (int i = 0; i < patterns.size(); i++) {
+            Pattern pattern = patterns.get(i);
+            String replacement = replacements.get(i);
+            VerifyTools.requireNonNull(replacement, "replacement");
+            tokens.add(parseReplacement(pattern, replacement));
+            RegexpAutomaton.Parsed item = RegexpAutomaton.parse(pattern);
+            if (item != null) {
+                parsed.add(item);
+                dfaIndexes[dfaCount++] = i;
+                dfa[i] = true;
+            }
+        }
+        this.automaton = dfaCount == 0 ? null : new RegexpAutomaton(parsed, Arrays.copyOf(dfaIndexes, dfaCount));
+        this.hitCounts = new AtomicLongArray(patterns.size());
+    }
+
+    /**
+     * 由多个RegexpStringReplacer的规则生成
+     *
+     * @param replacers 替换规则
+     * @return RegexpMultiReplacer
+     */
+    public static RegexpMultiReplacer of(RegexpStringReplacer... replacers) {
+        VerifyTools.requireNotBlank(replacers, "replacers");
+        List<Pattern> patterns = new ArrayList<>();
+        List<String> replacements = new ArrayList<>();
+        for (RegexpStringReplacer replacer : replacers) {
+            patterns.add(replacer.getPattern());
+            replacements.add(replacer.getReplacement());
+        }
+        return new RegexpMultiReplacer(patterns, replacements);
+    }
+
+    /**
+     * 替换字符串
+     *
+     * @param string 待替换的源字符串
+     * @return 替换后的字符串
+     * @throws IllegalStateException 设置了回溯上限, 且java.util.regex判断的规则超过上限
+     */
+    @Override
+    public String replace(String string) {
+        int size = patterns.size();
+        boolean[] active = new boolean[size];
+        int activeCount = 0;
+        boolean known = automaton == null || automaton.findAll(string, active);
+        for (int i = 0; i < size; i++) {
+            if (!known || !dfa[i]) {
+                active[i] = true; // 需要由java.util.regex判断
+            }
+            if (active[i]) {
+                activeCount++;
+            }
+        }
+        if (activeCount == 0) {
+            return string;
+        }
+        try {
+            return doReplace(string, active, activeCount);
+        } catch (BacktrackGuard.LimitExceededException e) {
+            throw new IllegalStateException("Regexp backtracking limit exceeded: " + this.toString());
+        }
+    }
+
+    private String doReplace(String string, boolean[] active, int activeCount) {
+        int length = string.length();
+        CharSequence input = backtrackLimit <= 0 ? string : new BacktrackGuard(string, backtrackLimit);
+        // 各规则的Matcher及其下一个匹配的开始位置, -1表示已无匹配
+        int[] rules = new int[activeCount];
+        Matcher[] matchers = new Matcher[activeCount];
+        int[] starts = new int[activeCount];
+        int count = 0;
+        for (int i = 0; i < active.length; i++) {
+            if (active[i]) {
+                rules[count] = i;
+                matchers[count] = patterns.get(i).matcher(input);
+                starts[count] = matchers[count].find() ? matchers[count].start() : -1;
+                count++;
+            }
+        }
+
+        StringBuilder buffer = null;
+        int copied = 0;
+        while (true) {
+            // 最靠前的匹配, 位置相同时序号小的规则优先(rules按序号排列)
+            int current = -1;
+            for (int i = 0; i < count; i++) {
+                if (starts[i] >= 0 && (current < 0 || starts[i] < starts[current])) {
+                    current = i;
+                }
+            }
+            if (current < 0) {
+                break;
+            }
+            Matcher matcher = matchers[current];
+            int start = matcher.start();
+            int end = matcher.end();
+            if (buffer == null) {
+                buffer = new StringBuilder(length + 16);
+            }
+            buffer.append(string, copied, start);
+            appendReplacement(buffer, matcher, tokens.get(rules[current]));
+            hitCounts.incrementAndGet(rules[current]);
+
+            int next = end;
+            copied = end;
+            if (end == start) {
+                // 空匹配, 原样保留下一个字符, 从下一个字符之后继续查找
+                if (end < length) {
+                    buffer.append(string.charAt(end));
+                }
+                copied = end + 1;
+                next = end + 1;
+            }
+            for (int i = 0; i < count; i++) {
+                if (starts[i] >= 0 && starts[i] < next) {
+                    starts[i] = next <= length && matchers[i].find(next) ? matchers[i].start() : -1;
+                }
+            }
+        }
+        if (buffer == null) {
+            return string;
+        }
+        if (copied < length) {
+            buffer.append(string, copied, length);
+        }
+        return buffer.toString();
+    }
+
+    /** 与Matcher.appendReplacement()的规则相同 **/
+    private static void appendReplacement(StringBuilder buffer, Matcher matcher, Object[] tokens) {
+        for (Object token : tokens) {
+            String value;
+            if (token instanceof Integer) {
+                value = matcher.group((Integer) token);
+            } else if (token instanceof GroupName) {
+                value = matcher.group(((GroupName) token).name);
+            } else {
+                value = (String) token;
+            }
+            if (value != null) {
+                buffer.append(value);
+            }
+        }
+    }
+
+    /** 解析替换内容: 普通字符串(String), 分组序号(Integer), 分组名称(GroupName) **/
+    private static Object[] parseReplacement(Pattern pattern, String replacement) {
+        int groupCount = pattern.matcher("").groupCount();
+        List<Object> tokens = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        int i = 0;
+        while (i < replacement.length()) {
+            char c = replacement.charAt(i);
+            if (c == '\\') {
+                i++;
+                if (i == replacement.length()) {
+                    throw new IllegalArgumentException("character to be escaped is missing: " + replacement);
+                }
+                text.append(replacement.charAt(i++));
+            } else if (c == '$') {
+                i++;
+                if (i == replacement.length()) {
+                    throw new IllegalArgumentException("Illegal group reference: group index is missing");
+                }
+                if (text.length() > 0) {
+                    tokens.add(text.toString());
+                    text.setLength(0);
+                }
+                if (replacement.charAt(i) == '{') {
+                    int close = replacement.indexOf('}', i);
+                    if (close < 0) {
+                        throw new IllegalArgumentException("named capturing group is missing trailing '}'");
+                    }
+                    tokens.add(new GroupName(replacement.substring(i + 1, close)));
+                    i = close + 1;
+                } else {
+                    int ref = replacement.charAt(i) - '0';
+                    if (ref < 0 || ref > 9) {
+                        throw new IllegalArgumentException("Illegal group reference: " + replacement);
+                    }
+                    i++;
+                    // 与Matcher一致: 尽量多读数字, 但不能超过分组数量
+                    while (i < replacement.length()) {
+                        int digit = replacement.charAt(i) - '0';
+                        if (digit < 0 || digit > 9) {
+                            break;
+                        }
+                        int newRef = ref * 10 + digit;
+                        if (groupCount < newRef) {
+                            break;
+                        }
+                        ref = newRef;
+                        i++;
+                    }
+                    if (ref > groupCount) {
+                        throw new IllegalArgumentException("No group " + ref + ": " + pattern.pattern());
+                    }
+                    tokens.add(ref);
+                }
+            } else {
+                text.append(c);
+                i++;
+            }
+        }
+        if (text.length() > 0) {
+            tokens.add(text.toString());
+        }
+        return tokens.toArray();
+    }
+
+    /** 正则表达式列表 **/
+    public List<Pattern> getPatterns() {
+        return patterns;
+    }
+
+    /** 替换内容列表 **/
+    public List<String> getReplacements() {
+        return replacements;
+    }
+
+    /** 每个规则的替换次数 **/
+    public long[] getHitCounts() {
+        long[] counts = new long[hitCounts.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = hitCounts.get(i);
+        }
+        return counts;
+    }
+
+    /** 清空替换次数 **/
+    public void resetHitCounts() {
+        for (int i = 0; i < hitCounts.length(); i++) {
+            hitCounts.set(i, 0);
+        }
+    }
+
+    /** 回溯上限: 平均每个字符允许读取的次数, 0表示不限制 **/
+    public int getBacktrackLimit() {
+        return backtrackLimit;
+    }
+
+    /** 回溯上限: 平均每个字符允许读取的次数, 0表示不限制 **/
+    public void setBacktrackLimit(int backtrackLimit) {
+        this.backtrackLimit = backtrackLimit;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < patterns.size(); i++) {
+            if (buffer.length() > 0) {
+                buffer.append(", ");
+            }
+            buffer.append("regexp:").append(patterns.get(i).pattern()).append(" --> ").append(replacements.get(i));
+        }
+        return buffer.toString();
+    }
+
+    private static class GroupName {
+
+        private final String name;
+
+        public GroupName(String name) {
+            this.name = name;
+        }
+    }
+}
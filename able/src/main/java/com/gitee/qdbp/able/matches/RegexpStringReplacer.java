@@ -53,6 +53,16 @@ public class RegexpStringReplacer implements StringReplacer {
         return pattern.matcher(string).replaceAll(replacement);
     }
 
+    /** 匹配规则 **/
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    /** 替换内容 **/
+    public String getReplacement() {
+        return replacement;
+    }
+
     @Override
     public String toString() {
         return "regexp:" + pattern + " --> " + replacement;
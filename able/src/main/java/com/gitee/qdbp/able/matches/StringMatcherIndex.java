@@ -0,0 +1,375 @@
+package com.gitee.qdbp.able.matches;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import com.gitee.qdbp.able.matches.StringMatcher.Matches;
+import com.gitee.qdbp.tools.utils.StringTools;
+
+/**
+ * 多个StringMatcher的索引<br>
+ * equals规则放入哈希表, starts规则放入前缀树, ends规则放入后缀树, contains规则放入AC自动机<br>
+ * ant规则按开头的固定路径段放入路径段前缀树, 只用于筛选候选规则, 候选规则仍由AntStringMatcher判断<br>
+ * regexp规则合并为RegexpMultiMatcher, 能转换为DFA的规则一次扫描判断<br>
+ * 只有肯定模式的规则才能放入索引, 否定模式和自定义规则由调用方逐一判断<br>
+ * 查找结果是匹配的规则中序号最小的一个, 与按顺序逐一判断时第一个匹配的规则一致
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+class StringMatcherIndex {
+
+    /** equals规则: 匹配规则 - 序号 **/
+    private final Map<String, Integer> equalsIndex = new HashMap<>();
+    /** starts规则 **/
+    private final CharTrie prefixTrie = new CharTrie();
+    /** ends规则(反向插入) **/
+    private final CharTrie suffixTrie = new CharTrie();
+    /** contains规则 **/
+    private final AhoCorasick containsIndex = new AhoCorasick();
+    /** ant规则 **/
+    private final SegmentTrie antIndex = new SegmentTrie();
+    /** regexp规则 **/
+    private final List<Pattern> regexpPatterns = new ArrayList<>();
+    /** regexp规则的序号 **/
+    private final List<Integer> regexpIndexes = new ArrayList<>();
+    private RegexpMultiMatcher regexpIndex;
+
+    /**
+     * 添加规则
+     *
+     * @param index 规则序号
+     * @param matcher 匹配规则
+     * @return 是否已放入索引, 返回false表示需要调用方逐一判断
+     */
+    public boolean add(int index, StringMatcher matcher) {
+        if (matcher instanceof EqualsStringMatcher) {
+            EqualsStringMatcher m = (EqualsStringMatcher) matcher;
+            if (m.getMode() != Matches.Positive) {
+                return false;
+            }
+            if (!equalsIndex.containsKey(m.getPattern())) {
+                equalsIndex.put(m.getPattern(), index);
+            }
+            return true;
+        } else if (matcher instanceof StartsStringMatcher) {
+            StartsStringMatcher m = (StartsStringMatcher) matcher;
+            if (m.getMode() != Matches.Positive) {
+                return false;
+            }
+            prefixTrie.add(m.getPattern(), false, index);
+            return true;
+        } else if (matcher instanceof EndsStringMatcher) {
+            EndsStringMatcher m = (EndsStringMatcher) matcher;
+            if (m.getMode() != Matches.Positive) {
+                return false;
+            }
+            suffixTrie.add(m.getPattern(), true, index);
+            return true;
+        } else if (matcher instanceof ContainsStringMatcher) {
+            ContainsStringMatcher m = (ContainsStringMatcher) matcher;
+            if (m.getMode() != Matches.Positive) {
+                return false;
+            }
+            containsIndex.add(m.getPattern(), index);
+            return true;
+        } else if (matcher instanceof AntStringMatcher) {
+            AntStringMatcher m = (AntStringMatcher) matcher;
+            // fullMatch=false时, 路径比规则短也可能匹配, 不能按固定路径段筛选
+            if (m.getMode() != Matches.Positive || !m.isFullMatch()
+                    || m.getPathSeparator() != AntStringMatcher.DEFAULT_PATH_SEPARATOR) {
+                return false;
+            }
+            antIndex.add(m, index);
+            return true;
+        } else if (matcher instanceof RegexpStringMatcher) {
+            RegexpStringMatcher m = (RegexpStringMatcher) matcher;
+            if (m.getMode() != Matches.Positive) {
+                return false;
+            }
+            regexpPatterns.add(m.getPattern());
+            regexpIndexes.add(index);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /** 全部规则添加完成之后调用, 生成AC自动机的失败指针和regexp自动机 **/
+    public void build() {
+        containsIndex.build();
+        if (!regexpPatterns.isEmpty()) {
+            regexpIndex = new RegexpMultiMatcher(regexpPatterns);
+            // 与逐一判断的结果保持一致, 不限制回溯
+            regexpIndex.setBacktrackLimit(0);
+        }
+    }
+
+    /**
+     * 查找匹配的规则
+     *
+     * @param source 字符串
+     * @param limit 只查找序号小于limit的规则
+     * @return 匹配的规则中最小的序号, 未找到时返回-1
+     */
+    public int find(String source, int limit) {
+        if (source == null) {
+            return -1;
+        }
+        int best = limit;
+        Integer equals = equalsIndex.get(source);
+        if (equals != null && equals < best) {
+            best = equals;
+        }
+        best = prefixTrie.find(source, false, best);
+        best = suffixTrie.find(source, true, best);
+        best = containsIndex.find(source, best);
+        best = antIndex.find(source, best);
+        best = findRegexp(source, best);
+        return best < limit ? best : -1;
+    }
+
+    private int findRegexp(String source, int limit) {
+        if (regexpIndex == null) {
+            return limit;
+        }
+        // 序号小于limit的regexp规则的数量
+        int count = 0;
+        while (count < regexpIndexes.size() && regexpIndexes.get(count) < limit) {
+            count++;
+        }
+        int i = regexpIndex.findRule(source, count);
+        return i < 0 ? limit : regexpIndexes.get(i);
+    }
+
+    /** 字符前缀树 **/
+    private static class CharTrie {
+
+        private final CharNode root = new CharNode();
+
+        public void add(String text, boolean reverse, int index) {
+            CharNode node = root;
+            int length = text.length();
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(reverse ? length - 1 - i : i);
+                node = node.getOrCreateChild(c);
+            }
+            if (node.index < 0) {
+                node.index = index;
+            }
+        }
+
+        public int find(String source, boolean reverse, int limit) {
+            int best = limit;
+            CharNode node = root;
+            int length = source.length();
+            for (int i = 0; node != null; i++) {
+                if (node.index >= 0 && node.index < best) {
+                    best = node.index;
+                }
+                if (i == length) {
+                    break;
+                }
+                node = node.getChild(source.charAt(reverse ? length - 1 - i : i));
+            }
+            return best;
+        }
+    }
+
+    private static class CharNode {
+
+        private Map<Character, CharNode> children;
+        /** 以此节点结尾的规则序号, -1表示没有 **/
+        private int index = -1;
+        /** AC自动机的失败指针 **/
+        private CharNode fail;
+        /** AC自动机: 此节点及其失败链上的规则中最小的序号 **/
+        private int output = -1;
+
+        public CharNode getChild(char c) {
+            return children == null ? null : children.get(c);
+        }
+
+        public CharNode getOrCreateChild(char c) {
+            if (children == null) {
+                children = new HashMap<>();
+            }
+            CharNode child = children.get(c);
+            if (child == null) {
+                child = new CharNode();
+                children.put(c, child);
+            }
+            return child;
+        }
+    }
+
+    /** Aho-Corasick自动机, 一次扫描找出包含的全部规则 **/
+    private static class AhoCorasick {
+
+        private final CharTrie trie = new CharTrie();
+        /** 全部规则中最小的序号, 找到之后可以提前结束扫描 **/
+        private int minIndex = -1;
+
+        public void add(String text, int index) {
+            trie.add(text, false, index);
+            if (minIndex < 0 || index < minIndex) {
+                minIndex = index;
+            }
+        }
+
+        public void build() {
+            CharNode root = trie.root;
+            root.output = root.index;
+            LinkedList<CharNode> queue = new LinkedList<>();
+            if (root.children != null) {
+                for (CharNode child : root.children.values()) {
+                    child.fail = root;
+                    child.output = min(child.index, root.output);
+                    queue.add(child);
+                }
+            }
+            while (!queue.isEmpty()) {
+                CharNode node = queue.removeFirst();
+                if (node.children == null) {
+                    continue;
+                }
+                for (Map.Entry<Character, CharNode> entry : node.children.entrySet()) {
+                    char c = entry.getKey();
+                    CharNode child = entry.getValue();
+                    CharNode fail = node.fail;
+                    while (fail != root && fail.getChild(c) == null) {
+                        fail = fail.fail;
+                    }
+                    CharNode target = fail.getChild(c);
+                    child.fail = target == null || target == child ? root : target;
+                    child.output = min(child.index, child.fail.output);
+                    queue.add(child);
+                }
+            }
+        }
+
+        public int find(String source, int limit) {
+            if (minIndex < 0 || minIndex >= limit) {
+                return limit;
+            }
+            CharNode root = trie.root;
+            int best = limit;
+            if (root.output >= 0 && root.output < best) {
+                best = root.output;
+            }
+            CharNode node = root;
+            for (int i = 0, length = source.length(); i < length && best > minIndex; i++) {
+                char c = source.charAt(i);
+                while (node != root && node.getChild(c) == null) {
+                    node = node.fail;
+                }
+                CharNode next = node.getChild(c);
+                node = next == null ? root : next;
+                if (node.output >= 0 && node.output < best) {
+                    best = node.output;
+                }
+            }
+            return best;
+        }
+
+        private static int min(int a, int b) {
+            if (a < 0) return b;
+            if (b < 0) return a;
+            return Math.min(a, b);
+        }
+    }
+
+    /**
+     * ant规则的路径段前缀树<br>
+     * 规则开头的固定路径段(不含*和?)作为树的路径, 规则挂在最后一个固定路径段的节点上<br>
+     * 全部匹配模式下, 规则能匹配的路径, 开头的路径段必然与这些固定路径段相同(与AntStringMatcher一致, 路径段先trim再比较)
+     */
+    private static class SegmentTrie {
+
+        private final SegmentNode root = new SegmentNode();
+
+        public void add(AntStringMatcher matcher, int index) {
+            String[] dirs = StringTools.split(matcher.getPattern(), AntStringMatcher.DEFAULT_PATH_SEPARATOR);
+            SegmentNode node = root;
+            for (String dir : dirs) {
+                if (dir.indexOf('*') >= 0 || dir.indexOf('?') >= 0) {
+                    break;
+                }
+                node = node.getOrCreateChild(dir);
+            }
+            node.addCandidate(matcher, index);
+        }
+
+        public int find(String source, int limit) {
+            int best = checkCandidates(root, source, limit);
+            int length = source.length();
+            if (length == 0) {
+                return best;
+            }
+            SegmentNode node = root;
+            int start = 0;
+            while (node.children != null && start <= length) {
+                int end = source.indexOf(AntStringMatcher.DEFAULT_PATH_SEPARATOR, start);
+                if (end < 0) {
+                    end = length;
+                }
+                node = node.children.get(source.substring(start, end).trim());
+                if (node == null) {
+                    break;
+                }
+                best = checkCandidates(node, source, best);
+                start = end + 1;
+            }
+            return best;
+        }
+
+        private int checkCandidates(SegmentNode node, String source, int limit) {
+            if (node.candidates == null) {
+                return limit;
+            }
+            // 候选规则按序号从小到大排列, 第1个匹配的就是这个节点上序号最小的
+            for (int i = 0, size = node.candidates.size(); i < size; i++) {
+                int index = node.indexes.get(i);
+                if (index >= limit) {
+                    break;
+                }
+                if (node.candidates.get(i).matches(source)) {
+                    return index;
+                }
+            }
+            return limit;
+        }
+    }
+
+    private static class SegmentNode {
+
+        private Map<String, SegmentNode> children;
+        private List<AntStringMatcher> candidates;
+        private List<Integer> indexes;
+
+        public SegmentNode getOrCreateChild(String segment) {
+            if (children == null) {
+                children = new HashMap<>();
+            }
+            SegmentNode child = children.get(segment);
+            if (child == null) {
+                child = new SegmentNode();
+                children.put(segment, child);
+            }
+            return child;
+        }
+
+        /** 调用方按序号从小到大添加 **/
+        public void addCandidate(AntStringMatcher matcher, int index) {
+            if (candidates == null) {
+                candidates = new ArrayList<>();
+                indexes = new ArrayList<>();
+            }
+            candidates.add(matcher);
+            indexes.add(index);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.gitee.qdbp.able.matches;
 
 import java.io.File;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.List;
 import com.gitee.qdbp.able.matches.StringMatcher.LogicType;
@@ -15,7 +16,7 @@ import com.gitee.qdbp.tools.utils.VerifyTools;
  * @version 20200816
  * @since 5.1.0
  */
-public class WrapFileMatcher implements FileMatcher {
+public class WrapFileMatcher implements FileAttributesMatcher {
 
     private List<FileMatcher> matchers;
     /** 多个匹配规则使用and还是or关联 **/
@@ -43,13 +44,23 @@ public class WrapFileMatcher implements FileMatcher {
 
     @Override
     public boolean matches(File file) {
+        return matches(file, null);
+    }
+
+    @Override
+    public boolean matches(File file, BasicFileAttributes attrs) {
         if (this.matchers == null) {
             // matchers=null和matchers是空数组效果一致
             return this.logicType == LogicType.AND ? true : false;
         }
 
         for (FileMatcher matcher : this.matchers) {
-            boolean matches = matcher.matches(file);
+            boolean matches;
+            if (attrs != null && matcher instanceof FileAttributesMatcher) {
+                matches = ((FileAttributesMatcher) matcher).matches(file, attrs);
+            } else {
+                matches = matcher.matches(file);
+            }
             if (this.logicType == LogicType.AND) {
                 if (!matches) {
                     // AND说明必须所有的全部匹配才返回true, 那么遇到不匹配的就直接返回false
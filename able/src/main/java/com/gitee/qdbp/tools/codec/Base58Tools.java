@@ -1,6 +1,18 @@
 package com.gitee.qdbp.tools.codec;
 
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import com.gitee.qdbp.tools.utils.VerifyTools;
 
 /**
  * Base58是源于比特币的一种特殊编码方式, 最初设计用于产生比特币钱包地址<br>
@@ -21,6 +33,12 @@ public class Base58Tools {
     private static final char[] ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz".toCharArray();
     private static final char ENCODED_ZERO = ALPHABET[0];
     private static final int[] INDEXES = new int[128];
+    /** 每块的字符数 **/
+    private static final int BLOCK_DIGITS = 5;
+    /** 58的0~5次方 **/
+    private static final long[] POWERS = { 1L, 58L, 58L * 58, 58L * 58 * 58, 58L * 58 * 58 * 58, 58L * 58 * 58 * 58 * 58 };
+    /** 58^5, 小于2^30, 与2^32相乘不会超出long的范围 **/
+    private static final long BLOCK_BASE = POWERS[BLOCK_DIGITS];
 
     static {
         Arrays.fill(INDEXES, -1);
@@ -34,33 +52,177 @@ public class Base58Tools {
         if (input.length == 0) {
             return "";
         }
+        char[] encoded = new char[getMaxEncodedLength(input.length)];
+        int outputStart = encodeToEnd(input, 0, input.length, encoded, 0, encoded.length);
+        // 返回Base58
+        return new String(encoded, outputStart, encoded.length - outputStart);
+    }
+
+    /**
+     * Base58编码, 写入调用方提供的char数组
+     *
+     * @param input 源数据
+     * @param offset 开始位置
+     * @param length 字节数
+     * @param target 目标数组, 剩余空间不能小于编码后的字符数;
+     *        剩余空间不小于getMaxEncodedLength(length)时直接在目标数组中计算, 不再分配临时的char数组
+     * @param targetOffset 目标数组的开始位置
+     * @return 写入的字符数
+     */
+    public static int encode(byte[] input, int offset, int length, char[] target, int targetOffset) {
+        if (length == 0) {
+            return 0;
+        }
+        int max = getMaxEncodedLength(length);
+        if (target.length - targetOffset >= max) {
+            int outputStart = encodeToEnd(input, offset, length, target, targetOffset, targetOffset + max);
+            int count = targetOffset + max - outputStart;
+            System.arraycopy(target, outputStart, target, targetOffset, count);
+            return count;
+        }
+        char[] encoded = new char[max];
+        int outputStart = encodeToEnd(input, offset, length, encoded, 0, max);
+        int count = max - outputStart;
+        if (target.length - targetOffset < count) {
+            throw new IllegalArgumentException("Target array is too small, required " + count + " chars");
+        }
+        System.arraycopy(encoded, outputStart, target, targetOffset, count);
+        return count;
+    }
+
+    /**
+     * Base58编码, 追加到Appendable(如StringBuilder/Writer)
+     *
+     * @param input 源数据
+     * @param offset 开始位置
+     * @param length 字节数
+     * @param target 目标
+     * @throws IOException 写入失败
+     */
+    public static void encode(byte[] input, int offset, int length, Appendable target) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        char[] encoded = new char[getMaxEncodedLength(length)];
+        int outputStart = encodeToEnd(input, offset, length, encoded, 0, encoded.length);
+        if (target instanceof StringBuilder) {
+            ((StringBuilder) target).append(encoded, outputStart, encoded.length - outputStart);
+        } else if (target instanceof Writer) {
+            ((Writer) target).write(encoded, outputStart, encoded.length - outputStart);
+        } else {
+            target.append(CharBuffer.wrap(encoded), outputStart, encoded.length);
+        }
+    }
+
+    /**
+     * ByteBuffer的剩余内容Base58编码为ASCII字符, 写入目标ByteBuffer
+     *
+     * @param input 源数据, 全部剩余内容将被读取
+     * @param target 目标, 剩余空间不能小于编码后的字符数
+     * @return 写入的字节数
+     * @throws BufferOverflowException 目标空间不足
+     */
+    public static int encode(ByteBuffer input, ByteBuffer target) {
+        int length = input.remaining();
+        if (length == 0) {
+            return 0;
+        }
+        byte[] bytes;
+        int offset;
+        if (input.hasArray()) {
+            bytes = input.array();
+            offset = input.arrayOffset() + input.position();
+        } else {
+            bytes = new byte[length];
+            offset = 0;
+            input.duplicate().get(bytes);
+        }
+        char[] encoded = new char[getMaxEncodedLength(length)];
+        int outputStart = encodeToEnd(bytes, offset, length, encoded, 0, encoded.length);
+        int count = encoded.length - outputStart;
+        if (target.remaining() < count) {
+            throw new BufferOverflowException();
+        }
+        for (int i = outputStart; i < encoded.length; i++) {
+            target.put((byte) encoded[i]);
+        }
+        input.position(input.limit());
+        return count;
+    }
+
+    /**
+     * Base58编码后的最大字符数
+     *
+     * @param length 源数据的字节数
+     * @return 最大字符数
+     */
+    public static int getMaxEncodedLength(int length) {
+        // log(256) / log(58) = 1.365..., 每个前导0编码为1个字符
+        return (int) (length * 138L / 100) + 1;
+    }
+
+    /**
+     * 编码结果写在encoded数组的[start, end)区间的末尾<br>
+     * 按块计算: 源数据每次取4个字节(2^32进制), 结果以58^5为一块(每块5个字符),
+     * 乘加运算用long完成, 循环次数约为逐字节divmod的1/20
+     *
+     * @return 编码结果的开始位置
+     */
+    private static int encodeToEnd(byte[] source, int offset, int length, char[] encoded, int start, int end) {
         // 统计前导0
         int zeros = 0;
-        while (zeros < input.length && input[zeros] == 0) {
+        while (zeros < length && source[offset + zeros] == 0) {
             ++zeros;
         }
-        // 复制一份进行修改
-        input = Arrays.copyOf(input, input.length);
-        // 最大编码数据长度
-        char[] encoded = new char[input.length * 2];
-        int outputStart = encoded.length;
-        // Base58编码正式开始
-        for (int inputStart = zeros; inputStart < input.length;) {
-            encoded[--outputStart] = ALPHABET[divmod(input, inputStart, 256, 58)];
-            if (input[inputStart] == 0) {
-                ++inputStart;
+        // 256进制转换为58^5进制, 低位在前
+        int count = length - zeros;
+        int[] blocks = new int[(int) (count * 138L / 100 / BLOCK_DIGITS) + 2];
+        int size = 0;
+        int position = offset + zeros;
+        int limit = offset + length;
+        // 第1组取余数个字节, 之后每组4个字节
+        int group = count % 4 == 0 ? 4 : count % 4;
+        while (position < limit) {
+            long carry = 0;
+            for (int i = 0; i < group; i++) {
+                carry = carry << 8 | (source[position++] & 0xFF);
+            }
+            int bits = group * 8;
+            for (int i = 0; i < size; i++) {
+                long temp = ((long) blocks[i] << bits) + carry;
+                blocks[i] = (int) (temp % BLOCK_BASE);
+                carry = temp / BLOCK_BASE;
             }
+            while (carry > 0) {
+                blocks[size++] = (int) (carry % BLOCK_BASE);
+                carry /= BLOCK_BASE;
+            }
+            group = 4;
         }
-        // 输出结果中有0,去掉输出结果的前端0
-        while (outputStart < encoded.length && encoded[outputStart] == ENCODED_ZERO) {
-            ++outputStart;
+        // 每块输出5个字符, 最高位的块不输出前面的0
+        int outputStart = end;
+        for (int i = 0; i < size; i++) {
+            int block = blocks[i];
+            if (i < size - 1) {
+                for (int j = 0; j < BLOCK_DIGITS; j++) {
+                    encoded[--outputStart] = ALPHABET[block % 58];
+                    block /= 58;
+                }
+            } else {
+                while (block > 0) {
+                    encoded[--outputStart] = ALPHABET[block % 58];
+                    block /= 58;
+                }
+            }
         }
         // 处理前导0
         while (--zeros >= 0) {
             encoded[--outputStart] = ENCODED_ZERO;
         }
-        // 返回Base58
-        return new String(encoded, outputStart, encoded.length - outputStart);
+        if (outputStart < start) {
+            throw new IllegalStateException("Base58 encoding overflow");
+        }
+        return outputStart;
     }
 
     /** Base58解码 **/
@@ -68,48 +230,269 @@ public class Base58Tools {
         if (input.length() == 0) {
             return new byte[0];
         }
-        // 将BASE58编码的ASCII字符转换为BASE58字节序列
-        byte[] input58 = new byte[input.length()];
-        for (int i = 0; i < input.length(); ++i) {
-            char c = input.charAt(i);
-            int digit = c < 128 ? INDEXES[c] : -1;
-            if (digit < 0) {
-                throw new RuntimeException("Invalid characters: " + c);
-            }
-            input58[i] = (byte) digit;
+        byte[] decoded = new byte[input.length()];
+        int outputStart = decodeToEnd(input, 0, input.length(), decoded, 0, decoded.length);
+        // 返回原始的字节数据
+        return Arrays.copyOfRange(decoded, outputStart, decoded.length);
+    }
+
+    /**
+     * Base58解码, 写入调用方提供的byte数组
+     *
+     * @param input Base58字符
+     * @param start 开始位置
+     * @param end 结束位置(不含)
+     * @param target 目标数组, 剩余空间不能小于解码后的字节数;
+     *        剩余空间不小于字符数时直接在目标数组中计算, 不再分配临时的byte数组
+     * @param targetOffset 目标数组的开始位置
+     * @return 写入的字节数
+     */
+    public static int decode(CharSequence input, int start, int end, byte[] target, int targetOffset) {
+        int length = end - start;
+        if (length == 0) {
+            return 0;
+        }
+        if (target.length - targetOffset >= length) {
+            int outputStart = decodeToEnd(input, start, end, target, targetOffset, targetOffset + length);
+            int count = targetOffset + length - outputStart;
+            System.arraycopy(target, outputStart, target, targetOffset, count);
+            return count;
         }
+        byte[] decoded = new byte[length];
+        int outputStart = decodeToEnd(input, start, end, decoded, 0, length);
+        int count = length - outputStart;
+        if (target.length - targetOffset < count) {
+            throw new IllegalArgumentException("Target array is too small, required " + count + " bytes");
+        }
+        System.arraycopy(decoded, outputStart, target, targetOffset, count);
+        return count;
+    }
+
+    /**
+     * Base58解码, 写入目标ByteBuffer
+     *
+     * @param input Base58字符
+     * @param target 目标, 剩余空间不能小于解码后的字节数
+     * @return 写入的字节数
+     * @throws BufferOverflowException 目标空间不足
+     */
+    public static int decode(CharSequence input, ByteBuffer target) {
+        int length = input.length();
+        if (length == 0) {
+            return 0;
+        }
+        if (target.hasArray() && target.remaining() >= length) {
+            int offset = target.arrayOffset() + target.position();
+            int count = decode(input, 0, length, target.array(), offset);
+            target.position(target.position() + count);
+            return count;
+        }
+        byte[] decoded = new byte[length];
+        int outputStart = decodeToEnd(input, 0, length, decoded, 0, length);
+        int count = length - outputStart;
+        if (target.remaining() < count) {
+            throw new BufferOverflowException();
+        }
+        target.put(decoded, outputStart, count);
+        return count;
+    }
+
+    /**
+     * 解码结果写在decoded数组的[begin, limit)区间的末尾<br>
+     * 按块计算: 每次取5个字符(58^5进制), 结果以2^32为一块, 乘加运算用long完成
+     *
+     * @return 解码结果的开始位置
+     */
+    private static int decodeToEnd(CharSequence input, int start, int end, byte[] decoded, int begin, int limit) {
         // 统计前导0
         int zeros = 0;
-        while (zeros < input58.length && input58[zeros] == 0) {
+        while (start + zeros < end && input.charAt(start + zeros) == ENCODED_ZERO) {
             ++zeros;
         }
-        // Base58 编码转 字节序(256进制)编码
-        byte[] decoded = new byte[input.length()];
-        int outputStart = decoded.length;
-        for (int inputStart = zeros; inputStart < input58.length;) {
-            decoded[--outputStart] = divmod(input58, inputStart, 58, 256);
-            if (input58[inputStart] == 0) {
-                ++inputStart;
+        // 58进制转换为2^32进制, 低位在前
+        int count = end - start - zeros;
+        int[] blocks = new int[(int) (count * 733L / 1000 / 4) + 2];
+        int size = 0;
+        int position = start + zeros;
+        // 第1组取余数个字符, 之后每组5个字符
+        int group = count % BLOCK_DIGITS == 0 ? BLOCK_DIGITS : count % BLOCK_DIGITS;
+        while (position < end) {
+            long carry = 0;
+            for (int i = 0; i < group; i++) {
+                char c = input.charAt(position++);
+                int digit = c < 128 ? INDEXES[c] : -1;
+                if (digit < 0) {
+                    throw new RuntimeException("Invalid characters: " + c);
+                }
+                carry = carry * 58 + digit;
+            }
+            long multiplier = POWERS[group];
+            for (int i = 0; i < size; i++) {
+                long temp = (blocks[i] & 0xFFFFFFFFL) * multiplier + carry;
+                blocks[i] = (int) temp;
+                carry = temp >>> 32;
             }
+            while (carry > 0) {
+                blocks[size++] = (int) carry;
+                carry >>>= 32;
+            }
+            group = BLOCK_DIGITS;
         }
-        // 忽略在计算过程中添加的额外超前零点。
-        while (outputStart < decoded.length && decoded[outputStart] == 0) {
-            ++outputStart;
+        // 每块输出4个字节, 最高位的块不输出前面的0
+        int outputStart = limit;
+        for (int i = 0; i < size; i++) {
+            int block = blocks[i];
+            if (i < size - 1) {
+                for (int j = 0; j < 4; j++) {
+                    decoded[--outputStart] = (byte) block;
+                    block >>>= 8;
+                }
+            } else {
+                while (block != 0) {
+                    decoded[--outputStart] = (byte) block;
+                    block >>>= 8;
+                }
+            }
         }
-        // 返回原始的字节数据
-        return Arrays.copyOfRange(decoded, outputStart - zeros, decoded.length);
+        // 处理前导0
+        while (--zeros >= 0) {
+            decoded[--outputStart] = 0;
+        }
+        if (outputStart < begin) {
+            throw new IllegalStateException("Base58 decoding overflow");
+        }
+        return outputStart;
+    }
+
+    /**
+     * 包装输出流, 写入的数据编码为Base58字符(ASCII)后写入原输出流<br>
+     * Base58不是按块编码的, 所有数据先缓存在内存中, 关闭时才编码并写入原输出流(同时关闭原输出流)
+     *
+     * @param os 原输出流
+     * @return 编码输出流
+     */
+    public static OutputStream wrap(OutputStream os) {
+        VerifyTools.requireNonNull(os, "output stream");
+        return new Base58OutputStream(os);
+    }
+
+    /**
+     * 包装输入流, 从原输入流读取Base58字符(ASCII)并解码<br>
+     * Base58不是按块编码的, 第一次读取时会读完原输入流的全部内容并解码
+     *
+     * @param is 原输入流
+     * @return 解码输入流
+     */
+    public static InputStream wrap(InputStream is) {
+        VerifyTools.requireNonNull(is, "input stream");
+        return new Base58InputStream(is);
     }
 
-    // 进制转换代码
-    private static byte divmod(byte[] number, int firstDigit, int base, int divisor) {
-        int remainder = 0;
-        for (int i = firstDigit; i < number.length; i++) {
-            int digit = (int) number[i] & 0xFF;
-            int temp = remainder * base + digit;
-            number[i] = (byte) (temp / divisor);
-            remainder = temp % divisor;
+    /** Base58编码输出流 **/
+    private static class Base58OutputStream extends FilterOutputStream {
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private boolean closed;
+
+        public Base58OutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            buffer.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            buffer.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try (OutputStream os = out) {
+                String encoded = encode(buffer.toByteArray());
+                os.write(encoded.getBytes(StandardCharsets.US_ASCII));
+                os.flush();
+            }
         }
-        return (byte) remainder;
     }
 
+    /** Base58解码输入流 **/
+    private static class Base58InputStream extends FilterInputStream {
+
+        private byte[] decoded;
+        private int position;
+
+        public Base58InputStream(InputStream in) {
+            super(in);
+        }
+
+        private void decodeAll() throws IOException {
+            if (decoded != null) {
+                return;
+            }
+            StringBuilder chars = new StringBuilder();
+            byte[] bytes = new byte[8192];
+            int size;
+            while ((size = in.read(bytes)) > 0) {
+                for (int i = 0; i < size; i++) {
+                    char c = (char) (bytes[i] & 0xFF);
+                    if (!Character.isWhitespace(c)) {
+                        chars.append(c);
+                    }
+                }
+            }
+            try {
+                byte[] temp = new byte[chars.length()];
+                int count = decode(chars, 0, chars.length(), temp, 0);
+                decoded = Arrays.copyOf(temp, count);
+            } catch (RuntimeException e) {
+                throw new IOException("Invalid base58 content", e);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            decodeAll();
+            return position < decoded.length ? decoded[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            decodeAll();
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= decoded.length) {
+                return -1;
+            }
+            int count = Math.min(len, decoded.length - position);
+            System.arraycopy(decoded, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            decodeAll();
+            long count = Math.max(0, Math.min(n, decoded.length - position));
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return decoded == null ? 0 : decoded.length - position;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
 }
@@ -1,6 +1,10 @@
 package com.gitee.qdbp.tools.codec;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Objects;
@@ -21,6 +25,224 @@ public class Base64Tools {
         return getDecoder().decode(input);
     }
 
+    /**
+     * Base64编码后的字符数(RFC4648, 带填充)
+     *
+     * @param length 源数据的字节数
+     * @return 字符数
+     */
+    public static int getEncodedLength(int length) {
+        return 4 * ((length + 2) / 3);
+    }
+
+    /**
+     * Base64解码后的字节数
+     *
+     * @param input Base64字符
+     * @param start 开始位置
+     * @param end 结束位置(不含)
+     * @return 字节数
+     */
+    public static int getDecodedLength(CharSequence input, int start, int end) {
+        int length = end - start;
+        if (length > 0 && input.charAt(end - 1) == '=') {
+            length--;
+            if (length > 0 && input.charAt(end - 2) == '=') {
+                length--;
+            }
+        }
+        return (int) (length * 6L / 8);
+    }
+
+    /**
+     * Base64编码(RFC4648, 带填充), 写入调用方提供的char数组
+     *
+     * @param input 源数据
+     * @param offset 开始位置
+     * @param length 字节数
+     * @param target 目标数组, 剩余空间不能小于getEncodedLength(length)
+     * @param targetOffset 目标数组的开始位置
+     * @return 写入的字符数
+     */
+    public static int encode(byte[] input, int offset, int length, char[] target, int targetOffset) {
+        char[] base64 = Encoder.toBase64;
+        int end = offset + length;
+        int full = offset + length / 3 * 3;
+        int sp = offset;
+        int dp = targetOffset;
+        while (sp < full) {
+            int bits = (input[sp++] & 0xff) << 16 | (input[sp++] & 0xff) << 8 | (input[sp++] & 0xff);
+            target[dp++] = base64[(bits >>> 18) & 0x3f];
+            target[dp++] = base64[(bits >>> 12) & 0x3f];
+            target[dp++] = base64[(bits >>> 6) & 0x3f];
+            target[dp++] = base64[bits & 0x3f];
+        }
+        if (sp < end) {
+            int b0 = input[sp++] & 0xff;
+            target[dp++] = base64[b0 >> 2];
+            if (sp == end) {
+                target[dp++] = base64[(b0 << 4) & 0x3f];
+                target[dp++] = '=';
+            } else {
+                int b1 = input[sp++] & 0xff;
+                target[dp++] = base64[(b0 << 4) & 0x3f | (b1 >> 4)];
+                target[dp++] = base64[(b1 << 2) & 0x3f];
+            }
+            target[dp++] = '=';
+        }
+        return dp - targetOffset;
+    }
+
+    /**
+     * Base64编码(RFC4648, 带填充), 追加到Appendable(如StringBuilder/Writer)
+     *
+     * @param input 源数据
+     * @param offset 开始位置
+     * @param length 字节数
+     * @param target 目标
+     * @throws IOException 写入失败
+     */
+    public static void encode(byte[] input, int offset, int length, Appendable target) throws IOException {
+        // 每次编码768字节(1024个字符), 3的整数倍, 中间不会出现填充字符
+        char[] chars = new char[getEncodedLength(Math.min(length, 768))];
+        CharBuffer wrapper = null;
+        for (int i = offset, end = offset + length; i < end;) {
+            int count = Math.min(end - i, 768);
+            int size = encode(input, i, count, chars, 0);
+            if (target instanceof StringBuilder) {
+                ((StringBuilder) target).append(chars, 0, size);
+            } else if (target instanceof Writer) {
+                ((Writer) target).write(chars, 0, size);
+            } else {
+                if (wrapper == null) {
+                    wrapper = CharBuffer.wrap(chars);
+                }
+                target.append(wrapper, 0, size);
+            }
+            i += count;
+        }
+    }
+
+    /**
+     * ByteBuffer的剩余内容Base64编码(RFC4648, 带填充)为ASCII字符, 写入目标ByteBuffer
+     *
+     * @param input 源数据, 全部剩余内容将被读取
+     * @param target 目标, 剩余空间不能小于getEncodedLength(input.remaining())
+     * @return 写入的字节数
+     * @throws BufferOverflowException 目标空间不足
+     */
+    public static int encode(ByteBuffer input, ByteBuffer target) {
+        int length = getEncodedLength(input.remaining());
+        if (target.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        char[] base64 = Encoder.toBase64;
+        while (input.remaining() >= 3) {
+            int bits = (input.get() & 0xff) << 16 | (input.get() & 0xff) << 8 | (input.get() & 0xff);
+            target.put((byte) base64[(bits >>> 18) & 0x3f]);
+            target.put((byte) base64[(bits >>> 12) & 0x3f]);
+            target.put((byte) base64[(bits >>> 6) & 0x3f]);
+            target.put((byte) base64[bits & 0x3f]);
+        }
+        if (input.hasRemaining()) {
+            int b0 = input.get() & 0xff;
+            target.put((byte) base64[b0 >> 2]);
+            if (!input.hasRemaining()) {
+                target.put((byte) base64[(b0 << 4) & 0x3f]).put((byte) '=');
+            } else {
+                int b1 = input.get() & 0xff;
+                target.put((byte) base64[(b0 << 4) & 0x3f | (b1 >> 4)]).put((byte) base64[(b1 << 2) & 0x3f]);
+            }
+            target.put((byte) '=');
+        }
+        return length;
+    }
+
+    /**
+     * Base64解码(RFC4648, 填充字符可以省略), 写入调用方提供的byte数组
+     *
+     * @param input Base64字符
+     * @param start 开始位置
+     * @param end 结束位置(不含)
+     * @param target 目标数组, 剩余空间不能小于getDecodedLength(input, start, end)
+     * @param targetOffset 目标数组的开始位置
+     * @return 写入的字节数
+     * @throws IllegalArgumentException 包含非Base64字符, 或结尾格式错误
+     */
+    public static int decode(CharSequence input, int start, int end, byte[] target, int targetOffset) {
+        int[] base64 = Decoder.fromBase64;
+        int dp = targetOffset;
+        int bits = 0;
+        int shiftto = 18; // pos of first byte of 4-byte atom
+        int sp = start;
+        while (sp < end) {
+            char c = input.charAt(sp++);
+            int b = c < 256 ? base64[c] : -1;
+            if (b < 0) {
+                if (b == -2) { // padding '='
+                    if (shiftto == 6 && (sp == end || input.charAt(sp++) != '=') || shiftto == 18) {
+                        throw new IllegalArgumentException("Input has wrong 4-byte ending unit");
+                    }
+                    break;
+                }
+                throw new IllegalArgumentException("Illegal base64 character " + c);
+            }
+            bits |= (b << shiftto);
+            shiftto -= 6;
+            if (shiftto < 0) {
+                target[dp++] = (byte) (bits >> 16);
+                target[dp++] = (byte) (bits >> 8);
+                target[dp++] = (byte) (bits);
+                shiftto = 18;
+                bits = 0;
+            }
+        }
+        // reached end of input or hit padding '=' characters.
+        if (shiftto == 6) {
+            target[dp++] = (byte) (bits >> 16);
+        } else if (shiftto == 0) {
+            target[dp++] = (byte) (bits >> 16);
+            target[dp++] = (byte) (bits >> 8);
+        } else if (shiftto == 12) {
+            throw new IllegalArgumentException("Last unit does not have enough valid bits");
+        }
+        if (sp < end) {
+            throw new IllegalArgumentException("Input has incorrect ending character at " + (sp - start));
+        }
+        return dp - targetOffset;
+    }
+
+    /**
+     * Base64解码(RFC4648, 填充字符可以省略), 写入目标ByteBuffer
+     *
+     * @param input Base64字符
+     * @param target 目标, 剩余空间不能小于getDecodedLength(input, 0, input.length())
+     * @return 写入的字节数
+     * @throws BufferOverflowException 目标空间不足
+     */
+    public static int decode(CharSequence input, ByteBuffer target) {
+        int length = getDecodedLength(input, 0, input.length());
+        if (target.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        if (target.hasArray()) {
+            int count = decode(input, 0, input.length(), target.array(), target.arrayOffset() + target.position());
+            target.position(target.position() + count);
+            return count;
+        }
+        // 非堆内存, 每次解码1024个字符(4的整数倍, 只有最后一段可能有填充字符)
+        byte[] bytes = new byte[Math.min(length + 2, 768)];
+        int total = 0;
+        for (int i = 0, end = input.length(); i < end;) {
+            int count = Math.min(end - i, 1024);
+            int size = decode(input, i, i + count, bytes, 0);
+            target.put(bytes, 0, size);
+            total += size;
+            i += count;
+        }
+        return total;
+    }
+
     /**
      * Returns a {@link Encoder} that encodes using the
      * <a href="#basic">Basic</a> type base64 encoding scheme.
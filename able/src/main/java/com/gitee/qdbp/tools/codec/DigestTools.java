@@ -1,46 +1,340 @@
 package com.gitee.qdbp.tools.codec;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * 摘要工具类
+ * 摘要工具类<br>
+ * MessageDigest按线程缓存复用, 避免每次getInstance查找Provider<br>
+ * 支持InputStream/ByteBuffer/FileChannel流式计算, 文件按块读取到线程复用的直接缓冲区, 不需要把全部内容加载到内存,
+ * 也不使用内存映射(映射的文件在GC之前无法释放, windows下会一直锁定文件)<br>
+ * 字符串摘要默认使用平台默认的字符集(与原先的结果一致), 需要固定字符集时使用md5(text, charset)等方法<br>
+ * 也可以一次读取同时计算多种摘要, 如digests(file, DigestTools.MD5, DigestTools.SHA1, DigestTools.SHA256)
  *
  * @author zhaohuihua
  * @version 160301
  */
 public abstract class DigestTools {
 
-    private static final String MD5 = "MD5";
-    private static final String SHA256 = "SHA-256";
+    public static final String MD5 = "MD5";
+    public static final String SHA1 = "SHA-1";
+    public static final String SHA256 = "SHA-256";
+
+    /** 流式读取的缓冲区大小 **/
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /** 读取文件的缓冲区大小 **/
+    private static final int FILE_BUFFER_SIZE = 256 * 1024;
+
+    private static final ThreadLocal<Map<String, MessageDigest>> DIGESTS = new ThreadLocal<Map<String, MessageDigest>>() {
+
+        @Override
+        protected Map<String, MessageDigest> initialValue() {
+            return new HashMap<>();
+        }
+    };
+
+    /** 读取文件的直接缓冲区, 按线程复用 **/
+    private static final ThreadLocal<ByteBuffer> FILE_BUFFERS = new ThreadLocal<ByteBuffer>() {
+
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect(FILE_BUFFER_SIZE);
+        }
+    };
 
     /**
      * 生成MD5摘要
      * 
-     * @param text 目标文本
+     * @param text 目标文本, 按平台默认的字符集编码
      * @return 摘要文本
      */
     public static String md5(String text) {
-        try {
-            MessageDigest md = MessageDigest.getInstance(MD5);
-            return HexTools.toString(md.digest(text.getBytes()));
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("No such algorithm: " + MD5, e);
-        }
+        return HexTools.toString(digest(MD5, text.getBytes()));
     }
 
     /**
-     * 生成SHA-256摘要
+     * 生成MD5摘要
+     * 
+     * @param text 目标文本
+     * @param charset 字符集, 如UTF-8
+     * @return 摘要文本
+     */
+    public static String md5(String text, Charset charset) {
+        return HexTools.toString(digest(MD5, text.getBytes(charset)));
+    }
+
+    /**
+     * 生成SHA-1摘要
+     * 
+     * @param text 目标文本, 按平台默认的字符集编码
+     * @return 摘要文本
+     */
+    public static String sha1(String text) {
+        return HexTools.toString(digest(SHA1, text.getBytes()));
+    }
+
+    /**
+     * 生成SHA-1摘要
      * 
      * @param text 目标文本
+     * @param charset 字符集, 如UTF-8
+     * @return 摘要文本
+     */
+    public static String sha1(String text, Charset charset) {
+        return HexTools.toString(digest(SHA1, text.getBytes(charset)));
+    }
+
+    /**
+     * 生成SHA-256摘要
+     * 
+     * @param text 目标文本, 按平台默认的字符集编码
      * @return 摘要文本
      */
     public static String sha256(String text) {
-        try {
-            MessageDigest md = MessageDigest.getInstance(SHA256);
-            return HexTools.toString(md.digest(text.getBytes()));
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("No such algorithm: " + SHA256, e);
+        return HexTools.toString(digest(SHA256, text.getBytes()));
+    }
+
+    /**
+     * 生成SHA-256摘要
+     * 
+     * @param text 目标文本
+     * @param charset 字符集, 如UTF-8
+     * @return 摘要文本
+     */
+    public static String sha256(String text, Charset charset) {
+        return HexTools.toString(digest(SHA256, text.getBytes(charset)));
+    }
+
+    /**
+     * 生成文件的MD5摘要
+     * 
+     * @param file 目标文件
+     * @return 摘要文本
+     * @throws IOException 读取失败
+     */
+    public static String md5(File file) throws IOException {
+        return HexTools.toString(digest(MD5, file));
+    }
+
+    /**
+     * 生成文件的SHA-256摘要
+     * 
+     * @param file 目标文件
+     * @return 摘要文本
+     * @throws IOException 读取失败
+     */
+    public static String sha256(File file) throws IOException {
+        return HexTools.toString(digest(SHA256, file));
+    }
+
+    /**
+     * 生成摘要
+     * 
+     * @param algorithm 算法, 如MD5/SHA-1/SHA-256
+     * @param bytes 目标数据
+     * @return 摘要
+     */
+    public static byte[] digest(String algorithm, byte[] bytes) {
+        return digest(algorithm, bytes, 0, bytes.length);
+    }
+
+    /**
+     * 生成摘要
+     * 
+     * @param algorithm 算法, 如MD5/SHA-1/SHA-256
+     * @param bytes 目标数据
+     * @param offset 开始位置
+     * @param length 字节数
+     * @return 摘要
+     */
+    public static byte[] digest(String algorithm, byte[] bytes, int offset, int length) {
+        MessageDigest md = getDigest(algorithm);
+        md.update(bytes, offset, length);
+        return md.digest();
+    }
+
+    /**
+     * 生成ByteBuffer剩余内容的摘要, 读取后position移到limit
+     * 
+     * @param algorithm 算法, 如MD5/SHA-1/SHA-256
+     * @param buffer 目标数据
+     * @return 摘要
+     */
+    public static byte[] digest(String algorithm, ByteBuffer buffer) {
+        return digests(buffer, algorithm).get(algorithm);
+    }
+
+    /**
+     * 生成输入流的摘要, 读取到流的末尾, 不会关闭流
+     * 
+     * @param algorithm 算法, 如MD5/SHA-1/SHA-256
+     * @param input 输入流
+     * @return 摘要
+     * @throws IOException 读取失败
+     */
+    public static byte[] digest(String algorithm, InputStream input) throws IOException {
+        return digests(input, algorithm).get(algorithm);
+    }
+
+    /**
+     * 生成文件的摘要(整个文件, 与position无关), 按块读取
+     * 
+     * @param algorithm 算法, 如MD5/SHA-1/SHA-256
+     * @param channel 文件
+     * @return 摘要
+     * @throws IOException 读取失败
+     */
+    public static byte[] digest(String algorithm, FileChannel channel) throws IOException {
+        return digests(channel, algorithm).get(algorithm);
+    }
+
+    /**
+     * 生成文件的摘要, 按块读取
+     * 
+     * @param algorithm 算法, 如MD5/SHA-1/SHA-256
+     * @param file 文件
+     * @return 摘要
+     * @throws IOException 读取失败
+     */
+    public static byte[] digest(String algorithm, File file) throws IOException {
+        return digests(file, algorithm).get(algorithm);
+    }
+
+    /**
+     * 一次读取同时生成多种摘要, 读取后position移到limit
+     * 
+     * @param buffer 目标数据
+     * @param algorithms 算法列表, 如MD5/SHA-1/SHA-256
+     * @return 算法和摘要的对应关系, 顺序与算法列表一致
+     */
+    public static Map<String, byte[]> digests(ByteBuffer buffer, String... algorithms) {
+        Set<String> names = distinct(algorithms);
+        MessageDigest[] mds = getDigests(names);
+        update(mds, buffer);
+        return toResult(names, mds);
+    }
+
+    /**
+     * 一次读取同时生成多种摘要, 读取到流的末尾, 不会关闭流
+     * 
+     * @param input 输入流
+     * @param algorithms 算法列表, 如MD5/SHA-1/SHA-256
+     * @return 算法和摘要的对应关系, 顺序与算法列表一致
+     * @throws IOException 读取失败
+     */
+    public static Map<String, byte[]> digests(InputStream input, String... algorithms) throws IOException {
+        Set<String> names = distinct(algorithms);
+        MessageDigest[] mds = getDigests(names);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int length;
+        while ((length = input.read(buffer)) >= 0) {
+            for (MessageDigest md : mds) {
+                md.update(buffer, 0, length);
+            }
+        }
+        return toResult(names, mds);
+    }
+
+    /**
+     * 一次读取同时生成多种摘要(整个文件, 与position无关), 按块读取到线程复用的直接缓冲区
+     * 
+     * @param channel 文件
+     * @param algorithms 算法列表, 如MD5/SHA-1/SHA-256
+     * @return 算法和摘要的对应关系, 顺序与算法列表一致
+     * @throws IOException 读取失败
+     */
+    public static Map<String, byte[]> digests(FileChannel channel, String... algorithms) throws IOException {
+        Set<String> names = distinct(algorithms);
+        MessageDigest[] mds = getDigests(names);
+        long size = channel.size();
+        ByteBuffer buffer = FILE_BUFFERS.get();
+        buffer.clear();
+        long position = 0;
+        int length;
+        while (position < size && (length = channel.read(buffer, position)) >= 0) {
+            position += length;
+            buffer.flip();
+            update(mds, buffer);
+            buffer.clear();
+        }
+        return toResult(names, mds);
+    }
+
+    /**
+     * 一次读取同时生成多种摘要, 按块读取到线程复用的直接缓冲区
+     * 
+     * @param file 文件
+     * @param algorithms 算法列表, 如MD5/SHA-1/SHA-256
+     * @return 算法和摘要的对应关系, 顺序与算法列表一致
+     * @throws IOException 读取失败
+     */
+    public static Map<String, byte[]> digests(File file, String... algorithms) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return digests(channel, algorithms);
+        }
+    }
+
+    /** 获取当前线程缓存的MessageDigest实例, 已重置 **/
+    private static MessageDigest getDigest(String algorithm) {
+        Map<String, MessageDigest> digests = DIGESTS.get();
+        MessageDigest md = digests.get(algorithm);
+        if (md == null) {
+            try {
+                md = MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalArgumentException("No such algorithm: " + algorithm, e);
+            }
+            digests.put(algorithm, md);
+        } else {
+            md.reset();
+        }
+        return md;
+    }
+
+    /** 去重, 同一个算法只能使用一个实例 **/
+    private static Set<String> distinct(String... algorithms) {
+        if (algorithms == null || algorithms.length == 0) {
+            throw new IllegalArgumentException("algorithms is empty");
+        }
+        return new LinkedHashSet<>(Arrays.asList(algorithms));
+    }
+
+    private static MessageDigest[] getDigests(Set<String> algorithms) {
+        MessageDigest[] mds = new MessageDigest[algorithms.size()];
+        int index = 0;
+        for (String algorithm : algorithms) {
+            mds[index++] = getDigest(algorithm);
+        }
+        return mds;
+    }
+
+    private static void update(MessageDigest[] mds, ByteBuffer buffer) {
+        int position = buffer.position();
+        for (MessageDigest md : mds) {
+            buffer.position(position);
+            md.update(buffer);
+        }
+    }
+
+    private static Map<String, byte[]> toResult(Set<String> algorithms, MessageDigest[] mds) {
+        Map<String, byte[]> result = new LinkedHashMap<>();
+        int index = 0;
+        for (String algorithm : algorithms) {
+            result.put(algorithm, mds[index++].digest());
         }
+        return result;
     }
 }
@@ -1,5 +1,15 @@
 package com.gitee.qdbp.tools.codec;
 
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
 import com.gitee.qdbp.tools.utils.VerifyTools;
 
 /**
@@ -10,6 +20,24 @@ import com.gitee.qdbp.tools.utils.VerifyTools;
  */
 public abstract class HexTools {
 
+    private static final char[] DIGITS = "0123456789ABCDEF".toCharArray();
+    /** byte转换为2个16进制字符的查找表, 下标为(b &amp; 0xFF) * 2 **/
+    private static final char[] BYTE_TO_CHARS = new char[512];
+    /** 16进制字符(不区分大小写)转换为数字的查找表, 非16进制字符为-1 **/
+    private static final byte[] CHAR_TO_DIGIT = new byte[128];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            BYTE_TO_CHARS[i * 2] = DIGITS[i >>> 4];
+            BYTE_TO_CHARS[i * 2 + 1] = DIGITS[i & 0x0F];
+        }
+        Arrays.fill(CHAR_TO_DIGIT, (byte) -1);
+        for (int i = 0; i < DIGITS.length; i++) {
+            CHAR_TO_DIGIT[DIGITS[i]] = (byte) i;
+            CHAR_TO_DIGIT[Character.toLowerCase(DIGITS[i])] = (byte) i;
+        }
+    }
+
     /**
      * 16进制字符串转换为byte数组<br>
      * "ABCDEF" --&gt; byte[(byte)0xAB, (byte)0xCD, (byte)0xEF]<br>
@@ -85,14 +113,21 @@ public abstract class HexTools {
         if (VerifyTools.isBlank(bytes)) {
             return null;
         }
-        StringBuilder buffer = new StringBuilder();
-        for (byte i : bytes) {
-            if (split && buffer.length() > 0) {
-                buffer.append(' ');
+        if (!split) {
+            char[] chars = new char[bytes.length * 2];
+            encode(bytes, 0, bytes.length, chars, 0);
+            return new String(chars);
+        }
+        char[] chars = new char[bytes.length * 3 - 1];
+        for (int i = 0, p = 0; i < bytes.length; i++) {
+            if (i > 0) {
+                chars[p++] = ' ';
             }
-            buffer.append(byteToChar((i & 0xF0) >> 4)).append(byteToChar(i & 0x0F));
+            int index = (bytes[i] & 0xFF) << 1;
+            chars[p++] = BYTE_TO_CHARS[index];
+            chars[p++] = BYTE_TO_CHARS[index + 1];
         }
-        return buffer.toString();
+        return new String(chars);
     }
 
     /**
@@ -104,10 +139,8 @@ public abstract class HexTools {
      * @return 16进制字符串
      */
     public static String toByteString(long number) {
-        StringBuilder buffer = new StringBuilder();
-        byte n = (byte) number;
-        buffer.append(byteToChar((n & 0xF0) >> 4)).append(byteToChar(n & 0x0F));
-        return buffer.toString();
+        int index = ((int) number & 0xFF) << 1;
+        return new String(BYTE_TO_CHARS, index, 2);
     }
 
     /**
@@ -210,10 +243,298 @@ public abstract class HexTools {
     }
 
     private static byte charToByte(char c) {
-        return (byte) "0123456789ABCDEF".indexOf(c);
+        return c < 128 ? CHAR_TO_DIGIT[c] : -1;
+    }
+
+    /**
+     * byte数组编码为16进制字符, 写入调用方提供的char数组
+     *
+     * @param bytes byte数组
+     * @param offset 开始位置
+     * @param length 字节数
+     * @param target 目标数组, 剩余空间不能小于length * 2
+     * @param targetOffset 目标数组的开始位置
+     * @return 写入的字符数
+     */
+    public static int encode(byte[] bytes, int offset, int length, char[] target, int targetOffset) {
+        int p = targetOffset;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int index = (bytes[i] & 0xFF) << 1;
+            target[p++] = BYTE_TO_CHARS[index];
+            target[p++] = BYTE_TO_CHARS[index + 1];
+        }
+        return p - targetOffset;
+    }
+
+    /**
+     * byte数组编码为16进制字符, 追加到Appendable(如StringBuilder/Writer)
+     *
+     * @param bytes byte数组
+     * @param offset 开始位置
+     * @param length 字节数
+     * @param target 目标
+     * @throws IOException 写入失败
+     */
+    public static void encode(byte[] bytes, int offset, int length, Appendable target) throws IOException {
+        // 通过一个小的char数组分段写入
+        char[] chars = new char[Math.min(length, 512) * 2];
+        CharBuffer wrapper = null;
+        for (int i = offset, end = offset + length; i < end;) {
+            int count = Math.min(end - i, chars.length / 2);
+            int size = encode(bytes, i, count, chars, 0);
+            if (target instanceof StringBuilder) {
+                ((StringBuilder) target).append(chars, 0, size);
+            } else if (target instanceof Writer) {
+                ((Writer) target).write(chars, 0, size);
+            } else {
+                if (wrapper == null) {
+                    wrapper = CharBuffer.wrap(chars);
+                }
+                target.append(wrapper, 0, size);
+            }
+            i += count;
+        }
+    }
+
+    /**
+     * ByteBuffer的剩余内容编码为16进制字符(ASCII), 写入目标ByteBuffer
+     *
+     * @param bytes 源数据, 全部剩余内容将被读取
+     * @param target 目标, 剩余空间不能小于bytes.remaining() * 2
+     * @return 写入的字节数
+     * @throws BufferOverflowException 目标空间不足
+     */
+    public static int encode(ByteBuffer bytes, ByteBuffer target) {
+        int length = bytes.remaining();
+        if (target.remaining() < length * 2) {
+            throw new BufferOverflowException();
+        }
+        if (bytes.hasArray() && target.hasArray()) {
+            byte[] source = bytes.array();
+            byte[] output = target.array();
+            int p = target.arrayOffset() + target.position();
+            for (int i = bytes.arrayOffset() + bytes.position(), end = i + length; i < end; i++) {
+                int index = (source[i] & 0xFF) << 1;
+                output[p++] = (byte) BYTE_TO_CHARS[index];
+                output[p++] = (byte) BYTE_TO_CHARS[index + 1];
+            }
+            bytes.position(bytes.limit());
+            target.position(target.position() + length * 2);
+        } else {
+            while (bytes.hasRemaining()) {
+                int index = (bytes.get() & 0xFF) << 1;
+                target.put((byte) BYTE_TO_CHARS[index]).put((byte) BYTE_TO_CHARS[index + 1]);
+            }
+        }
+        return length * 2;
+    }
+
+    /**
+     * 16进制字符解码, 写入调用方提供的byte数组<br>
+     * 与toBytes()不同, 这里是严格模式: 不允许空格和0x前缀, 字符数必须是偶数, 不区分大小写
+     *
+     * @param hex 16进制字符
+     * @param start 开始位置
+     * @param end 结束位置(不含)
+     * @param target 目标数组, 剩余空间不能小于(end - start) / 2
+     * @param targetOffset 目标数组的开始位置
+     * @return 写入的字节数
+     * @throws IllegalArgumentException 字符数不是偶数, 或包含非16进制字符
+     */
+    public static int decode(CharSequence hex, int start, int end, byte[] target, int targetOffset) {
+        if ((end - start) % 2 != 0) {
+            throw new IllegalArgumentException("Hex string length must be even: " + (end - start));
+        }
+        int p = targetOffset;
+        for (int i = start; i < end; i += 2) {
+            target[p++] = (byte) (toDigit(hex.charAt(i)) << 4 | toDigit(hex.charAt(i + 1)));
+        }
+        return p - targetOffset;
+    }
+
+    /**
+     * 16进制字符解码, 写入目标ByteBuffer(严格模式, 同decode(CharSequence, int, int, byte[], int))
+     *
+     * @param hex 16进制字符
+     * @param target 目标, 剩余空间不能小于hex.length() / 2
+     * @return 写入的字节数
+     * @throws BufferOverflowException 目标空间不足
+     */
+    public static int decode(CharSequence hex, ByteBuffer target) {
+        int length = hex.length();
+        if (length % 2 != 0) {
+            throw new IllegalArgumentException("Hex string length must be even: " + length);
+        }
+        if (target.remaining() < length / 2) {
+            throw new BufferOverflowException();
+        }
+        if (target.hasArray()) {
+            int count = decode(hex, 0, length, target.array(), target.arrayOffset() + target.position());
+            target.position(target.position() + count);
+            return count;
+        }
+        for (int i = 0; i < length; i += 2) {
+            target.put((byte) (toDigit(hex.charAt(i)) << 4 | toDigit(hex.charAt(i + 1))));
+        }
+        return length / 2;
+    }
+
+    /**
+     * 包装输出流, 写入的数据编码为16进制字符(ASCII)后写入原输出流<br>
+     * 关闭返回的输出流时, 原输出流也会被关闭
+     *
+     * @param os 原输出流
+     * @return 编码输出流
+     */
+    public static OutputStream wrap(OutputStream os) {
+        VerifyTools.requireNonNull(os, "output stream");
+        return new HexOutputStream(os);
     }
 
-    private static char byteToChar(int b) {
-        return "0123456789ABCDEF".charAt(b);
+    /**
+     * 包装输入流, 从原输入流读取16进制字符(ASCII, 忽略空白字符)并解码<br>
+     * 关闭返回的输入流时, 原输入流也会被关闭
+     *
+     * @param is 原输入流
+     * @return 解码输入流
+     */
+    public static InputStream wrap(InputStream is) {
+        VerifyTools.requireNonNull(is, "input stream");
+        return new HexInputStream(is);
+    }
+
+    private static int toDigit(char c) {
+        int digit = c < 128 ? CHAR_TO_DIGIT[c] : -1;
+        if (digit < 0) {
+            throw new IllegalArgumentException("Invalid hex character: " + c);
+        }
+        return digit;
+    }
+
+    /** 16进制编码输出流 **/
+    private static class HexOutputStream extends FilterOutputStream {
+
+        private final byte[] buffer = new byte[8192];
+        private int count;
+
+        public HexOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count + 2 > buffer.length) {
+                flushBuffer();
+            }
+            int index = (b & 0xFF) << 1;
+            buffer[count++] = (byte) BYTE_TO_CHARS[index];
+            buffer[count++] = (byte) BYTE_TO_CHARS[index + 1];
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            for (int i = off, end = off + len; i < end; i++) {
+                if (count + 2 > buffer.length) {
+                    flushBuffer();
+                }
+                int index = (b[i] & 0xFF) << 1;
+                buffer[count++] = (byte) BYTE_TO_CHARS[index];
+                buffer[count++] = (byte) BYTE_TO_CHARS[index + 1];
+            }
+        }
+
+        private void flushBuffer() throws IOException {
+            if (count > 0) {
+                out.write(buffer, 0, count);
+                count = 0;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushBuffer();
+            out.flush();
+        }
+    }
+
+    /** 16进制解码输入流 **/
+    private static class HexInputStream extends FilterInputStream {
+
+        private final byte[] buffer = new byte[8192];
+        private final byte[] single = new byte[1];
+        /** 上一次读取剩下的高位字符, -1表示没有 **/
+        private int pending = -1;
+        private boolean eof;
+
+        public HexInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int size = read(single, 0, 1);
+            return size < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int p = off;
+            int end = off + len;
+            while (p == off && !eof) {
+                // 每个字节需要2个字符, 最多读取剩余空间所需的字符数
+                int size = in.read(buffer, 0, Math.min(buffer.length / 2, end - p) * 2);
+                if (size < 0) {
+                    eof = true;
+                    break;
+                }
+                for (int i = 0; i < size; i++) {
+                    int c = buffer[i];
+                    if (c == ' ' || c == '\r' || c == '\n' || c == '\t') {
+                        continue;
+                    }
+                    int digit = c >= 0 ? CHAR_TO_DIGIT[c] : -1;
+                    if (digit < 0) {
+                        throw new IOException("Invalid hex character: " + (char) (c & 0xFF));
+                    }
+                    if (pending < 0) {
+                        pending = digit;
+                    } else {
+                        b[p++] = (byte) (pending << 4 | digit);
+                        pending = -1;
+                    }
+                }
+            }
+            if (eof && pending >= 0) {
+                throw new IOException("Incomplete hex string, the number of characters is odd");
+            }
+            return p == off && eof ? -1 : p - off;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] b = new byte[512];
+            long total = 0;
+            while (total < n) {
+                int size = read(b, 0, (int) Math.min(b.length, n - total));
+                if (size < 0) {
+                    break;
+                }
+                total += size;
+            }
+            return total;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return in.available() / 2;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
     }
 }
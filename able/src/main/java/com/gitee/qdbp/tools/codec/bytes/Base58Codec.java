@@ -1,5 +1,7 @@
 package com.gitee.qdbp.tools.codec.bytes;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import com.gitee.qdbp.tools.codec.Base58Tools;
 
 /**
@@ -8,7 +10,7 @@ import com.gitee.qdbp.tools.codec.Base58Tools;
  * @author zhaohuihua
  * @version 190602
  */
-public class Base58Codec implements ByteCodec {
+public class Base58Codec implements BufferByteCodec {
 
     /** 默认实例 **/
     public static final Base58Codec INSTANCE = new Base58Codec();
@@ -35,4 +37,39 @@ public class Base58Codec implements ByteCodec {
         return Base58Tools.decode(string);
     }
 
+    @Override
+    public int getMaxEncodedLength(int length) {
+        return Base58Tools.getMaxEncodedLength(length);
+    }
+
+    @Override
+    public int getMaxDecodedLength(int length) {
+        return length;
+    }
+
+    @Override
+    public int encode(byte[] bytes, int offset, int length, char[] target, int targetOffset) {
+        return Base58Tools.encode(bytes, offset, length, target, targetOffset);
+    }
+
+    @Override
+    public void encode(byte[] bytes, int offset, int length, Appendable target) throws IOException {
+        Base58Tools.encode(bytes, offset, length, target);
+    }
+
+    @Override
+    public int encode(ByteBuffer bytes, ByteBuffer target) {
+        return Base58Tools.encode(bytes, target);
+    }
+
+    @Override
+    public int decode(CharSequence string, int start, int end, byte[] target, int targetOffset) {
+        return Base58Tools.decode(string, start, end, target, targetOffset);
+    }
+
+    @Override
+    public int decode(CharSequence string, ByteBuffer target) {
+        return Base58Tools.decode(string, target);
+    }
+
 }
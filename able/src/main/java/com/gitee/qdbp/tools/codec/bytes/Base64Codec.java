@@ -1,5 +1,7 @@
 package com.gitee.qdbp.tools.codec.bytes;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import com.gitee.qdbp.tools.codec.Base64Tools;
 
 /**
@@ -8,7 +10,7 @@ import com.gitee.qdbp.tools.codec.Base64Tools;
  * @author zhaohuihua
  * @version 190602
  */
-public class Base64Codec implements ByteCodec {
+public class Base64Codec implements BufferByteCodec {
 
     /** 默认实例 **/
     public static final Base64Codec INSTANCE = new Base64Codec();
@@ -35,4 +37,39 @@ public class Base64Codec implements ByteCodec {
         return Base64Tools.decode(string);
     }
 
+    @Override
+    public int getMaxEncodedLength(int length) {
+        return Base64Tools.getEncodedLength(length);
+    }
+
+    @Override
+    public int getMaxDecodedLength(int length) {
+        return (int) (length * 3L / 4);
+    }
+
+    @Override
+    public int encode(byte[] bytes, int offset, int length, char[] target, int targetOffset) {
+        return Base64Tools.encode(bytes, offset, length, target, targetOffset);
+    }
+
+    @Override
+    public void encode(byte[] bytes, int offset, int length, Appendable target) throws IOException {
+        Base64Tools.encode(bytes, offset, length, target);
+    }
+
+    @Override
+    public int encode(ByteBuffer bytes, ByteBuffer target) {
+        return Base64Tools.encode(bytes, target);
+    }
+
+    @Override
+    public int decode(CharSequence string, int start, int end, byte[] target, int targetOffset) {
+        return Base64Tools.decode(string, start, end, target, targetOffset);
+    }
+
+    @Override
+    public int decode(CharSequence string, ByteBuffer target) {
+        return Base64Tools.decode(string, target);
+    }
+
 }
@@ -0,0 +1,83 @@
+package com.gitee.qdbp.tools.codec.bytes;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 写入调用方提供的目标(char[]/byte[]/ByteBuffer/Appendable)的Byte编码解码<br>
+ * 目标可以重复使用, 避免每次编码解码都创建新的数组和字符串
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public interface BufferByteCodec extends ByteCodec {
+
+    /**
+     * 编码后的最大字符数
+     *
+     * @param length 源数据的字节数
+     * @return 最大字符数
+     */
+    int getMaxEncodedLength(int length);
+
+    /**
+     * 解码后的最大字节数
+     *
+     * @param length 字符数
+     * @return 最大字节数
+     */
+    int getMaxDecodedLength(int length);
+
+    /**
+     * byte数组编码, 写入调用方提供的char数组
+     *
+     * @param bytes 源数据
+     * @param offset 开始位置
+     * @param length 字节数
+     * @param target 目标数组, 剩余空间不能小于getMaxEncodedLength(length)
+     * @param targetOffset 目标数组的开始位置
+     * @return 写入的字符数
+     */
+    int encode(byte[] bytes, int offset, int length, char[] target, int targetOffset);
+
+    /**
+     * byte数组编码, 追加到Appendable(如StringBuilder/Writer)
+     *
+     * @param bytes 源数据
+     * @param offset 开始位置
+     * @param length 字节数
+     * @param target 目标
+     * @throws IOException 写入失败
+     */
+    void encode(byte[] bytes, int offset, int length, Appendable target) throws IOException;
+
+    /**
+     * ByteBuffer的剩余内容编码为ASCII字符, 写入目标ByteBuffer
+     *
+     * @param bytes 源数据, 全部剩余内容将被读取
+     * @param target 目标
+     * @return 写入的字节数
+     */
+    int encode(ByteBuffer bytes, ByteBuffer target);
+
+    /**
+     * 字符解码, 写入调用方提供的byte数组
+     *
+     * @param string 字符
+     * @param start 开始位置
+     * @param end 结束位置(不含)
+     * @param target 目标数组, 剩余空间不能小于getMaxDecodedLength(end - start)
+     * @param targetOffset 目标数组的开始位置
+     * @return 写入的字节数
+     */
+    int decode(CharSequence string, int start, int end, byte[] target, int targetOffset);
+
+    /**
+     * 字符解码, 写入目标ByteBuffer
+     *
+     * @param string 字符
+     * @param target 目标
+     * @return 写入的字节数
+     */
+    int decode(CharSequence string, ByteBuffer target);
+}
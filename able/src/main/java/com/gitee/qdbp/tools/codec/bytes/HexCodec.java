@@ -1,5 +1,7 @@
 package com.gitee.qdbp.tools.codec.bytes;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import com.gitee.qdbp.tools.codec.HexTools;
 
 /**
@@ -8,7 +10,7 @@ import com.gitee.qdbp.tools.codec.HexTools;
  * @author zhaohuihua
  * @version 190602
  */
-public class HexCodec implements ByteCodec {
+public class HexCodec implements BufferByteCodec {
 
     /** 默认实例 **/
     public static final HexCodec INSTANCE = new HexCodec();
@@ -39,4 +41,39 @@ public class HexCodec implements ByteCodec {
         return HexTools.toBytes(hexString);
     }
 
+    @Override
+    public int getMaxEncodedLength(int length) {
+        return length * 2;
+    }
+
+    @Override
+    public int getMaxDecodedLength(int length) {
+        return length / 2;
+    }
+
+    @Override
+    public int encode(byte[] bytes, int offset, int length, char[] target, int targetOffset) {
+        return HexTools.encode(bytes, offset, length, target, targetOffset);
+    }
+
+    @Override
+    public void encode(byte[] bytes, int offset, int length, Appendable target) throws IOException {
+        HexTools.encode(bytes, offset, length, target);
+    }
+
+    @Override
+    public int encode(ByteBuffer bytes, ByteBuffer target) {
+        return HexTools.encode(bytes, target);
+    }
+
+    @Override
+    public int decode(CharSequence string, int start, int end, byte[] target, int targetOffset) {
+        return HexTools.decode(string, start, end, target, targetOffset);
+    }
+
+    @Override
+    public int decode(CharSequence string, ByteBuffer target) {
+        return HexTools.decode(string, target);
+    }
+
 }
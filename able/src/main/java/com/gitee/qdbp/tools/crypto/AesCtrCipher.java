@@ -0,0 +1,73 @@
+package com.gitee.qdbp.tools.crypto;
+
+import java.security.GeneralSecurityException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import com.gitee.qdbp.tools.codec.bytes.ByteCodec;
+import com.gitee.qdbp.tools.codec.bytes.HexCodec;
+import com.gitee.qdbp.tools.utils.RandomTools;
+
+/**
+ * AES/CTR分块加解密实例<br>
+ * 头部是16字节随机IV, 后面就是标准的AES/CTR密文, 每块的计数器由IV加上块的起始位置计算而来, 所以可以并行处理<br>
+ * 注意: CTR不带认证, 无法发现密文被篡改, 需要防篡改的场景应使用AesGcmCipher
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class AesCtrCipher extends AesStreamCipher {
+
+    private static final String CTR_CIPHER = "AES/CTR/NoPadding";
+    private static final int IV_LENGTH = 16;
+    private static final int BLOCK_SIZE = 16;
+
+    public AesCtrCipher() {
+        this(HexCodec.INSTANCE);
+    }
+
+    public AesCtrCipher(ByteCodec byteCodec) {
+        this(RandomTools.generateString(20), byteCodec);
+    }
+
+    public AesCtrCipher(String secretKey) {
+        this(secretKey, HexCodec.INSTANCE);
+    }
+
+    public AesCtrCipher(String secretKey, ByteCodec byteCodec) {
+        super(secretKey, byteCodec);
+    }
+
+    public AesCtrCipher(SecretKey secretKey, ByteCodec byteCodec) {
+        super(secretKey, byteCodec);
+    }
+
+    @Override
+    protected String getTransformation() {
+        return CTR_CIPHER;
+    }
+
+    @Override
+    protected int getHeaderLength() {
+        return IV_LENGTH;
+    }
+
+    @Override
+    protected int getOverhead() {
+        return 0;
+    }
+
+    @Override
+    protected void initCipher(Cipher cipher, int cipherMode, SecretKey key, byte[] header, long index, boolean last)
+            throws GeneralSecurityException {
+        // 计数器 = IV + 块的起始位置/16, 按128位大端整数相加
+        byte[] iv = header.clone();
+        long carry = index * (CHUNK_SIZE / BLOCK_SIZE);
+        for (int i = IV_LENGTH - 1; i >= 0 && carry != 0; i--) {
+            long sum = (iv[i] & 0xFF) + (carry & 0xFF);
+            iv[i] = (byte) sum;
+            carry = (carry >>> 8) + (sum >>> 8);
+        }
+        cipher.init(cipherMode, key, new IvParameterSpec(iv));
+    }
+}
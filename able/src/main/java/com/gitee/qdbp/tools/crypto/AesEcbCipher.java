@@ -60,7 +60,7 @@ public class AesEcbCipher implements CipherService {
         VerifyTools.requireNonNull(plaintext, "plaintext");
         String text = RandomTools.generateString(randomChar) + plaintext + RandomTools.generateString(randomChar);
         byte[] input = textCodec.decode(text);
-        byte[] output = AesTools.ecbEncrypt(input, this.secretKey);
+        byte[] output = AesTools.ecbEncrypt(input, this.secretKey, true);
         return byteCodec.encode(output);
     }
 
@@ -73,7 +73,7 @@ public class AesEcbCipher implements CipherService {
     @Override
     public byte[] encrypt(byte[] plaintext) {
         VerifyTools.requireNonNull(plaintext, "plaintext");
-        return AesTools.ecbEncrypt(plaintext, this.secretKey);
+        return AesTools.ecbEncrypt(plaintext, this.secretKey, true);
     }
 
     /**
@@ -86,7 +86,7 @@ public class AesEcbCipher implements CipherService {
     public String decrypt(String ciphertext) {
         VerifyTools.requireNonNull(ciphertext, "ciphertext");
         byte[] input = byteCodec.decode(ciphertext);
-        byte[] output = AesTools.ecbDecrypt(input, this.secretKey);
+        byte[] output = AesTools.ecbDecrypt(input, this.secretKey, true);
         String text = textCodec.encode(output);
         return text.substring(randomChar, text.length() - randomChar);
     }
@@ -100,6 +100,6 @@ public class AesEcbCipher implements CipherService {
     @Override
     public byte[] decrypt(byte[] ciphertext) {
         VerifyTools.requireNonNull(ciphertext, "ciphertext");
-        return AesTools.ecbDecrypt(ciphertext, this.secretKey);
+        return AesTools.ecbDecrypt(ciphertext, this.secretKey, true);
     }
 }
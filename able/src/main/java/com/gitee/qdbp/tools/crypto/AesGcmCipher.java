@@ -0,0 +1,77 @@
+package com.gitee.qdbp.tools.crypto;
+
+import java.security.GeneralSecurityException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import com.gitee.qdbp.tools.codec.bytes.ByteCodec;
+import com.gitee.qdbp.tools.codec.bytes.HexCodec;
+import com.gitee.qdbp.tools.utils.RandomTools;
+
+/**
+ * AES/GCM分块加解密实例, 带认证, 密文被篡改/截断/调换顺序都会解密失败<br>
+ * JDK的GCM解密要等到doFinal才输出数据, 整体解密需要缓存全部密文, 因此按块加密:<br>
+ * 头部是8字节随机数, 每块的Nonce=随机数+4字节块序号, 最后一块以附加数据(AAD)标记, 防止截断
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class AesGcmCipher extends AesStreamCipher {
+
+    private static final String GCM_CIPHER = "AES/GCM/NoPadding";
+    private static final int NONCE_PREFIX_LENGTH = 8;
+    private static final int TAG_LENGTH = 16;
+    private static final byte[] LAST_CHUNK = { 1 };
+    private static final byte[] MIDDLE_CHUNK = { 0 };
+
+    public AesGcmCipher() {
+        this(HexCodec.INSTANCE);
+    }
+
+    public AesGcmCipher(ByteCodec byteCodec) {
+        this(RandomTools.generateString(20), byteCodec);
+    }
+
+    public AesGcmCipher(String secretKey) {
+        this(secretKey, HexCodec.INSTANCE);
+    }
+
+    public AesGcmCipher(String secretKey, ByteCodec byteCodec) {
+        super(secretKey, byteCodec);
+    }
+
+    public AesGcmCipher(SecretKey secretKey, ByteCodec byteCodec) {
+        super(secretKey, byteCodec);
+    }
+
+    @Override
+    protected String getTransformation() {
+        return GCM_CIPHER;
+    }
+
+    @Override
+    protected int getHeaderLength() {
+        return NONCE_PREFIX_LENGTH;
+    }
+
+    @Override
+    protected int getOverhead() {
+        return TAG_LENGTH;
+    }
+
+    @Override
+    protected void initCipher(Cipher cipher, int cipherMode, SecretKey key, byte[] header, long index, boolean last)
+            throws GeneralSecurityException {
+        if (index > 0xFFFFFFFFL) {
+            throw new IllegalStateException("Too many chunks: " + index);
+        }
+        byte[] nonce = new byte[NONCE_PREFIX_LENGTH + 4];
+        System.arraycopy(header, 0, nonce, 0, NONCE_PREFIX_LENGTH);
+        nonce[NONCE_PREFIX_LENGTH] = (byte) (index >>> 24);
+        nonce[NONCE_PREFIX_LENGTH + 1] = (byte) (index >>> 16);
+        nonce[NONCE_PREFIX_LENGTH + 2] = (byte) (index >>> 8);
+        nonce[NONCE_PREFIX_LENGTH + 3] = (byte) index;
+        cipher.init(cipherMode, key, new GCMParameterSpec(TAG_LENGTH * 8, nonce));
+        cipher.updateAAD(last ? LAST_CHUNK : MIDDLE_CHUNK);
+    }
+}
@@ -0,0 +1,622 @@
+package com.gitee.qdbp.tools.crypto;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import com.gitee.qdbp.able.exception.ServiceException;
+import com.gitee.qdbp.able.result.ResultCode;
+import com.gitee.qdbp.tools.codec.bytes.ByteCodec;
+import com.gitee.qdbp.tools.codec.bytes.TextCodec;
+import com.gitee.qdbp.tools.utils.VerifyTools;
+
+/**
+ * AES分块加解密的基类<br>
+ * 密文格式: 头部(随机的IV/Nonce) + 若干块密文, 每块明文CHUNK_SIZE字节(最后一块可以不足)<br>
+ * 每块使用独立的IV单独加密, 块与块之间没有依赖, 因此可以流式处理, 文件也可以多线程并行处理<br>
+ * 最后一块需要特殊标记时(如GCM防截断), 由子类在initCipher时根据last参数处理
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public abstract class AesStreamCipher implements StreamCipherService {
+
+    /** 每块明文的字节数 **/
+    protected static final int CHUNK_SIZE = 64 * 1024;
+    /** 文件并行处理时, 每个任务处理的块数 **/
+    private static final int CHUNKS_PER_TASK = 16;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /** 输入输出文本的编解码方式 **/
+    private TextCodec textCodec;
+    /** 输入输出Byte的编解码方式 **/
+    private ByteCodec byteCodec;
+    /** 密码字符串 **/
+    private String stringKey;
+    /** 密钥对象 **/
+    private SecretKey secretKey;
+    /** 文件加解密的并行数量 **/
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    protected AesStreamCipher(String secretKey, ByteCodec byteCodec) {
+        this.textCodec = TextCodec.UTF8;
+        this.byteCodec = byteCodec;
+        this.stringKey = secretKey;
+        this.secretKey = AesTools.generateSecretKey(textCodec.decode(secretKey), true);
+    }
+
+    protected AesStreamCipher(SecretKey secretKey, ByteCodec byteCodec) {
+        VerifyTools.requireNonNull(secretKey, "secretKey");
+        this.textCodec = TextCodec.UTF8;
+        this.byteCodec = byteCodec;
+        this.secretKey = secretKey;
+    }
+
+    /** 算法, 如AES/GCM/NoPadding **/
+    protected abstract String getTransformation();
+
+    /** 头部的字节数 **/
+    protected abstract int getHeaderLength();
+
+    /** 每块密文比明文多出的字节数(如GCM的认证标签) **/
+    protected abstract int getOverhead();
+
+    /**
+     * 为指定的块初始化Cipher
+     *
+     * @param cipher Cipher实例
+     * @param cipherMode Cipher.ENCRYPT_MODE/Cipher.DECRYPT_MODE
+     * @param key 密钥
+     * @param header 头部数据
+     * @param index 块序号, 从0开始
+     * @param last 是不是最后一块
+     * @throws GeneralSecurityException 初始化失败
+     */
+    protected abstract void initCipher(Cipher cipher, int cipherMode, SecretKey key, byte[] header, long index,
+            boolean last) throws GeneralSecurityException;
+
+    public String getSecretKey() {
+        return this.stringKey;
+    }
+
+    /**
+     * 加密, 使用密钥加密
+     *
+     * @param plaintext 待加密的明文
+     * @return 加密后的密文
+     */
+    @Override
+    public String encrypt(String plaintext) {
+        VerifyTools.requireNonNull(plaintext, "plaintext");
+        byte[] output = encrypt(textCodec.decode(plaintext));
+        return byteCodec.encode(output);
+    }
+
+    /**
+     * 加密, 使用密钥加密
+     *
+     * @param plaintext 待加密的明文
+     * @return 加密后的密文
+     */
+    @Override
+    public byte[] encrypt(byte[] plaintext) {
+        VerifyTools.requireNonNull(plaintext, "plaintext");
+        int headerLength = getHeaderLength();
+        int overhead = getOverhead();
+        int chunks = plaintext.length == 0 ? 1 : (plaintext.length - 1) / CHUNK_SIZE + 1;
+        long size = headerLength + (long) plaintext.length + (long) chunks * overhead;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("plaintext is too large, use stream or file instead");
+        }
+        byte[] header = newHeader();
+        byte[] output = new byte[(int) size];
+        System.arraycopy(header, 0, output, 0, headerLength);
+        Cipher cipher = newCipher();
+        try {
+            for (int i = 0; i < chunks; i++) {
+                int offset = i * CHUNK_SIZE;
+                int length = Math.min(CHUNK_SIZE, plaintext.length - offset);
+                initCipher(cipher, Cipher.ENCRYPT_MODE, secretKey, header, i, i == chunks - 1);
+                cipher.doFinal(plaintext, offset, length, output, headerLength + i * (CHUNK_SIZE + overhead));
+            }
+        } catch (GeneralSecurityException e) {
+            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
+        }
+        return output;
+    }
+
+    /**
+     * 解密, 使用密钥解密
+     *
+     * @param ciphertext 待解密的密文
+     * @return 解密后的明文
+     */
+    @Override
+    public String decrypt(String ciphertext) {
+        VerifyTools.requireNonNull(ciphertext, "ciphertext");
+        byte[] output = decrypt(byteCodec.decode(ciphertext));
+        return textCodec.encode(output);
+    }
+
+    /**
+     * 解密, 使用密钥解密
+     *
+     * @param ciphertext 待解密的密文
+     * @return 解密后的明文
+     */
+    @Override
+    public byte[] decrypt(byte[] ciphertext) {
+        VerifyTools.requireNonNull(ciphertext, "ciphertext");
+        int headerLength = getHeaderLength();
+        int overhead = getOverhead();
+        int chunkLength = CHUNK_SIZE + overhead;
+        int bodyLength = ciphertext.length - headerLength;
+        int chunks = bodyLength <= 0 ? 1 : (bodyLength - 1) / chunkLength + 1;
+        int lastLength = bodyLength - (chunks - 1) * chunkLength;
+        if (lastLength < overhead) {
+            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, "Ciphertext truncated");
+        }
+        byte[] header = new byte[headerLength];
+        System.arraycopy(ciphertext, 0, header, 0, headerLength);
+        byte[] output = new byte[bodyLength - chunks * overhead];
+        Cipher cipher = newCipher();
+        try {
+            for (int i = 0; i < chunks; i++) {
+                int offset = headerLength + i * chunkLength;
+                int length = i == chunks - 1 ? lastLength : chunkLength;
+                initCipher(cipher, Cipher.DECRYPT_MODE, secretKey, header, i, i == chunks - 1);
+                cipher.doFinal(ciphertext, offset, length, output, i * CHUNK_SIZE);
+            }
+        } catch (GeneralSecurityException e) {
+            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
+        }
+        return output;
+    }
+
+    /**
+     * 加密输出流, 写入的明文加密后输出到目标流<br>
+     * 必须调用close()才会写入最后一块数据, close()时会同时关闭目标流
+     *
+     * @param target 密文的目标输出流
+     * @return 明文输出流
+     * @throws IOException 写入头部失败
+     */
+    @Override
+    public OutputStream encrypt(OutputStream target) throws IOException {
+        VerifyTools.requireNonNull(target, "target");
+        return new EncryptOutputStream(target);
+    }
+
+    /**
+     * 解密输入流, 从源流读取密文, 解密后返回明文<br>
+     * 每块读完后才解密, 密文错误时在读取到该块时抛出IOException
+     *
+     * @param source 密文的输入流
+     * @return 明文输入流
+     */
+    @Override
+    public InputStream decrypt(InputStream source) {
+        VerifyTools.requireNonNull(source, "source");
+        return new DecryptInputStream(source);
+    }
+
+    /**
+     * 文件加密, 超过一个任务的数据量时多线程并行处理
+     *
+     * @param source 明文文件
+     * @param target 密文文件
+     * @throws IOException 读写失败
+     */
+    @Override
+    public void encrypt(File source, File target) throws IOException {
+        transformFile(source, target, Cipher.ENCRYPT_MODE);
+    }
+
+    /**
+     * 文件解密, 超过一个任务的数据量时多线程并行处理<br>
+     * 失败时删除目标文件, 避免留下不完整的明文
+     *
+     * @param source 密文文件
+     * @param target 明文文件
+     * @throws IOException 读写失败或密文错误
+     */
+    @Override
+    public void decrypt(File source, File target) throws IOException {
+        transformFile(source, target, Cipher.DECRYPT_MODE);
+    }
+
+    private void transformFile(File source, File target, int cipherMode) throws IOException {
+        VerifyTools.requireNonNull(source, "source");
+        VerifyTools.requireNonNull(target, "target");
+        try (FileChannel input = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            boolean succeed = false;
+            try (FileChannel output = FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                doTransformFile(input, output, cipherMode);
+                succeed = true;
+            } finally {
+                if (!succeed) {
+                    target.delete();
+                }
+            }
+        }
+    }
+
+    private void doTransformFile(FileChannel input, FileChannel output, int cipherMode) throws IOException {
+        FileJob job = new FileJob();
+        job.input = input;
+        job.output = output;
+        job.cipherMode = cipherMode;
+        int headerLength = getHeaderLength();
+        int overhead = getOverhead();
+        if (cipherMode == Cipher.ENCRYPT_MODE) {
+            job.header = newHeader();
+            writeFully(output, ByteBuffer.wrap(job.header), 0);
+            job.inputOffset = 0;
+            job.outputOffset = headerLength;
+            job.inputChunk = CHUNK_SIZE;
+            job.outputChunk = CHUNK_SIZE + overhead;
+            job.inputSize = input.size();
+        } else {
+            job.header = new byte[headerLength];
+            if (readFully(input, ByteBuffer.wrap(job.header), 0) < headerLength) {
+                throw new EOFException("Ciphertext truncated");
+            }
+            job.inputOffset = headerLength;
+            job.outputOffset = 0;
+            job.inputChunk = CHUNK_SIZE + overhead;
+            job.outputChunk = CHUNK_SIZE;
+            job.inputSize = input.size() - headerLength;
+        }
+        job.chunks = Math.max(1, (job.inputSize + job.inputChunk - 1) / job.inputChunk);
+        if (cipherMode == Cipher.DECRYPT_MODE && job.inputSize - (job.chunks - 1) * job.inputChunk < overhead) {
+            throw new EOFException("Ciphertext truncated");
+        }
+
+        long tasks = (job.chunks + CHUNKS_PER_TASK - 1) / CHUNKS_PER_TASK;
+        if (parallelism <= 1 || tasks <= 1) {
+            new FileTask(job, 0, job.chunks).call();
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool((int) Math.min(parallelism, tasks));
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (long i = 0; i < job.chunks; i += CHUNKS_PER_TASK) {
+                futures.add(executor.submit(new FileTask(job, i, Math.min(job.chunks, i + CHUNKS_PER_TASK))));
+            }
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while processing file", e);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    } else {
+                        throw new IOException("Failed to process file", cause);
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private byte[] newHeader() {
+        byte[] header = new byte[getHeaderLength()];
+        RANDOM.nextBytes(header);
+        return header;
+    }
+
+    private Cipher newCipher() {
+        try {
+            return Cipher.getInstance(getTransformation());
+        } catch (NoSuchAlgorithmException e) {
+            throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
+        } catch (NoSuchPaddingException e) {
+            throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
+        }
+    }
+
+    private static int readFully(InputStream input, byte[] buffer, int offset, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int count = input.read(buffer, offset + total, length - total);
+            if (count < 0) {
+                break;
+            }
+            total += count;
+        }
+        return total;
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int count = channel.read(buffer, position + total);
+            if (count < 0) {
+                break;
+            }
+            total += count;
+        }
+        return total;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+
+    /** 文件并行数量 **/
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /** 文件并行数量 **/
+    public void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be greater than 0: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /** 文件加解密的参数 **/
+    private static class FileJob {
+
+        private FileChannel input;
+        private FileChannel output;
+        private int cipherMode;
+        private byte[] header;
+        /** 第一块在源文件中的位置 **/
+        private long inputOffset;
+        /** 第一块在目标文件中的位置 **/
+        private long outputOffset;
+        /** 源文件每块的字节数 **/
+        private int inputChunk;
+        /** 目标文件每块的字节数 **/
+        private int outputChunk;
+        /** 源文件除头部以外的字节数 **/
+        private long inputSize;
+        /** 总块数 **/
+        private long chunks;
+    }
+
+    /** 处理文件中连续的若干块 **/
+    private class FileTask implements Callable<Void> {
+
+        private final FileJob job;
+        private final long from;
+        private final long to;
+
+        public FileTask(FileJob job, long from, long to) {
+            this.job = job;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Void call() throws IOException {
+            Cipher cipher = newCipher();
+            byte[] input = new byte[job.inputChunk];
+            byte[] output = new byte[Math.max(job.inputChunk, job.outputChunk)];
+            for (long i = from; i < to; i++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IOException("Interrupted while processing file");
+                }
+                long position = i * job.inputChunk;
+                int length = (int) Math.min(job.inputChunk, job.inputSize - position);
+                if (readFully(job.input, ByteBuffer.wrap(input, 0, length), job.inputOffset + position) < length) {
+                    throw new EOFException("Unexpected end of file");
+                }
+                int count;
+                try {
+                    initCipher(cipher, job.cipherMode, secretKey, job.header, i, i == job.chunks - 1);
+                    count = cipher.doFinal(input, 0, length, output, 0);
+                } catch (GeneralSecurityException e) {
+                    throw new IOException("Failed to process chunk " + i, e);
+                }
+                writeFully(job.output, ByteBuffer.wrap(output, 0, count), job.outputOffset + i * job.outputChunk);
+            }
+            return null;
+        }
+    }
+
+    /** 加密输出流 **/
+    private class EncryptOutputStream extends OutputStream {
+
+        private final OutputStream target;
+        private final Cipher cipher;
+        private final byte[] header;
+        private final byte[] plain = new byte[CHUNK_SIZE];
+        private final byte[] encrypted = new byte[CHUNK_SIZE + getOverhead()];
+        private int position;
+        private long index;
+        private boolean closed;
+
+        public EncryptOutputStream(OutputStream target) throws IOException {
+            this.target = target;
+            this.cipher = newCipher();
+            this.header = newHeader();
+            target.write(header);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            checkClosed();
+            if (position == CHUNK_SIZE) {
+                writeChunk(false);
+            }
+            plain[position++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            checkClosed();
+            while (length > 0) {
+                // 缓冲区满了并且还有数据时才输出, 保证最后一块在close()时输出
+                if (position == CHUNK_SIZE) {
+                    writeChunk(false);
+                }
+                int count = Math.min(length, CHUNK_SIZE - position);
+                System.arraycopy(bytes, offset, plain, position, count);
+                position += count;
+                offset += count;
+                length -= count;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                writeChunk(true);
+            } finally {
+                target.close();
+            }
+        }
+
+        private void writeChunk(boolean last) throws IOException {
+            int count;
+            try {
+                initCipher(cipher, Cipher.ENCRYPT_MODE, secretKey, header, index, last);
+                count = cipher.doFinal(plain, 0, position, encrypted, 0);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Failed to encrypt chunk " + index, e);
+            }
+            target.write(encrypted, 0, count);
+            position = 0;
+            index++;
+        }
+
+        private void checkClosed() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+        }
+    }
+
+    /** 解密输入流 **/
+    private class DecryptInputStream extends InputStream {
+
+        private final InputStream source;
+        private final Cipher cipher;
+        private final int chunkLength = CHUNK_SIZE + getOverhead();
+        /** 多读一个字节, 用于判断当前块是不是最后一块 **/
+        private final byte[] encrypted = new byte[chunkLength + 1];
+        private final byte[] plain = new byte[chunkLength];
+        private byte[] header;
+        private int buffered;
+        private int position;
+        private int limit;
+        private long index;
+        private boolean finished;
+
+        public DecryptInputStream(InputStream source) {
+            this.source = source;
+            this.cipher = newCipher();
+        }
+
+        @Override
+        public int read() throws IOException {
+            while (position >= limit) {
+                if (!fill()) {
+                    return -1;
+                }
+            }
+            return plain[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (position >= limit) {
+                if (!fill()) {
+                    return -1;
+                }
+            }
+            int count = Math.min(length, limit - position);
+            System.arraycopy(plain, position, bytes, offset, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return limit - position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            finished = true;
+            source.close();
+        }
+
+        private boolean fill() throws IOException {
+            if (finished) {
+                return false;
+            }
+            if (header == null) {
+                byte[] bytes = new byte[getHeaderLength()];
+                if (readFully(source, bytes, 0, bytes.length) < bytes.length) {
+                    throw new EOFException("Ciphertext truncated");
+                }
+                header = bytes;
+            }
+            buffered += readFully(source, encrypted, buffered, encrypted.length - buffered);
+            boolean last = buffered <= chunkLength;
+            int length = last ? buffered : chunkLength;
+            if (length < getOverhead()) {
+                throw new EOFException("Ciphertext truncated");
+            }
+            try {
+                initCipher(cipher, Cipher.DECRYPT_MODE, secretKey, header, index, last);
+                limit = cipher.doFinal(encrypted, 0, length, plain, 0);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Failed to decrypt chunk " + index, e);
+            }
+            position = 0;
+            index++;
+            if (last) {
+                finished = true;
+                buffered = 0;
+            } else {
+                encrypted[0] = encrypted[chunkLength];
+                buffered = 1;
+            }
+            return true;
+        }
+    }
+}
@@ -1,14 +1,9 @@
 package com.gitee.qdbp.tools.crypto;
 
-import java.security.InvalidKeyException;
-import java.security.Key;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
-import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
-import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.KeyGenerator;
-import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import com.gitee.qdbp.able.exception.ServiceException;
@@ -34,14 +29,12 @@ public class AesTools {
      * @return 加密后的数据
      */
     public static byte[] ecbEncrypt(byte[] data, SecretKey key) {
-        Cipher cipher = getEcbCipherInstance(key, Cipher.ENCRYPT_MODE);
-        try {
-            return cipher.doFinal(data);
-        } catch (BadPaddingException e) {
-            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
-        } catch (IllegalBlockSizeException e) {
-            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
-        }
+        return ecbEncrypt(data, key, false);
+    }
+
+    /** 数据加密, longLived=密钥是否由调用方长期持有(如AesEcbCipher), 是则缓存初始化后的Cipher实例 **/
+    static byte[] ecbEncrypt(byte[] data, SecretKey key, boolean longLived) {
+        return CipherCache.doFinal(ECB_CIPHER, key, Cipher.ENCRYPT_MODE, data, longLived);
     }
 
     /**
@@ -52,14 +45,12 @@ public class AesTools {
      * @return 解密后的数据
      */
     public static byte[] ecbDecrypt(byte[] data, SecretKey key) {
-        Cipher cipher = getEcbCipherInstance(key, Cipher.DECRYPT_MODE);
-        try {
-            return cipher.doFinal(data);
-        } catch (BadPaddingException e) {
-            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
-        } catch (IllegalBlockSizeException e) {
-            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
-        }
+        return ecbDecrypt(data, key, false);
+    }
+
+    /** 数据解密, longLived=密钥是否由调用方长期持有(如AesEcbCipher), 是则缓存初始化后的Cipher实例 **/
+    static byte[] ecbDecrypt(byte[] data, SecretKey key, boolean longLived) {
+        return CipherCache.doFinal(ECB_CIPHER, key, Cipher.DECRYPT_MODE, data, longLived);
     }
 
     /**
@@ -88,18 +79,4 @@ public class AesTools {
         }
     }
 
-    private static Cipher getEcbCipherInstance(Key secretKey, int cipherMode) {
-        try {
-            Cipher cipher = Cipher.getInstance(ECB_CIPHER);
-            cipher.init(cipherMode, secretKey);
-            return cipher;
-        } catch (NoSuchAlgorithmException e) {
-            throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
-        } catch (NoSuchPaddingException e) {
-            throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
-        } catch (InvalidKeyException e) {
-            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
-        }
-    }
-
 }
@@ -0,0 +1,360 @@
+package com.gitee.qdbp.tools.crypto;
+
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.NoSuchPaddingException;
+import com.gitee.qdbp.able.exception.ServiceException;
+import com.gitee.qdbp.able.result.ResultCode;
+
+/**
+ * Cipher实例和密钥对象缓存<br>
+ * Cipher.getInstance需要查找Provider, X509/PKCS8密钥每次解析也有不小的开销, 对于小数据, 这些比加解密本身还慢<br>
+ * Cipher不是线程安全的, 因此按线程缓存, 以算法+密钥+模式为键, 已经init过的实例直接doFinal<br>
+ * 带IV的模式(如CBC)如果复用init后的状态会导致IV重复, 这类算法只缓存实例, 每次重新init<br>
+ * init过的Cipher实例会引用密钥, 因此只缓存公钥, 以及调用方声明为长期持有的密钥(如RsaCipher/AesEcbCipher的密钥);
+ * 其他私钥和协商生成的密钥每次创建新的Cipher实例, 用完即释放, 不会留在线程缓存中<br>
+ * 解析后的公钥对象是不可变的, 全局共享(LRU); 私钥每次都会解析, 需要复用时由调用方持有密钥对象<br>
+ * clear()对所有线程生效: 其他线程在下一次使用时清空自己的Cipher实例缓存;
+ * 线程缓存的Cipher实例来自Provider, 应用卸载时(如Web容器中)应在各线程调用clear()
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class CipherCache {
+
+    /** 每个线程最多缓存的Cipher实例数 **/
+    private static final int MAX_CIPHERS_PER_THREAD = 16;
+    /** 最多缓存的公钥对象数, 超过时移除最久未使用的 **/
+    private static final int MAX_PUBLIC_KEYS = 256;
+
+    /** 缓存的版本, clear()时加1, 各线程发现版本变化时清空自己的Cipher实例缓存 **/
+    private static final AtomicInteger GENERATION = new AtomicInteger();
+
+    private static final ThreadLocal<CipherMap> CIPHERS = new ThreadLocal<CipherMap>() {
+
+        @Override
+        protected CipherMap initialValue() {
+            return new CipherMap();
+        }
+    };
+
+    private static final Map<BytesKey, PublicKey> PUBLIC_KEYS = new LruMap<>(MAX_PUBLIC_KEYS);
+
+    /**
+     * 加密或解密, 公钥使用当前线程缓存的Cipher实例, 其他密钥不缓存
+     *
+     * @param transformation 算法, 如AES/ECB/PKCS5Padding
+     * @param key 密钥
+     * @param cipherMode Cipher.ENCRYPT_MODE/Cipher.DECRYPT_MODE
+     * @param data 待处理的数据
+     * @return 加密或解密后的数据
+     */
+    public static byte[] doFinal(String transformation, Key key, int cipherMode, byte[] data) {
+        return doFinal(transformation, key, cipherMode, Collections.singletonList(data)).get(0);
+    }
+
+    /**
+     * 加密或解密
+     *
+     * @param transformation 算法, 如AES/ECB/PKCS5Padding
+     * @param key 密钥
+     * @param cipherMode Cipher.ENCRYPT_MODE/Cipher.DECRYPT_MODE
+     * @param data 待处理的数据
+     * @param longLived 密钥是否由调用方长期持有, 是则私钥/对称密钥也使用线程缓存的Cipher实例
+     * @return 加密或解密后的数据
+     */
+    public static byte[] doFinal(String transformation, Key key, int cipherMode, byte[] data, boolean longLived) {
+        return doFinal(transformation, key, cipherMode, Collections.singletonList(data), longLived).get(0);
+    }
+
+    /**
+     * 使用同一个Cipher实例批量加密或解密, 只查找和初始化一次<br>
+     * 公钥使用当前线程缓存的Cipher实例, 其他密钥不缓存; 任何一个失败都会抛出异常
+     *
+     * @param transformation 算法, 如RSA
+     * @param key 密钥
+     * @param cipherMode Cipher.ENCRYPT_MODE/Cipher.DECRYPT_MODE
+     * @param data 待处理的数据列表
+     * @return 加密或解密后的数据列表, 与data的顺序一致
+     */
+    public static List<byte[]> doFinal(String transformation, Key key, int cipherMode, List<byte[]> data) {
+        return doFinal(transformation, key, cipherMode, data, false);
+    }
+
+    /**
+     * 使用同一个Cipher实例批量加密或解密, 只查找和初始化一次<br>
+     * 任何一个失败都会抛出异常
+     *
+     * @param transformation 算法, 如RSA
+     * @param key 密钥
+     * @param cipherMode Cipher.ENCRYPT_MODE/Cipher.DECRYPT_MODE
+     * @param data 待处理的数据列表
+     * @param longLived 密钥是否由调用方长期持有, 是则私钥/对称密钥也使用线程缓存的Cipher实例
+     * @return 加密或解密后的数据列表, 与data的顺序一致
+     */
+    public static List<byte[]> doFinal(String transformation, Key key, int cipherMode, List<byte[]> data,
+            boolean longLived) {
+        if (!longLived && !(key instanceof PublicKey)) {
+            return doFinalUncached(transformation, key, cipherMode, data);
+        }
+        CipherKey cacheKey = new CipherKey(transformation, key, cipherMode);
+        Map<CipherKey, Cipher> ciphers = getCiphers();
+        Cipher cipher = ciphers.get(cacheKey);
+        boolean reusable = isReusable(transformation);
+        try {
+            if (cipher == null) {
+                cipher = Cipher.getInstance(transformation);
+                cipher.init(cipherMode, key);
+                ciphers.put(cacheKey, cipher);
+            } else if (!reusable) {
+                cipher.init(cipherMode, key);
+            }
+            List<byte[]> result = new ArrayList<>(data.size());
+            for (int i = 0; i < data.size(); i++) {
+                if (i > 0 && !reusable) {
+                    cipher.init(cipherMode, key);
+                }
+                result.add(cipher.doFinal(data.get(i)));
+            }
+            return result;
+        } catch (NoSuchAlgorithmException e) {
+            throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
+        } catch (NoSuchPaddingException e) {
+            throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
+        } catch (InvalidKeyException e) {
+            ciphers.remove(cacheKey);
+            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
+        } catch (BadPaddingException e) {
+            // 失败后实例的状态不确定, 不再复用
+            ciphers.remove(cacheKey);
+            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
+        } catch (IllegalBlockSizeException e) {
+            ciphers.remove(cacheKey);
+            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
+        } catch (RuntimeException e) {
+            ciphers.remove(cacheKey);
+            throw e;
+        }
+    }
+
+    /** 不缓存, 使用新的Cipher实例, 用完即释放, 密钥不会留在线程缓存中 **/
+    private static List<byte[]> doFinalUncached(String transformation, Key key, int cipherMode, List<byte[]> data) {
+        boolean reusable = isReusable(transformation);
+        try {
+            Cipher cipher = Cipher.getInstance(transformation);
+            List<byte[]> result = new ArrayList<>(data.size());
+            for (int i = 0; i < data.size(); i++) {
+                if (i == 0 || !reusable) {
+                    cipher.init(cipherMode, key);
+                }
+                result.add(cipher.doFinal(data.get(i)));
+            }
+            return result;
+        } catch (NoSuchAlgorithmException e) {
+            throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
+        } catch (NoSuchPaddingException e) {
+            throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
+        } catch (InvalidKeyException e) {
+            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
+        } catch (BadPaddingException e) {
+            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
+        } catch (IllegalBlockSizeException e) {
+            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
+        }
+    }
+
+    /**
+     * 根据公钥数据获取公钥对象(X509格式)
+     *
+     * @param algorithm 算法, 如RSA
+     * @param keyBytes 公钥数据
+     * @return PublicKey对象
+     */
+    public static PublicKey getPublicKey(String algorithm, byte[] keyBytes) {
+        BytesKey cacheKey = new BytesKey(algorithm, keyBytes);
+        PublicKey key;
+        synchronized (PUBLIC_KEYS) {
+            key = PUBLIC_KEYS.get(cacheKey);
+        }
+        if (key == null) {
+            try {
+                KeyFactory keyFactory = KeyFactory.getInstance(algorithm);
+                key = keyFactory.generatePublic(new X509EncodedKeySpec(keyBytes));
+            } catch (NoSuchAlgorithmException e) {
+                throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
+            } catch (InvalidKeySpecException e) {
+                throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
+            }
+            synchronized (PUBLIC_KEYS) {
+                PUBLIC_KEYS.put(cacheKey, key);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * 根据私钥数据获取私钥对象(PKCS8格式)<br>
+     * 私钥不缓存, 每次都会解析; 需要复用时由调用方持有返回的私钥对象
+     *
+     * @param algorithm 算法, 如RSA
+     * @param keyBytes 私钥数据
+     * @return PrivateKey对象
+     */
+    public static PrivateKey getPrivateKey(String algorithm, byte[] keyBytes) {
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(algorithm);
+            return keyFactory.generatePrivate(new PKCS8EncodedKeySpec(keyBytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
+        } catch (InvalidKeySpecException e) {
+            throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
+        }
+    }
+
+    /**
+     * 清空所有线程的Cipher实例缓存和全局的公钥对象缓存<br>
+     * 当前线程立即清空, 其他线程在下一次使用时清空; 如更换密钥之后调用, 释放旧密钥初始化的Cipher实例
+     */
+    public static void clear() {
+        GENERATION.incrementAndGet();
+        CIPHERS.remove();
+        synchronized (PUBLIC_KEYS) {
+            PUBLIC_KEYS.clear();
+        }
+    }
+
+    /** 获取当前线程的Cipher实例缓存, 调用过clear()则先清空 **/
+    private static Map<CipherKey, Cipher> getCiphers() {
+        CipherMap ciphers = CIPHERS.get();
+        int generation = GENERATION.get();
+        if (ciphers.generation != generation) {
+            ciphers.clear();
+            ciphers.generation = generation;
+        }
+        return ciphers;
+    }
+
+    /** init之后能否直接复用: 没有IV的ECB模式(未指定模式时默认也是ECB) **/
+    private static boolean isReusable(String transformation) {
+        int start = transformation.indexOf('/');
+        if (start < 0) {
+            return true;
+        }
+        int end = transformation.indexOf('/', start + 1);
+        String mode = end < 0 ? transformation.substring(start + 1) : transformation.substring(start + 1, end);
+        return "ECB".equalsIgnoreCase(mode.trim());
+    }
+
+    private static class CipherKey {
+
+        private final String transformation;
+        private final Key key;
+        private final int cipherMode;
+        private final int hashCode;
+
+        public CipherKey(String transformation, Key key, int cipherMode) {
+            this.transformation = transformation;
+            this.key = key;
+            this.cipherMode = cipherMode;
+            this.hashCode = (transformation.hashCode() * 31 + key.hashCode()) * 31 + cipherMode;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (!(object instanceof CipherKey)) {
+                return false;
+            }
+            CipherKey other = (CipherKey) object;
+            return cipherMode == other.cipherMode && transformation.equals(other.transformation)
+                    && (key == other.key || key.equals(other.key));
+        }
+    }
+
+    /** 按访问顺序淘汰的Map, 超过容量时移除最久未使用的 **/
+    private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        public LruMap(int capacity) {
+            super(capacity * 2, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    /** 一个线程的Cipher实例缓存 **/
+    private static class CipherMap extends LruMap<CipherKey, Cipher> {
+
+        private static final long serialVersionUID = 1L;
+
+        /** 缓存的版本, 与GENERATION不一致时需要清空 **/
+        private int generation = GENERATION.get();
+
+        public CipherMap() {
+            super(MAX_CIPHERS_PER_THREAD);
+        }
+    }
+
+    /** 公钥数据, 只用于公钥缓存 **/
+    private static class BytesKey {
+
+        private final String type;
+        private final byte[] bytes;
+        private final int hashCode;
+
+        public BytesKey(String type, byte[] bytes) {
+            this.type = type;
+            // 复制一份, 避免调用方修改数组导致缓存错乱
+            this.bytes = bytes.clone();
+            this.hashCode = type.hashCode() * 31 + Arrays.hashCode(this.bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (!(object instanceof BytesKey)) {
+                return false;
+            }
+            BytesKey other = (BytesKey) object;
+            return hashCode == other.hashCode && type.equals(other.type) && Arrays.equals(bytes, other.bytes);
+        }
+    }
+}
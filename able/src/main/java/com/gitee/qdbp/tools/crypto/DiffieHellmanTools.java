@@ -2,21 +2,14 @@ package com.gitee.qdbp.tools.crypto;
 
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
-import java.security.Key;
-import java.security.KeyFactory;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.SecureRandom;
-import java.security.spec.InvalidKeySpecException;
-import java.security.spec.PKCS8EncodedKeySpec;
-import java.security.spec.X509EncodedKeySpec;
-import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
-import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.KeyAgreement;
-import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
 import javax.crypto.interfaces.DHPublicKey;
 import com.gitee.qdbp.able.exception.ServiceException;
@@ -49,12 +42,10 @@ public class DiffieHellmanTools {
     public static KeyPair generateKeyPairByPublicKey(byte[] otherPublicKey) {
         try {
             SecureRandom secureRandom = SecureRandom.getInstance(SHA1PRNG);
-            X509EncodedKeySpec x509KeySpec = new X509EncodedKeySpec(otherPublicKey);
-            KeyFactory keyFactory = KeyFactory.getInstance(ALGORITHM);
-            DHPublicKey pubKey = (DHPublicKey) keyFactory.generatePublic(x509KeySpec);
+            DHPublicKey pubKey = (DHPublicKey) CipherCache.getPublicKey(ALGORITHM, otherPublicKey);
 
             // 对方公钥生成密码
-            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(keyFactory.getAlgorithm());
+            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(ALGORITHM);
             keyPairGenerator.initialize(pubKey.getParams(), secureRandom);
 
             return keyPairGenerator.generateKeyPair();
@@ -62,8 +53,6 @@ public class DiffieHellmanTools {
             throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
         } catch (NoSuchAlgorithmException e) {
             throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
-        } catch (InvalidKeySpecException e) {
-            throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
         }
     }
 
@@ -78,14 +67,7 @@ public class DiffieHellmanTools {
      */
     public static byte[] encrypt(byte[] data, byte[] privateKey, byte[] publicKey, String algorithm) {
         SecretKey secretKey = generateSecretKey(privateKey, publicKey, algorithm);
-        Cipher cipher = getCipherInstance(secretKey, algorithm, Cipher.ENCRYPT_MODE);
-        try {
-            return cipher.doFinal(data);
-        } catch (BadPaddingException e) {
-            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
-        } catch (IllegalBlockSizeException e) {
-            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
-        }
+        return CipherCache.doFinal(algorithm, secretKey, Cipher.ENCRYPT_MODE, data);
     }
 
     /**
@@ -99,32 +81,12 @@ public class DiffieHellmanTools {
      */
     public static byte[] decrypt(byte[] data, byte[] privateKey, byte[] publicKey, String algorithm) {
         SecretKey secretKey = generateSecretKey(privateKey, publicKey, algorithm);
-        Cipher cipher = getCipherInstance(secretKey, algorithm, Cipher.DECRYPT_MODE);
-        try {
-            return cipher.doFinal(data);
-        } catch (BadPaddingException e) {
-            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
-        } catch (IllegalBlockSizeException e) {
-            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
-        }
-    }
-
-    private static Cipher getCipherInstance(SecretKey secretKey, String algorithm, int cipherMode) {
-        try {
-            Cipher cipher = Cipher.getInstance(algorithm);
-            cipher.init(cipherMode, secretKey);
-            return cipher;
-        } catch (NoSuchAlgorithmException e) {
-            throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
-        } catch (NoSuchPaddingException e) {
-            throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
-        } catch (InvalidKeyException e) {
-            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
-        }
+        return CipherCache.doFinal(algorithm, secretKey, Cipher.DECRYPT_MODE, data);
     }
 
     /**
-     * 根据己方私钥和对方公钥生成对称加密的密钥
+     * 根据己方私钥和对方公钥生成对称加密的密钥<br>
+     * 私钥和协商结果都不缓存, 避免调用方释放之后仍然留在内存中
      * 
      * @param privateKeyBytes 己方私钥
      * @param publicKeyBytes 对方公钥
@@ -132,27 +94,20 @@ public class DiffieHellmanTools {
      * @return SecretKey
      */
     private static SecretKey generateSecretKey(byte[] privateKeyBytes, byte[] publicKeyBytes, String algorithm) {
+        // 取主算法, 如AES/CBC/PKCS5Padding取主算法AES
+        int slashIndex = algorithm.indexOf('/');
+        String mainAlgorithm = slashIndex < 0 ? algorithm : algorithm.substring(0, slashIndex);
         try {
-            KeyFactory keyFactory = KeyFactory.getInstance(ALGORITHM);
-
-            PKCS8EncodedKeySpec pkcs8KeySpec = new PKCS8EncodedKeySpec(privateKeyBytes);
-            Key privateKey = keyFactory.generatePrivate(pkcs8KeySpec);
+            PrivateKey privateKey = CipherCache.getPrivateKey(ALGORITHM, privateKeyBytes);
+            PublicKey publicKey = CipherCache.getPublicKey(ALGORITHM, publicKeyBytes);
 
-            X509EncodedKeySpec x509KeySpec = new X509EncodedKeySpec(publicKeyBytes);
-            PublicKey publicKey = keyFactory.generatePublic(x509KeySpec);
-
-            KeyAgreement keyAgreement = KeyAgreement.getInstance(keyFactory.getAlgorithm());
+            KeyAgreement keyAgreement = KeyAgreement.getInstance(ALGORITHM);
             keyAgreement.init(privateKey);
             keyAgreement.doPhase(publicKey, true);
-            // 取主算法, 如AES/CBC/PKCS5Padding取主算法AES
-            int slashIndex = algorithm.indexOf('/');
-            String mainAlgorithm = slashIndex < 0 ? algorithm : algorithm.substring(0, slashIndex);
             // 生成对称加密的密钥
             return keyAgreement.generateSecret(mainAlgorithm);
         } catch (NoSuchAlgorithmException e) {
             throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
-        } catch (InvalidKeySpecException e) {
-            throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
         } catch (InvalidKeyException e) {
             throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
         }
@@ -1,5 +1,9 @@
 package com.gitee.qdbp.tools.crypto;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
 import com.gitee.qdbp.tools.utils.ConvertTools;
@@ -88,6 +92,54 @@ public class GlobalCipherTools {
         return doFindService(type).decrypt(password);
     }
 
+    /**
+     * 使用预配置的加密服务接口创建加密输出流(需要实现StreamCipherService)
+     * 
+     * @param type 密码类型
+     * @param target 密文的目标输出流
+     * @return 明文输出流, 必须调用close()才会写入最后一块数据
+     * @throws IOException 写入失败
+     */
+    public static OutputStream encrypt(String type, OutputStream target) throws IOException {
+        return doFindStreamService(type).encrypt(target);
+    }
+
+    /**
+     * 使用预配置的解密服务接口创建解密输入流(需要实现StreamCipherService)
+     * 
+     * @param type 密码类型
+     * @param source 密文的输入流
+     * @return 明文输入流
+     * @throws IOException 读取失败
+     */
+    public static InputStream decrypt(String type, InputStream source) throws IOException {
+        return doFindStreamService(type).decrypt(source);
+    }
+
+    /**
+     * 使用预配置的加密服务接口进行文件加密(需要实现StreamCipherService)
+     * 
+     * @param type 密码类型
+     * @param source 明文文件
+     * @param target 密文文件
+     * @throws IOException 读写失败
+     */
+    public static void encrypt(String type, File source, File target) throws IOException {
+        doFindStreamService(type).encrypt(source, target);
+    }
+
+    /**
+     * 使用预配置的解密服务接口进行文件解密(需要实现StreamCipherService)
+     * 
+     * @param type 密码类型
+     * @param source 密文文件
+     * @param target 明文文件
+     * @throws IOException 读写失败或密文错误
+     */
+    public static void decrypt(String type, File source, File target) throws IOException {
+        doFindStreamService(type).decrypt(source, target);
+    }
+
     private static Map<String, CipherService> CIPHER_SERVICE = new HashMap<>();
 
     public static void register(String types, CipherService service) {
@@ -104,6 +156,15 @@ public class GlobalCipherTools {
         return service;
     }
 
+    private static StreamCipherService doFindStreamService(String type) {
+        CipherService service = doFindService(type);
+        if (!(service instanceof StreamCipherService)) {
+            String name = service.getClass().getSimpleName();
+            throw new IllegalStateException("Cipher type " + type + " does not support stream: " + name);
+        }
+        return (StreamCipherService) service;
+    }
+
     private static void doRegisterService(String types, CipherService service) {
         String[] type = StringTools.split(types, ',', '|', ' ');
         for (String i : type) {
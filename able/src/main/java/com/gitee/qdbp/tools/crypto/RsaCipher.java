@@ -1,6 +1,13 @@
 package com.gitee.qdbp.tools.crypto;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.List;
 import com.gitee.qdbp.tools.codec.bytes.ByteCodec;
 import com.gitee.qdbp.tools.codec.bytes.HexCodec;
 import com.gitee.qdbp.tools.codec.bytes.TextCodec;
@@ -22,6 +29,10 @@ public class RsaCipher implements CipherService {
     private byte[] privateKey;
     /** 公钥 **/
     private byte[] publicKey;
+    /** 解析后的私钥对象 **/
+    private volatile PrivateKey parsedPrivateKey;
+    /** 解析后的公钥对象 **/
+    private volatile PublicKey parsedPublicKey;
 
     public RsaCipher(int keySize) {
         this(keySize, HexCodec.INSTANCE);
@@ -79,7 +90,7 @@ public class RsaCipher implements CipherService {
             throw new IllegalStateException("PublicKey not configured");
         }
         byte[] input = textCodec.decode(plaintext);
-        byte[] output = RsaTools.encrypt(input, publicKey);
+        byte[] output = RsaTools.encrypt(input, getParsedPublicKey());
         return byteCodec.encode(output);
     }
 
@@ -95,7 +106,7 @@ public class RsaCipher implements CipherService {
         if (publicKey == null) {
             throw new IllegalStateException("PublicKey not configured");
         }
-        return RsaTools.encrypt(plaintext, publicKey);
+        return RsaTools.encrypt(plaintext, getParsedPublicKey());
     }
 
     /**
@@ -111,7 +122,7 @@ public class RsaCipher implements CipherService {
             throw new IllegalStateException("PrivateKey not configured");
         }
         byte[] input = byteCodec.decode(ciphertext);
-        byte[] output = RsaTools.decrypt(input, privateKey);
+        byte[] output = RsaTools.decrypt(input, getParsedPrivateKey(), true);
         return textCodec.encode(output);
     }
 
@@ -127,6 +138,128 @@ public class RsaCipher implements CipherService {
         if (privateKey == null) {
             throw new IllegalStateException("PrivateKey not configured");
         }
-        return RsaTools.decrypt(ciphertext, privateKey);
+        return RsaTools.decrypt(ciphertext, getParsedPrivateKey(), true);
+    }
+
+    /**
+     * 批量解密, 使用私钥解密, 所有密文共用同一个已初始化的Cipher实例
+     * 
+     * @param ciphertexts 待解密的密文列表
+     * @return 解密后的明文列表, 与ciphertexts的顺序一致
+     */
+    public List<String> decrypt(List<String> ciphertexts) {
+        VerifyTools.requireNonNull(ciphertexts, "ciphertexts");
+        if (privateKey == null) {
+            throw new IllegalStateException("PrivateKey not configured");
+        }
+        List<byte[]> inputs = new ArrayList<>(ciphertexts.size());
+        for (String ciphertext : ciphertexts) {
+            VerifyTools.requireNonNull(ciphertext, "ciphertext");
+            inputs.add(byteCodec.decode(ciphertext));
+        }
+        List<byte[]> outputs = RsaTools.decrypt(inputs, getParsedPrivateKey(), true);
+        List<String> result = new ArrayList<>(outputs.size());
+        for (byte[] output : outputs) {
+            result.add(textCodec.encode(output));
+        }
+        return result;
+    }
+
+    /**
+     * 数字信封加密, 用公钥加密随机生成的AES密钥, 用AES/GCM加密数据, 数据大小不受限制
+     * 
+     * @param plaintext 待加密的明文
+     * @return 加密后的密文
+     */
+    public String encryptEnvelope(String plaintext) {
+        VerifyTools.requireNonNull(plaintext, "plaintext");
+        byte[] output = encryptEnvelope(textCodec.decode(plaintext));
+        return byteCodec.encode(output);
+    }
+
+    /**
+     * 数字信封加密, 用公钥加密随机生成的AES密钥, 用AES/GCM加密数据, 数据大小不受限制
+     * 
+     * @param plaintext 待加密的明文
+     * @return 加密后的密文
+     */
+    public byte[] encryptEnvelope(byte[] plaintext) {
+        VerifyTools.requireNonNull(plaintext, "plaintext");
+        if (publicKey == null) {
+            throw new IllegalStateException("PublicKey not configured");
+        }
+        return RsaTools.encryptEnvelope(plaintext, getParsedPublicKey());
+    }
+
+    /**
+     * 数字信封加密输出流, 必须调用close()才会写入最后一块数据
+     * 
+     * @param target 密文的目标输出流
+     * @return 明文输出流
+     * @throws IOException 写入失败
+     */
+    public OutputStream encryptEnvelope(OutputStream target) throws IOException {
+        VerifyTools.requireNonNull(target, "target");
+        if (publicKey == null) {
+            throw new IllegalStateException("PublicKey not configured");
+        }
+        return RsaTools.encryptEnvelope(target, getParsedPublicKey());
+    }
+
+    /**
+     * 数字信封解密, 使用私钥解密AES密钥, 再解密数据
+     * 
+     * @param ciphertext 待解密的密文
+     * @return 解密后的明文
+     */
+    public String decryptEnvelope(String ciphertext) {
+        VerifyTools.requireNonNull(ciphertext, "ciphertext");
+        byte[] output = decryptEnvelope(byteCodec.decode(ciphertext));
+        return textCodec.encode(output);
+    }
+
+    /**
+     * 数字信封解密, 使用私钥解密AES密钥, 再解密数据
+     * 
+     * @param ciphertext 待解密的密文
+     * @return 解密后的明文
+     */
+    public byte[] decryptEnvelope(byte[] ciphertext) {
+        VerifyTools.requireNonNull(ciphertext, "ciphertext");
+        if (privateKey == null) {
+            throw new IllegalStateException("PrivateKey not configured");
+        }
+        return RsaTools.decryptEnvelope(ciphertext, getParsedPrivateKey(), true);
+    }
+
+    /**
+     * 数字信封解密输入流
+     * 
+     * @param source 密文的输入流
+     * @return 明文输入流
+     * @throws IOException 读取失败
+     */
+    public InputStream decryptEnvelope(InputStream source) throws IOException {
+        VerifyTools.requireNonNull(source, "source");
+        if (privateKey == null) {
+            throw new IllegalStateException("PrivateKey not configured");
+        }
+        return RsaTools.decryptEnvelope(source, getParsedPrivateKey(), true);
+    }
+
+    /** 公钥对象, 只在第一次使用时解析 **/
+    private PublicKey getParsedPublicKey() {
+        if (parsedPublicKey == null) {
+            parsedPublicKey = RsaTools.generatePublicKey(publicKey);
+        }
+        return parsedPublicKey;
+    }
+
+    /** 私钥对象, 只在第一次使用时解析 **/
+    private PrivateKey getParsedPrivateKey() {
+        if (parsedPrivateKey == null) {
+            parsedPrivateKey = RsaTools.generatePrivateKey(privateKey);
+        }
+        return parsedPrivateKey;
     }
 }
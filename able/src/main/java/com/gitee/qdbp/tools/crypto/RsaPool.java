@@ -1,9 +1,19 @@
 package com.gitee.qdbp.tools.crypto;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import com.gitee.qdbp.tools.codec.bytes.Base58Codec;
 
 /**
- * RSA实例池
+ * RSA实例池<br>
+ * 调用start()之后由后台线程定期更换主实例: 下一个密钥对提前在后台生成, 到时间后原子地替换, 不会阻塞请求<br>
+ * 原先的主实例降为备用实例, 保留最近N个, 用旧公钥加密的数据仍然可以解密<br>
+ * 例如: RsaPool.instance.start(1, TimeUnit.HOURS);
  *
  * @author zhaohuihua
  * @version 191228
@@ -12,27 +22,299 @@ public class RsaPool {
 
     private static final int KEY_SIZE_DEFAULT = 1024;
     public static final RsaPool instance = new RsaPool();
-    /** 主实例 **/
-    private RsaCipher majorCipher = new RsaCipher(KEY_SIZE_DEFAULT, new Base58Codec());
-    /** 备用实例, 更换主实例后, 原先的主实例降为备用实例继续服务一段时间 **/
-    private RsaCipher minorCipher;
+
+    private final int keySize;
+    /** 保留的备用实例数量 **/
+    private final int previousKeys;
+    /** 主实例和备用实例, 第1个是主实例, 后面依次是更早的实例; 更换时整体替换数组 **/
+    private volatile RsaCipher[] ciphers;
+    /** 预先生成的下一个实例 **/
+    private volatile RsaCipher nextCipher;
+    private ScheduledExecutorService scheduler;
+
+    /** 更换次数 **/
+    private final AtomicLong rotations = new AtomicLong();
+    /** 后台生成或更换失败的次数 **/
+    private final AtomicLong rotationErrors = new AtomicLong();
+    /** 主实例解密失败, 由备用实例解密成功的次数 **/
+    private final AtomicLong fallbackHits = new AtomicLong();
+    /** 所有实例都解密失败的次数 **/
+    private final AtomicLong decryptFailures = new AtomicLong();
+    /** 最近一次生成密钥对的耗时(毫秒) **/
+    private volatile long lastGenerateMillis;
+    /** 生成密钥对的最大耗时(毫秒) **/
+    private volatile long maxGenerateMillis;
+    /** 最近一次更换的耗时(纳秒), 包括没有预生成时当场生成的时间 **/
+    private volatile long lastRotateNanos;
+
+    public RsaPool() {
+        this(KEY_SIZE_DEFAULT, 1);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param keySize 密钥长度
+     * @param previousKeys 更换后保留的备用实例数量
+     */
+    public RsaPool(int keySize, int previousKeys) {
+        if (previousKeys < 0) {
+            throw new IllegalArgumentException("previousKeys must be greater than or equal to 0: " + previousKeys);
+        }
+        this.keySize = keySize;
+        this.previousKeys = previousKeys;
+        this.ciphers = new RsaCipher[] { generateCipher() };
+    }
+
+    /**
+     * 启动后台定期更换, 启动时立即在后台预生成下一个密钥对
+     *
+     * @param period 更换周期
+     * @param unit 时间单位
+     */
+    public synchronized void start(long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("period must be greater than 0: " + period);
+        }
+        if (scheduler != null) {
+            throw new IllegalStateException("RsaPool rotation already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "RsaPool-rotation");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                pregenerate();
+            }
+        });
+        scheduler.scheduleAtFixedRate(new Runnable() {
+
+            @Override
+            public void run() {
+                // 必须捕获异常, 否则后续的定时任务都不会再执行
+                try {
+                    rotate();
+                } catch (RuntimeException e) {
+                    rotationErrors.incrementAndGet();
+                }
+                pregenerate();
+            }
+        }, period, period, unit);
+    }
+
+    /** 停止后台定期更换 **/
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * 更换主实例: 使用预生成的实例(没有时当场生成), 原先的主实例降为备用实例<br>
+     * 超过保留数量的旧实例被移除时清空CipherCache, 旧私钥不会继续留在各线程的缓存中<br>
+     * 后台定期执行, 也可以手动调用
+     */
+    public synchronized void rotate() {
+        long start = System.nanoTime();
+        RsaCipher next = nextCipher;
+        nextCipher = null;
+        if (next == null) {
+            next = generateCipher();
+        }
+        RsaCipher[] current = ciphers;
+        RsaCipher[] rotated = new RsaCipher[Math.min(current.length + 1, previousKeys + 1)];
+        rotated[0] = next;
+        System.arraycopy(current, 0, rotated, 1, rotated.length - 1);
+        ciphers = rotated;
+        if (rotated.length <= current.length) {
+            // 有旧实例被移除, 清空用旧私钥初始化的Cipher实例缓存, 使旧私钥可以被回收
+            CipherCache.clear();
+        }
+        lastRotateNanos = System.nanoTime() - start;
+        rotations.incrementAndGet();
+    }
+
+    /** 预生成下一个实例 **/
+    private void pregenerate() {
+        if (nextCipher != null) {
+            return;
+        }
+        try {
+            nextCipher = generateCipher();
+        } catch (RuntimeException e) {
+            rotationErrors.incrementAndGet();
+        }
+    }
+
+    private RsaCipher generateCipher() {
+        long start = System.currentTimeMillis();
+        RsaCipher cipher = new RsaCipher(keySize, new Base58Codec());
+        long millis = System.currentTimeMillis() - start;
+        lastGenerateMillis = millis;
+        if (millis > maxGenerateMillis) {
+            maxGenerateMillis = millis;
+        }
+        return cipher;
+    }
 
     /** 获取当前公钥 **/
     public String getPublicKey() {
-        return majorCipher.getPublicKey();
+        return ciphers[0].getPublicKey();
     }
 
     /** 使用私钥解密 **/
-    public String decrypt(String ciphertext) {
+    public String decrypt(final String ciphertext) {
+        return doDecrypt(new Operation<String>() {
+
+            @Override
+            public String execute(RsaCipher cipher) {
+                return cipher.decrypt(ciphertext);
+            }
+        });
+    }
+
+    /** 使用私钥批量解密, 共用同一个已初始化的Cipher实例 **/
+    public List<String> decrypt(List<String> ciphertexts) {
+        RsaCipher[] current = ciphers;
         try {
-            return majorCipher.decrypt(ciphertext);
-        } catch (Exception e) {
-            if (minorCipher != null) {
-                return minorCipher.decrypt(ciphertext);
+            return current[0].decrypt(ciphertexts);
+        } catch (RuntimeException e) {
+            if (current.length == 1) {
+                decryptFailures.incrementAndGet();
+                throw e;
+            }
+            // 可能有部分密文是用备用实例的公钥加密的, 逐个解密
+            List<String> result = new ArrayList<>(ciphertexts.size());
+            for (String ciphertext : ciphertexts) {
+                result.add(decrypt(ciphertext));
             }
+            return result;
+        }
+    }
+
+    /** 数字信封解密, 数据大小不受RSA密钥长度限制 **/
+    public String decryptEnvelope(final String ciphertext) {
+        return doDecrypt(new Operation<String>() {
+
+            @Override
+            public String execute(RsaCipher cipher) {
+                return cipher.decryptEnvelope(ciphertext);
+            }
+        });
+    }
+
+    /** 先用主实例解密, 失败时依次用备用实例解密 **/
+    private <T> T doDecrypt(Operation<T> operation) {
+        RsaCipher[] current = ciphers;
+        try {
+            return operation.execute(current[0]);
+        } catch (RuntimeException e) {
+            for (int i = 1; i < current.length; i++) {
+                try {
+                    T result = operation.execute(current[i]);
+                    fallbackHits.incrementAndGet();
+                    return result;
+                } catch (RuntimeException ignore) {
+                }
+            }
+            decryptFailures.incrementAndGet();
             throw e;
         }
     }
 
-    // 定期更换RsaCipher
-}
\ No newline at end of file
+    /** 获取运行指标 **/
+    public Metrics getMetrics() {
+        Metrics metrics = new Metrics();
+        metrics.rotations = rotations.get();
+        metrics.rotationErrors = rotationErrors.get();
+        metrics.fallbackHits = fallbackHits.get();
+        metrics.decryptFailures = decryptFailures.get();
+        metrics.lastGenerateMillis = lastGenerateMillis;
+        metrics.maxGenerateMillis = maxGenerateMillis;
+        metrics.lastRotateNanos = lastRotateNanos;
+        metrics.activeKeys = ciphers.length;
+        metrics.pregenerated = nextCipher != null;
+        return metrics;
+    }
+
+    private interface Operation<T> {
+
+        T execute(RsaCipher cipher);
+    }
+
+    /** 运行指标 **/
+    public static class Metrics {
+
+        private long rotations;
+        private long rotationErrors;
+        private long fallbackHits;
+        private long decryptFailures;
+        private long lastGenerateMillis;
+        private long maxGenerateMillis;
+        private long lastRotateNanos;
+        private int activeKeys;
+        private boolean pregenerated;
+
+        /** 更换次数 **/
+        public long getRotations() {
+            return rotations;
+        }
+
+        /** 后台生成或更换失败的次数 **/
+        public long getRotationErrors() {
+            return rotationErrors;
+        }
+
+        /** 主实例解密失败, 由备用实例解密成功的次数 **/
+        public long getFallbackHits() {
+            return fallbackHits;
+        }
+
+        /** 所有实例都解密失败的次数 **/
+        public long getDecryptFailures() {
+            return decryptFailures;
+        }
+
+        /** 最近一次生成密钥对的耗时(毫秒) **/
+        public long getLastGenerateMillis() {
+            return lastGenerateMillis;
+        }
+
+        /** 生成密钥对的最大耗时(毫秒) **/
+        public long getMaxGenerateMillis() {
+            return maxGenerateMillis;
+        }
+
+        /** 最近一次更换的耗时(纳秒) **/
+        public long getLastRotateNanos() {
+            return lastRotateNanos;
+        }
+
+        /** 当前的实例数量(主实例+备用实例) **/
+        public int getActiveKeys() {
+            return activeKeys;
+        }
+
+        /** 下一个实例是否已经预生成 **/
+        public boolean isPregenerated() {
+            return pregenerated;
+        }
+
+        @Override
+        public String toString() {
+            return "rotations=" + rotations + ", rotationErrors=" + rotationErrors + ", fallbackHits=" + fallbackHits
+                    + ", decryptFailures=" + decryptFailures + ", lastGenerateMillis=" + lastGenerateMillis
+                    + ", maxGenerateMillis=" + maxGenerateMillis + ", lastRotateNanos=" + lastRotateNanos
+                    + ", activeKeys=" + activeKeys + ", pregenerated=" + pregenerated;
+        }
+    }
+}
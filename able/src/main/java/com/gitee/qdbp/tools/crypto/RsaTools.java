@@ -1,23 +1,27 @@
 package com.gitee.qdbp.tools.crypto;
 
-import java.security.InvalidKeyException;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.security.Key;
-import java.security.KeyFactory;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.SecureRandom;
-import java.security.spec.InvalidKeySpecException;
-import java.security.spec.PKCS8EncodedKeySpec;
-import java.security.spec.X509EncodedKeySpec;
-import javax.crypto.BadPaddingException;
+import java.security.interfaces.RSAKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import javax.crypto.Cipher;
-import javax.crypto.IllegalBlockSizeException;
-import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
 import com.gitee.qdbp.able.exception.ServiceException;
 import com.gitee.qdbp.able.result.ResultCode;
+import com.gitee.qdbp.tools.codec.bytes.HexCodec;
 
 /**
  * RSA算法工具类
@@ -29,6 +33,12 @@ public class RsaTools {
 
     private final static String ALGORITHM = "RSA";
     private final static String SHA1PRNG = "SHA1PRNG";
+    private final static String AES_ALGORITHM = "AES";
+    /** PKCS1填充占用的字节数 **/
+    private final static int PADDING_LENGTH = 11;
+    /** 数字信封的AES密钥字节数 **/
+    private final static int ENVELOPE_KEY_LENGTH = 16;
+    private final static SecureRandom RANDOM = new SecureRandom();
 
     /** 生成密钥 **/
     public static KeyPair generateKeyPair() {
@@ -55,85 +65,258 @@ public class RsaTools {
      * @return 加密后的数据
      */
     public static byte[] encrypt(byte[] data, byte[] publicKeyBytes) {
-        PublicKey publicKey = generatePublicKey(publicKeyBytes);
-        Cipher cipher = getCipherInstance(publicKey, Cipher.ENCRYPT_MODE);
-        try {
-            return cipher.doFinal(data);
-        } catch (BadPaddingException e) {
-            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
-        } catch (IllegalBlockSizeException e) {
-            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
+        return encrypt(data, generatePublicKey(publicKeyBytes));
+    }
+
+    /**
+     * 根据公钥加密<br>
+     * 超过一块(密钥字节数-11)的数据分块加密, 密文依次拼接
+     * 
+     * @param data 待加密的数据
+     * @param publicKey 公钥
+     * @return 加密后的数据
+     */
+    public static byte[] encrypt(byte[] data, PublicKey publicKey) {
+        int blockSize = getBlockSize(publicKey);
+        int plainBlockSize = blockSize - PADDING_LENGTH;
+        if (blockSize <= 0 || data.length <= plainBlockSize) {
+            return CipherCache.doFinal(ALGORITHM, publicKey, Cipher.ENCRYPT_MODE, data);
+        }
+        List<byte[]> blocks = new ArrayList<>();
+        for (int i = 0; i < data.length; i += plainBlockSize) {
+            blocks.add(Arrays.copyOfRange(data, i, Math.min(data.length, i + plainBlockSize)));
         }
+        return concat(CipherCache.doFinal(ALGORITHM, publicKey, Cipher.ENCRYPT_MODE, blocks));
     }
 
     /**
-     * 根据私钥解密
+     * 根据私钥解密<br>
+     * 每次调用都会重新解析私钥, 多次解密时应使用generatePrivateKey()生成的PrivateKey对象或RsaCipher
      * 
      * @param data 待解密的数据
      * @param privateKeyBytes 私钥
-     * @param algorithm 对称算法
      * @return 解密后的数据
      */
     public static byte[] decrypt(byte[] data, byte[] privateKeyBytes) {
-        PrivateKey privateKey = generatePrivateKey(privateKeyBytes);
-        Cipher cipher = getCipherInstance(privateKey, Cipher.DECRYPT_MODE);
-        try {
-            return cipher.doFinal(data);
-        } catch (BadPaddingException e) {
-            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
-        } catch (IllegalBlockSizeException e) {
-            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
+        return decrypt(data, generatePrivateKey(privateKeyBytes));
+    }
+
+    /**
+     * 根据私钥解密<br>
+     * 密文是密钥字节数的整数倍时按块解密
+     * 
+     * @param data 待解密的数据
+     * @param privateKey 私钥
+     * @return 解密后的数据
+     */
+    public static byte[] decrypt(byte[] data, PrivateKey privateKey) {
+        return decrypt(data, privateKey, false);
+    }
+
+    /** 根据私钥解密, longLived=私钥是否由调用方长期持有(如RsaCipher), 是则缓存初始化后的Cipher实例 **/
+    static byte[] decrypt(byte[] data, PrivateKey privateKey, boolean longLived) {
+        return decrypt(Collections.singletonList(data), privateKey, longLived).get(0);
+    }
+
+    /**
+     * 根据私钥批量解密, 所有密文共用同一个已初始化的Cipher实例<br>
+     * 任何一个失败都会抛出异常
+     * 
+     * @param data 待解密的数据列表
+     * @param privateKey 私钥
+     * @return 解密后的数据列表, 与data的顺序一致
+     */
+    public static List<byte[]> decrypt(List<byte[]> data, PrivateKey privateKey) {
+        return decrypt(data, privateKey, false);
+    }
+
+    /** 根据私钥批量解密, longLived=私钥是否由调用方长期持有(如RsaCipher), 是则缓存初始化后的Cipher实例 **/
+    static List<byte[]> decrypt(List<byte[]> data, PrivateKey privateKey, boolean longLived) {
+        int blockSize = getBlockSize(privateKey);
+        // 拆成块, 一次性解密, 再按原先的顺序合并
+        List<byte[]> blocks = new ArrayList<>(data.size());
+        int[] counts = new int[data.size()];
+        for (int i = 0; i < data.size(); i++) {
+            byte[] item = data.get(i);
+            if (blockSize <= 0 || item.length <= blockSize || item.length % blockSize != 0) {
+                blocks.add(item);
+                counts[i] = 1;
+            } else {
+                for (int j = 0; j < item.length; j += blockSize) {
+                    blocks.add(Arrays.copyOfRange(item, j, j + blockSize));
+                }
+                counts[i] = item.length / blockSize;
+            }
+        }
+        List<byte[]> decrypted = CipherCache.doFinal(ALGORITHM, privateKey, Cipher.DECRYPT_MODE, blocks,
+            longLived);
+        if (blocks.size() == data.size()) {
+            return decrypted;
+        }
+        List<byte[]> result = new ArrayList<>(data.size());
+        int index = 0;
+        for (int count : counts) {
+            result.add(count == 1 ? decrypted.get(index) : concat(decrypted.subList(index, index + count)));
+            index += count;
+        }
+        return result;
+    }
+
+    /**
+     * 数字信封加密: 随机生成AES密钥, 用公钥加密AES密钥, 用AES/GCM加密数据<br>
+     * 密文格式: RSA加密的AES密钥(密钥字节数) + AesGcmCipher的密文<br>
+     * 数据大小不受RSA密钥长度限制, 且只需要一次RSA运算
+     * 
+     * @param data 待加密的数据
+     * @param publicKey 公钥
+     * @return 加密后的数据
+     */
+    public static byte[] encryptEnvelope(byte[] data, PublicKey publicKey) {
+        SecretKey secretKey = generateEnvelopeKey();
+        byte[] wrappedKey = encryptEnvelopeKey(secretKey, publicKey);
+        byte[] encrypted = new AesGcmCipher(secretKey, HexCodec.INSTANCE).encrypt(data);
+        return concat(Arrays.asList(wrappedKey, encrypted));
+    }
+
+    /**
+     * 数字信封解密
+     * 
+     * @param data 待解密的数据
+     * @param privateKey 私钥
+     * @return 解密后的数据
+     */
+    public static byte[] decryptEnvelope(byte[] data, PrivateKey privateKey) {
+        return decryptEnvelope(data, privateKey, false);
+    }
+
+    /** 数字信封解密, longLived=私钥是否由调用方长期持有(如RsaCipher), 是则缓存初始化后的Cipher实例 **/
+    static byte[] decryptEnvelope(byte[] data, PrivateKey privateKey, boolean longLived) {
+        int blockSize = getEnvelopeKeyLength(privateKey);
+        if (data.length < blockSize) {
+            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, "Envelope truncated");
         }
+        SecretKey secretKey = decryptEnvelopeKey(Arrays.copyOf(data, blockSize), privateKey, longLived);
+        byte[] encrypted = Arrays.copyOfRange(data, blockSize, data.length);
+        return new AesGcmCipher(secretKey, HexCodec.INSTANCE).decrypt(encrypted);
+    }
+
+    /**
+     * 数字信封加密输出流, 先写入RSA加密的AES密钥, 然后流式写入AES/GCM密文<br>
+     * 必须调用close()才会写入最后一块数据
+     * 
+     * @param target 密文的目标输出流
+     * @param publicKey 公钥
+     * @return 明文输出流
+     * @throws IOException 写入失败
+     */
+    public static OutputStream encryptEnvelope(OutputStream target, PublicKey publicKey) throws IOException {
+        SecretKey secretKey = generateEnvelopeKey();
+        target.write(encryptEnvelopeKey(secretKey, publicKey));
+        return new AesGcmCipher(secretKey, HexCodec.INSTANCE).encrypt(target);
+    }
+
+    /**
+     * 数字信封解密输入流
+     * 
+     * @param source 密文的输入流
+     * @param privateKey 私钥
+     * @return 明文输入流
+     * @throws IOException 读取失败或AES密钥解密失败
+     */
+    public static InputStream decryptEnvelope(InputStream source, PrivateKey privateKey) throws IOException {
+        return decryptEnvelope(source, privateKey, false);
     }
 
-    private static Cipher getCipherInstance(Key secretKey, int cipherMode) {
+    /** 数字信封解密输入流, longLived=私钥是否由调用方长期持有(如RsaCipher), 是则缓存初始化后的Cipher实例 **/
+    static InputStream decryptEnvelope(InputStream source, PrivateKey privateKey, boolean longLived)
+            throws IOException {
+        byte[] wrappedKey = new byte[getEnvelopeKeyLength(privateKey)];
+        int total = 0;
+        while (total < wrappedKey.length) {
+            int count = source.read(wrappedKey, total, wrappedKey.length - total);
+            if (count < 0) {
+                throw new EOFException("Envelope truncated");
+            }
+            total += count;
+        }
+        SecretKey secretKey;
         try {
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(cipherMode, secretKey);
-            return cipher;
-        } catch (NoSuchAlgorithmException e) {
-            throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
-        } catch (NoSuchPaddingException e) {
-            throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
-        } catch (InvalidKeyException e) {
-            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, e);
+            secretKey = decryptEnvelopeKey(wrappedKey, privateKey, longLived);
+        } catch (ServiceException e) {
+            throw new IOException("Failed to decrypt envelope key", e);
         }
+        return new AesGcmCipher(secretKey, HexCodec.INSTANCE).decrypt(source);
+    }
+
+    private static SecretKey generateEnvelopeKey() {
+        byte[] keyBytes = new byte[ENVELOPE_KEY_LENGTH];
+        RANDOM.nextBytes(keyBytes);
+        return new SecretKeySpec(keyBytes, AES_ALGORITHM);
+    }
+
+    private static byte[] encryptEnvelopeKey(SecretKey secretKey, PublicKey publicKey) {
+        return CipherCache.doFinal(ALGORITHM, publicKey, Cipher.ENCRYPT_MODE, secretKey.getEncoded());
+    }
+
+    private static SecretKey decryptEnvelopeKey(byte[] wrappedKey, PrivateKey privateKey, boolean longLived) {
+        byte[] keyBytes = CipherCache.doFinal(ALGORITHM, privateKey, Cipher.DECRYPT_MODE, wrappedKey, longLived);
+        if (keyBytes.length != ENVELOPE_KEY_LENGTH) {
+            throw new ServiceException(ResultCode.PARAMETER_VALUE_ERROR, "Invalid envelope key");
+        }
+        return new SecretKeySpec(keyBytes, AES_ALGORITHM);
+    }
+
+    private static int getEnvelopeKeyLength(PrivateKey privateKey) {
+        int blockSize = getBlockSize(privateKey);
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Unsupported private key: " + privateKey.getClass().getName());
+        }
+        return blockSize;
+    }
+
+    /** RSA密文块的字节数(即模数的字节数), 无法获取时返回0 **/
+    private static int getBlockSize(Key key) {
+        if (key instanceof RSAKey) {
+            return (((RSAKey) key).getModulus().bitLength() + 7) / 8;
+        } else {
+            return 0;
+        }
+    }
+
+    private static byte[] concat(List<byte[]> blocks) {
+        int length = 0;
+        for (byte[] block : blocks) {
+            length += block.length;
+        }
+        byte[] result = new byte[length];
+        int offset = 0;
+        for (byte[] block : blocks) {
+            System.arraycopy(block, 0, result, offset, block.length);
+            offset += block.length;
+        }
+        return result;
     }
 
     /**
-     * 根据公钥数据生成公钥对象
+     * 根据公钥数据生成公钥对象, 解析结果会被缓存
      * 
      * @param publicKeyBytes 公钥数据
      * @return PublicKey对象
      */
-    private static PublicKey generatePublicKey(byte[] publicKeyBytes) {
-        try {
-            KeyFactory keyFactory = KeyFactory.getInstance(ALGORITHM);
-            X509EncodedKeySpec x509KeySpec = new X509EncodedKeySpec(publicKeyBytes);
-            return keyFactory.generatePublic(x509KeySpec);
-        } catch (NoSuchAlgorithmException e) {
-            throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
-        } catch (InvalidKeySpecException e) {
-            throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
-        }
+    public static PublicKey generatePublicKey(byte[] publicKeyBytes) {
+        return CipherCache.getPublicKey(ALGORITHM, publicKeyBytes);
     }
 
     /**
-     * 根据私钥数据生成私钥对象
+     * 根据私钥数据生成私钥对象, 私钥不缓存, 每次都会解析<br>
+     * 需要多次解密时应持有返回的PrivateKey对象, 或使用RsaCipher(只解析一次),
+     * 而不是反复调用decrypt(byte[], byte[])
      * 
      * @param privateKeyBytes 私钥数据
      * @return PrivateKey对象
      */
-    private static PrivateKey generatePrivateKey(byte[] publicKeyBytes) {
-        try {
-            KeyFactory keyFactory = KeyFactory.getInstance(ALGORITHM);
-            PKCS8EncodedKeySpec pkcs8KeySpec = new PKCS8EncodedKeySpec(publicKeyBytes);
-            return keyFactory.generatePrivate(pkcs8KeySpec);
-        } catch (NoSuchAlgorithmException e) {
-            throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
-        } catch (InvalidKeySpecException e) {
-            throw new ServiceException(ResultCode.SERVER_INNER_ERROR, e);
-        }
+    public static PrivateKey generatePrivateKey(byte[] privateKeyBytes) {
+        return CipherCache.getPrivateKey(ALGORITHM, privateKeyBytes);
     }
 
 }
@@ -0,0 +1,53 @@
+package com.gitee.qdbp.tools.crypto;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 支持流式加密解密的服务接口<br>
+ * 分块处理, 不需要把明文和密文同时放在内存中, 适用于大文件
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public interface StreamCipherService extends CipherService {
+
+    /**
+     * 加密输出流, 写入的明文加密后输出到目标流<br>
+     * 必须调用close()才会写入最后一块数据
+     *
+     * @param target 密文的目标输出流
+     * @return 明文输出流
+     * @throws IOException 写入失败
+     */
+    OutputStream encrypt(OutputStream target) throws IOException;
+
+    /**
+     * 解密输入流, 从源流读取密文, 解密后返回明文
+     *
+     * @param source 密文的输入流
+     * @return 明文输入流
+     * @throws IOException 读取失败
+     */
+    InputStream decrypt(InputStream source) throws IOException;
+
+    /**
+     * 文件加密
+     *
+     * @param source 明文文件
+     * @param target 密文文件
+     * @throws IOException 读写失败
+     */
+    void encrypt(File source, File target) throws IOException;
+
+    /**
+     * 文件解密, 失败时会删除目标文件
+     *
+     * @param source 密文文件
+     * @param target 明文文件
+     * @throws IOException 读写失败或密文错误
+     */
+    void decrypt(File source, File target) throws IOException;
+}
@@ -0,0 +1,462 @@
+package com.gitee.qdbp.tools.files;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import com.gitee.qdbp.tools.utils.VerifyTools;
+
+/**
+ * 字符集检测<br>
+ * 只分析有限大小的样本, 耗时与样本大小相关, 与文件大小无关:
+ * 文件不超过样本大小时分析全部内容, 否则分析开头(1/2), 中间(1/4)和结尾(1/4)三段<br>
+ * 检测顺序: BOM; UTF-16(无BOM, 按奇偶位置上0的比例判断); UTF-8(严格校验, 排除超长编码和代理区);
+ * GBK/GB18030(GB2312汉字区的双字节占比越高, 置信度越高)<br>
+ * 样本中没有非ASCII字符时返回默认字符集, 置信度为0<br>
+ * 设置完成后可以在多个线程中共用
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class CharsetDetector {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** 样本大小 **/
+    private int sampleSize = 64 * 1024;
+    /** 超过样本大小时, 是否分析中间和结尾 **/
+    private boolean sampleMiddleAndTail = true;
+    /** 样本中没有非ASCII字符时使用的字符集 **/
+    private Charset defaultCharset = UTF8;
+
+    public CharsetDetector() {
+    }
+
+    public CharsetDetector(Charset defaultCharset) {
+        this.setDefaultCharset(defaultCharset);
+    }
+
+    /**
+     * 检测文件的字符集
+     *
+     * @param file 文件
+     * @return 检测结果
+     * @throws IOException 读取失败
+     */
+    public Result detect(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return detect(channel);
+        }
+    }
+
+    /**
+     * 检测字符集, 按位置读取样本, 不改变通道的当前位置
+     *
+     * @param channel 文件通道
+     * @return 检测结果
+     * @throws IOException 读取失败
+     */
+    public Result detect(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size <= sampleSize || !sampleMiddleAndTail) {
+            byte[] bytes = new byte[(int) Math.min(size, sampleSize)];
+            int length = readFully(channel, 0, bytes, 0, bytes.length);
+            return detect(bytes, 0, length);
+        }
+        int headSize = sampleSize / 2;
+        int partSize = (sampleSize - headSize) / 2;
+        byte[] bytes = new byte[sampleSize];
+        int head = readFully(channel, 0, bytes, 0, headSize);
+        // 中间和结尾从偶数位置开始, 便于UTF-16的判断
+        long middlePosition = (size / 2 - partSize / 2) & ~1L;
+        int middle = readFully(channel, middlePosition, bytes, head, partSize);
+        long tailPosition = (size - partSize) & ~1L;
+        int tail = readFully(channel, tailPosition, bytes, head + middle, partSize);
+        int[] offsets = new int[] { 0, head, head + middle };
+        int[] lengths = new int[] { head, middle, tail };
+        return analyze(bytes, offsets, lengths);
+    }
+
+    /**
+     * 检测字符集, 从输入流读取样本<br>
+     * 如果输入流支持mark/reset, 读取完成后恢复到原来的位置, 否则样本会被读取掉
+     *
+     * @param input 输入流
+     * @return 检测结果
+     * @throws IOException 读取失败
+     */
+    public Result detect(InputStream input) throws IOException {
+        boolean markable = input.markSupported();
+        if (markable) {
+            input.mark(sampleSize);
+        }
+        byte[] bytes = new byte[sampleSize];
+        int length = 0;
+        int read;
+        while (length < bytes.length && (read = input.read(bytes, length, bytes.length - length)) > 0) {
+            length += read;
+        }
+        if (markable) {
+            input.reset();
+        }
+        return detect(bytes, 0, length);
+    }
+
+    /**
+     * 检测字符集, 超过样本大小时只分析开头/中间/结尾, 不改变buffer的位置
+     *
+     * @param buffer 内容
+     * @return 检测结果
+     */
+    public Result detect(ByteBuffer buffer) {
+        int length = buffer.remaining();
+        if (buffer.hasArray()) {
+            return detect(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+        }
+        ByteBuffer source = buffer.duplicate();
+        if (length <= sampleSize || !sampleMiddleAndTail) {
+            byte[] bytes = new byte[Math.min(length, sampleSize)];
+            source.get(bytes);
+            return detect(bytes, 0, bytes.length);
+        }
+        // 非堆内存, 只复制样本部分
+        int headSize = sampleSize / 2;
+        int partSize = (sampleSize - headSize) / 2;
+        int start = source.position();
+        int middle = (length / 2 - partSize / 2) & ~1;
+        int tail = (length - partSize) & ~1;
+        int[] offsets = new int[] { 0, headSize, headSize + partSize };
+        int[] lengths = new int[] { headSize, partSize, length - tail };
+        byte[] bytes = new byte[offsets[2] + lengths[2]];
+        source.get(bytes, 0, headSize);
+        source.position(start + middle);
+        source.get(bytes, offsets[1], partSize);
+        source.position(start + tail);
+        source.get(bytes, offsets[2], lengths[2]);
+        return analyze(bytes, offsets, lengths);
+    }
+
+    /**
+     * 检测字符集, 超过样本大小时只分析开头/中间/结尾
+     *
+     * @param bytes 内容
+     * @param offset 开始位置
+     * @param length 长度
+     * @return 检测结果
+     */
+    public Result detect(byte[] bytes, int offset, int length) {
+        if (length <= sampleSize) {
+            return analyze(bytes, new int[] { offset }, new int[] { length });
+        }
+        int headSize = sampleSize / 2;
+        if (!sampleMiddleAndTail) {
+            return analyze(bytes, new int[] { offset }, new int[] { headSize });
+        }
+        int partSize = (sampleSize - headSize) / 2;
+        int middle = offset + ((length / 2 - partSize / 2) & ~1);
+        int tail = offset + ((length - partSize) & ~1);
+        int[] offsets = new int[] { offset, middle, tail };
+        int[] lengths = new int[] { headSize, partSize, offset + length - tail };
+        return analyze(bytes, offsets, lengths);
+    }
+
+    /** 分析样本, 第1段是内容的开头, 其余各段可能从字符中间开始 **/
+    private Result analyze(byte[] bytes, int[] offsets, int[] lengths) {
+        Result bom = parseBom(bytes, offsets[0], lengths[0]);
+        if (bom != null) {
+            return bom;
+        }
+        Result utf16 = parseUtf16(bytes, offsets, lengths);
+        if (utf16 != null) {
+            return utf16;
+        }
+
+        Statistics stats = new Statistics();
+        for (int i = 0; i < offsets.length; i++) {
+            int start = offsets[i];
+            int end = start + lengths[i];
+            if (i > 0) {
+                // 中间的样本, 跳到第一个ASCII字符, 重新对齐多字节字符
+                start = skipToAscii(bytes, start, end);
+            }
+            countUtf8(bytes, start, end, stats);
+            countGb(bytes, start, end, stats);
+        }
+        if (stats.nonAscii == 0) {
+            return new Result(defaultCharset, 0, 0);
+        }
+        if (stats.utf8Errors == 0) {
+            return new Result(UTF8, 0, stats.utf8Valid / (stats.utf8Valid + 1.0));
+        }
+        double utf8Score = stats.utf8Valid / (double) (stats.utf8Valid + stats.utf8Errors);
+        // UTF-8的中文大多也能按GBK解析, 但落在GB2312汉字区(B0-F7,A1-FE)的比例远低于真正的GBK文本
+        int gbTotal = stats.gbPairs + stats.gbQuads;
+        double common = gbTotal == 0 ? 0 : stats.gbCommon / (double) gbTotal;
+        double gbScore = gbTotal / (double) (gbTotal + stats.gbErrors) * (0.5 + common / 2);
+        if (utf8Score >= gbScore) {
+            return new Result(UTF8, 0, utf8Score);
+        }
+        String charset = stats.gbQuads > 0 ? "GB18030" : "GBK";
+        return new Result(Charset.forName(charset), 0, gbScore);
+    }
+
+    private static Result parseBom(byte[] bytes, int offset, int length) {
+        // http://www.unicode.org/faq/utf_bom.html#bom4
+        // Bytes       Encoding Form
+        // 00 00 FE FF UTF-32, big-endian
+        // FF FE 00 00 UTF-32, little-endian
+        // FE FF       UTF-16, big-endian
+        // FF FE       UTF-16, little-endian
+        // EF BB BF    UTF-8
+        int b0 = length > 0 ? bytes[offset] & 0xFF : -1;
+        int b1 = length > 1 ? bytes[offset + 1] & 0xFF : -1;
+        int b2 = length > 2 ? bytes[offset + 2] & 0xFF : -1;
+        int b3 = length > 3 ? bytes[offset + 3] & 0xFF : -1;
+        if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF) {
+            return new Result(UTF8, 3, 1);
+        } else if (b0 == 0 && b1 == 0 && b2 == 0xFE && b3 == 0xFF) {
+            return new Result(Charset.forName("UTF-32BE"), 4, 1);
+        } else if (b0 == 0xFF && b1 == 0xFE && b2 == 0 && b3 == 0) {
+            return new Result(Charset.forName("UTF-32LE"), 4, 1);
+        } else if (b0 == 0xFE && b1 == 0xFF) {
+            return new Result(Charset.forName("UTF-16BE"), 2, 1);
+        } else if (b0 == 0xFF && b1 == 0xFE) {
+            return new Result(Charset.forName("UTF-16LE"), 2, 1);
+        } else {
+            return null;
+        }
+    }
+
+    /** 无BOM的UTF-16: ASCII字符的高位字节为0, 集中在奇数或偶数位置 **/
+    private static Result parseUtf16(byte[] bytes, int[] offsets, int[] lengths) {
+        int pairs = 0;
+        int evenZeros = 0;
+        int oddZeros = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            int end = offsets[i] + (lengths[i] & ~1);
+            for (int p = offsets[i]; p < end; p += 2) {
+                if (bytes[p] == 0) {
+                    evenZeros++;
+                }
+                if (bytes[p + 1] == 0) {
+                    oddZeros++;
+                }
+            }
+            pairs += lengths[i] / 2;
+        }
+        if (pairs < 2) {
+            return null;
+        }
+        // 普通文本中几乎不会出现0, 超过30%的字符对在同一侧为0, 而另一侧很少为0
+        if (oddZeros * 10 >= pairs * 3 && evenZeros * 20 < pairs) {
+            return new Result(Charset.forName("UTF-16LE"), 0, oddZeros / (double) pairs);
+        } else if (evenZeros * 10 >= pairs * 3 && oddZeros * 20 < pairs) {
+            return new Result(Charset.forName("UTF-16BE"), 0, evenZeros / (double) pairs);
+        } else {
+            return null;
+        }
+    }
+
+    private static int skipToAscii(byte[] bytes, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (bytes[i] >= 0) {
+                return i;
+            }
+        }
+        return start;
+    }
+
+    /** 严格的UTF-8校验, 统计合法的多字节字符和非法字节; 样本末尾被截断的字符不算错误 **/
+    private static void countUtf8(byte[] bytes, int start, int end, Statistics stats) {
+        int i = start;
+        while (i < end) {
+            int b = bytes[i];
+            if (b >= 0) {
+                i++;
+                continue;
+            }
+            stats.nonAscii++;
+            b &= 0xFF;
+            int need;
+            int min = 0x80;
+            int max = 0xBF;
+            if (b >= 0xC2 && b <= 0xDF) {
+                need = 1;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                need = 2;
+                if (b == 0xE0) {
+                    min = 0xA0; // 超长编码
+                } else if (b == 0xED) {
+                    max = 0x9F; // 代理区
+                }
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                need = 3;
+                if (b == 0xF0) {
+                    min = 0x90;
+                } else if (b == 0xF4) {
+                    max = 0x8F;
+                }
+            } else {
+                stats.utf8Errors++;
+                i++;
+                continue;
+            }
+            if (i + need >= end) {
+                break; // 截断
+            }
+            int c = bytes[i + 1] & 0xFF;
+            boolean valid = c >= min && c <= max;
+            for (int k = 2; valid && k <= need; k++) {
+                c = bytes[i + k] & 0xFF;
+                valid = c >= 0x80 && c <= 0xBF;
+            }
+            if (valid) {
+                stats.utf8Valid++;
+                i += need + 1;
+            } else {
+                stats.utf8Errors++;
+                i++;
+            }
+        }
+    }
+
+    /** GBK/GB18030校验, 统计双字节, 四字节和非法字节, 以及GB2312汉字区(B0-F7,A1-FE)的字符 **/
+    private static void countGb(byte[] bytes, int start, int end, Statistics stats) {
+        int i = start;
+        while (i < end) {
+            int b = bytes[i] & 0xFF;
+            if (b < 0x80) {
+                i++;
+                continue;
+            }
+            if (b == 0x80 || b == 0xFF) {
+                stats.gbErrors++;
+                i++;
+                continue;
+            }
+            if (i + 1 >= end) {
+                break; // 截断
+            }
+            int c = bytes[i + 1] & 0xFF;
+            if (c >= 0x40 && c <= 0xFE && c != 0x7F) {
+                stats.gbPairs++;
+                if (b >= 0xB0 && b <= 0xF7 && c >= 0xA1) {
+                    stats.gbCommon++;
+                }
+                i += 2;
+            } else if (c >= 0x30 && c <= 0x39) {
+                if (i + 3 >= end) {
+                    break; // 截断
+                }
+                int d = bytes[i + 2] & 0xFF;
+                int e = bytes[i + 3] & 0xFF;
+                if (d >= 0x81 && d <= 0xFE && e >= 0x30 && e <= 0x39) {
+                    stats.gbQuads++;
+                    i += 4;
+                } else {
+                    stats.gbErrors++;
+                    i++;
+                }
+            } else {
+                stats.gbErrors++;
+                i++;
+            }
+        }
+    }
+
+    private static int readFully(FileChannel channel, long position, byte[] bytes, int offset, int length)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+        long current = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, current);
+            if (read < 0) {
+                break;
+            }
+            current += read;
+        }
+        return buffer.position() - offset;
+    }
+
+    private static class Statistics {
+
+        private int nonAscii;
+        private int utf8Valid;
+        private int utf8Errors;
+        private int gbPairs;
+        private int gbQuads;
+        private int gbCommon;
+        private int gbErrors;
+    }
+
+    /** 检测结果 **/
+    public static class Result {
+
+        private final Charset charset;
+        private final int bomLength;
+        private final double confidence;
+
+        public Result(Charset charset, int bomLength, double confidence) {
+            this.charset = charset;
+            this.bomLength = bomLength;
+            this.confidence = confidence;
+        }
+
+        /** 字符集 **/
+        public Charset getCharset() {
+            return charset;
+        }
+
+        /** BOM的字节数 **/
+        public int getBomLength() {
+            return bomLength;
+        }
+
+        /** 置信度(0~1), 有BOM时为1, 样本中没有非ASCII字符时为0 **/
+        public double getConfidence() {
+            return confidence;
+        }
+
+        @Override
+        public String toString() {
+            return charset.name() + "(" + confidence + ")";
+        }
+    }
+
+    /** 样本大小 **/
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    /** 样本大小 **/
+    public void setSampleSize(int sampleSize) {
+        if (sampleSize < 16) {
+            throw new IllegalArgumentException("sampleSize must be greater than or equal to 16: " + sampleSize);
+        }
+        this.sampleSize = sampleSize;
+    }
+
+    /** 超过样本大小时, 是否分析中间和结尾 **/
+    public boolean isSampleMiddleAndTail() {
+        return sampleMiddleAndTail;
+    }
+
+    /** 超过样本大小时, 是否分析中间和结尾 **/
+    public void setSampleMiddleAndTail(boolean sampleMiddleAndTail) {
+        this.sampleMiddleAndTail = sampleMiddleAndTail;
+    }
+
+    /** 样本中没有非ASCII字符时使用的字符集 **/
+    public Charset getDefaultCharset() {
+        return defaultCharset;
+    }
+
+    /** 样本中没有非ASCII字符时使用的字符集 **/
+    public void setDefaultCharset(Charset defaultCharset) {
+        VerifyTools.requireNonNull(defaultCharset, "defaultCharset");
+        this.defaultCharset = defaultCharset;
+    }
+}
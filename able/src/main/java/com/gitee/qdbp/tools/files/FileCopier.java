@@ -0,0 +1,482 @@
+package com.gitee.qdbp.tools.files;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import com.gitee.qdbp.able.exception.ExceptionWatcher;
+import com.gitee.qdbp.tools.utils.ConvertTools;
+import com.gitee.qdbp.tools.utils.VerifyTools;
+
+/**
+ * 文件复制/移动<br>
+ * 文件内容通过FileChannel.transferTo()复制, 由操作系统直接在文件之间传输, 不经过堆内存的缓冲区<br>
+ * 每个文件夹和每个文件是一个ForkJoin任务, 由固定数量的线程并行复制<br>
+ * 开启skipUnchanged时, 目标文件的大小和修改时间与源文件相同则跳过, 适用于文件夹同步<br>
+ * 失败时调用ExceptionWatcher, 返回false则终止; 如果ExceptionWatcher同时实现了ProgressWatcher, 每个文件完成后报告进度<br>
+ * 与FileTools.copy()相同, 源文件不存在时直接返回, 不跟随符号链接
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class FileCopier {
+
+    /** 每次transferTo()的最大字节数 **/
+    private static final long TRANSFER_SIZE = 64L * 1024 * 1024;
+
+    /** 线程池, 为null时每次复制临时创建 **/
+    private ForkJoinPool pool;
+    /** 临时创建线程池时的并行数量 **/
+    private int parallelism = Math.min(4, Runtime.getRuntime().availableProcessors());
+    /** 目标文件已存在时是否覆盖, 为false时报告FileAlreadyExistsException **/
+    private boolean replaceExisting;
+    /** 是否跳过未修改的文件(大小和修改时间都相同), 修改过的文件将被覆盖 **/
+    private boolean skipUnchanged;
+    /** 异常处理及进度报告 **/
+    private ExceptionWatcher exceptionWatcher;
+
+    /**
+     * 进度报告<br>
+     * 每个文件完成(复制/跳过/失败)后调用, 会被多个线程同时调用
+     *
+     * @author zhaohuihua
+     * @version 20201017
+     */
+    public interface ProgressWatcher extends ExceptionWatcher {
+
+        /**
+         * 一个文件已完成
+         *
+         * @param source 源文件
+         * @param stats 到目前为止的统计数据
+         * @return 是否继续
+         */
+        boolean onProgress(Path source, CopyStats stats);
+    }
+
+    /**
+     * 复制文件或递归复制文件夹
+     *
+     * @param source 源文件
+     * @param destination 目标文件
+     * @return 统计数据
+     */
+    public CopyStats copy(String source, String destination) {
+        VerifyTools.requireNotBlank(source, "source");
+        VerifyTools.requireNotBlank(destination, "destination");
+        return execute(Paths.get(source), Paths.get(destination), false);
+    }
+
+    /**
+     * 复制文件或递归复制文件夹
+     *
+     * @param source 源文件
+     * @param destination 目标文件
+     * @return 统计数据
+     */
+    public CopyStats copy(Path source, Path destination) {
+        return execute(source, destination, false);
+    }
+
+    /**
+     * 移动文件或递归移动文件夹<br>
+     * 先尝试直接移动(同一文件系统内只是重命名), 失败时复制之后删除源文件
+     *
+     * @param source 源文件
+     * @param destination 目标文件
+     * @return 统计数据
+     */
+    public CopyStats move(String source, String destination) {
+        VerifyTools.requireNotBlank(source, "source");
+        VerifyTools.requireNotBlank(destination, "destination");
+        return execute(Paths.get(source), Paths.get(destination), true);
+    }
+
+    /**
+     * 移动文件或递归移动文件夹<br>
+     * 先尝试直接移动(同一文件系统内只是重命名), 失败时复制之后删除源文件
+     *
+     * @param source 源文件
+     * @param destination 目标文件
+     * @return 统计数据
+     */
+    public CopyStats move(Path source, Path destination) {
+        return execute(source, destination, true);
+    }
+
+    private CopyStats execute(Path source, Path destination, boolean move) {
+        VerifyTools.requireNonNull(source, "source");
+        VerifyTools.requireNonNull(destination, "destination");
+        // 转换为绝对路径, normalize()清除路径中的.和..
+        // 否则相对路径的源文件夹与绝对路径的目标文件夹无法比较, 目标文件夹在源文件夹之中时会无限复制
+        Path spath = source.toAbsolutePath().normalize();
+        Path dpath = destination.toAbsolutePath().normalize();
+        CopyContext context = new CopyContext(dpath, move);
+
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(spath, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            // 源文件不存在时, 直接返回
+            return context.stats;
+        }
+        if (FileTools.isSameFile(spath, dpath)) {
+            return context.stats; // 源路径和目标路径是同一个文件(包括通过相对路径或符号链接), 直接返回
+        }
+        // 目标路径的上级文件夹必须存在, 否则会报错
+        FileTools.mkdirsIfNotExists(dpath.toFile(), true);
+        if (move && !replaceExisting && !skipUnchanged && !dpath.startsWith(spath)) {
+            try {
+                // 同一文件系统内直接重命名
+                Files.move(spath, dpath);
+                return context.stats;
+            } catch (IOException ignore) {
+                // 跨文件系统或目标已存在, 逐个复制之后删除
+            }
+        }
+
+        if (!attrs.isDirectory()) {
+            context.copyFile(spath, dpath, attrs);
+            return context.stats;
+        }
+        ForkJoinPool pool = this.pool;
+        boolean temporary = pool == null;
+        if (temporary) {
+            pool = new ForkJoinPool(Math.max(1, parallelism));
+        }
+        try {
+            pool.invoke(new DirectoryTask(context, spath, dpath));
+        } finally {
+            if (temporary) {
+                pool.shutdown();
+            }
+        }
+        return context.stats;
+    }
+
+    /**
+     * 通过FileChannel.transferTo()复制文件内容, 并设置目标文件的修改时间与源文件相同<br>
+     * 源文件和目标文件是同一个文件时(包括通过相对路径或符号链接)不复制, 返回0, 避免打开目标文件时清空源文件<br>
+     * 覆盖时如果目标是符号链接, 替换链接本身(与Files.copy相同), 不会写入链接指向的文件
+     *
+     * @param source 源文件
+     * @param destination 目标文件
+     * @param replaceExisting 目标文件已存在时是否覆盖
+     * @return 复制的字节数
+     * @throws IOException IO异常, 目标文件已存在且不覆盖时抛出FileAlreadyExistsException
+     */
+    public static long transferFile(Path source, Path destination, boolean replaceExisting) throws IOException {
+        if (FileTools.isSameFile(source, destination)) {
+            return 0;
+        }
+        if (replaceExisting && Files.isSymbolicLink(destination)) {
+            // FileChannel.open会跟随符号链接, 先删除链接, 避免覆盖链接指向的文件(可能在目标文件夹之外)
+            Files.delete(destination);
+        }
+        StandardOpenOption create = replaceExisting ? StandardOpenOption.CREATE : StandardOpenOption.CREATE_NEW;
+        long total = 0;
+        try (FileChannel input = FileChannel.open(source, StandardOpenOption.READ);
+                FileChannel output = FileChannel.open(destination, StandardOpenOption.WRITE, create,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = input.size();
+            while (total < size) {
+                long count = input.transferTo(total, Math.min(size - total, TRANSFER_SIZE), output);
+                if (count <= 0) {
+                    break; // 源文件被截短了
+                }
+                total += count;
+            }
+        }
+        Files.setLastModifiedTime(destination, Files.getLastModifiedTime(source));
+        return total;
+    }
+
+    /** 一次复制的状态 **/
+    private class CopyContext {
+
+        private final Path destinationRoot;
+        private final boolean move;
+        private final CopyStats stats = new CopyStats();
+        /** 是否已终止 **/
+        private volatile boolean terminated;
+
+        public CopyContext(Path destinationRoot, boolean move) {
+            this.destinationRoot = destinationRoot;
+            this.move = move;
+        }
+
+        public void copyFile(Path source, Path destination, BasicFileAttributes attrs) {
+            if (terminated) {
+                return;
+            }
+            // 同一个文件(包括通过相对路径或符号链接), 不能复制, 移动时也不能删除源文件
+            boolean same = FileTools.isSameFile(source, destination);
+            try {
+                if (same) {
+                    stats.skippedFiles.incrementAndGet();
+                } else if (skipUnchanged && isUnchanged(destination, attrs)) {
+                    stats.skippedFiles.incrementAndGet();
+                } else if (attrs.isRegularFile()) {
+                    long bytes = transferFile(source, destination, replaceExisting || skipUnchanged);
+                    stats.copiedFiles.incrementAndGet();
+                    stats.copiedBytes.addAndGet(bytes);
+                } else {
+                    // 符号链接等特殊文件
+                    if (replaceExisting || skipUnchanged) {
+                        Files.copy(source, destination, StandardCopyOption.REPLACE_EXISTING);
+                    } else {
+                        Files.copy(source, destination);
+                    }
+                    stats.copiedFiles.incrementAndGet();
+                }
+                if (move && !same) {
+                    Files.deleteIfExists(source);
+                }
+            } catch (IOException e) {
+                stats.failedFiles.incrementAndGet();
+                String action = move ? "move" : "copy";
+                String msg = String.format("Caught exception on %s file: [%s] --> [%s]. %s", action, source,
+                    destination, e);
+                if (!handleException(msg, e)) {
+                    return;
+                }
+            }
+            if (exceptionWatcher instanceof ProgressWatcher) {
+                if (!((ProgressWatcher) exceptionWatcher).onProgress(source, stats)) {
+                    terminated = true;
+                }
+            }
+        }
+
+        private boolean isUnchanged(Path destination, BasicFileAttributes attrs) {
+            BasicFileAttributes target;
+            try {
+                target = Files.readAttributes(destination, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException e) {
+                return false; // 目标文件不存在
+            }
+            return target.isRegularFile() == attrs.isRegularFile() && target.size() == attrs.size()
+                    && target.lastModifiedTime().equals(attrs.lastModifiedTime());
+        }
+
+        public boolean handleException(String details, Throwable e) {
+            if (exceptionWatcher == null || exceptionWatcher.onCaughtException(details, e)) {
+                return true;
+            }
+            terminated = true;
+            return false;
+        }
+    }
+
+    /** 复制一个文件夹, 每个文件和子文件夹生成新的任务 **/
+    private class DirectoryTask extends RecursiveAction {
+
+        /** serialVersionUID **/
+        private static final long serialVersionUID = 1L;
+
+        private final CopyContext context;
+        private final Path source;
+        private final Path destination;
+
+        public DirectoryTask(CopyContext context, Path source, Path destination) {
+            this.context = context;
+            this.source = source;
+            this.destination = destination;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                Files.createDirectories(destination);
+            } catch (IOException e) {
+                String msg = String.format("Caught exception on create directory: [%s]. %s", destination, e);
+                context.handleException(msg, e);
+                return;
+            }
+            List<RecursiveAction> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(source)) {
+                for (Path entry : stream) {
+                    if (context.terminated) {
+                        return;
+                    }
+                    if (entry.equals(context.destinationRoot)) {
+                        continue; // 目标文件夹在源文件夹之中, 不能复制到自身
+                    }
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        String msg = String.format("Caught exception on visit file: [%s]. %s", entry, e);
+                        if (!context.handleException(msg, e)) {
+                            return;
+                        }
+                        continue;
+                    }
+                    Path target = destination.resolve(entry.getFileName().toString());
+                    if (attrs.isDirectory()) {
+                        subtasks.add(new DirectoryTask(context, entry, target));
+                    } else {
+                        subtasks.add(new FileTask(context, entry, target, attrs));
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                String msg = String.format("Caught exception on visit directory: [%s]. %s", source, e);
+                if (!context.handleException(msg, e)) {
+                    return;
+                }
+            }
+            if (!subtasks.isEmpty() && !context.terminated) {
+                invokeAll(subtasks);
+            }
+            if (context.move && !context.terminated) {
+                try {
+                    // 删除空文件夹, 有文件移动失败时文件夹不为空, 保留
+                    Files.deleteIfExists(source);
+                } catch (IOException ignore) {
+                }
+            }
+        }
+    }
+
+    /** 复制一个文件 **/
+    private class FileTask extends RecursiveAction {
+
+        /** serialVersionUID **/
+        private static final long serialVersionUID = 1L;
+
+        private final CopyContext context;
+        private final Path source;
+        private final Path destination;
+        private final BasicFileAttributes attrs;
+
+        public FileTask(CopyContext context, Path source, Path destination, BasicFileAttributes attrs) {
+            this.context = context;
+            this.source = source;
+            this.destination = destination;
+            this.attrs = attrs;
+        }
+
+        @Override
+        protected void compute() {
+            context.copyFile(source, destination, attrs);
+        }
+    }
+
+    /**
+     * 复制的统计数据
+     *
+     * @author zhaohuihua
+     * @version 20201017
+     */
+    public static class CopyStats {
+
+        private final long startTime = System.currentTimeMillis();
+        private final AtomicLong copiedFiles = new AtomicLong();
+        private final AtomicLong skippedFiles = new AtomicLong();
+        private final AtomicLong failedFiles = new AtomicLong();
+        private final AtomicLong copiedBytes = new AtomicLong();
+
+        /** 已复制的文件数量 **/
+        public long getCopiedFiles() {
+            return copiedFiles.get();
+        }
+
+        /** 未修改而跳过的文件数量 **/
+        public long getSkippedFiles() {
+            return skippedFiles.get();
+        }
+
+        /** 失败的文件数量 **/
+        public long getFailedFiles() {
+            return failedFiles.get();
+        }
+
+        /** 已复制的字节数 **/
+        public long getCopiedBytes() {
+            return copiedBytes.get();
+        }
+
+        /** 已用时间(毫秒) **/
+        public long getElapsedMillis() {
+            return System.currentTimeMillis() - startTime;
+        }
+
+        /** 吞吐量(字节/秒) **/
+        public long getThroughput() {
+            long elapsed = getElapsedMillis();
+            return elapsed <= 0 ? copiedBytes.get() * 1000 : copiedBytes.get() * 1000 / elapsed;
+        }
+
+        @Override
+        public String toString() {
+            return "copied=" + getCopiedFiles() + ", skipped=" + getSkippedFiles() + ", failed=" + getFailedFiles()
+                    + ", bytes=" + ConvertTools.toByteString(getCopiedBytes()) + ", elapsed=" + getElapsedMillis()
+                    + "ms, throughput=" + ConvertTools.toByteString(getThroughput()) + "/s";
+        }
+    }
+
+    /** 线程池, 为null时每次复制临时创建 **/
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /** 线程池, 为null时每次复制临时创建 **/
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /** 临时创建线程池时的并行数量 **/
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /** 临时创建线程池时的并行数量 **/
+    public void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be greater than 0: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /** 目标文件已存在时是否覆盖, 为false时报告FileAlreadyExistsException **/
+    public boolean isReplaceExisting() {
+        return replaceExisting;
+    }
+
+    /** 目标文件已存在时是否覆盖, 为false时报告FileAlreadyExistsException **/
+    public void setReplaceExisting(boolean replaceExisting) {
+        this.replaceExisting = replaceExisting;
+    }
+
+    /** 是否跳过未修改的文件(大小和修改时间都相同), 修改过的文件将被覆盖 **/
+    public boolean isSkipUnchanged() {
+        return skipUnchanged;
+    }
+
+    /** 是否跳过未修改的文件(大小和修改时间都相同), 修改过的文件将被覆盖 **/
+    public void setSkipUnchanged(boolean skipUnchanged) {
+        this.skipUnchanged = skipUnchanged;
+    }
+
+    /** 异常处理, 如果同时实现了ProgressWatcher, 每个文件完成后报告进度 **/
+    public ExceptionWatcher getExceptionWatcher() {
+        return exceptionWatcher;
+    }
+
+    /** 异常处理, 如果同时实现了ProgressWatcher, 每个文件完成后报告进度 **/
+    public void setExceptionWatcher(ExceptionWatcher exceptionWatcher) {
+        this.exceptionWatcher = exceptionWatcher;
+    }
+}
@@ -1,14 +1,14 @@
 package com.gitee.qdbp.tools.files;
 
-import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.UnsupportedEncodingException;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.file.CopyOption;
 import java.nio.file.FileAlreadyExistsException;
@@ -27,6 +27,7 @@ import com.gitee.qdbp.able.exception.ExceptionWatcher;
 import com.gitee.qdbp.able.exception.FileOversizeException;
 import com.gitee.qdbp.able.matches.AntStringMatcher;
 import com.gitee.qdbp.able.matches.BaseFileMatcher;
+import com.gitee.qdbp.able.matches.FileAttributesMatcher;
 import com.gitee.qdbp.able.matches.FileMatcher;
 import com.gitee.qdbp.able.matches.StringMatcher;
 import com.gitee.qdbp.tools.utils.ConvertTools;
@@ -44,6 +45,8 @@ public abstract class FileTools {
     private static final int BUFFER_SIZE = 8192;
     /** 默认的文件编码格式 **/
     private static Charset CHARSET = Charset.forName("UTF-8");
+    /** 没有非ASCII字符时返回GBK, 与原有的判断结果保持一致 **/
+    private static final CharsetDetector CHARSET_DETECTOR = new CharsetDetector(Charset.forName("GBK"));
 
     /**
      * 读取文件的文本内容
@@ -81,24 +84,17 @@ public abstract class FileTools {
     }
 
     static String bytesToString(byte[] bytes, Charset defaultCharset) throws IOException {
-        try (InputStream input = new ByteArrayInputStream(bytes)) {
-            // 解析内容的字符集
-            CharsetAndBomIndex result = parseEncoding(input, defaultCharset);
-            int bomLength = result.getBomLength();
-            byte[] readyBytes = bytes;
-            if (bomLength > 0) { // 清除前置的bom字符
-                byte[] temp = new byte[bytes.length - bomLength];
-                System.arraycopy(bytes, bomLength, temp, 0, temp.length);
-                readyBytes = temp;
-            }
-            return new String(readyBytes, VerifyTools.nvl(result.getCharset(), defaultCharset));
-        } catch (UnsupportedEncodingException e) {
-            return new String(bytes, defaultCharset);
-        }
+        // 解析内容的字符集
+        CharsetDetector.Result result = CHARSET_DETECTOR.detect(bytes, 0, bytes.length);
+        int bomLength = result.getBomLength();
+        // 清除前置的bom字符
+        Charset charset = VerifyTools.nvl(result.getCharset(), defaultCharset);
+        return new String(bytes, bomLength, bytes.length - bomLength, charset);
     }
 
     /**
-     * 从输入流复制到输出流
+     * 从输入流复制到输出流<br>
+     * 如果是FileInputStream和FileOutputStream, 通过FileChannel.transferTo()复制, 不经过堆内存的缓冲区
      * 
      * @param input 输入流
      * @param output 输出流
@@ -106,9 +102,13 @@ public abstract class FileTools {
      * @throws IOException IO异常
      */
     public static long copy(InputStream input, OutputStream output) throws IOException {
+        long total = 0;
+        if (input instanceof FileInputStream && output instanceof FileOutputStream) {
+            total = transfer(((FileInputStream) input).getChannel(), ((FileOutputStream) output).getChannel());
+        }
+        // 不是普通文件(如/proc下的文件/管道/标准输入)时transfer不会复制, 剩余的内容都通过缓冲区读取
         int length;
         byte[] buffer = new byte[BUFFER_SIZE];
-        long total = 0;
         while ((length = input.read(buffer, 0, buffer.length)) > 0) {
             output.write(buffer, 0, length);
             total += length;
@@ -116,6 +116,33 @@ public abstract class FileTools {
         return total;
     }
 
+    /**
+     * 从输入通道的当前位置复制到输出通道, 完成后输入通道的位置移到末尾(与读取输入流一致)<br>
+     * 只复制size()以内的内容, /proc下的文件/管道的size()为0, 不会复制, 管道不支持position()也不会复制
+     */
+    private static long transfer(FileChannel input, FileChannel output) throws IOException {
+        long size = input.size();
+        if (size <= 0) {
+            return 0;
+        }
+        long position;
+        try {
+            position = input.position();
+        } catch (IOException e) {
+            return 0; // 不支持定位, 如管道
+        }
+        long total = 0;
+        while (position + total < size) {
+            long count = input.transferTo(position + total, size - position - total, output);
+            if (count <= 0) {
+                break;
+            }
+            total += count;
+        }
+        input.position(position + total);
+        return total;
+    }
+
     /**
      * 从输入流复制到输出流
      * 
@@ -285,6 +312,28 @@ public abstract class FileTools {
         mkdirsIfNotExists(file.toPath(), toParent);
     }
 
+    /**
+     * 判断两个路径是否指向同一个文件, 包括通过相对路径/..路径/符号链接指向同一个文件的情况<br>
+     * 任何一个不存在都返回false
+     * 
+     * @param source 源文件
+     * @param destination 目标文件
+     * @return 是否同一个文件
+     */
+    static boolean isSameFile(Path source, Path destination) {
+        if (source.equals(destination)) {
+            return true;
+        }
+        if (!Files.exists(source) || !Files.exists(destination)) {
+            return false;
+        }
+        try {
+            return Files.isSameFile(source, destination);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
     /**
      * 如果文件夹不存在则创建
      * 
@@ -394,8 +443,8 @@ public abstract class FileTools {
             return true;
         }
 
-        if (spath.toString().equals(dpath.toString())) {
-            return true; // 源路径和目标路径相同, 直接返回成功
+        if (isSameFile(spath, dpath)) {
+            return true; // 源路径和目标路径是同一个文件, 直接返回成功
         }
 
         if (Files.isDirectory(spath) && (Files.exists(dpath) || dpath.startsWith(spath))) {
@@ -512,8 +561,8 @@ public abstract class FileTools {
             return true;
         }
 
-        if (spath.toString().equals(dpath.toString())) {
-            return true; // 源路径和目标路径相同, 直接返回成功
+        if (isSameFile(spath, dpath)) {
+            return true; // 源路径和目标路径是同一个文件, 直接返回成功
         }
 
         // 目标路径的上级文件夹必须存在, 否则会报错
@@ -538,6 +587,23 @@ public abstract class FileTools {
         }
     }
 
+    /**
+     * 同步文件夹: 并行复制, 目标文件的大小和修改时间与源文件相同则跳过, 否则覆盖<br>
+     * 失败时调用ExceptionWatcher; 如果ExceptionWatcher同时实现了FileCopier.ProgressWatcher, 每个文件完成后报告进度
+     * 
+     * @param source 源文件夹
+     * @param destination 目标文件夹
+     * @param exceptionWatcher 异常处理类
+     * @return 统计数据
+     * @see FileCopier
+     */
+    public static FileCopier.CopyStats mirror(String source, String destination, ExceptionWatcher exceptionWatcher) {
+        FileCopier copier = new FileCopier();
+        copier.setSkipUnchanged(true);
+        copier.setExceptionWatcher(exceptionWatcher);
+        return copier.copy(source, destination);
+    }
+
     /**
      * 删除文件或递归删除文件夹<br>
      * 源文件不存在时, 直接返回成功<br>
@@ -796,9 +862,9 @@ public abstract class FileTools {
      * @return 文件列表
      */
     public static List<File> treelist(String rootFolder, FileMatcher matcher) {
-        CollectFileVisitor visitor = new CollectFileVisitor(matcher, null);
         try {
             Path path = Paths.get(rootFolder);
+            CollectFileVisitor visitor = new CollectFileVisitor(path, matcher, null);
             Files.walkFileTree(path, visitor);
             return visitor.getItems();
         } catch (IOException e) {
@@ -806,6 +872,20 @@ public abstract class FileTools {
         }
     }
 
+    /**
+     * 并行遍历文件夹, 符合条件的文件通过回调函数逐个返回, 回调函数返回false时终止遍历<br>
+     * 回调函数会被多个线程同时调用, 返回的顺序不固定
+     *
+     * @param rootFolder 文件夹路径
+     * @param matcher 匹配规则
+     * @param callback 回调函数
+     * @return 是否完成遍历
+     * @see FileTreeWalker
+     */
+    public static boolean walk(String rootFolder, FileMatcher matcher, FileTreeWalker.FileCallback callback) {
+        return new FileTreeWalker(matcher).walk(rootFolder, callback);
+    }
+
     /**
      * 收集符合条件的文件
      *
@@ -854,12 +934,15 @@ public abstract class FileTools {
      */
     private static class CollectFileVisitor extends AllFileVisitor {
 
+        /** 根目录 **/
+        private Path root;
         /** 匹配规则 **/
         private FileMatcher matcher;
         private List<File> items = new ArrayList<>();
 
-        public CollectFileVisitor(FileMatcher matcher, ExceptionWatcher exceptionWatcher) {
+        public CollectFileVisitor(Path root, FileMatcher matcher, ExceptionWatcher exceptionWatcher) {
             super(exceptionWatcher);
+            this.root = root;
             this.matcher = matcher;
         }
 
@@ -868,32 +951,43 @@ public abstract class FileTools {
         }
 
         @Override
-        protected boolean onVisitFile(Path path) {
+        public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attrs) {
+            // 跳过不可能有匹配文件的文件夹
+            if (!directory.equals(root) && !FileTreeWalker.mayContainMatches(matcher, directory)) {
+                return FileVisitResult.SKIP_SUBTREE;
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
             File file = path.toFile();
             if (matcher == null) {
                 // 未设置文件匹配规则就等于遍历所有文件
                 items.add(file);
-                return true;
-            }
-
-            if (matcher.matches(file)) {
+            } else if (matcher instanceof FileAttributesMatcher) {
+                // 使用已读取的文件属性, 不必再次读取
+                if (((FileAttributesMatcher) matcher).matches(file, attrs)) {
+                    items.add(file);
+                }
+            } else if (matcher.matches(file)) {
                 items.add(file);
             }
-            return true; // 继续
+            return FileVisitResult.CONTINUE;
         }
     }
 
     /**
-     * 判断文件的编码格式
+     * 判断文件的编码格式<br>
+     * 只读取文件的开头/中间/结尾作为样本(见CharsetDetector), 耗时与文件大小无关
      * 
      * @param file 指定文件
      * @return 编码格式
      * @version 2010-10-05
      */
     public static String getEncoding(File file) {
-        try (BufferedInputStream input = new BufferedInputStream(new FileInputStream(file))) {
-            CharsetAndBomIndex result = parseEncoding(input, CHARSET);
-            return result.getCharset().displayName();
+        try {
+            return CHARSET_DETECTOR.detect(file).getCharset().displayName();
         } catch (Exception e) {
             return CHARSET.displayName();
         }
@@ -901,112 +995,18 @@ public abstract class FileTools {
 
     /**
      * 判断InputStream的编码格式<br>
-     * 来源: http://www.chsi.com.cn/xy/com/200902/20090218/17570775.html<br>
+     * 只读取有限大小的样本(见CharsetDetector), 如果输入流支持mark/reset, 读取完成后恢复到原来的位置<br>
      * BOM参考: http://www.unicode.org/faq/utf_bom.html#bom4
      * 
-     * @param file 指定文件
+     * @param input 输入流
      * @return 编码格式
      * @version 2010-10-05
      */
     public static String getEncoding(InputStream input) {
-        CharsetAndBomIndex result = parseEncoding(input, CHARSET);
-        return result.getCharset().displayName();
-    }
-
-    static CharsetAndBomIndex parseEncoding(InputStream input, Charset defaultCharset) {
         try {
-            input.mark(0);
-
-            // 带BOM信息的情况, 根据前4位判断编码
-            byte[] bytes = new byte[4];
-            int read = input.read(bytes, 0, bytes.length);
-            if (read == -1) {
-                return new CharsetAndBomIndex(defaultCharset, 0);
-            }
-            // http://www.unicode.org/faq/utf_bom.html#bom4
-            // Bytes       Encoding Form
-            // 00 00 FE FF UTF-32, big-endian
-            // FF FE 00 00 UTF-32, little-endian
-            // FE FF       UTF-16, big-endian
-            // FF FE       UTF-16, little-endian
-            // EF BB BF    UTF-8
-            if (bytes[0] == (byte) 0xEF && bytes[1] == (byte) 0xBB && bytes[2] == (byte) 0xBF) {
-                return new CharsetAndBomIndex("UTF-8", 3); //    EF BB BF    UTF-8
-            }
-            byte FF = (byte) 0xFF;
-            byte FE = (byte) 0xFE;
-            if (bytes[0] == FE && bytes[1] == FF) {
-                return new CharsetAndBomIndex("UTF-16BE", 3); // FE FF       UTF-16, big-endian
-            } else if (bytes[0] == FF && bytes[1] == FE) {
-                return new CharsetAndBomIndex("UTF-16LE", 3); // FF FE       UTF-16, little-endian
-            } else if (bytes[0] == 0 && bytes[1] == 0 && bytes[2] == FE && bytes[3] == FF) {
-                return new CharsetAndBomIndex("UTF-32BE", 4); // 00 00 FE FF UTF-32, big-endian
-            } else if (bytes[0] == FF && bytes[1] == FE && bytes[2] == 0 && bytes[3] == 0) {
-                return new CharsetAndBomIndex("UTF-32LE", 4); // FF FE 00 00 UTF-32, little-endian
-            }
-
-            String encoding = "GBK";
-            // 根据BOM信息未判断出编码的情况
-            input.reset();
-            while ((read = input.read()) != -1) {
-                if (read >= 0xF0) {
-                    break;
-                }
-
-                if (0x80 <= read && read <= 0xBF) { // 单独出现BF以下的, 也算是GBK
-                    break;
-                }
-                if (0xC0 <= read && read <= 0xDF) {
-                    read = input.read();
-                    // 双字节 (0xC0 - 0xDF)(0x80 - 0xBF), 也可能在GB编码内
-                    if (0x80 <= read && read <= 0xBF) {
-                        continue;
-                    } else {
-                        break;
-                    }
-                }
-                // 也有可能出错, 但是几率较小
-                else if (0xE0 <= read && read <= 0xEF) {
-                    read = input.read();
-                    if (0x80 <= read && read <= 0xBF) {
-                        read = input.read();
-                        if (0x80 <= read && read <= 0xBF) {
-                            encoding = "UTF-8";
-                            break;
-                        } else {
-                            break;
-                        }
-                    } else {
-                        break;
-                    }
-                }
-            }
-            return new CharsetAndBomIndex(encoding, 0);
+            return CHARSET_DETECTOR.detect(input).getCharset().displayName();
         } catch (Exception e) {
-            return new CharsetAndBomIndex(defaultCharset, 0);
-        }
-    }
-
-    private static class CharsetAndBomIndex {
-
-        private Charset charset;
-        private int bomLength;
-
-        public CharsetAndBomIndex(String charset, int bomLength) {
-            this(Charset.forName(charset), bomLength);
-        }
-
-        public CharsetAndBomIndex(Charset charset, int bomLength) {
-            this.charset = charset;
-            this.bomLength = bomLength;
-        }
-
-        public Charset getCharset() {
-            return charset;
-        }
-
-        public int getBomLength() {
-            return bomLength;
+            return CHARSET.displayName();
         }
     }
 }
@@ -0,0 +1,420 @@
+package com.gitee.qdbp.tools.files;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.gitee.qdbp.able.exception.ExceptionWatcher;
+import com.gitee.qdbp.able.matches.AntFileMatcher;
+import com.gitee.qdbp.able.matches.AntStringMatcher;
+import com.gitee.qdbp.able.matches.BaseFileMatcher;
+import com.gitee.qdbp.able.matches.ContainsFileMatcher;
+import com.gitee.qdbp.able.matches.EndsFileMatcher;
+import com.gitee.qdbp.able.matches.EqualsFileMatcher;
+import com.gitee.qdbp.able.matches.EqualsStringMatcher;
+import com.gitee.qdbp.able.matches.FileAttributesMatcher;
+import com.gitee.qdbp.able.matches.FileMatcher;
+import com.gitee.qdbp.able.matches.IndexedFileMatcher;
+import com.gitee.qdbp.able.matches.RegexpFileMatcher;
+import com.gitee.qdbp.able.matches.StartsFileMatcher;
+import com.gitee.qdbp.able.matches.StartsStringMatcher;
+import com.gitee.qdbp.able.matches.StringMatcher;
+import com.gitee.qdbp.able.matches.StringMatcher.LogicType;
+import com.gitee.qdbp.able.matches.StringMatcher.Matches;
+import com.gitee.qdbp.able.matches.WrapFileMatcher;
+import com.gitee.qdbp.tools.utils.StringTools;
+import com.gitee.qdbp.tools.utils.VerifyTools;
+
+/**
+ * 并行遍历文件夹<br>
+ * 每个文件夹是一个ForkJoin任务, 子文件夹由其他线程并行遍历, 符合匹配规则的文件通过回调函数逐个返回, 不必先收集到列表中<br>
+ * 读取文件列表时得到的文件属性(BasicFileAttributes)会传给匹配规则和回调函数, 不必再次读取<br>
+ * 按文件路径匹配的规则(starts/equals, 以及以/开头的ant规则), 根据规则开头的固定路径跳过不可能匹配的文件夹<br>
+ * 回调函数返回false时终止遍历; 回调函数会被多个线程同时调用, 必须是线程安全的, 且返回的顺序不固定<br>
+ * 与Files.walkFileTree()相同, 不跟随符号链接, 指向文件夹的符号链接作为文件处理
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class FileTreeWalker {
+
+    /** 匹配规则, 为null时返回所有文件 **/
+    private final FileMatcher matcher;
+    /** 线程池, 为null时每次遍历临时创建 **/
+    private ForkJoinPool pool;
+    /** 临时创建线程池时的并行数量 **/
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    /** 异常处理, 为null时忽略异常继续遍历 **/
+    private ExceptionWatcher exceptionWatcher;
+    /** 是否根据匹配规则跳过不可能匹配的文件夹 **/
+    private boolean pruneDirectories = true;
+
+    /**
+     * 构造函数
+     *
+     * @param matcher 匹配规则, 为null时返回所有文件
+     */
+    public FileTreeWalker(FileMatcher matcher) {
+        this.matcher = matcher;
+    }
+
+    /**
+     * 文件回调函数
+     *
+     * @author zhaohuihua
+     * @version 20201017
+     */
+    public interface FileCallback {
+
+        /**
+         * 找到符合匹配规则的文件
+         *
+         * @param file 文件
+         * @param attrs 文件属性
+         * @return 是否继续, 返回false将终止遍历
+         */
+        boolean onVisitFile(Path file, BasicFileAttributes attrs);
+    }
+
+    /**
+     * 遍历文件夹
+     *
+     * @param rootFolder 文件夹路径
+     * @param callback 回调函数
+     * @return 是否完成遍历, 回调函数或异常处理返回false时终止遍历, 返回false
+     */
+    public boolean walk(String rootFolder, FileCallback callback) {
+        VerifyTools.requireNotBlank(rootFolder, "rootFolder");
+        return walk(Paths.get(rootFolder), callback);
+    }
+
+    /**
+     * 遍历文件夹
+     *
+     * @param root 文件夹
+     * @param callback 回调函数
+     * @return 是否完成遍历, 回调函数或异常处理返回false时终止遍历, 返回false
+     */
+    public boolean walk(Path root, FileCallback callback) {
+        VerifyTools.requireNonNull(root, "root");
+        VerifyTools.requireNonNull(callback, "callback");
+        WalkContext context = new WalkContext(callback);
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(root, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            String msg = String.format("Caught exception on visit file: [%s]. %s", root, e);
+            return context.handleException(msg, e);
+        }
+        if (!attrs.isDirectory()) {
+            context.visitFile(root, attrs);
+            return !context.terminated;
+        }
+
+        ForkJoinPool pool = this.pool;
+        boolean temporary = pool == null;
+        if (temporary) {
+            pool = new ForkJoinPool(Math.max(1, parallelism));
+        }
+        try {
+            pool.invoke(new WalkTask(context, root));
+        } finally {
+            if (temporary) {
+                pool.shutdown();
+            }
+        }
+        return !context.terminated;
+    }
+
+    /**
+     * 收集符合匹配规则的文件, 文件顺序不固定
+     *
+     * @param rootFolder 文件夹路径
+     * @return 文件列表
+     */
+    public List<File> list(String rootFolder) {
+        return list(rootFolder, 0);
+    }
+
+    /**
+     * 收集符合匹配规则的文件, 文件顺序不固定
+     *
+     * @param rootFolder 文件夹路径
+     * @param maxCount 最多收集多少个文件, 达到数量后终止遍历, 0表示不限制
+     * @return 文件列表
+     */
+    public List<File> list(String rootFolder, final int maxCount) {
+        final ConcurrentLinkedQueue<File> items = new ConcurrentLinkedQueue<>();
+        final AtomicInteger counter = new AtomicInteger();
+        walk(rootFolder, new FileCallback() {
+
+            @Override
+            public boolean onVisitFile(Path file, BasicFileAttributes attrs) {
+                if (maxCount <= 0) {
+                    items.add(file.toFile());
+                    return true;
+                }
+                int count = counter.incrementAndGet();
+                if (count <= maxCount) {
+                    items.add(file.toFile());
+                }
+                return count < maxCount;
+            }
+        });
+        return new ArrayList<>(items);
+    }
+
+    /**
+     * 判断文件夹之下是否可能有符合匹配规则的文件<br>
+     * 只有按文件路径匹配的starts/equals规则和以/开头的ant规则能够判断, 其余规则一律返回true
+     *
+     * @param matcher 匹配规则
+     * @param directory 文件夹
+     * @return 是否可能有符合匹配规则的文件, 返回false表示可以跳过这个文件夹
+     */
+    public static boolean mayContainMatches(FileMatcher matcher, Path directory) {
+        if (matcher == null) {
+            return true;
+        }
+        // 与BaseFileMatcher.formatFilePath()相同的格式, 但不以/结尾
+        String path = PathTools.formatPath(directory.toAbsolutePath().toString());
+        if (!path.startsWith("/") && path.length() > 1 && path.charAt(1) == ':') {
+            path = path.substring(2);
+        }
+        if (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return mayContainMatches(matcher, path);
+    }
+
+    private static boolean mayContainMatches(FileMatcher matcher, String directory) {
+        if (matcher instanceof WrapFileMatcher) {
+            WrapFileMatcher wrap = (WrapFileMatcher) matcher;
+            return mayContainMatches(wrap.getMatchers(), wrap.getLogicType(), directory);
+        } else if (matcher instanceof IndexedFileMatcher) {
+            IndexedFileMatcher indexed = (IndexedFileMatcher) matcher;
+            return mayContainMatches(indexed.getMatchers(), indexed.getLogicType(), directory);
+        } else if (isBuiltinFileMatcher(matcher)) {
+            BaseFileMatcher base = (BaseFileMatcher) matcher;
+            if (base.getTarget() != FileMatcher.Target.FilePath) {
+                return true;
+            }
+            return mayContainMatches(base.getMatcher(), directory);
+        } else {
+            return true;
+        }
+    }
+
+    private static boolean mayContainMatches(List<FileMatcher> matchers, LogicType logicType, String directory) {
+        if (matchers == null || matchers.isEmpty()) {
+            // 与WrapFileMatcher一致, 没有规则时AND全部匹配, OR全部不匹配
+            return logicType == LogicType.AND;
+        }
+        for (FileMatcher item : matchers) {
+            boolean result = mayContainMatches(item, directory);
+            if (logicType == LogicType.AND && !result) {
+                return false;
+            } else if (logicType != LogicType.AND && result) {
+                return true;
+            }
+        }
+        return logicType == LogicType.AND;
+    }
+
+    /** 文件夹之下的文件路径都以directory + "/"开头 **/
+    private static boolean mayContainMatches(StringMatcher matcher, String directory) {
+        String prefix = directory + "/";
+        if (matcher instanceof StartsStringMatcher) {
+            StartsStringMatcher m = (StartsStringMatcher) matcher;
+            if (m.getMode() != Matches.Positive) {
+                return true;
+            }
+            return prefix.startsWith(m.getPattern()) || m.getPattern().startsWith(prefix);
+        } else if (matcher instanceof EqualsStringMatcher) {
+            EqualsStringMatcher m = (EqualsStringMatcher) matcher;
+            if (m.getMode() != Matches.Positive) {
+                return true;
+            }
+            return m.getPattern().startsWith(prefix);
+        } else if (matcher instanceof AntStringMatcher) {
+            AntStringMatcher m = (AntStringMatcher) matcher;
+            if (m.getMode() != Matches.Positive || !m.isFullMatch()
+                    || m.getPathSeparator() != AntStringMatcher.DEFAULT_PATH_SEPARATOR
+                    || !m.getPattern().startsWith("/")) {
+                return true;
+            }
+            // ant规则开头的固定路径段必须与文件路径开头的路径段相同
+            // StringTools.split()会trim每个路径段, 与AntStringMatcher的比较方式一致
+            // 最后一段与文件名比较, 不作为固定路径段
+            String[] patternDirs = StringTools.split(m.getPattern(), AntStringMatcher.DEFAULT_PATH_SEPARATOR);
+            String[] pathDirs = StringTools.split(directory, AntStringMatcher.DEFAULT_PATH_SEPARATOR);
+            for (int i = 0; i < patternDirs.length - 1 && i < pathDirs.length; i++) {
+                String dir = patternDirs[i];
+                if (dir.indexOf('*') >= 0 || dir.indexOf('?') >= 0) {
+                    break;
+                }
+                if (!dir.equals(pathDirs[i])) {
+                    return false;
+                }
+            }
+            return true;
+        } else {
+            return true;
+        }
+    }
+
+    /** 自定义的BaseFileMatcher子类可能重写了formatFilePath(), 不能判断 **/
+    private static boolean isBuiltinFileMatcher(FileMatcher matcher) {
+        Class<?> type = matcher == null ? null : matcher.getClass();
+        return type == BaseFileMatcher.class || type == AntFileMatcher.class || type == ContainsFileMatcher.class
+                || type == EndsFileMatcher.class || type == EqualsFileMatcher.class || type == RegexpFileMatcher.class
+                || type == StartsFileMatcher.class;
+    }
+
+    /** 一次遍历的状态 **/
+    private class WalkContext {
+
+        private final FileCallback callback;
+        /** 是否已终止遍历 **/
+        private volatile boolean terminated;
+
+        public WalkContext(FileCallback callback) {
+            this.callback = callback;
+        }
+
+        public void visitFile(Path file, BasicFileAttributes attrs) {
+            if (matcher != null) {
+                File source = file.toFile();
+                boolean matches;
+                if (matcher instanceof FileAttributesMatcher) {
+                    matches = ((FileAttributesMatcher) matcher).matches(source, attrs);
+                } else {
+                    matches = matcher.matches(source);
+                }
+                if (!matches) {
+                    return;
+                }
+            }
+            if (!callback.onVisitFile(file, attrs)) {
+                terminated = true;
+            }
+        }
+
+        public boolean handleException(String details, Throwable e) {
+            if (exceptionWatcher == null || exceptionWatcher.onCaughtException(details, e)) {
+                return true;
+            }
+            terminated = true;
+            return false;
+        }
+    }
+
+    /** 遍历一个文件夹, 文件在当前线程判断, 子文件夹生成新的任务 **/
+    private class WalkTask extends RecursiveAction {
+
+        /** serialVersionUID **/
+        private static final long serialVersionUID = 1L;
+
+        private final WalkContext context;
+        private final Path directory;
+
+        public WalkTask(WalkContext context, Path directory) {
+            this.context = context;
+            this.directory = directory;
+        }
+
+        @Override
+        protected void compute() {
+            List<WalkTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path entry : stream) {
+                    if (context.terminated) {
+                        return;
+                    }
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        String msg = String.format("Caught exception on visit file: [%s]. %s", entry, e);
+                        if (!context.handleException(msg, e)) {
+                            return;
+                        }
+                        continue;
+                    }
+                    if (!attrs.isDirectory()) {
+                        context.visitFile(entry, attrs);
+                    } else if (!pruneDirectories || mayContainMatches(matcher, entry)) {
+                        subtasks.add(new WalkTask(context, entry));
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                String msg = String.format("Caught exception on visit directory: [%s]. %s", directory, e);
+                if (!context.handleException(msg, e)) {
+                    return;
+                }
+            }
+            if (!subtasks.isEmpty() && !context.terminated) {
+                invokeAll(subtasks);
+            }
+        }
+    }
+
+    /** 匹配规则 **/
+    public FileMatcher getMatcher() {
+        return matcher;
+    }
+
+    /** 线程池, 为null时每次遍历临时创建 **/
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /** 线程池, 为null时每次遍历临时创建 **/
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /** 临时创建线程池时的并行数量 **/
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /** 临时创建线程池时的并行数量 **/
+    public void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be greater than 0: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /** 异常处理, 为null时忽略异常继续遍历 **/
+    public ExceptionWatcher getExceptionWatcher() {
+        return exceptionWatcher;
+    }
+
+    /** 异常处理, 为null时忽略异常继续遍历 **/
+    public void setExceptionWatcher(ExceptionWatcher exceptionWatcher) {
+        this.exceptionWatcher = exceptionWatcher;
+    }
+
+    /** 是否根据匹配规则跳过不可能匹配的文件夹 **/
+    public boolean isPruneDirectories() {
+        return pruneDirectories;
+    }
+
+    /** 是否根据匹配规则跳过不可能匹配的文件夹 **/
+    public void setPruneDirectories(boolean pruneDirectories) {
+        this.pruneDirectories = pruneDirectories;
+    }
+}
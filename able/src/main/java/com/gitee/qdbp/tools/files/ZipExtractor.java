@@ -0,0 +1,661 @@
+package com.gitee.qdbp.tools.files;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+import com.gitee.qdbp.able.exception.FileOversizeException;
+import com.gitee.qdbp.able.exception.ResourceNotFoundException;
+import com.gitee.qdbp.able.matches.FileMatcher;
+import com.gitee.qdbp.able.matches.StringMatcher;
+import com.gitee.qdbp.tools.utils.ConvertTools;
+import com.gitee.qdbp.tools.utils.VerifyTools;
+
+/**
+ * zip文件解压<br>
+ * 自行解析zip文件的中央目录, 按位置读取FileChannel, 多个线程可以同时读取, 每个压缩项在线程池中并行解压(压缩数据大的先开始)<br>
+ * 同名的压缩项只解压最后一个(与逐个解压的结果相同)<br>
+ * 可以按压缩项的相对路径(entryMatcher)或目标文件(fileMatcher)过滤, 只解压符合条件的文件<br>
+ * 所有需要的文件夹在解压前一次性创建<br>
+ * 以/或\开头的压缩项路径去掉开头的分隔符, 解压到保存路径之下(与原先的ZipTools.decompression相同)<br>
+ * 安全检查: 需要解压的压缩项, 路径中的..不能超出保存路径(zip-slip), 否则抛出ZipException; 被过滤掉的压缩项不检查;
+ * 解压后的大小超过maxEntrySize/maxTotalSize, 或压缩比超过maxRatio时(zip炸弹), 抛出FileOversizeException,
+ * 大小和压缩比按实际解压出的字节数计算, 不依赖zip文件中记录的大小; 这些限制默认都不开启, 处理不可信的zip文件时需要设置<br>
+ * 仅支持STORED和DEFLATED模式, 不支持加密的zip文件
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class ZipExtractor {
+
+    private static final int LOCSIG = 0x04034b50;
+    private static final int CENSIG = 0x02014b50;
+    private static final int ENDSIG = 0x06054b50;
+    private static final int ZIP64_ENDSIG = 0x06064b50;
+    private static final int ZIP64_LOCSIG = 0x07064b50;
+    private static final long ZIP64_MAGICVAL = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGICCOUNT = 0xFFFF;
+    /** 结束记录的固定长度 **/
+    private static final int ENDHDR = 22;
+    /** 本地文件头的固定长度 **/
+    private static final int LOCHDR = 30;
+    /** 中央目录文件头的固定长度 **/
+    private static final int CENHDR = 46;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** 压缩项的相对路径过滤规则, 为null表示不过滤 **/
+    private StringMatcher entryMatcher;
+    /** 目标文件过滤规则, 为null表示不过滤 **/
+    private FileMatcher fileMatcher;
+    /** 如果第一级路径与zip文件名相同, 是否去掉这一级路径 **/
+    private boolean stripArchiveName = true;
+    /** 单个文件解压后的最大字节数, 0表示不限制 **/
+    private long maxEntrySize;
+    /** 全部文件解压后的最大字节数, 0表示不限制 **/
+    private long maxTotalSize;
+    /** 最大压缩比(解压后大小/压缩后大小), 0表示不限制 **/
+    private double maxRatio;
+    /** 解压后超过这个大小才检查压缩比, 避免误判内容重复的小文件 **/
+    private long ratioThreshold = 1024 * 1024;
+    /** 最大文件数量, 0表示不限制 **/
+    private int maxEntries;
+    /** 文件名的字符集(未设置UTF-8标志时使用) **/
+    private Charset charset = Charset.forName("UTF-8");
+    /** 并行数量 **/
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 解压zip文件
+     *
+     * @param zipPath zip文件
+     * @param saveFolder 保存文件的路径
+     * @return 解压出的文件列表
+     * @throws ResourceNotFoundException zip文件不存在
+     * @throws FileOversizeException 超出大小或压缩比限制
+     * @throws ZipException 格式错误, 或压缩项的路径超出保存路径
+     * @throws IOException IO异常
+     */
+    public List<File> extract(String zipPath, String saveFolder) throws IOException {
+        VerifyTools.requireNotBlank(zipPath, "zipPath");
+        VerifyTools.requireNotBlank(saveFolder, "saveFolder");
+        File zipFile = new File(zipPath);
+        if (!zipFile.isFile()) { // 判断源文件是否存在
+            throw new ResourceNotFoundException(zipPath);
+        }
+        Path saveRoot = Paths.get(saveFolder).toAbsolutePath().normalize();
+        String archiveName = PathTools.removeExtension(zipFile.getName()) + '/';
+
+        try (ZipArchive archive = new ZipArchive(zipFile.toPath())) {
+            List<CentralEntry> entries = archive.readCentralDirectory(charset);
+            if (maxEntries > 0 && entries.size() > maxEntries) {
+                String msg = "Zip file exceeds maximum permitted entries of [" + maxEntries + "]: " + zipPath;
+                throw new FileOversizeException(msg);
+            }
+
+            // 确定需要解压的文件, 收集需要创建的文件夹
+            // 同名的压缩项只保留最后一个, 否则并行解压时多个任务会同时写同一个文件
+            Map<Path, ExtractTask> tasks = new LinkedHashMap<>();
+            Set<Path> folders = new LinkedHashSet<>();
+            long declaredTotal = 0;
+            for (CentralEntry entry : entries) {
+                String relativePath = removeLeadingSeparators(entry.name);
+                // 如果第一级路径与zip文件名相同, 则去掉这一级路径
+                if (stripArchiveName && relativePath.startsWith(archiveName)) {
+                    relativePath = relativePath.substring(archiveName.length());
+                }
+                if (relativePath.isEmpty()) {
+                    continue;
+                }
+                // 先过滤再检查路径, 被过滤掉的压缩项不影响解压
+                if (entryMatcher != null && !entryMatcher.matches(relativePath)) {
+                    continue;
+                }
+                Path target = resolveTarget(saveRoot, relativePath, entry.name);
+                if (entry.isDirectory()) {
+                    if (fileMatcher == null) {
+                        checkTarget(saveRoot, target, entry.name);
+                        folders.add(target);
+                    }
+                    continue;
+                }
+                if (fileMatcher != null && !fileMatcher.matches(target.toFile())) {
+                    continue;
+                }
+                checkTarget(saveRoot, target, entry.name);
+                if (maxEntrySize > 0 && entry.size > maxEntrySize) {
+                    throw oversize(entry, maxEntrySize);
+                }
+                ExtractTask replaced = tasks.put(target, new ExtractTask(archive, entry, target));
+                declaredTotal += entry.size - (replaced == null ? 0 : replaced.entry.size);
+                if (maxTotalSize > 0 && declaredTotal > maxTotalSize) {
+                    throw totalOversize(maxTotalSize);
+                }
+                folders.add(target.getParent());
+            }
+            for (Path folder : folders) {
+                Files.createDirectories(folder);
+            }
+            execute(new ArrayList<>(tasks.values()));
+
+            List<File> files = new ArrayList<>();
+            for (ExtractTask task : tasks.values()) {
+                files.add(task.target.toFile());
+            }
+            return files;
+        }
+    }
+
+    /** 去掉开头的/和\, 如/docs/a.txt解压到保存路径/docs/a.txt, 而不是当作绝对路径 **/
+    private static String removeLeadingSeparators(String entryName) {
+        int start = 0;
+        while (start < entryName.length() && (entryName.charAt(start) == '/' || entryName.charAt(start) == '\\')) {
+            start++;
+        }
+        return start == 0 ? entryName : entryName.substring(start);
+    }
+
+    /** 计算保存路径 **/
+    private static Path resolveTarget(Path saveRoot, String relativePath, String entryName) throws ZipException {
+        try {
+            return saveRoot.resolve(relativePath).normalize();
+        } catch (RuntimeException e) {
+            throw new ZipException("Illegal zip entry name: " + entryName);
+        }
+    }
+
+    /** 保存路径不能因为..超出保存路径(zip-slip) **/
+    private static void checkTarget(Path saveRoot, Path target, String entryName) throws ZipException {
+        if (!target.startsWith(saveRoot) || target.equals(saveRoot)) {
+            throw new ZipException("Zip entry is outside of the target folder: " + entryName);
+        }
+    }
+
+    private void execute(List<ExtractTask> tasks) throws IOException {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        // 压缩数据大的先开始, 减少最后只剩一个大文件在解压的情况
+        List<ExtractTask> ordered = new ArrayList<>(tasks);
+        Collections.sort(ordered, new Comparator<ExtractTask>() {
+
+            @Override
+            public int compare(ExtractTask o1, ExtractTask o2) {
+                return Long.compare(o2.entry.csize, o1.entry.csize);
+            }
+        });
+        AtomicLong total = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, tasks.size())));
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (ExtractTask task : ordered) {
+                task.total = total;
+                futures.add(executor.submit(task));
+            }
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while extracting", e);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    } else {
+                        throw new IOException("Failed to extract", cause);
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /** 解压一个文件 **/
+    private class ExtractTask implements Callable<Void> {
+
+        private final ZipArchive archive;
+        private final CentralEntry entry;
+        private final Path target;
+        private AtomicLong total;
+
+        public ExtractTask(ZipArchive archive, CentralEntry entry, Path target) {
+            this.archive = archive;
+            this.entry = entry;
+            this.target = target;
+        }
+
+        @Override
+        public Void call() throws IOException {
+            boolean success = false;
+            try {
+                doExtract();
+                success = true;
+            } finally {
+                if (!success) {
+                    Files.deleteIfExists(target);
+                }
+            }
+            return null;
+        }
+
+        private void doExtract() throws IOException {
+            long position = archive.getDataPosition(entry);
+            CRC32 crc = new CRC32();
+            long written = 0;
+            byte[] input = new byte[BUFFER_SIZE];
+            try (FileChannel output = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+                if (entry.method == 0) {
+                    long remaining = entry.csize;
+                    while (remaining > 0) {
+                        checkInterrupted();
+                        int length = (int) Math.min(remaining, input.length);
+                        archive.read(position, input, 0, length);
+                        position += length;
+                        remaining -= length;
+                        written += length;
+                        checkLimits(written, length);
+                        crc.update(input, 0, length);
+                        writeFully(output, input, length);
+                    }
+                } else {
+                    written = inflate(position, input, output, crc);
+                }
+            }
+            if (written != entry.size || crc.getValue() != entry.crc) {
+                throw new ZipException("Invalid zip entry (size or crc mismatch): " + entry.name);
+            }
+        }
+
+        private long inflate(long position, byte[] input, FileChannel output, CRC32 crc) throws IOException {
+            Inflater inflater = new Inflater(true);
+            try {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                long remaining = entry.csize;
+                boolean dummy = false;
+                long written = 0;
+                while (!inflater.finished()) {
+                    checkInterrupted();
+                    if (inflater.needsInput()) {
+                        if (remaining > 0) {
+                            int length = (int) Math.min(remaining, input.length);
+                            archive.read(position, input, 0, length);
+                            position += length;
+                            remaining -= length;
+                            inflater.setInput(input, 0, length);
+                        } else if (!dummy) {
+                            // 与ZipFile相同, nowrap模式的Inflater可能需要额外的一个字节
+                            dummy = true;
+                            input[0] = 0;
+                            inflater.setInput(input, 0, 1);
+                        } else {
+                            throw new ZipException("Unexpected end of zip entry: " + entry.name);
+                        }
+                    }
+                    int length;
+                    try {
+                        length = inflater.inflate(buffer);
+                    } catch (DataFormatException e) {
+                        throw new ZipException("Invalid zip entry: " + entry.name + ", " + e.getMessage());
+                    }
+                    if (length == 0 && inflater.needsDictionary()) {
+                        throw new ZipException("Invalid zip entry (needs dictionary): " + entry.name);
+                    }
+                    if (length > 0) {
+                        written += length;
+                        checkLimits(written, length);
+                        crc.update(buffer, 0, length);
+                        writeFully(output, buffer, length);
+                    }
+                }
+                return written;
+            } finally {
+                inflater.end();
+            }
+        }
+
+        /** 按实际解压出的字节数检查大小和压缩比 **/
+        private void checkLimits(long written, int increment) throws FileOversizeException {
+            if (maxEntrySize > 0 && written > maxEntrySize) {
+                throw oversize(entry, maxEntrySize);
+            }
+            if (maxTotalSize > 0 && total.addAndGet(increment) > maxTotalSize) {
+                throw totalOversize(maxTotalSize);
+            }
+            if (maxRatio > 0 && written > ratioThreshold && written > entry.csize * maxRatio) {
+                String msg = "Zip entry exceeds maximum permitted compression ratio of [" + maxRatio + "]: "
+                        + entry.name;
+                throw new FileOversizeException(msg);
+            }
+        }
+
+        private void checkInterrupted() throws IOException {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IOException("Interrupted while extracting: " + entry.name);
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel output, byte[] bytes, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+        while (buffer.hasRemaining()) {
+            output.write(buffer);
+        }
+    }
+
+    private static FileOversizeException oversize(CentralEntry entry, long maxSize) {
+        String max = ConvertTools.toByteString(maxSize);
+        String msg = "Zip entry exceeds maximum permitted size of [" + max + "]: " + entry.name;
+        return new FileOversizeException(msg);
+    }
+
+    private static FileOversizeException totalOversize(long maxSize) {
+        String max = ConvertTools.toByteString(maxSize);
+        String msg = "Zip file exceeds maximum permitted total size of [" + max + "]";
+        return new FileOversizeException(msg);
+    }
+
+    /** 中央目录中的压缩项信息 **/
+    private static class CentralEntry {
+
+        private String name;
+        private int flag;
+        private int method;
+        private long crc;
+        private long csize;
+        private long size;
+        private long offset;
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+    }
+
+    /** zip文件的读取, 支持多个线程同时读取 **/
+    private static class ZipArchive implements Closeable {
+
+        private final FileChannel channel;
+        private final long length;
+
+        public ZipArchive(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.length = channel.size();
+        }
+
+        /** 读取指定位置的数据, 线程安全 **/
+        public void read(long position, byte[] bytes, int offset, int count) throws IOException {
+            if (position < 0 || position + count > length) {
+                throw new ZipException("Unexpected end of zip file");
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, count);
+            long current = position;
+            while (buffer.hasRemaining()) {
+                int size = channel.read(buffer, current);
+                if (size < 0) {
+                    throw new ZipException("Unexpected end of zip file");
+                }
+                current += size;
+            }
+        }
+
+        public List<CentralEntry> readCentralDirectory(Charset charset) throws IOException {
+            // 结束记录在文件末尾, 之后可能有最长65535字节的注释
+            int tailLength = (int) Math.min(length, ENDHDR + 0xFFFF);
+            byte[] tail = new byte[tailLength];
+            read(length - tailLength, tail, 0, tailLength);
+            int end = -1;
+            for (int i = tailLength - ENDHDR; i >= 0; i--) {
+                if (getInt(tail, i) == ENDSIG && i + ENDHDR + getShort(tail, i + 20) <= tailLength) {
+                    end = i;
+                    break;
+                }
+            }
+            if (end < 0) {
+                throw new ZipException("Zip end header not found");
+            }
+            long count = getShort(tail, end + 10);
+            long centralSize = getInt(tail, end + 12);
+            long centralOffset = getInt(tail, end + 16);
+            if (count == ZIP64_MAGICCOUNT || centralSize == ZIP64_MAGICVAL || centralOffset == ZIP64_MAGICVAL) {
+                long endPosition = length - tailLength + end;
+                byte[] locator = new byte[20];
+                if (endPosition >= locator.length) {
+                    read(endPosition - locator.length, locator, 0, locator.length);
+                }
+                if (getInt(locator, 0) == ZIP64_LOCSIG) {
+                    byte[] record = new byte[56];
+                    read(getLong(locator, 8), record, 0, record.length);
+                    if (getInt(record, 0) != ZIP64_ENDSIG) {
+                        throw new ZipException("Invalid zip64 end header");
+                    }
+                    count = getLong(record, 32);
+                    centralSize = getLong(record, 40);
+                    centralOffset = getLong(record, 48);
+                }
+            }
+            if (centralSize > Integer.MAX_VALUE || centralOffset + centralSize > length) {
+                throw new ZipException("Invalid zip central directory");
+            }
+            byte[] central = new byte[(int) centralSize];
+            read(centralOffset, central, 0, central.length);
+
+            List<CentralEntry> entries = new ArrayList<>();
+            int position = 0;
+            while (position + CENHDR <= central.length && entries.size() < count) {
+                if (getInt(central, position) != CENSIG) {
+                    throw new ZipException("Invalid zip central header");
+                }
+                CentralEntry entry = new CentralEntry();
+                entry.flag = getShort(central, position + 8);
+                entry.method = getShort(central, position + 10);
+                entry.crc = getInt(central, position + 16);
+                entry.csize = getInt(central, position + 20);
+                entry.size = getInt(central, position + 24);
+                int nameLength = getShort(central, position + 28);
+                int extraLength = getShort(central, position + 30);
+                int commentLength = getShort(central, position + 32);
+                entry.offset = getInt(central, position + 42);
+                int nameStart = position + CENHDR;
+                if (nameStart + nameLength + extraLength > central.length) {
+                    throw new ZipException("Invalid zip central header");
+                }
+                Charset nameCharset = (entry.flag & 0x0800) != 0 ? Charset.forName("UTF-8") : charset;
+                entry.name = new String(central, nameStart, nameLength, nameCharset);
+                readZip64Extra(entry, central, nameStart + nameLength, extraLength);
+                if ((entry.flag & 0x0001) != 0) {
+                    throw new ZipException("Encrypted zip entry is not supported: " + entry.name);
+                }
+                if (entry.method != 0 && entry.method != 8 && !entry.isDirectory()) {
+                    throw new ZipException("Unsupported compression method " + entry.method + ": " + entry.name);
+                }
+                entries.add(entry);
+                position = nameStart + nameLength + extraLength + commentLength;
+            }
+            return entries;
+        }
+
+        /** zip64扩展信息: 只有值为0xFFFFFFFF的字段才会出现, 顺序为size, csize, offset **/
+        private static void readZip64Extra(CentralEntry entry, byte[] bytes, int start, int length) {
+            int position = start;
+            while (position + 4 <= start + length) {
+                int id = getShort(bytes, position);
+                int size = getShort(bytes, position + 2);
+                int data = position + 4;
+                if (id == 0x0001) {
+                    int end = Math.min(data + size, start + length);
+                    if (entry.size == ZIP64_MAGICVAL && data + 8 <= end) {
+                        entry.size = getLong(bytes, data);
+                        data += 8;
+                    }
+                    if (entry.csize == ZIP64_MAGICVAL && data + 8 <= end) {
+                        entry.csize = getLong(bytes, data);
+                        data += 8;
+                    }
+                    if (entry.offset == ZIP64_MAGICVAL && data + 8 <= end) {
+                        entry.offset = getLong(bytes, data);
+                    }
+                    return;
+                }
+                position += 4 + size;
+            }
+        }
+
+        /** 压缩数据的开始位置: 本地文件头之后 **/
+        public long getDataPosition(CentralEntry entry) throws IOException {
+            byte[] header = new byte[LOCHDR];
+            read(entry.offset, header, 0, header.length);
+            if (getInt(header, 0) != LOCSIG) {
+                throw new ZipException("Invalid zip local header: " + entry.name);
+            }
+            return entry.offset + LOCHDR + getShort(header, 26) + getShort(header, 28);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static int getShort(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8;
+    }
+
+    private static long getInt(byte[] bytes, int offset) {
+        return (getShort(bytes, offset) | (long) getShort(bytes, offset + 2) << 16) & 0xFFFFFFFFL;
+    }
+
+    private static long getLong(byte[] bytes, int offset) {
+        return getInt(bytes, offset) | getInt(bytes, offset + 4) << 32;
+    }
+
+    /** 压缩项的相对路径过滤规则, 为null表示不过滤 **/
+    public StringMatcher getEntryMatcher() {
+        return entryMatcher;
+    }
+
+    /** 压缩项的相对路径过滤规则, 为null表示不过滤 **/
+    public void setEntryMatcher(StringMatcher entryMatcher) {
+        this.entryMatcher = entryMatcher;
+    }
+
+    /** 目标文件过滤规则, 为null表示不过滤 **/
+    public FileMatcher getFileMatcher() {
+        return fileMatcher;
+    }
+
+    /** 目标文件过滤规则, 为null表示不过滤 **/
+    public void setFileMatcher(FileMatcher fileMatcher) {
+        this.fileMatcher = fileMatcher;
+    }
+
+    /** 如果第一级路径与zip文件名相同, 是否去掉这一级路径 **/
+    public boolean isStripArchiveName() {
+        return stripArchiveName;
+    }
+
+    /** 如果第一级路径与zip文件名相同, 是否去掉这一级路径 **/
+    public void setStripArchiveName(boolean stripArchiveName) {
+        this.stripArchiveName = stripArchiveName;
+    }
+
+    /** 单个文件解压后的最大字节数, 0表示不限制 **/
+    public long getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    /** 单个文件解压后的最大字节数, 0表示不限制 **/
+    public void setMaxEntrySize(long maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    /** 全部文件解压后的最大字节数, 0表示不限制 **/
+    public long getMaxTotalSize() {
+        return maxTotalSize;
+    }
+
+    /** 全部文件解压后的最大字节数, 0表示不限制 **/
+    public void setMaxTotalSize(long maxTotalSize) {
+        this.maxTotalSize = maxTotalSize;
+    }
+
+    /** 最大压缩比(解压后大小/压缩后大小), 0表示不限制 **/
+    public double getMaxRatio() {
+        return maxRatio;
+    }
+
+    /** 最大压缩比(解压后大小/压缩后大小), 0表示不限制 **/
+    public void setMaxRatio(double maxRatio) {
+        this.maxRatio = maxRatio;
+    }
+
+    /** 解压后超过这个大小才检查压缩比 **/
+    public long getRatioThreshold() {
+        return ratioThreshold;
+    }
+
+    /** 解压后超过这个大小才检查压缩比 **/
+    public void setRatioThreshold(long ratioThreshold) {
+        this.ratioThreshold = ratioThreshold;
+    }
+
+    /** 最大文件数量, 0表示不限制 **/
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /** 最大文件数量, 0表示不限制 **/
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /** 文件名的字符集(未设置UTF-8标志时使用) **/
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /** 文件名的字符集(未设置UTF-8标志时使用) **/
+    public void setCharset(Charset charset) {
+        VerifyTools.requireNonNull(charset, "charset");
+        this.charset = charset;
+    }
+
+    /** 并行数量 **/
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /** 并行数量 **/
+    public void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be greater than 0: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+}
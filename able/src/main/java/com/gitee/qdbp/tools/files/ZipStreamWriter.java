@@ -0,0 +1,730 @@
+package com.gitee.qdbp.tools.files;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import com.gitee.qdbp.able.matches.StringMatcher;
+import com.gitee.qdbp.able.matches.WrapStringMatcher;
+import com.gitee.qdbp.tools.files.ZipTools.FileItem;
+import com.gitee.qdbp.tools.files.ZipTools.UrlItem;
+import com.gitee.qdbp.tools.files.ZipTools.ZipItem;
+import com.gitee.qdbp.tools.utils.VerifyTools;
+
+/**
+ * 流式的zip压缩, 压缩结果直接写入OutputStream/WritableByteChannel, 不在内存中保存整个压缩文件<br>
+ * 读取: 同时读取(下载)后续的若干个压缩项(prefetchItems), 每个压缩项按块(chunkSize)读取,
+ * 每个压缩项最多缓存chunkQueueSize个块, 写入跟不上时读取线程等待, 内存占用有上限<br>
+ * 压缩: 每个块在线程池中并行压缩, 以前一个块的末尾32KB作为字典, 非最后一块以SYNC_FLUSH结束,
+ * 拼接之后是一个完整的deflate数据流(与pigz相同), 解压时不需要任何特殊处理<br>
+ * 写入: 在调用者的线程中按压缩项的顺序写入, 同时计算CRC; 文件大小超过4GB或文件数量超过65535时使用zip64格式<br>
+ * 文件头等小数据经过64KB的缓冲区写入, 目标输出流不需要自带缓冲<br>
+ * 读取和压缩的线程池可以通过setReadExecutor()/setCompressExecutor()复用, 未设置时每次临时创建<br>
+ * 已经压缩过的文件(如jpg/png/zip等, 见storedMatcher)不再压缩: FileItem预先读取一次计算CRC, 使用STORED模式;
+ * UrlItem不能预先计算CRC, 而ZipInputStream不支持STORED模式的数据描述符, 因此使用0级(不压缩)的DEFLATED模式<br>
+ * DEFLATED模式在文件头之后使用数据描述符(data descriptor)记录CRC和大小
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class ZipStreamWriter {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int LOCSIG = 0x04034b50;
+    private static final int EXTSIG = 0x08074b50;
+    private static final int CENSIG = 0x02014b50;
+    private static final int ENDSIG = 0x06054b50;
+    private static final int ZIP64_ENDSIG = 0x06064b50;
+    private static final int ZIP64_LOCSIG = 0x07064b50;
+    private static final long ZIP64_MAGICVAL = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGICCOUNT = 0xFFFF;
+    /** 通用标志: 第3位=使用数据描述符, 第11位=文件名使用UTF-8编码 **/
+    private static final int FLAG_DESCRIPTOR = 0x0008;
+    private static final int FLAG_UTF8 = 0x0800;
+    /** deflate字典的最大长度 **/
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    /** 写入的缓冲区大小 **/
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    /** 默认使用STORED模式的扩展名(已经压缩过的文件) **/
+    public static final String DEFAULT_STORED_EXTENSIONS = ".jpg,.jpeg,.png,.gif,.webp,.mp3,.mp4,.avi,.mov,.zip,.gz,.tgz,"
+            + ".bz2,.xz,.7z,.rar,.jar,.docx,.xlsx,.pptx";
+
+    /** 同时读取的压缩项数量 **/
+    private int prefetchItems = 4;
+    /** 每个压缩项最多缓存的块数量 **/
+    private int chunkQueueSize = 4;
+    /** 块大小 **/
+    private int chunkSize = 1024 * 1024;
+    /** 压缩级别 **/
+    private int level = Deflater.DEFAULT_COMPRESSION;
+    /** 使用STORED模式的文件(按压缩项的保存路径匹配), 为null表示全部使用DEFLATED模式 **/
+    private StringMatcher storedMatcher;
+    /** 读取线程池, 为null时每次临时创建(prefetchItems个线程) **/
+    private ExecutorService readExecutor;
+    /** 压缩线程池, 为null时每次临时创建 **/
+    private ExecutorService compressExecutor;
+
+    public ZipStreamWriter() {
+        List<StringMatcher> matchers = new ArrayList<>();
+        for (String extension : DEFAULT_STORED_EXTENSIONS.split(",")) {
+            matchers.add(new IgnoreCaseEndsMatcher(extension));
+        }
+        this.storedMatcher = new WrapStringMatcher(StringMatcher.LogicType.OR,
+                matchers.toArray(new StringMatcher[0]));
+    }
+
+    /**
+     * 压缩并写入WritableByteChannel
+     *
+     * @param items 待压缩的文件信息
+     * @param channel 输出通道
+     * @return 写入的字节数
+     * @throws IOException IO异常
+     */
+    public <T extends ZipItem> long write(List<T> items, WritableByteChannel channel) throws IOException {
+        VerifyTools.requireNonNull(channel, "channel");
+        return write(items, Channels.newOutputStream(channel));
+    }
+
+    /**
+     * 压缩并写入OutputStream, 写入完成后不关闭OutputStream
+     *
+     * @param items 待压缩的文件信息
+     * @param output 输出流
+     * @return 写入的字节数
+     * @throws IOException IO异常
+     */
+    public <T extends ZipItem> long write(List<T> items, OutputStream output) throws IOException {
+        VerifyTools.requireNonNull(items, "items");
+        VerifyTools.requireNonNull(output, "output");
+        for (ZipItem item : items) {
+            if (!(item instanceof UrlItem) && !(item instanceof FileItem)) {
+                throw new IllegalArgumentException("UnsupportedZipItem: " + item.getClass().getSimpleName());
+            }
+        }
+        ExecutorService readExecutor = this.readExecutor;
+        boolean temporaryReader = readExecutor == null;
+        if (temporaryReader) {
+            readExecutor = Executors.newFixedThreadPool(Math.max(1, prefetchItems));
+        }
+        ExecutorService compressExecutor = this.compressExecutor;
+        boolean temporary = compressExecutor == null;
+        if (temporary) {
+            compressExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+        List<Future<?>> reading = new ArrayList<>();
+        try {
+            // 文件头/数据描述符/中央目录都是2~8字节的小数据, 经过缓冲区合并写入
+            BufferedOutputStream buffered = new BufferedOutputStream(output, OUTPUT_BUFFER_SIZE);
+            ZipOutput zip = new ZipOutput(buffered);
+            List<ItemReader> readers = new ArrayList<>();
+            for (int i = 0; i < items.size(); i++) {
+                // 保持最多prefetchItems个压缩项正在读取
+                while (readers.size() < items.size() && readers.size() < i + Math.max(1, prefetchItems)) {
+                    ItemReader reader = new ItemReader(items.get(readers.size()), compressExecutor);
+                    reading.add(readExecutor.submit(reader));
+                    readers.add(reader);
+                }
+                writeItem(zip, readers.get(i));
+                readers.set(i, null);
+            }
+            zip.finish();
+            buffered.flush();
+            return zip.written;
+        } finally {
+            // 失败时读取线程可能在等待写入, 中断它们
+            for (Future<?> future : reading) {
+                future.cancel(true);
+            }
+            if (temporaryReader) {
+                readExecutor.shutdownNow();
+            }
+            if (temporary) {
+                compressExecutor.shutdownNow();
+            }
+        }
+    }
+
+    private void writeItem(ZipOutput zip, ItemReader reader) throws IOException {
+        Chunk chunk = reader.take();
+        // 收到第一块之后, reader中的文件信息已经准备好了
+        EntryInfo entry = new EntryInfo();
+        entry.name = reader.item.getPath().getBytes(UTF8);
+        entry.time = reader.time;
+        entry.stored = reader.stored;
+        entry.descriptor = !reader.stored;
+        if (!entry.descriptor) {
+            entry.crc = reader.knownCrc;
+            entry.size = reader.knownSize;
+            entry.csize = reader.knownSize;
+        }
+        entry.offset = zip.written;
+        zip.writeLocalHeader(entry);
+
+        CRC32 crc = new CRC32();
+        long size = 0;
+        long csize = 0;
+        while (true) {
+            crc.update(chunk.data, 0, chunk.length);
+            size += chunk.length;
+            if (entry.stored) {
+                zip.write(chunk.data, 0, chunk.length);
+                csize += chunk.length;
+            } else {
+                zip.write(chunk.compressed, 0, chunk.compressedLength);
+                csize += chunk.compressedLength;
+            }
+            if (chunk.last) {
+                break;
+            }
+            chunk = reader.take();
+        }
+        if (entry.descriptor) {
+            entry.crc = crc.getValue();
+            entry.size = size;
+            entry.csize = csize;
+            zip.writeDataDescriptor(entry);
+        } else if (entry.crc != crc.getValue() || entry.size != size) {
+            throw new IOException("File changed while compressing: " + reader.item.getPath());
+        }
+        zip.entries.add(entry);
+    }
+
+    /** 读取一个压缩项, 按块放入队列, 需要压缩的块提交到压缩线程池 **/
+    private class ItemReader implements Runnable {
+
+        private final ZipItem item;
+        private final ExecutorService compressExecutor;
+        private final BlockingQueue<Future<Chunk>> queue;
+        /** 以下字段在放入第一块之前设置, 由BlockingQueue保证可见性 **/
+        private long time;
+        private boolean stored;
+        private int level;
+        /** STORED模式的FileItem预先计算CRC和大小, 其余为-1 **/
+        private long knownCrc = -1;
+        private long knownSize = -1;
+
+        public ItemReader(ZipItem item, ExecutorService compressExecutor) {
+            this.item = item;
+            this.compressExecutor = compressExecutor;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, chunkQueueSize));
+        }
+
+        @Override
+        public void run() {
+            try {
+                doRead();
+            } catch (InterruptedException e) {
+                // 写入已终止
+                Thread.currentThread().interrupt();
+            } catch (Throwable e) {
+                try {
+                    queue.put(failed(e));
+                } catch (InterruptedException ignore) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void doRead() throws IOException, InterruptedException {
+            boolean uncompressed = storedMatcher != null && storedMatcher.matches(item.getPath());
+            this.stored = uncompressed && item instanceof FileItem;
+            this.level = uncompressed ? Deflater.NO_COMPRESSION : ZipStreamWriter.this.level;
+            InputStream input;
+            // 预计的大小, 用于减小第一块的缓冲区, 未知时为-1
+            long expectedSize;
+            if (item instanceof UrlItem) {
+                URLConnection connection = ((UrlItem) item).getUrl().openConnection();
+                input = connection.getInputStream();
+                long lastModified = connection.getLastModified();
+                this.time = lastModified > 0 ? lastModified : System.currentTimeMillis();
+                expectedSize = connection.getContentLength();
+            } else {
+                File file = ((FileItem) item).getFile();
+                this.time = file.lastModified();
+                if (stored) {
+                    calculateCrc(file);
+                }
+                input = new FileInputStream(file);
+                expectedSize = file.length();
+            }
+            try (InputStream is = new BufferedInputStream(input)) {
+                byte[] dictionary = null;
+                boolean first = true;
+                while (true) {
+                    // 小文件不必分配整块的缓冲区; 多留1个字节, 读不满才能确定是最后一块
+                    int bufferSize = chunkSize;
+                    if (first && expectedSize >= 0 && expectedSize < chunkSize) {
+                        bufferSize = (int) expectedSize + 1;
+                    }
+                    first = false;
+                    byte[] data = new byte[bufferSize];
+                    int length = readFully(is, data);
+                    final Chunk chunk = new Chunk(data, length, length < data.length);
+                    if (stored) {
+                        queue.put(completed(chunk));
+                    } else {
+                        final byte[] previous = dictionary;
+                        final int level = this.level;
+                        FutureTask<Chunk> task = new FutureTask<>(new Callable<Chunk>() {
+
+                            @Override
+                            public Chunk call() {
+                                deflate(chunk, previous, level);
+                                return chunk;
+                            }
+                        });
+                        compressExecutor.execute(task);
+                        queue.put(task);
+                        dictionary = tail(data, length, previous);
+                    }
+                    if (chunk.last) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        private void calculateCrc(File file) throws IOException {
+            CRC32 crc = new CRC32();
+            long size = 0;
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream is = new FileInputStream(file)) {
+                int length;
+                while ((length = is.read(buffer)) > 0) {
+                    crc.update(buffer, 0, length);
+                    size += length;
+                }
+            }
+            this.knownCrc = crc.getValue();
+            this.knownSize = size;
+        }
+
+        public Chunk take() throws IOException {
+            try {
+                return queue.take().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while compressing: " + item.getPath(), e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else {
+                    throw new IOException("Failed to compress: " + item.getPath(), cause);
+                }
+            }
+        }
+    }
+
+    private static void deflate(Chunk chunk, byte[] dictionary, int level) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(chunk.data, 0, chunk.length);
+            byte[] buffer = new byte[chunk.length + chunk.length / 16 + 64];
+            int length = 0;
+            if (chunk.last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    if (length == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+                    length += deflater.deflate(buffer, length, buffer.length - length);
+                }
+            } else {
+                // SYNC_FLUSH: 输出缓冲区没有写满说明已经全部输出
+                while (true) {
+                    int space = buffer.length - length;
+                    int count = deflater.deflate(buffer, length, space, Deflater.SYNC_FLUSH);
+                    length += count;
+                    if (count < space) {
+                        break;
+                    }
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+            chunk.compressed = buffer;
+            chunk.compressedLength = length;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /** 取最后32KB作为下一块的字典, 本块不足32KB时与上一个字典拼接 **/
+    private static byte[] tail(byte[] data, int length, byte[] previous) {
+        if (length >= DICTIONARY_SIZE || previous == null) {
+            int size = Math.min(length, DICTIONARY_SIZE);
+            return Arrays.copyOfRange(data, length - size, length);
+        }
+        int keep = Math.min(previous.length, DICTIONARY_SIZE - length);
+        byte[] result = new byte[keep + length];
+        System.arraycopy(previous, previous.length - keep, result, 0, keep);
+        System.arraycopy(data, 0, result, keep, length);
+        return result;
+    }
+
+    private static int readFully(InputStream input, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int length = input.read(buffer, total, buffer.length - total);
+            if (length < 0) {
+                break;
+            }
+            total += length;
+        }
+        return total;
+    }
+
+    private static Future<Chunk> completed(final Chunk chunk) {
+        FutureTask<Chunk> task = new FutureTask<>(new Callable<Chunk>() {
+
+            @Override
+            public Chunk call() {
+                return chunk;
+            }
+        });
+        task.run();
+        return task;
+    }
+
+    private static Future<Chunk> failed(final Throwable e) {
+        FutureTask<Chunk> task = new FutureTask<>(new Callable<Chunk>() {
+
+            @Override
+            public Chunk call() throws Exception {
+                if (e instanceof Exception) {
+                    throw (Exception) e;
+                } else {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        task.run();
+        return task;
+    }
+
+    /** 数据块 **/
+    private static class Chunk {
+
+        private final byte[] data;
+        private final int length;
+        private final boolean last;
+        private byte[] compressed;
+        private int compressedLength;
+
+        public Chunk(byte[] data, int length, boolean last) {
+            this.data = data;
+            this.length = length;
+            this.last = last;
+        }
+    }
+
+    /** 压缩项的文件头信息 **/
+    private static class EntryInfo {
+
+        private byte[] name;
+        private long time;
+        private boolean stored;
+        private boolean descriptor;
+        private long crc;
+        private long size;
+        private long csize;
+        private long offset;
+    }
+
+    /** zip格式的输出 **/
+    private static class ZipOutput {
+
+        private final OutputStream output;
+        private final byte[] buffer = new byte[8];
+        private final List<EntryInfo> entries = new ArrayList<>();
+        private long written;
+
+        public ZipOutput(OutputStream output) {
+            this.output = output;
+        }
+
+        public void writeLocalHeader(EntryInfo entry) throws IOException {
+            boolean zip64 = !entry.descriptor && entry.size >= ZIP64_MAGICVAL;
+            int flag = FLAG_UTF8 | (entry.descriptor ? FLAG_DESCRIPTOR : 0);
+            writeInt(LOCSIG);
+            writeShort(zip64 ? 45 : 20);
+            writeShort(flag);
+            writeShort(entry.stored ? 0 : 8);
+            writeInt(toDosTime(entry.time));
+            if (entry.descriptor) {
+                writeInt(0);
+                writeInt(0);
+                writeInt(0);
+            } else {
+                writeInt(entry.crc);
+                writeInt(zip64 ? ZIP64_MAGICVAL : entry.csize);
+                writeInt(zip64 ? ZIP64_MAGICVAL : entry.size);
+            }
+            writeShort(entry.name.length);
+            writeShort(zip64 ? 20 : 0);
+            write(entry.name, 0, entry.name.length);
+            if (zip64) {
+                writeShort(0x0001);
+                writeShort(16);
+                writeLong(entry.size);
+                writeLong(entry.csize);
+            }
+        }
+
+        /** 与ZipOutputStream相同, 大小超过4GB时使用8字节 **/
+        public void writeDataDescriptor(EntryInfo entry) throws IOException {
+            writeInt(EXTSIG);
+            writeInt(entry.crc);
+            if (entry.csize >= ZIP64_MAGICVAL || entry.size >= ZIP64_MAGICVAL) {
+                writeLong(entry.csize);
+                writeLong(entry.size);
+            } else {
+                writeInt(entry.csize);
+                writeInt(entry.size);
+            }
+        }
+
+        public void finish() throws IOException {
+            long centralOffset = written;
+            for (EntryInfo entry : entries) {
+                writeCentralHeader(entry);
+            }
+            long centralSize = written - centralOffset;
+            int count = entries.size();
+            if (count >= ZIP64_MAGICCOUNT || centralOffset >= ZIP64_MAGICVAL || centralSize >= ZIP64_MAGICVAL) {
+                long zip64EndOffset = written;
+                writeInt(ZIP64_ENDSIG);
+                writeLong(44);
+                writeShort(45);
+                writeShort(45);
+                writeInt(0);
+                writeInt(0);
+                writeLong(count);
+                writeLong(count);
+                writeLong(centralSize);
+                writeLong(centralOffset);
+                writeInt(ZIP64_LOCSIG);
+                writeInt(0);
+                writeLong(zip64EndOffset);
+                writeInt(1);
+            }
+            writeInt(ENDSIG);
+            writeShort(0);
+            writeShort(0);
+            writeShort(Math.min(count, ZIP64_MAGICCOUNT));
+            writeShort(Math.min(count, ZIP64_MAGICCOUNT));
+            writeInt(Math.min(centralSize, ZIP64_MAGICVAL));
+            writeInt(Math.min(centralOffset, ZIP64_MAGICVAL));
+            writeShort(0);
+        }
+
+        private void writeCentralHeader(EntryInfo entry) throws IOException {
+            boolean size64 = entry.size >= ZIP64_MAGICVAL;
+            boolean csize64 = entry.csize >= ZIP64_MAGICVAL;
+            boolean offset64 = entry.offset >= ZIP64_MAGICVAL;
+            int extraLength = (size64 ? 8 : 0) + (csize64 ? 8 : 0) + (offset64 ? 8 : 0);
+            boolean zip64 = extraLength > 0;
+            int flag = FLAG_UTF8 | (entry.descriptor ? FLAG_DESCRIPTOR : 0);
+            writeInt(CENSIG);
+            writeShort(zip64 ? 45 : 20);
+            writeShort(zip64 ? 45 : 20);
+            writeShort(flag);
+            writeShort(entry.stored ? 0 : 8);
+            writeInt(toDosTime(entry.time));
+            writeInt(entry.crc);
+            writeInt(csize64 ? ZIP64_MAGICVAL : entry.csize);
+            writeInt(size64 ? ZIP64_MAGICVAL : entry.size);
+            writeShort(entry.name.length);
+            writeShort(zip64 ? extraLength + 4 : 0);
+            writeShort(0);
+            writeShort(0);
+            writeShort(0);
+            writeInt(0);
+            writeInt(offset64 ? ZIP64_MAGICVAL : entry.offset);
+            write(entry.name, 0, entry.name.length);
+            if (zip64) {
+                writeShort(0x0001);
+                writeShort(extraLength);
+                if (size64) {
+                    writeLong(entry.size);
+                }
+                if (csize64) {
+                    writeLong(entry.csize);
+                }
+                if (offset64) {
+                    writeLong(entry.offset);
+                }
+            }
+        }
+
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            output.write(bytes, offset, length);
+            written += length;
+        }
+
+        private void writeShort(int value) throws IOException {
+            buffer[0] = (byte) value;
+            buffer[1] = (byte) (value >>> 8);
+            write(buffer, 0, 2);
+        }
+
+        private void writeInt(long value) throws IOException {
+            buffer[0] = (byte) value;
+            buffer[1] = (byte) (value >>> 8);
+            buffer[2] = (byte) (value >>> 16);
+            buffer[3] = (byte) (value >>> 24);
+            write(buffer, 0, 4);
+        }
+
+        private void writeLong(long value) throws IOException {
+            for (int i = 0; i < 8; i++) {
+                buffer[i] = (byte) (value >>> (i * 8));
+            }
+            write(buffer, 0, 8);
+        }
+    }
+
+    /** 转换为DOS格式的时间, 与ZipEntry相同, 1980年之前的时间取1980-01-01 **/
+    private static long toDosTime(long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (year - 1980) << 25 | (calendar.get(Calendar.MONTH) + 1) << 21
+                | calendar.get(Calendar.DAY_OF_MONTH) << 16 | calendar.get(Calendar.HOUR_OF_DAY) << 11
+                | calendar.get(Calendar.MINUTE) << 5 | calendar.get(Calendar.SECOND) >> 1;
+    }
+
+    /** 忽略大小写的扩展名匹配 **/
+    private static class IgnoreCaseEndsMatcher implements StringMatcher {
+
+        private final String suffix;
+
+        public IgnoreCaseEndsMatcher(String suffix) {
+            this.suffix = suffix;
+        }
+
+        @Override
+        public boolean matches(String source) {
+            return source != null && source.regionMatches(true, source.length() - suffix.length(), suffix, 0,
+                suffix.length());
+        }
+
+        @Override
+        public String toString() {
+            return "ends:" + suffix;
+        }
+    }
+
+    /** 同时读取的压缩项数量 **/
+    public int getPrefetchItems() {
+        return prefetchItems;
+    }
+
+    /** 同时读取的压缩项数量 **/
+    public void setPrefetchItems(int prefetchItems) {
+        if (prefetchItems <= 0) {
+            throw new IllegalArgumentException("prefetchItems must be greater than 0: " + prefetchItems);
+        }
+        this.prefetchItems = prefetchItems;
+    }
+
+    /** 每个压缩项最多缓存的块数量 **/
+    public int getChunkQueueSize() {
+        return chunkQueueSize;
+    }
+
+    /** 每个压缩项最多缓存的块数量 **/
+    public void setChunkQueueSize(int chunkQueueSize) {
+        if (chunkQueueSize <= 0) {
+            throw new IllegalArgumentException("chunkQueueSize must be greater than 0: " + chunkQueueSize);
+        }
+        this.chunkQueueSize = chunkQueueSize;
+    }
+
+    /** 块大小 **/
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /** 块大小 **/
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1024) {
+            throw new IllegalArgumentException("chunkSize must be at least 1024: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /** 压缩级别 **/
+    public int getLevel() {
+        return level;
+    }
+
+    /** 压缩级别 **/
+    public void setLevel(int level) {
+        if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("invalid compression level: " + level);
+        }
+        this.level = level;
+    }
+
+    /** 使用STORED模式的文件(按压缩项的保存路径匹配), 为null表示全部使用DEFLATED模式 **/
+    public StringMatcher getStoredMatcher() {
+        return storedMatcher;
+    }
+
+    /** 使用STORED模式的文件(按压缩项的保存路径匹配), 为null表示全部使用DEFLATED模式 **/
+    public void setStoredMatcher(StringMatcher storedMatcher) {
+        this.storedMatcher = storedMatcher;
+    }
+
+    /** 读取线程池, 为null时每次临时创建(prefetchItems个线程) **/
+    public ExecutorService getReadExecutor() {
+        return readExecutor;
+    }
+
+    /** 读取线程池, 为null时每次临时创建(prefetchItems个线程); 读取任务会等待写入, 线程数量应不少于prefetchItems **/
+    public void setReadExecutor(ExecutorService readExecutor) {
+        this.readExecutor = readExecutor;
+    }
+
+    /** 压缩线程池, 为null时每次临时创建 **/
+    public ExecutorService getCompressExecutor() {
+        return compressExecutor;
+    }
+
+    /** 压缩线程池, 为null时每次临时创建 **/
+    public void setCompressExecutor(ExecutorService compressExecutor) {
+        this.compressExecutor = compressExecutor;
+    }
+}
@@ -1,23 +1,16 @@
 package com.gitee.qdbp.tools.files;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
-import java.util.Enumeration;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
-import java.util.zip.ZipOutputStream;
-import com.gitee.qdbp.able.exception.ResourceNotFoundException;
 import com.gitee.qdbp.able.matches.StringMatcher;
 
 /**
@@ -35,38 +28,23 @@ public class ZipTools {
      * @param saveFolder 保存文件的路径
      */
     public static void decompression(String srcPath, String saveFolder) throws IOException {
-        File srcFile = new File(srcPath);
-        if (!srcFile.exists()) { // 判断源文件是否存在
-            throw new ResourceNotFoundException(srcPath);
-        }
-        String fileName = PathTools.removeExtension(new File(srcPath).getName()) + '/';
-        // 开始解压
-        try (ZipFile zipFile = new ZipFile(srcFile);) {
-            Enumeration<?> entries = zipFile.entries();
-            while (entries.hasMoreElements()) {
-                ZipEntry entry = (ZipEntry) entries.nextElement();
-                String relativePath = entry.getName();
-                // 如果第一级路径与ZIP文件名相同, 则去掉这一级路径
-                if (relativePath.startsWith(fileName)) {
-                    relativePath = relativePath.substring(fileName.length());
-                }
-                if (entry.isDirectory()) {
-                    // 如果是文件夹, 就创建文件夹
-                    String folder = PathTools.concat(saveFolder, relativePath);
-                    FileTools.mkdirsIfNotExists(new File(folder), false);
-                    continue;
-                }
-
-                // 文件保存路径
-                File file = new File(PathTools.concat(saveFolder, relativePath));
-                FileTools.mkdirsIfNotExists(file, true);
-                // 将压缩文件内容写入文件中
-                try (InputStream is = zipFile.getInputStream(entry);
-                        FileOutputStream os = new FileOutputStream(file);) {
-                    FileTools.copy(is, os);
-                }
-            }
-        }
+        new ZipExtractor().extract(srcPath, saveFolder);
+    }
+
+    /**
+     * ZIP文件解压, 只解压符合条件的文件
+     *
+     * @param srcPath 源文件
+     * @param saveFolder 保存文件的路径
+     * @param filter 压缩项相对路径的过滤规则, 为null表示不过滤
+     * @return 解压出的文件列表
+     * @throws IOException 解压失败
+     */
+    public static List<File> decompression(String srcPath, String saveFolder, StringMatcher filter)
+            throws IOException {
+        ZipExtractor extractor = new ZipExtractor();
+        extractor.setEntryMatcher(filter);
+        return extractor.extract(srcPath, saveFolder);
     }
 
     /**
@@ -135,13 +113,15 @@ public class ZipTools {
      */
     //
     public static <T extends ZipItem> void compression(List<T> items, String savePath) throws IOException {
-        try (FileOutputStream fos = new FileOutputStream(savePath);) {
-            compression(items, fos);
+        try (FileOutputStream fos = new FileOutputStream(savePath);
+                BufferedOutputStream output = new BufferedOutputStream(fos);) {
+            compression(items, output);
         }
     }
 
     /**
-     * 通过URL下载文件并压缩
+     * 通过URL下载文件并压缩<br>
+     * 整个压缩文件保存在内存中, 文件较大时应使用compression(items, OutputStream)
      *
      * @param items 待压缩的文件信息
      * @return 压缩文件的二进制数据
@@ -155,37 +135,30 @@ public class ZipTools {
     }
 
     /**
-     * 通过URL下载文件并压缩到OutputStream中
+     * 通过URL下载文件并压缩到OutputStream中<br>
+     * 同时下载多个文件, 并行压缩, 边压缩边写入, 写入完成后不关闭OutputStream
      *
      * @param items 待压缩的文件信息
-     * @param original OutputStream
+     * @param output OutputStream
      * @throws IOException
+     * @see ZipStreamWriter
      */
-    private static <T extends ZipItem> void compression(List<T> items, OutputStream original) throws IOException {
-        try (ZipOutputStream zos = new ZipOutputStream(original);
-                BufferedOutputStream output = new BufferedOutputStream(zos);) {
-            for (ZipItem i : items) {
-                ZipEntry entry = new ZipEntry(i.getPath());
-                zos.putNextEntry(entry);
-                if (i instanceof UrlItem) {
-                    UrlItem item = (UrlItem) i;
-                    URL url = item.getUrl();
-                    try (BufferedInputStream input = new BufferedInputStream(url.openStream());) {
-                        FileTools.copy(input, zos);
-                    }
-                } else if (i instanceof FileItem) {
-                    FileItem item = (FileItem) i;
-                    File file = item.getFile();
-                    try (FileInputStream fis = new FileInputStream(file);
-                            BufferedInputStream input = new BufferedInputStream(fis);) {
-                        entry.setTime(file.lastModified());
-                        FileTools.copy(input, zos);
-                    }
-                } else {
-                    throw new IllegalArgumentException("UnsupportedZipItem: {}" + i.getClass().getSimpleName());
-                }
-            }
-        }
+    public static <T extends ZipItem> void compression(List<T> items, OutputStream output) throws IOException {
+        new ZipStreamWriter().write(items, output);
+    }
+
+    /**
+     * 通过URL下载文件并压缩到WritableByteChannel中<br>
+     * 同时下载多个文件, 并行压缩, 边压缩边写入, 写入完成后不关闭WritableByteChannel
+     *
+     * @param items 待压缩的文件信息
+     * @param channel WritableByteChannel
+     * @throws IOException
+     * @see ZipStreamWriter
+     */
+    public static <T extends ZipItem> void compression(List<T> items, WritableByteChannel channel)
+            throws IOException {
+        new ZipStreamWriter().write(items, channel);
     }
 
     /**
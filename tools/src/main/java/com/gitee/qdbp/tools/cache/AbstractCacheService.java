@@ -1,9 +1,12 @@
 package com.gitee.qdbp.tools.cache;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import com.gitee.qdbp.able.beans.Duration;
+import com.gitee.qdbp.tools.utils.VerifyTools;
 
 /**
  * 实现默认方法的缓存服务接口
@@ -13,6 +16,11 @@ import com.gitee.qdbp.able.beans.Duration;
  */
 public abstract class AbstractCacheService implements ICacheService {
 
+    /** 合并同一个KEY的并发加载 **/
+    private final LoadingGroup loadingGroup = new LoadingGroup();
+    /** 统计计数器 **/
+    private final CacheStatsCounter statsCounter = new CacheStatsCounter();
+
     @Override
     public boolean storable() {
         return false;
@@ -38,6 +46,56 @@ public abstract class AbstractCacheService implements ICacheService {
         return this.list(key, null, clazz);
     }
 
+    @Override
+    public <T> T get(String key, Class<T> clazz, CacheLoader<T> loader) {
+        return this.get(key, clazz, loader, null, null);
+    }
+
+    @Override
+    public <T> T get(String key, Class<T> clazz, CacheLoader<T> loader, Duration expire) {
+        return this.get(key, clazz, loader, expire, null);
+    }
+
+    /** {@inheritDoc}<br>默认实现不支持提前刷新, 忽略refresh参数 **/
+    @Override
+    public <T> T get(final String key, final Class<T> clazz, final CacheLoader<T> loader, final Duration expire,
+            Duration refresh) {
+        VerifyTools.requireNotBlank(loader, "loader");
+        T value = this.get(key, clazz);
+        if (value != null) return value;
+
+        return loadingGroup.load(key, new Callable<T>() {
+
+            @Override
+            public T call() throws Exception {
+                // 等待期间其他线程可能已经加载完成
+                T value = get(key, clazz);
+                if (value != null) return value;
+
+                value = loader.load(key);
+                if (value != null) {
+                    set(key, value, expire);
+                }
+                return value;
+            }
+        });
+    }
+
+    /** 合并同一个KEY的并发加载 **/
+    protected LoadingGroup getLoadingGroup() {
+        return loadingGroup;
+    }
+
+    /** 统计计数器 **/
+    protected CacheStatsCounter getStatsCounter() {
+        return statsCounter;
+    }
+
+    @Override
+    public CacheStats getStats() {
+        return statsCounter.snapshot();
+    }
+
     @Override
     public boolean exist(String key) {
         return this.exist(key, null);
@@ -133,6 +191,63 @@ public abstract class AbstractCacheService implements ICacheService {
         return this.hlen(key, null);
     }
 
+    @Override
+    public <T> Map<String, T> mget(List<String> keys, Class<T> clazz) {
+        Map<String, T> map = new HashMap<>();
+        if (keys != null) {
+            for (String key : keys) {
+                map.put(key, this.get(key, clazz));
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public <T> void mset(Map<String, T> map) {
+        this.mset(map, (Duration) null);
+    }
+
+    @Override
+    public <T> void mset(Map<String, T> map, Duration expire) {
+        if (map == null || map.isEmpty()) return;
+
+        for (Map.Entry<String, T> entry : map.entrySet()) {
+            if (expire == null) {
+                this.set(entry.getKey(), entry.getValue());
+            } else {
+                this.set(entry.getKey(), entry.getValue(), expire);
+            }
+        }
+    }
+
+    @Override
+    public long mdel(List<String> keys) {
+        if (keys == null || keys.isEmpty()) return 0;
+
+        long total = 0;
+        for (String key : keys) {
+            if (this.exist(key)) {
+                this.del(key);
+                total++;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public void mexpire(List<String> keys, Duration time) {
+        if (keys == null || keys.isEmpty()) return;
+
+        for (String key : keys) {
+            this.expire(key, time);
+        }
+    }
+
+    @Override
+    public Pipeline pipeline() {
+        return new CachePipeline(this);
+    }
+
     public static interface Aware {
 
         void setCacheService(AbstractCacheService cache);
@@ -32,10 +32,36 @@ public abstract class BaseCacheService extends AbstractCacheService {
         this.expire(key, subkey, totime(duration));
     }
 
+    @Override
+    public <T> void mset(Map<String, T> map, Duration duration) {
+        this.mset(map, totime(duration));
+    }
+
+    @Override
+    public void mexpire(List<String> keys, Duration duration) {
+        this.mexpire(keys, totime(duration));
+    }
+
     protected abstract <T> void set(String key, String subkey, T value, Long expire);
 
     protected abstract void expire(String key, String subkey, Long expire);
 
+    protected <T> void mset(Map<String, T> map, Long expire) {
+        if (map == null || map.isEmpty()) return;
+
+        for (Map.Entry<String, T> entry : map.entrySet()) {
+            this.set(entry.getKey(), null, entry.getValue(), expire);
+        }
+    }
+
+    protected void mexpire(List<String> keys, Long expire) {
+        if (keys == null || keys.isEmpty()) return;
+
+        for (String key : keys) {
+            this.expire(key, null, expire);
+        }
+    }
+
     protected Long totime(Duration duration) {
         return duration == null ? null : duration.toMillis();
     }
@@ -58,15 +84,21 @@ public abstract class BaseCacheService extends AbstractCacheService {
     }
 
     protected <T> Map<String, String> serializeFields(T value) {
+        long start = System.nanoTime();
         Object object = JSON.toJSON(value);
         if (object instanceof JSONObject) {
             JSONObject json = (JSONObject) object;
             Map<String, String> map = new HashMap<>();
+            int length = 0;
             for (Map.Entry<String, Object> entry : json.entrySet()) {
                 if (VerifyTools.isNotBlank(entry.getValue())) {
-                    map.put(entry.getKey(), serializeValue(entry.getValue()));
+                    String text = toSerializedString(entry.getValue());
+                    length += text.length();
+                    map.put(entry.getKey(), text);
                 }
             }
+            // 整个对象只记录一次序列化, 字段值的转换不再单独计数
+            getStatsCounter().recordSerialize(length, System.nanoTime() - start);
             return map;
         } else {
             throw new IllegalArgumentException("value must be a plain object");
@@ -93,18 +125,33 @@ public abstract class BaseCacheService extends AbstractCacheService {
         }
         String string = "{" + buffer.toString() + "}";
 
+        long start = System.nanoTime();
         try {
             return JSON.parseObject(string, clazz);
         } catch (Exception e) {
             log.error("JsonParseError:{}, class={}, text={}", e.toString(), clazz.getSimpleName(), string);
             throw e;
+        } finally {
+            getStatsCounter().recordDeserialize(System.nanoTime() - start);
         }
     }
 
     protected <T> String serializeValue(T value) {
         if (value == null) {
             return null;
-        } else if (value instanceof CharSequence) {
+        } else if (value instanceof CharSequence || value instanceof Enum) {
+            return toSerializedString(value);
+        } else {
+            long start = System.nanoTime();
+            String text = toSerializedString(value);
+            getStatsCounter().recordSerialize(text.length(), System.nanoTime() - start);
+            return text;
+        }
+    }
+
+    /** 转换为字符串, 不记录统计数据 **/
+    private String toSerializedString(Object value) {
+        if (value instanceof CharSequence) {
             return value.toString();
         } else if (value instanceof Enum) {
             return ((Enum<?>) value).name();
@@ -120,11 +167,14 @@ public abstract class BaseCacheService extends AbstractCacheService {
         } else if (clazz.isAssignableFrom(string.getClass())) {
             return (T) string;
         } else {
+            long start = System.nanoTime();
             try {
                 return JSON.parseObject(string, clazz);
             } catch (Exception e) {
                 log.error("JsonParseError:{}, class={}, text={}", e.toString(), clazz.getSimpleName(), string);
                 throw e;
+            } finally {
+                getStatsCounter().recordDeserialize(System.nanoTime() - start);
             }
         }
     }
@@ -133,11 +183,14 @@ public abstract class BaseCacheService extends AbstractCacheService {
         if (string == null) {
             return null;
         } else {
+            long start = System.nanoTime();
             try {
                 return JSON.parseArray(string, clazz);
             } catch (Exception e) {
                 log.error("JsonParseError:{}, class={}, text={}", e.toString(), clazz.getSimpleName(), string);
                 throw e;
+            } finally {
+                getStatsCounter().recordDeserialize(System.nanoTime() - start);
             }
         }
     }
@@ -0,0 +1,19 @@
+package com.gitee.qdbp.tools.cache;
+
+/**
+ * 缓存加载器, 缓存中不存在时用于加载数据
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public interface CacheLoader<T> {
+
+    /**
+     * 加载数据
+     *
+     * @param key 关键字
+     * @return 数据, 返回null表示数据不存在, 不会保存到缓存
+     * @throws Exception 加载失败
+     */
+    T load(String key) throws Exception;
+}
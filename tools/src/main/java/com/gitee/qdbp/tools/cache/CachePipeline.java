@@ -0,0 +1,146 @@
+package com.gitee.qdbp.tools.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import com.gitee.qdbp.able.beans.Duration;
+
+/**
+ * 批量操作的默认实现<br>
+ * 收集命令之后逐一调用缓存服务的单个操作方法; 远程缓存可以提供自己的实现, 一次网络往返执行全部命令
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class CachePipeline implements ICacheService.Pipeline {
+
+    private final ICacheService cache;
+    private final List<Command> commands = new ArrayList<>();
+
+    public CachePipeline(ICacheService cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public <T> CachePipeline set(final String key, final T value) {
+        commands.add(new Command() {
+
+            @Override
+            public Object execute(ICacheService cache) {
+                cache.set(key, value);
+                return null;
+            }
+        });
+        return this;
+    }
+
+    @Override
+    public <T> CachePipeline set(final String key, final T value, final Duration expire) {
+        commands.add(new Command() {
+
+            @Override
+            public Object execute(ICacheService cache) {
+                cache.set(key, value, expire);
+                return null;
+            }
+        });
+        return this;
+    }
+
+    @Override
+    public <T> CachePipeline get(final String key, final Class<T> clazz) {
+        commands.add(new Command() {
+
+            @Override
+            public Object execute(ICacheService cache) {
+                return cache.get(key, clazz);
+            }
+        });
+        return this;
+    }
+
+    @Override
+    public CachePipeline del(final String key) {
+        commands.add(new Command() {
+
+            @Override
+            public Object execute(ICacheService cache) {
+                cache.del(key);
+                return null;
+            }
+        });
+        return this;
+    }
+
+    @Override
+    public CachePipeline expire(final String key, final Duration time) {
+        commands.add(new Command() {
+
+            @Override
+            public Object execute(ICacheService cache) {
+                cache.expire(key, time);
+                return null;
+            }
+        });
+        return this;
+    }
+
+    @Override
+    public <T> CachePipeline hset(final String key, final String field, final T value) {
+        commands.add(new Command() {
+
+            @Override
+            public Object execute(ICacheService cache) {
+                cache.hset(key, field, value);
+                return null;
+            }
+        });
+        return this;
+    }
+
+    @Override
+    public <T> CachePipeline hget(final String key, final String field, final Class<T> clazz) {
+        commands.add(new Command() {
+
+            @Override
+            public Object execute(ICacheService cache) {
+                return cache.hget(key, field, clazz);
+            }
+        });
+        return this;
+    }
+
+    @Override
+    public CachePipeline hdel(final String key, final String field) {
+        commands.add(new Command() {
+
+            @Override
+            public Object execute(ICacheService cache) {
+                cache.hdel(key, field);
+                return null;
+            }
+        });
+        return this;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public List<Object> execute() {
+        List<Object> results = new ArrayList<>(commands.size());
+        for (Command command : commands) {
+            results.add(command.execute(cache));
+        }
+        commands.clear();
+        return results;
+    }
+
+    /** 已添加的命令数量 **/
+    public int size() {
+        return commands.size();
+    }
+
+    /** 缓存命令 **/
+    protected static interface Command {
+
+        Object execute(ICacheService cache);
+    }
+}
@@ -0,0 +1,224 @@
+package com.gitee.qdbp.tools.cache;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+
+/**
+ * 缓存快照的二进制格式<br>
+ * 文件头: MAGIC(int) + VERSION(int) + 保存时间(long)<br>
+ * 简单缓存: SIMPLE(byte) + KEY + 剩余过期时间(long, -1表示永不过期) + VALUE<br>
+ * 哈希表: MAP(byte) + KEY + 剩余过期时间(long) + { FIELD(byte) + 字段名 + 字段值 }* + END(byte)<br>
+ * 文件尾: END(byte)<br>
+ * 字符串: 长度(int, -1表示null) + UTF8字节<br>
+ * 读写都通过固定大小的缓冲区流式进行, 不会一次性加载整个文件
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class CacheSnapshot {
+
+    private static final int MAGIC = 0x51434353; // QCCS
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** 结束标记 **/
+    public static final byte END = 0;
+    /** 简单缓存 **/
+    public static final byte SIMPLE = 1;
+    /** 哈希表 **/
+    public static final byte MAP = 2;
+    /** 哈希表字段 **/
+    public static final byte FIELD = 3;
+
+    /** 快照写入 **/
+    public static class Writer implements Closeable {
+
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        public Writer(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        /** 写入文件头 **/
+        public void writeHeader(long savedTime) throws IOException {
+            writeInt(MAGIC);
+            writeInt(VERSION);
+            writeLong(savedTime);
+        }
+
+        /** 写入简单缓存 **/
+        public void writeSimple(String key, long ttl, String value) throws IOException {
+            writeByte(SIMPLE);
+            writeString(key);
+            writeLong(ttl);
+            writeString(value);
+        }
+
+        /** 开始写入哈希表 **/
+        public void beginMap(String key, long ttl) throws IOException {
+            writeByte(MAP);
+            writeString(key);
+            writeLong(ttl);
+        }
+
+        /** 写入哈希表字段 **/
+        public void writeField(String field, String value) throws IOException {
+            writeByte(FIELD);
+            writeString(field);
+            writeString(value);
+        }
+
+        /** 结束哈希表 **/
+        public void endMap() throws IOException {
+            writeByte(END);
+        }
+
+        /** 写入文件尾 **/
+        public void writeEnd() throws IOException {
+            writeByte(END);
+            flush();
+        }
+
+        private void writeByte(byte value) throws IOException {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        private void writeInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        private void writeLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(UTF8);
+            writeInt(bytes.length);
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        private void ensure(int size) throws IOException {
+            if (buffer.remaining() < size) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /** 快照读取 **/
+    public static class Reader implements Closeable {
+
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        public Reader(ReadableByteChannel channel) {
+            this.channel = channel;
+            this.buffer.flip(); // 初始为空
+        }
+
+        /**
+         * 读取文件头
+         *
+         * @return 快照保存时间
+         */
+        public long readHeader() throws IOException {
+            int magic = readInt();
+            if (magic != MAGIC) {
+                throw new IOException("Not a cache snapshot file");
+            }
+            int version = readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported cache snapshot version: " + version);
+            }
+            return readLong();
+        }
+
+        /** 读取类型标记: END/SIMPLE/MAP/FIELD **/
+        public byte readType() throws IOException {
+            require(1);
+            return buffer.get();
+        }
+
+        /** 读取剩余过期时间 **/
+        public long readTtl() throws IOException {
+            return readLong();
+        }
+
+        private int readInt() throws IOException {
+            require(4);
+            return buffer.getInt();
+        }
+
+        private long readLong() throws IOException {
+            require(8);
+            return buffer.getLong();
+        }
+
+        /** 读取字符串 **/
+        public String readString() throws IOException {
+            int length = readInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                require(1);
+                int size = Math.min(buffer.remaining(), length - offset);
+                buffer.get(bytes, offset, size);
+                offset += size;
+            }
+            return new String(bytes, UTF8);
+        }
+
+        private void require(int size) throws IOException {
+            if (buffer.remaining() >= size) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < size) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Unexpected end of cache snapshot");
+                }
+            }
+            buffer.flip();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
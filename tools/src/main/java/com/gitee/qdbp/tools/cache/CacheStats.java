@@ -0,0 +1,240 @@
+package com.gitee.qdbp.tools.cache;
+
+import java.io.Serializable;
+
+/**
+ * 缓存统计数据(快照)<br>
+ * 缓存条数和容量估算值只有本地缓存才会统计, 其他实现为0
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class CacheStats implements Serializable {
+
+    /** serialVersionUID **/
+    private static final long serialVersionUID = 1L;
+
+    /** 缓存条数 **/
+    private long entryCount;
+    /** 缓存容量估算值(字节) **/
+    private long estimatedBytes;
+    /** 因超出限制而被淘汰的数量 **/
+    private long evictionCount;
+    /** 因过期而被清除的数量 **/
+    private long expirationCount;
+    /** 命中次数 **/
+    private long hitCount;
+    /** 未命中次数 **/
+    private long missCount;
+    /** 加载成功次数 **/
+    private long loadSuccessCount;
+    /** 加载失败次数 **/
+    private long loadFailureCount;
+    /** 加载总耗时(纳秒) **/
+    private long totalLoadTime;
+    /** 写入次数 **/
+    private long putCount;
+    /** 序列化次数 **/
+    private long serializeCount;
+    /** 序列化结果的总长度(字符数) **/
+    private long serializedChars;
+    /** 序列化总耗时(纳秒) **/
+    private long totalSerializeTime;
+    /** 反序列化次数 **/
+    private long deserializeCount;
+    /** 反序列化总耗时(纳秒) **/
+    private long totalDeserializeTime;
+
+    /** 缓存条数 **/
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    /** 缓存条数 **/
+    public void setEntryCount(long entryCount) {
+        this.entryCount = entryCount;
+    }
+
+    /** 缓存容量估算值(字节) **/
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /** 缓存容量估算值(字节) **/
+    public void setEstimatedBytes(long estimatedBytes) {
+        this.estimatedBytes = estimatedBytes;
+    }
+
+    /** 因超出限制而被淘汰的数量 **/
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /** 因超出限制而被淘汰的数量 **/
+    public void setEvictionCount(long evictionCount) {
+        this.evictionCount = evictionCount;
+    }
+
+    /** 因过期而被清除的数量 **/
+    public long getExpirationCount() {
+        return expirationCount;
+    }
+
+    /** 因过期而被清除的数量 **/
+    public void setExpirationCount(long expirationCount) {
+        this.expirationCount = expirationCount;
+    }
+
+    /** 命中次数 **/
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /** 命中次数 **/
+    public void setHitCount(long hitCount) {
+        this.hitCount = hitCount;
+    }
+
+    /** 未命中次数 **/
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /** 未命中次数 **/
+    public void setMissCount(long missCount) {
+        this.missCount = missCount;
+    }
+
+    /** 加载成功次数 **/
+    public long getLoadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    /** 加载成功次数 **/
+    public void setLoadSuccessCount(long loadSuccessCount) {
+        this.loadSuccessCount = loadSuccessCount;
+    }
+
+    /** 加载失败次数 **/
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    /** 加载失败次数 **/
+    public void setLoadFailureCount(long loadFailureCount) {
+        this.loadFailureCount = loadFailureCount;
+    }
+
+    /** 加载总耗时(纳秒) **/
+    public long getTotalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /** 加载总耗时(纳秒) **/
+    public void setTotalLoadTime(long totalLoadTime) {
+        this.totalLoadTime = totalLoadTime;
+    }
+
+    /** 写入次数 **/
+    public long getPutCount() {
+        return putCount;
+    }
+
+    /** 写入次数 **/
+    public void setPutCount(long putCount) {
+        this.putCount = putCount;
+    }
+
+    /** 序列化次数 **/
+    public long getSerializeCount() {
+        return serializeCount;
+    }
+
+    /** 序列化次数 **/
+    public void setSerializeCount(long serializeCount) {
+        this.serializeCount = serializeCount;
+    }
+
+    /** 序列化结果的总长度(字符数) **/
+    public long getSerializedChars() {
+        return serializedChars;
+    }
+
+    /** 序列化结果的总长度(字符数) **/
+    public void setSerializedChars(long serializedChars) {
+        this.serializedChars = serializedChars;
+    }
+
+    /** 序列化总耗时(纳秒) **/
+    public long getTotalSerializeTime() {
+        return totalSerializeTime;
+    }
+
+    /** 序列化总耗时(纳秒) **/
+    public void setTotalSerializeTime(long totalSerializeTime) {
+        this.totalSerializeTime = totalSerializeTime;
+    }
+
+    /** 反序列化次数 **/
+    public long getDeserializeCount() {
+        return deserializeCount;
+    }
+
+    /** 反序列化次数 **/
+    public void setDeserializeCount(long deserializeCount) {
+        this.deserializeCount = deserializeCount;
+    }
+
+    /** 反序列化总耗时(纳秒) **/
+    public long getTotalDeserializeTime() {
+        return totalDeserializeTime;
+    }
+
+    /** 反序列化总耗时(纳秒) **/
+    public void setTotalDeserializeTime(long totalDeserializeTime) {
+        this.totalDeserializeTime = totalDeserializeTime;
+    }
+
+    /** 命中率, 没有请求时返回1.0 **/
+    public double hitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    /** 平均加载耗时(纳秒) **/
+    public double averageLoadPenalty() {
+        long loadCount = loadSuccessCount + loadFailureCount;
+        return loadCount == 0 ? 0.0 : (double) totalLoadTime / loadCount;
+    }
+
+    /** 平均序列化耗时(纳秒) **/
+    public double averageSerializeTime() {
+        return serializeCount == 0 ? 0.0 : (double) totalSerializeTime / serializeCount;
+    }
+
+    /** 平均反序列化耗时(纳秒) **/
+    public double averageDeserializeTime() {
+        return deserializeCount == 0 ? 0.0 : (double) totalDeserializeTime / deserializeCount;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append("entries=").append(entryCount);
+        buffer.append(", bytes=").append(estimatedBytes);
+        buffer.append(", evictions=").append(evictionCount);
+        buffer.append(", expirations=").append(expirationCount);
+        buffer.append(", hits=").append(hitCount);
+        buffer.append(", misses=").append(missCount);
+        buffer.append(", puts=").append(putCount);
+        buffer.append(", loadSuccesses=").append(loadSuccessCount);
+        buffer.append(", loadFailures=").append(loadFailureCount);
+        buffer.append(", totalLoadTime=").append(totalLoadTime);
+        buffer.append(", serializes=").append(serializeCount);
+        buffer.append(", serializedChars=").append(serializedChars);
+        buffer.append(", totalSerializeTime=").append(totalSerializeTime);
+        buffer.append(", deserializes=").append(deserializeCount);
+        buffer.append(", totalDeserializeTime=").append(totalDeserializeTime);
+        return buffer.toString();
+    }
+}
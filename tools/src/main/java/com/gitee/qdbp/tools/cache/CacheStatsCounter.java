@@ -0,0 +1,104 @@
+package com.gitee.qdbp.tools.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 缓存统计计数器, 线程安全
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class CacheStatsCounter {
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong putCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong expirationCount = new AtomicLong();
+    private final AtomicLong loadSuccessCount = new AtomicLong();
+    private final AtomicLong loadFailureCount = new AtomicLong();
+    private final AtomicLong totalLoadTime = new AtomicLong();
+    private final AtomicLong serializeCount = new AtomicLong();
+    private final AtomicLong serializedChars = new AtomicLong();
+    private final AtomicLong totalSerializeTime = new AtomicLong();
+    private final AtomicLong deserializeCount = new AtomicLong();
+    private final AtomicLong totalDeserializeTime = new AtomicLong();
+
+    /** 记录命中 **/
+    public void recordHits(int count) {
+        hitCount.addAndGet(count);
+    }
+
+    /** 记录未命中 **/
+    public void recordMisses(int count) {
+        missCount.addAndGet(count);
+    }
+
+    /** 记录命中或未命中 **/
+    public void recordAccess(boolean hit) {
+        if (hit) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+    }
+
+    /** 记录写入 **/
+    public void recordPuts(int count) {
+        putCount.addAndGet(count);
+    }
+
+    /** 记录淘汰 **/
+    public void recordEviction() {
+        evictionCount.incrementAndGet();
+    }
+
+    /** 记录过期清除 **/
+    public void recordExpirations(int count) {
+        expirationCount.addAndGet(count);
+    }
+
+    /** 记录加载成功 **/
+    public void recordLoadSuccess(long nanos) {
+        loadSuccessCount.incrementAndGet();
+        totalLoadTime.addAndGet(nanos);
+    }
+
+    /** 记录加载失败 **/
+    public void recordLoadFailure(long nanos) {
+        loadFailureCount.incrementAndGet();
+        totalLoadTime.addAndGet(nanos);
+    }
+
+    /** 记录序列化 **/
+    public void recordSerialize(int length, long nanos) {
+        serializeCount.incrementAndGet();
+        serializedChars.addAndGet(length);
+        totalSerializeTime.addAndGet(nanos);
+    }
+
+    /** 记录反序列化 **/
+    public void recordDeserialize(long nanos) {
+        deserializeCount.incrementAndGet();
+        totalDeserializeTime.addAndGet(nanos);
+    }
+
+    /** 生成统计数据快照 **/
+    public CacheStats snapshot() {
+        CacheStats stats = new CacheStats();
+        stats.setHitCount(hitCount.get());
+        stats.setMissCount(missCount.get());
+        stats.setPutCount(putCount.get());
+        stats.setEvictionCount(evictionCount.get());
+        stats.setExpirationCount(expirationCount.get());
+        stats.setLoadSuccessCount(loadSuccessCount.get());
+        stats.setLoadFailureCount(loadFailureCount.get());
+        stats.setTotalLoadTime(totalLoadTime.get());
+        stats.setSerializeCount(serializeCount.get());
+        stats.setSerializedChars(serializedChars.get());
+        stats.setTotalSerializeTime(totalSerializeTime.get());
+        stats.setDeserializeCount(deserializeCount.get());
+        stats.setTotalDeserializeTime(totalDeserializeTime.get());
+        return stats;
+    }
+}
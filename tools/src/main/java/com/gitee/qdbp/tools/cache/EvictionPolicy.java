@@ -0,0 +1,54 @@
+package com.gitee.qdbp.tools.cache;
+
+/**
+ * 缓存淘汰策略<br>
+ * 缓存数量或容量超出限制时, 按分值从小到大淘汰缓存项
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public interface EvictionPolicy {
+
+    /** 最近最少使用(Least Recently Used) **/
+    EvictionPolicy LRU = new Lru();
+
+    /** 最不经常使用(Least Frequently Used) **/
+    EvictionPolicy LFU = new Lfu();
+
+    /**
+     * 计算淘汰分值, 分值越小越优先被淘汰
+     *
+     * @param lastAccessTime 最后访问时间
+     * @param accessCount 访问次数(每轮淘汰之后会衰减为原来的一半)
+     * @return 淘汰分值
+     */
+    long score(long lastAccessTime, long accessCount);
+
+    /** 最近最少使用 **/
+    public static class Lru implements EvictionPolicy {
+
+        @Override
+        public long score(long lastAccessTime, long accessCount) {
+            return lastAccessTime;
+        }
+
+        @Override
+        public String toString() {
+            return "LRU";
+        }
+    }
+
+    /** 最不经常使用 **/
+    public static class Lfu implements EvictionPolicy {
+
+        @Override
+        public long score(long lastAccessTime, long accessCount) {
+            return accessCount;
+        }
+
+        @Override
+        public String toString() {
+            return "LFU";
+        }
+    }
+}
@@ -90,6 +90,43 @@ public interface ICacheService {
      */
     <T> List<T> list(String key, String subkey, Class<T> clazz);
 
+    /**
+     * 从缓存中取出对象, 不存在时通过loader加载并保存到缓存<br>
+     * 同一个KEY的并发加载只执行一次, 其他线程等待并共享这一次的加载结果
+     *
+     * @param key 关键字
+     * @param clazz 对象类型
+     * @param loader 缓存加载器
+     * @return 缓存对象
+     */
+    <T> T get(String key, Class<T> clazz, CacheLoader<T> loader);
+
+    /**
+     * 从缓存中取出对象, 不存在时通过loader加载并保存到缓存<br>
+     * 同一个KEY的并发加载只执行一次, 其他线程等待并共享这一次的加载结果
+     *
+     * @param key 关键字
+     * @param clazz 对象类型
+     * @param loader 缓存加载器
+     * @param expire 过期时间
+     * @return 缓存对象
+     */
+    <T> T get(String key, Class<T> clazz, CacheLoader<T> loader, Duration expire);
+
+    /**
+     * 从缓存中取出对象, 不存在时通过loader加载并保存到缓存<br>
+     * 同一个KEY的并发加载只执行一次, 其他线程等待并共享这一次的加载结果<br>
+     * 超过刷新时间但未过期的, 仍然返回旧值, 同时由一个后台线程重新加载(不支持提前刷新的实现将忽略refresh参数)
+     *
+     * @param key 关键字
+     * @param clazz 对象类型
+     * @param loader 缓存加载器
+     * @param expire 过期时间
+     * @param refresh 刷新时间, 应小于过期时间, null表示不提前刷新
+     * @return 缓存对象
+     */
+    <T> T get(String key, Class<T> clazz, CacheLoader<T> loader, Duration expire, Duration refresh);
+
     /**
      * KEY是否存在
      *
@@ -438,6 +475,101 @@ public interface ICacheService {
      */
     int hlen(String key, String subkey);
 
+    /**
+     * 批量取出对象
+     *
+     * @param keys 关键字列表
+     * @param clazz 对象类型
+     * @return 全部KeyValue, 不存在的KEY对应的值为null
+     */
+    <T> Map<String, T> mget(List<String> keys, Class<T> clazz);
+
+    /**
+     * 批量保存对象
+     *
+     * @param map 关键字和值
+     */
+    <T> void mset(Map<String, T> map);
+
+    /**
+     * 批量保存对象
+     *
+     * @param map 关键字和值
+     * @param expire 过期时间
+     */
+    <T> void mset(Map<String, T> map, Duration expire);
+
+    /**
+     * 批量删除KEY
+     *
+     * @param keys 关键字列表
+     * @return 成功删除的数量
+     */
+    long mdel(List<String> keys);
+
+    /**
+     * 批量设置过期时间
+     *
+     * @param keys 关键字列表
+     * @param time 过期时间
+     */
+    void mexpire(List<String> keys, Duration time);
+
+    /**
+     * 创建批量操作, 先收集命令, 调用execute()时一次性执行
+     *
+     * @return 批量操作
+     */
+    Pipeline pipeline();
+
+    /**
+     * 获取统计数据
+     *
+     * @return 统计数据快照
+     */
+    CacheStats getStats();
+
+    /**
+     * 批量操作<br>
+     * 先收集命令, 调用execute()时按添加顺序一次性执行, 远程缓存可以借此减少网络往返次数
+     *
+     * @author zhaohuihua
+     * @version 20201017
+     */
+    public static interface Pipeline {
+
+        /** 保存对象 **/
+        <T> Pipeline set(String key, T value);
+
+        /** 保存对象 **/
+        <T> Pipeline set(String key, T value, Duration expire);
+
+        /** 取出对象 **/
+        <T> Pipeline get(String key, Class<T> clazz);
+
+        /** 删除KEY **/
+        Pipeline del(String key);
+
+        /** 设置过期时间 **/
+        Pipeline expire(String key, Duration time);
+
+        /** 保存哈希表指定字段值 **/
+        <T> Pipeline hset(String key, String field, T value);
+
+        /** 从哈希表取出指定字段值 **/
+        <T> Pipeline hget(String key, String field, Class<T> clazz);
+
+        /** 删除哈希表指定字段 **/
+        Pipeline hdel(String key, String field);
+
+        /**
+         * 执行全部命令
+         *
+         * @return 每个命令的执行结果, 与命令的添加顺序一致, 写操作的结果为null
+         */
+        List<Object> execute();
+    }
+
     /**
      * 缓存服务设置接口
      *
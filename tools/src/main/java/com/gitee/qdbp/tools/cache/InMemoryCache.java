@@ -1,33 +1,128 @@
 package com.gitee.qdbp.tools.cache;
 
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.util.TypeUtils;
+import com.gitee.qdbp.able.beans.Copyable;
+import com.gitee.qdbp.able.beans.Duration;
 import com.gitee.qdbp.able.beans.VolatileData;
+import com.gitee.qdbp.tools.files.FileTools;
 import com.gitee.qdbp.tools.utils.VerifyTools;
 
 /**
- * 内存中的缓存
+ * 内存中的缓存<br>
+ * 默认不限制容量, 过期的缓存项在下次访问时清除;<br>
+ * 指定maxEntries/maxBytes之后, 超出限制时按淘汰策略清除缓存项;<br>
+ * 调用startSweeper()启动过期清理任务, 定期清除已过期但一直没有被访问的缓存项<br>
+ * 存储方式见StorageMode, 默认为COPY模式
  *
  * @author zhaohuihua
  * @version 170527
  */
 public class InMemoryCache extends BaseCacheService {
 
+    private static final Logger log = LoggerFactory.getLogger(InMemoryCache.class);
+
     /** 静态实例 **/
     public static final InMemoryCache me = new InMemoryCache();
 
-    private Map<String, VolatileData<?>> container;
+    /** 每个缓存项的固定开销估算值(字节) **/
+    private static final long ENTRY_OVERHEAD = 64;
+    /** 非字符串对象的容量估算值(字节) **/
+    private static final long OBJECT_OVERHEAD = 64;
+    /** 后台刷新线程数 **/
+    private static final int REFRESH_THREADS = 4;
+    /** 后台刷新任务队列长度, 队列满时放弃本次刷新, 下次访问时再触发 **/
+    private static final int REFRESH_QUEUE_SIZE = 1024;
+    /** 每轮淘汰之后保留的比例(相对于最大限制的百分比), 避免每次写入都触发淘汰 **/
+    private static final int RETAIN_PERCENT = 90;
+
+    private ConcurrentMap<String, BaseItem<?>> container;
+    /** 最大缓存条数, 0表示不限制 **/
+    private final int maxEntries;
+    /** 最大缓存容量(估算字节数), 0表示不限制 **/
+    private final long maxBytes;
+    /** 淘汰策略 **/
+    private final EvictionPolicy evictionPolicy;
+    /** 存储方式 **/
+    private StorageMode storageMode = StorageMode.COPY;
+    /** 当前缓存容量估算值 **/
+    private final AtomicLong estimatedBytes = new AtomicLong();
+    /** 同一时刻只允许一个线程执行淘汰 **/
+    private final AtomicBoolean evicting = new AtomicBoolean(false);
+    /** 过期清理任务 **/
+    private ScheduledExecutorService sweeper;
+    /** 后台刷新线程池, 首次使用时创建 **/
+    private volatile Executor refreshExecutor;
 
+    /** 不限制容量的缓存 **/
     public InMemoryCache() {
+        this(0, 0, EvictionPolicy.LRU);
+    }
+
+    /**
+     * 限制缓存条数的缓存, 超出限制时按LRU策略淘汰
+     *
+     * @param maxEntries 最大缓存条数, 0表示不限制
+     */
+    public InMemoryCache(int maxEntries) {
+        this(maxEntries, 0, EvictionPolicy.LRU);
+    }
+
+    /**
+     * 限制容量的缓存
+     *
+     * @param maxEntries 最大缓存条数, 0表示不限制
+     * @param maxBytes 最大缓存容量(估算字节数), 0表示不限制
+     * @param evictionPolicy 淘汰策略
+     */
+    public InMemoryCache(int maxEntries, long maxBytes, EvictionPolicy evictionPolicy) {
         super();
+        VerifyTools.requireNotBlank(evictionPolicy, "evictionPolicy");
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("maxEntries must not be negative: " + maxEntries);
+        }
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must not be negative: " + maxBytes);
+        }
         this.container = new ConcurrentHashMap<>();
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.evictionPolicy = evictionPolicy;
     }
 
     @Override
@@ -41,11 +136,12 @@ public class InMemoryCache extends BaseCacheService {
         if (value == null) {
             del(key, subkey);
         } else {
-            String text = this.serializeValue(value);
-            container.put(concat(key, subkey), new SimpleItem(text));
-            if (expire != null) {
-                expire(key, subkey, expire);
-            }
+            Object stored = this.toStoredValue(value);
+            SimpleItem item = new SimpleItem(stored);
+            item.addBytes(estimateSize(stored));
+            item.expire(expire);
+            putItem(concat(key, subkey), item);
+            getStatsCounter().recordPuts(1);
         }
     }
 
@@ -53,31 +149,138 @@ public class InMemoryCache extends BaseCacheService {
     @Override
     public <T> T get(String key, String subkey, Class<T> clazz) {
         SimpleItem item = getSimpleItem(key, subkey);
+        getStatsCounter().recordAccess(item != null);
         if (item == null) return null;
 
-        return this.deserializeValue(item.getValue(), clazz);
+        return this.toResultValue(item.getValue(), clazz);
+    }
+
+    /** {@inheritDoc}<br>超过刷新时间但未过期的, 返回旧值, 同时提交到后台线程池重新加载 **/
+    @Override
+    public <T> T get(final String key, final Class<T> clazz, final CacheLoader<T> loader, final Duration expire,
+            final Duration refresh) {
+        VerifyTools.requireNotBlank(loader, "loader");
+        SimpleItem item = getSimpleItem(key, null);
+        if (item != null) {
+            getStatsCounter().recordHits(1);
+            if (item.startRefresh()) {
+                submitRefresh(key, loader, expire, refresh, item);
+            }
+            return toResultValue(item.getValue(), clazz);
+        }
+
+        getStatsCounter().recordMisses(1);
+        return getLoadingGroup().load(key, new Callable<T>() {
+
+            @Override
+            public T call() throws Exception {
+                // 等待期间其他线程可能已经加载完成
+                SimpleItem item = getSimpleItem(key, null);
+                if (item != null) {
+                    return toResultValue(item.getValue(), clazz);
+                }
+                T value = doLoad(key, loader);
+                if (value != null) {
+                    putItem(key, newLoadedItem(value, expire, refresh));
+                    getStatsCounter().recordPuts(1);
+                }
+                return value;
+            }
+        });
+    }
+
+    /** 执行加载并记录耗时 **/
+    private <T> T doLoad(String key, CacheLoader<T> loader) throws Exception {
+        long start = System.nanoTime();
+        try {
+            T value = loader.load(key);
+            getStatsCounter().recordLoadSuccess(System.nanoTime() - start);
+            return value;
+        } catch (Exception e) {
+            getStatsCounter().recordLoadFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    private <T> SimpleItem newLoadedItem(T value, Duration expire, Duration refresh) {
+        Object stored = toStoredValue(value);
+        SimpleItem item = new SimpleItem(stored);
+        item.addBytes(estimateSize(stored));
+        item.expire(totime(expire));
+        item.refreshAfter(totime(refresh));
+        return item;
+    }
+
+    /** 提交后台刷新任务, 刷新完成后替换旧的缓存项(如果期间被其他线程修改过则放弃) **/
+    private <T> void submitRefresh(final String key, final CacheLoader<T> loader, final Duration expire,
+            final Duration refresh, final SimpleItem stale) {
+        Runnable task = new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    T value = doLoad(key, loader);
+                    if (value == null) {
+                        removeItem(key, stale);
+                    } else {
+                        if (replaceItem(key, stale, newLoadedItem(value, expire, refresh))) {
+                            getStatsCounter().recordPuts(1);
+                        }
+                    }
+                } catch (Exception e) {
+                    log.warn("Failed to refresh cache, key: {}", key, e);
+                    stale.finishRefresh(); // 允许下次访问时再次刷新
+                }
+            }
+        };
+        try {
+            getRefreshExecutor().execute(task);
+        } catch (RejectedExecutionException e) {
+            stale.finishRefresh();
+        }
+    }
+
+    /** 后台刷新线程池 **/
+    protected Executor getRefreshExecutor() {
+        if (refreshExecutor == null) {
+            synchronized (this) {
+                if (refreshExecutor == null) {
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS, 60,
+                            TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(REFRESH_QUEUE_SIZE),
+                            new DaemonThreadFactory("InMemoryCache-Refresh"));
+                    executor.allowCoreThreadTimeOut(true);
+                    refreshExecutor = executor;
+                }
+            }
+        }
+        return refreshExecutor;
+    }
+
+    /** 后台刷新线程池, 未设置时使用内置的线程池 **/
+    public void setRefreshExecutor(Executor refreshExecutor) {
+        this.refreshExecutor = refreshExecutor;
     }
 
     /** {@inheritDoc} **/
     @Override
     public <T> List<T> list(String key, String subkey, Class<T> clazz) {
         SimpleItem item = getSimpleItem(key, subkey);
+        getStatsCounter().recordAccess(item != null);
         if (item == null) return null;
 
-        return this.deserializeList(item.getValue(), clazz);
+        return this.toResultList(key, item.getValue(), clazz);
     }
 
     /** {@inheritDoc} **/
     @Override
     public boolean exist(String key, String subkey) {
-        VolatileData<?> item = this.container.get(concat(key, subkey));
-        return item != null && !item.expired() && item.getValue() != null;
+        return getItem(concat(key, subkey)) != null;
     }
 
     /** {@inheritDoc} **/
     @Override
     protected void expire(String key, String subkey, Long expire) {
-        SimpleItem item = getSimpleItem(key, subkey);
+        BaseItem<?> item = getItem(concat(key, subkey));
         if (item == null) return;
 
         item.expire(expire);
@@ -86,7 +289,7 @@ public class InMemoryCache extends BaseCacheService {
     /** {@inheritDoc} **/
     @Override
     public void persist(String key, String subkey) {
-        SimpleItem item = getSimpleItem(key, subkey);
+        BaseItem<?> item = getItem(concat(key, subkey));
         if (item == null) return;
 
         item.persist();
@@ -95,42 +298,38 @@ public class InMemoryCache extends BaseCacheService {
     /** {@inheritDoc} **/
     @Override
     public void del(String key, String subkey) {
-        container.remove(concat(key, subkey));
+        removeItem(concat(key, subkey));
     }
 
     /** {@inheritDoc} **/
     @Override
     public <T> void hset(String key, String subkey, String field, T value) {
         MapItem item = getOrCreateMapItem(key, subkey);
-
-        Map<String, String> hash = item.getValue();
-        hash.put(field, serializeValue(value));
+        putField(item, field, toStoredValue(value));
+        getStatsCounter().recordPuts(1);
+        checkCapacity();
     }
 
     /** {@inheritDoc} **/
     @Override
     public <T> T hget(String key, String subkey, String field, Class<T> clazz) {
         MapItem item = getMapItem(key, subkey);
-        if (item == null) return null;
-
-        Map<String, String> hash = item.getValue();
-        String value = hash.get(field);
+        Object value = item == null ? null : item.getValue().get(field);
+        getStatsCounter().recordAccess(value != null);
         if (value == null) return null;
 
-        return deserializeValue(value, clazz);
+        return toResultValue(value, clazz);
     }
 
     /** {@inheritDoc} **/
     @Override
     public <T> List<T> hlist(String key, String subkey, String field, Class<T> clazz) {
         MapItem item = getMapItem(key, subkey);
-        if (item == null) return null;
-
-        Map<String, String> hash = item.getValue();
-        String value = hash.get(field);
+        Object value = item == null ? null : item.getValue().get(field);
+        getStatsCounter().recordAccess(value != null);
         if (value == null) return null;
 
-        return deserializeList(value, clazz);
+        return toResultList(key, value, clazz);
     }
 
     /** {@inheritDoc} **/
@@ -149,8 +348,7 @@ public class InMemoryCache extends BaseCacheService {
         MapItem item = getMapItem(key, subkey);
         if (item == null) return;
 
-        Map<String, ?> hash = item.getValue();
-        hash.remove(field);
+        removeField(item, field);
     }
 
     /** {@inheritDoc} **/
@@ -159,29 +357,32 @@ public class InMemoryCache extends BaseCacheService {
         if (params == null || params.isEmpty()) return;
 
         MapItem item = getOrCreateMapItem(key, subkey);
-
-        Map<String, String> hash = item.getValue();
         for (Map.Entry<String, T> entry : params.entrySet()) {
-            hash.put(entry.getKey(), serializeValue(entry.getValue()));
+            putField(item, entry.getKey(), toStoredValue(entry.getValue()));
         }
+        getStatsCounter().recordPuts(params.size());
+        checkCapacity();
     }
 
     /** {@inheritDoc} **/
     @Override
     public Map<String, String> hmget(String key, String subkey, List<String> fields) {
         MapItem item = getMapItem(key, subkey);
+        getStatsCounter().recordAccess(item != null);
         if (item == null) return null;
 
-        Map<String, String> hash = item.getValue();
+        Map<String, Object> hash = item.getValue();
 
         Map<String, String> map = new HashMap<>();
         if (fields == null) {
-            map.putAll(hash);
+            for (Map.Entry<String, Object> entry : hash.entrySet()) {
+                map.put(entry.getKey(), toResultText(entry.getValue()));
+            }
         } else if (fields.size() == 0) {
             // do nothing
         } else {
             for (String field : fields) {
-                map.put(field, hash.get(field));
+                map.put(field, toResultText(hash.get(field)));
             }
         }
         return map;
@@ -191,20 +392,21 @@ public class InMemoryCache extends BaseCacheService {
     @Override
     public <T> Map<String, T> hmget(String key, String subkey, List<String> fields, Class<T> clazz) {
         MapItem item = getMapItem(key, subkey);
+        getStatsCounter().recordAccess(item != null);
         if (item == null) return null;
 
-        Map<String, String> hash = item.getValue();
+        Map<String, Object> hash = item.getValue();
 
         Map<String, T> map = new HashMap<>();
         if (fields == null) {
-            for (Map.Entry<String, String> entry : hash.entrySet()) {
-                map.put(entry.getKey(), deserializeValue(entry.getValue(), clazz));
+            for (Map.Entry<String, Object> entry : hash.entrySet()) {
+                map.put(entry.getKey(), toResultValue(entry.getValue(), clazz));
             }
         } else if (fields.size() == 0) {
             // do nothing
         } else {
             for (String field : fields) {
-                map.put(field, deserializeValue(hash.get(field), clazz));
+                map.put(field, toResultValue(hash.get(field), clazz));
             }
         }
         return map;
@@ -219,10 +421,9 @@ public class InMemoryCache extends BaseCacheService {
             MapItem item = getMapItem(key, subkey);
             if (item == null) return 0;
 
-            Map<String, String> hash = item.getValue();
             int total = 0;
             for (String field : fields) {
-                if (hash.remove(field) != null) {
+                if (removeField(item, field)) {
                     total++;
                 }
             }
@@ -237,22 +438,29 @@ public class InMemoryCache extends BaseCacheService {
         Map<String, String> map = serializeFields(object);
 
         MapItem item = getOrCreateMapItem(key, subkey);
-
-        Map<String, String> hash = item.getValue();
-        hash.putAll(map);
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            putField(item, entry.getKey(), entry.getValue());
+        }
+        getStatsCounter().recordPuts(map.size());
+        checkCapacity();
     }
 
     /** {@inheritDoc} **/
     @Override
     public <T> T hoget(String key, String subkey, Class<T> clazz) {
         MapItem item = getMapItem(key, subkey);
+        getStatsCounter().recordAccess(item != null);
         if (item == null) return null;
 
-        Map<String, String> hash = item.getValue();
+        Map<String, Object> hash = item.getValue();
         if (hash.isEmpty()) {
             return null;
         } else {
-            return deserializeFeilds(hash, clazz);
+            Map<String, String> texts = new HashMap<>();
+            for (Map.Entry<String, Object> entry : hash.entrySet()) {
+                texts.put(entry.getKey(), toResultText(entry.getValue()));
+            }
+            return deserializeFeilds(texts, clazz);
         }
     }
 
@@ -260,13 +468,14 @@ public class InMemoryCache extends BaseCacheService {
     @Override
     public <T> Map<String, T> haget(String key, String subkey, Class<T> clazz) {
         MapItem item = getMapItem(key, subkey);
+        getStatsCounter().recordAccess(item != null);
         if (item == null) return null;
 
-        Map<String, String> hash = item.getValue();
+        Map<String, Object> hash = item.getValue();
         Map<String, T> values = new HashMap<>();
         if (!hash.isEmpty()) {
-            for (Map.Entry<String, String> entry : hash.entrySet()) {
-                values.put(entry.getKey(), deserializeValue(entry.getValue(), clazz));
+            for (Map.Entry<String, Object> entry : hash.entrySet()) {
+                values.put(entry.getKey(), toResultValue(entry.getValue(), clazz));
             }
         }
         return values;
@@ -276,11 +485,14 @@ public class InMemoryCache extends BaseCacheService {
     @Override
     public Map<String, String> haget(String key, String subkey) {
         MapItem item = getMapItem(key, subkey);
+        getStatsCounter().recordAccess(item != null);
         if (item == null) return null;
 
-        Map<String, String> hash = item.getValue();
+        Map<String, Object> hash = item.getValue();
         Map<String, String> values = new HashMap<>();
-        values.putAll(hash);
+        for (Map.Entry<String, Object> entry : hash.entrySet()) {
+            values.put(entry.getKey(), toResultText(entry.getValue()));
+        }
         return values;
     }
 
@@ -290,7 +502,7 @@ public class InMemoryCache extends BaseCacheService {
         MapItem item = getMapItem(key, subkey);
         if (item == null) return null;
 
-        Map<String, String> hash = item.getValue();
+        Map<String, Object> hash = item.getValue();
         return hash.keySet();
     }
 
@@ -300,10 +512,148 @@ public class InMemoryCache extends BaseCacheService {
         MapItem item = getMapItem(key, subkey);
         if (item == null) return 0;
 
-        Map<String, String> hash = item.getValue();
+        Map<String, Object> hash = item.getValue();
         return hash.size();
     }
 
+    /** {@inheritDoc} **/
+    @Override
+    public <T> Map<String, T> mget(List<String> keys, Class<T> clazz) {
+        Map<String, T> map = new HashMap<>();
+        if (keys == null || keys.isEmpty()) return map;
+
+        int hits = 0;
+        for (String key : keys) {
+            SimpleItem item = getSimpleItem(key, null);
+            if (item == null) {
+                map.put(key, null);
+            } else {
+                map.put(key, toResultValue(item.getValue(), clazz));
+                hits++;
+            }
+        }
+        getStatsCounter().recordHits(hits);
+        getStatsCounter().recordMisses(keys.size() - hits);
+        return map;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    protected <T> void mset(Map<String, T> map, Long expire) {
+        if (map == null || map.isEmpty()) return;
+
+        for (Map.Entry<String, T> entry : map.entrySet()) {
+            String key = entry.getKey();
+            Object stored = toStoredValue(entry.getValue());
+            if (stored == null) {
+                removeItem(key);
+            } else {
+                SimpleItem item = new SimpleItem(stored);
+                item.addBytes(estimateSize(stored));
+                item.expire(expire);
+                doPutItem(key, item);
+            }
+        }
+        getStatsCounter().recordPuts(map.size());
+        checkCapacity();
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public long mdel(List<String> keys) {
+        if (keys == null || keys.isEmpty()) return 0;
+
+        long total = 0;
+        for (String key : keys) {
+            BaseItem<?> old = this.container.remove(key);
+            if (old != null) {
+                detach(old);
+                if (!old.expired()) {
+                    total++;
+                }
+            }
+        }
+        return total;
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    protected void mexpire(List<String> keys, Long expire) {
+        if (keys == null || keys.isEmpty()) return;
+
+        for (String key : keys) {
+            BaseItem<?> item = getItem(key);
+            if (item != null) {
+                item.expire(expire);
+            }
+        }
+    }
+
+    /** 将值转换为存储对象 **/
+    protected <T> Object toStoredValue(T value) {
+        if (value == null) {
+            return null;
+        }
+        switch (storageMode) {
+        case REFERENCE:
+            return value;
+        case COPY:
+            if (isImmutable(value)) {
+                return value;
+            } else if (value instanceof Copyable) {
+                return ((Copyable) value).copy();
+            } else {
+                return serializeValue(value);
+            }
+        default:
+            return serializeValue(value);
+        }
+    }
+
+    /** 将存储对象转换为指定类型的返回值 **/
+    @SuppressWarnings("unchecked")
+    protected <T> T toResultValue(Object stored, Class<T> clazz) {
+        if (stored == null) {
+            return null;
+        } else if (stored instanceof String) {
+            return deserializeValue((String) stored, clazz);
+        } else if (clazz.isInstance(stored)) {
+            if (stored instanceof Copyable && storageMode == StorageMode.COPY) {
+                return (T) ((Copyable) stored).copy();
+            } else {
+                return (T) stored;
+            }
+        } else if (clazz == String.class) {
+            return (T) serializeValue(stored);
+        } else {
+            return TypeUtils.castToJavaBean(stored, clazz);
+        }
+    }
+
+    /** 将存储对象转换为List **/
+    protected <T> List<T> toResultList(String key, Object stored, Class<T> clazz) {
+        if (stored == null) {
+            return null;
+        } else if (stored instanceof String) {
+            return deserializeList((String) stored, clazz);
+        } else {
+            return castToList(key, stored, clazz);
+        }
+    }
+
+    /** 将存储对象转换为字符串 **/
+    protected String toResultText(Object stored) {
+        return stored instanceof String ? (String) stored : serializeValue(stored);
+    }
+
+    /** 是否为不可变对象(不可变对象不需要复制) **/
+    protected boolean isImmutable(Object value) {
+        return value instanceof String || value instanceof Integer || value instanceof Long
+                || value instanceof Boolean || value instanceof Enum || value instanceof Double
+                || value instanceof Float || value instanceof Short || value instanceof Byte
+                || value instanceof Character || value instanceof BigDecimal || value instanceof BigInteger;
+    }
+
     /** 将value转换为List, key只是用于记日志 **/
     @SuppressWarnings("unchecked")
     protected <T> List<T> castToList(String key, Object value, Class<T> clazz) {
@@ -336,62 +686,675 @@ public class InMemoryCache extends BaseCacheService {
         }
     }
 
+    /** 获取未过期的缓存对象, 已过期的随即清除 **/
+    protected BaseItem<?> getItem(String k) {
+        BaseItem<?> item = this.container.get(k);
+        if (item == null) {
+            return null;
+        }
+        if (item.expired()) {
+            if (removeItem(k, item)) {
+                getStatsCounter().recordExpirations(1);
+            }
+            return null;
+        }
+        if (item.getValue() == null) {
+            return null;
+        }
+        item.touch();
+        return item;
+    }
+
     /** 获取简单缓存对象 **/
     protected SimpleItem getSimpleItem(String key, String subkey) {
-        VolatileData<?> item = this.container.get(concat(key, subkey));
+        BaseItem<?> item = getItem(concat(key, subkey));
         if (item != null && !(item instanceof SimpleItem)) {
             throw new IllegalArgumentException("WRONGTYPE Operation against a key holding the wrong kind of value");
         }
-        return item == null || item.expired() || item.getValue() == null ? null : (SimpleItem) item;
+        return (SimpleItem) item;
     }
 
     /** 获取Map缓存对象 **/
     protected MapItem getMapItem(String key, String subkey) {
-        VolatileData<?> item = this.container.get(concat(key, subkey));
+        BaseItem<?> item = getItem(concat(key, subkey));
         if (item != null && !(item instanceof MapItem)) {
             throw new IllegalArgumentException("WRONGTYPE Operation against a key holding the wrong kind of value");
         }
-        return item == null || item.expired() || item.getValue() == null ? null : (MapItem) item;
+        return (MapItem) item;
     }
 
-    /** 获取或创建Map缓存对象 **/
+    /**
+     * 获取或创建Map缓存对象<br>
+     * 通过putIfAbsent/replace原子地创建, 并发创建同一个KEY时只有一个线程的对象生效, 其他线程使用生效的那一个
+     */
     protected MapItem getOrCreateMapItem(String key, String subkey) {
         String k = concat(key, subkey);
-        String m = "WRONGTYPE Operation against a key holding the wrong kind of value";
-        VolatileData<?> item = this.container.get(k);
-        if (item != null && !(item instanceof MapItem)) {
-            throw new IllegalArgumentException(m);
-        }
-        MapItem mi = (MapItem) item;
-        if (mi == null || mi.expired() || mi.getValue() == null) {
-            synchronized (k.intern()) {
-                item = this.container.get(k);
-                if (item != null && !(item instanceof MapItem)) {
-                    throw new IllegalArgumentException(m);
+        BaseItem<?> item = getItem(k);
+        if (item != null) {
+            return checkMapItem(item);
+        }
+
+        MapItem created = new MapItem(new ConcurrentHashMap<String, Object>());
+        created.addBytes(ENTRY_OVERHEAD + estimateSize(k));
+        while (true) {
+            BaseItem<?> existing = this.container.putIfAbsent(k, created);
+            if (existing == null) {
+                attach(created);
+                checkCapacity();
+                return created;
+            }
+            if (existing.expired() || existing.getValue() == null) {
+                // 残留的已过期缓存项, 替换掉
+                if (this.container.replace(k, existing, created)) {
+                    attach(created);
+                    detach(existing);
+                    if (existing.expired()) {
+                        getStatsCounter().recordExpirations(1);
+                    }
+                    checkCapacity();
+                    return created;
+                }
+                // 替换失败说明其他线程修改了这个KEY, 重试
+                continue;
+            }
+            existing.touch();
+            return checkMapItem(existing);
+        }
+    }
+
+    private MapItem checkMapItem(BaseItem<?> item) {
+        if (!(item instanceof MapItem)) {
+            throw new IllegalArgumentException("WRONGTYPE Operation against a key holding the wrong kind of value");
+        }
+        return (MapItem) item;
+    }
+
+    /** 保存缓存对象 **/
+    protected void putItem(String k, BaseItem<?> item) {
+        doPutItem(k, item);
+        checkCapacity();
+    }
+
+    /** 保存缓存对象(不检查容量, 用于批量保存) **/
+    private void doPutItem(String k, BaseItem<?> item) {
+        item.addBytes(ENTRY_OVERHEAD + estimateSize(k));
+        BaseItem<?> old = this.container.put(k, item);
+        attach(item);
+        if (old != null) {
+            detach(old);
+        }
+    }
+
+    /** 替换缓存对象(仅当k对应的仍是old时才替换) **/
+    protected boolean replaceItem(String k, BaseItem<?> old, BaseItem<?> item) {
+        item.addBytes(ENTRY_OVERHEAD + estimateSize(k));
+        if (this.container.replace(k, old, item)) {
+            attach(item);
+            detach(old);
+            checkCapacity();
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /** 删除缓存对象 **/
+    protected void removeItem(String k) {
+        BaseItem<?> old = this.container.remove(k);
+        if (old != null) {
+            detach(old);
+        }
+    }
+
+    /** 删除缓存对象(仅当k对应的仍是这个item时才删除) **/
+    protected boolean removeItem(String k, BaseItem<?> item) {
+        if (this.container.remove(k, item)) {
+            detach(item);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /** 保存哈希表字段 **/
+    protected void putField(MapItem item, String field, Object value) {
+        Object old = item.getValue().put(field, value);
+        long delta = estimateSize(value) + (old == null ? estimateSize(field) : -estimateSize(old));
+        addBytes(item, delta);
+    }
+
+    /** 删除哈希表字段 **/
+    protected boolean removeField(MapItem item, String field) {
+        Object old = item.getValue().remove(field);
+        if (old == null) {
+            return false;
+        }
+        long delta = -(estimateSize(field) + estimateSize(old));
+        addBytes(item, delta);
+        return true;
+    }
+
+    /** 缓存项放入container之后调用, 将缓存项的容量计入总容量; 已经被移除的不再计入 **/
+    private void attach(BaseItem<?> item) {
+        synchronized (item) {
+            if (item.accounting == BaseItem.NEW) {
+                item.accounting = BaseItem.ATTACHED;
+                estimatedBytes.addAndGet(item.getBytes());
+            }
+        }
+    }
+
+    /** 缓存项从container中移除之后调用, 从总容量中扣除; 之后对这个缓存项的修改不再计入总容量 **/
+    private void detach(BaseItem<?> item) {
+        synchronized (item) {
+            if (item.accounting == BaseItem.ATTACHED) {
+                estimatedBytes.addAndGet(-item.getBytes());
+            }
+            item.accounting = BaseItem.DETACHED;
+        }
+    }
+
+    /** 修改缓存项的容量, 仍在container中时同时修改总容量 **/
+    private void addBytes(BaseItem<?> item, long delta) {
+        synchronized (item) {
+            item.addBytes(delta);
+            if (item.accounting == BaseItem.ATTACHED) {
+                estimatedBytes.addAndGet(delta);
+            }
+        }
+    }
+
+    /** 估算对象占用的字节数, 非字符串对象按固定值估算 **/
+    protected long estimateSize(Object object) {
+        if (object == null) {
+            return 0;
+        } else if (object instanceof String) {
+            return 40 + 2L * ((String) object).length();
+        } else {
+            return OBJECT_OVERHEAD;
+        }
+    }
+
+    /** 检查容量, 超出限制时执行淘汰 **/
+    protected void checkCapacity() {
+        if (!isOverflow(100)) {
+            return;
+        }
+        // 同一时刻只有一个线程执行淘汰, 其他线程不等待(允许短暂超出限制)
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            doEvict();
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /** 是否超出限制 **/
+    private boolean isOverflow(int percent) {
+        if (maxEntries > 0 && container.size() > (long) maxEntries * percent / 100) {
+            return true;
+        }
+        if (maxBytes > 0 && estimatedBytes.get() > maxBytes * percent / 100) {
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 执行淘汰, 直到降至限制的RETAIN_PERCENT以下<br>
+     * 遍历一次缓存项: 过期的直接清除, 其余的只在固定大小的堆中保留分值最小的k个(k为需要淘汰的数量), 不排序全部缓存项;
+     * 同时将访问次数衰减为原来的一半, 避免早期的热点数据长期占用缓存
+     */
+    private void doEvict() {
+        // 按容量淘汰时, 淘汰数量是按平均大小估算的, 不够时再来一轮
+        for (int round = 0; round < 3 && isOverflow(RETAIN_PERCENT); round++) {
+            int count = countToEvict();
+            PriorityQueue<EvictCandidate> worst = new PriorityQueue<>(count, Collections.reverseOrder());
+            int expired = 0;
+            for (Map.Entry<String, BaseItem<?>> entry : container.entrySet()) {
+                BaseItem<?> item = entry.getValue();
+                if (item.expired()) {
+                    if (removeItem(entry.getKey(), item)) {
+                        expired++;
+                    }
+                    continue;
+                }
+                long score = evictionPolicy.score(item.getLastAccessTime(), item.getAccessCount());
+                item.decay();
+                EvictCandidate candidate = new EvictCandidate(entry.getKey(), item, score);
+                if (worst.size() < count) {
+                    worst.add(candidate);
+                } else if (candidate.compareTo(worst.peek()) < 0) {
+                    worst.poll();
+                    worst.add(candidate);
+                }
+            }
+            if (expired > 0) {
+                getStatsCounter().recordExpirations(expired);
+            }
+            for (EvictCandidate candidate : worst) {
+                if (!isOverflow(RETAIN_PERCENT)) {
+                    break;
                 }
-                mi = (MapItem) item;
-                if (mi == null || mi.expired() || mi.getValue() == null) {
-                    mi = new MapItem(new ConcurrentHashMap<String, String>());
-                    this.container.put(k, mi);
+                if (removeItem(candidate.key, candidate.item)) {
+                    getStatsCounter().recordEviction();
                 }
             }
         }
-        return mi;
+    }
+
+    /** 估算降至限制的RETAIN_PERCENT以下需要淘汰的数量 **/
+    private int countToEvict() {
+        long size = container.size();
+        long count = 1;
+        if (maxEntries > 0) {
+            count = Math.max(count, size - (long) maxEntries * RETAIN_PERCENT / 100);
+        }
+        long bytes = estimatedBytes.get();
+        if (maxBytes > 0 && size > 0 && bytes > 0) {
+            long excess = bytes - maxBytes * RETAIN_PERCENT / 100;
+            long average = Math.max(bytes / size, 1);
+            count = Math.max(count, (excess + average - 1) / average);
+        }
+        return (int) Math.min(count, Math.max(size, 1));
+    }
+
+    /** 清空全部缓存 **/
+    public void clear() {
+        for (Map.Entry<String, BaseItem<?>> entry : container.entrySet()) {
+            removeItem(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 保存快照, 将未过期的缓存项连同剩余过期时间写入文件<br>
+     * 逐条写入, 不会复制整个缓存; 先写临时文件并刷到磁盘, 完成后再原子地替换目标文件<br>
+     * 非字符串的值按JSON格式保存, 加载后在读取时再转换为目标类型
+     *
+     * @param file 快照文件
+     * @return 保存的条数
+     * @throws IOException 写文件失败
+     */
+    public int saveSnapshot(File file) throws IOException {
+        FileTools.mkdirsIfNotExists(file);
+        File temp = new File(file.getPath() + ".tmp");
+        int count = 0;
+        boolean moved = false;
+        try {
+            try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                    CacheSnapshot.Writer writer = new CacheSnapshot.Writer(channel)) {
+                long now = System.currentTimeMillis();
+                writer.writeHeader(now);
+                for (Map.Entry<String, BaseItem<?>> entry : container.entrySet()) {
+                    BaseItem<?> item = entry.getValue();
+                    if (item.expired() || item.getValue() == null) {
+                        continue;
+                    }
+                    Long expireTime = item.getExpireTime();
+                    long ttl = expireTime == null ? -1 : Math.max(expireTime - now, 0);
+                    if (item instanceof MapItem) {
+                        writer.beginMap(entry.getKey(), ttl);
+                        for (Map.Entry<String, Object> field : ((MapItem) item).getValue().entrySet()) {
+                            writer.writeField(field.getKey(), toResultText(field.getValue()));
+                        }
+                        writer.endMap();
+                    } else {
+                        writer.writeSimple(entry.getKey(), ttl, toResultText(item.getValue()));
+                    }
+                    count++;
+                }
+                writer.writeEnd();
+                // 先把数据刷到磁盘再替换, 否则崩溃后可能出现文件已替换而数据不完整的快照
+                channel.force(true);
+            }
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            moved = true;
+        } finally {
+            if (!moved) {
+                // 保存失败, 删除不完整的临时文件, 原来的快照文件保持不变
+                temp.delete();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 加载快照<br>
+     * 扣除快照保存之后经过的时间, 已过期的不加载; 缓存中已存在的KEY不会被覆盖
+     *
+     * @param file 快照文件
+     * @return 加载的条数
+     * @throws IOException 读文件失败或文件格式错误
+     */
+    public int loadSnapshot(File file) throws IOException {
+        int count = 0;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                CacheSnapshot.Reader reader = new CacheSnapshot.Reader(channel)) {
+            long elapsed = Math.max(System.currentTimeMillis() - reader.readHeader(), 0);
+            while (true) {
+                byte type = reader.readType();
+                if (type == CacheSnapshot.END) {
+                    break;
+                }
+                String key = reader.readString();
+                long ttl = reader.readTtl();
+                BaseItem<?> item;
+                if (type == CacheSnapshot.SIMPLE) {
+                    String value = reader.readString();
+                    item = new SimpleItem(value);
+                    item.addBytes(estimateSize(value));
+                } else if (type == CacheSnapshot.MAP) {
+                    MapItem mi = new MapItem(new ConcurrentHashMap<String, Object>());
+                    while (reader.readType() == CacheSnapshot.FIELD) {
+                        String field = reader.readString();
+                        String value = reader.readString();
+                        mi.getValue().put(field, value);
+                        mi.addBytes(estimateSize(field) + estimateSize(value));
+                    }
+                    item = mi;
+                } else {
+                    throw new IOException("Unknown cache snapshot record type: " + type);
+                }
+                if (ttl >= 0) {
+                    long remaining = ttl - elapsed;
+                    if (remaining <= 0) {
+                        continue;
+                    }
+                    item.expire(remaining);
+                }
+                item.addBytes(ENTRY_OVERHEAD + estimateSize(key));
+                if (this.container.putIfAbsent(key, item) == null) {
+                    attach(item);
+                    checkCapacity();
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 在后台线程中加载快照, 加载期间缓存正常提供服务(尚未加载的KEY视为未命中)
+     *
+     * @param file 快照文件
+     * @return 加载结果, 加载的条数
+     */
+    public Future<Integer> loadSnapshotInBackground(final File file) {
+        FutureTask<Integer> task = new FutureTask<>(new Callable<Integer>() {
+
+            @Override
+            public Integer call() throws IOException {
+                try {
+                    return loadSnapshot(file);
+                } catch (IOException e) {
+                    log.warn("Failed to load cache snapshot: {}", file, e);
+                    throw e;
+                }
+            }
+        });
+        new DaemonThreadFactory("InMemoryCache-Snapshot").newThread(task).start();
+        return task;
+    }
+
+    /**
+     * 清除已过期的缓存项
+     *
+     * @return 清除的数量
+     */
+    public int sweepExpired() {
+        int count = 0;
+        for (Map.Entry<String, BaseItem<?>> entry : container.entrySet()) {
+            BaseItem<?> item = entry.getValue();
+            if (item.expired() && removeItem(entry.getKey(), item)) {
+                count++;
+            }
+        }
+        if (count > 0) {
+            getStatsCounter().recordExpirations(count);
+        }
+        return count;
+    }
+
+    /**
+     * 启动过期清理任务, 定期清除已过期的缓存项<br>
+     * 如果已经启动, 将以新的间隔时间重新启动
+     *
+     * @param interval 间隔时间
+     * @param unit 时间单位
+     */
+    public synchronized void startSweeper(long interval, TimeUnit unit) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be positive: " + interval);
+        }
+        stopSweeper();
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("InMemoryCache-Sweeper"));
+        this.sweeper.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                sweepExpired();
+            }
+        }, interval, interval, unit);
+    }
+
+    /** 停止过期清理任务 **/
+    public synchronized void stopSweeper() {
+        if (this.sweeper != null) {
+            this.sweeper.shutdownNow();
+            this.sweeper = null;
+        }
+    }
+
+    /** {@inheritDoc} **/
+    @Override
+    public CacheStats getStats() {
+        CacheStats stats = super.getStats();
+        stats.setEntryCount(container.size());
+        stats.setEstimatedBytes(estimatedBytes.get());
+        return stats;
+    }
+
+    /**
+     * 按KEY前缀(第一个冒号之前的部分)统计缓存条数, 用于分析各类数据的占比<br>
+     * 需要遍历全部缓存项, 不要频繁调用
+     *
+     * @return 前缀和条数
+     */
+    public Map<String, Long> countByPrefix() {
+        Map<String, Long> counts = new HashMap<>();
+        for (String key : container.keySet()) {
+            int index = key.indexOf(':');
+            String prefix = index < 0 ? key : key.substring(0, index);
+            Long count = counts.get(prefix);
+            counts.put(prefix, count == null ? 1L : count + 1);
+        }
+        return counts;
+    }
+
+    /** 最大缓存条数, 0表示不限制 **/
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /** 最大缓存容量(估算字节数), 0表示不限制 **/
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /** 淘汰策略 **/
+    public EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    /** 存储方式 **/
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+
+    /** 存储方式, 只影响之后写入的数据 **/
+    public void setStorageMode(StorageMode storageMode) {
+        VerifyTools.requireNotBlank(storageMode, "storageMode");
+        this.storageMode = storageMode;
+    }
+
+    /** 存储方式 **/
+    public static enum StorageMode {
+        /** 序列化为JSON字符串, 读取时再反序列化, 存取的都是新对象 **/
+        JSON,
+        /** 直接保存原对象的引用, 读写都不复制; 调用方修改对象会影响缓存中的数据 **/
+        REFERENCE,
+        /**
+         * 不可变对象(字符串/数字/枚举等)直接保存引用, Copyable对象在写入和读取时各复制一次,
+         * 其他对象按JSON方式处理
+         */
+        COPY
+    }
+
+    /** 缓存项基类, 记录访问信息和容量估算值 **/
+    protected abstract static class BaseItem<T> extends VolatileData<T> {
+
+        /** 还没有放入缓存 **/
+        private static final int NEW = 0;
+        /** 已放入缓存, 容量已计入总容量 **/
+        private static final int ATTACHED = 1;
+        /** 已从缓存中移除, 容量已从总容量中扣除 **/
+        private static final int DETACHED = 2;
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<BaseItem> REFRESHING = AtomicIntegerFieldUpdater
+                .newUpdater(BaseItem.class, "refreshing");
+
+        /** 最后访问时间 **/
+        private volatile long lastAccessTime;
+        /** 访问次数(只用于淘汰策略, 并发时允许少量误差) **/
+        private volatile long accessCount;
+        /** 容量估算值(字节) **/
+        private final AtomicLong bytes = new AtomicLong();
+        /** 容量是否计入了总容量, 由synchronized(this)保护, 见attach()/detach() **/
+        private int accounting = NEW;
+        /** 刷新时间, 0表示不需要提前刷新 **/
+        private volatile long refreshTime;
+        /** 是否正在刷新, 0=否, 1=是 **/
+        private volatile int refreshing;
+
+        public BaseItem(T value) {
+            super(value);
+            this.lastAccessTime = System.currentTimeMillis();
+        }
+
+        /** 记录一次访问 **/
+        protected void touch() {
+            this.lastAccessTime = System.currentTimeMillis();
+            this.accessCount++;
+        }
+
+        /** 设置刷新时间(相对时间) **/
+        protected void refreshAfter(Long refresh) {
+            if (refresh != null) {
+                this.refreshTime = System.currentTimeMillis() + refresh;
+            }
+        }
+
+        /** 判断是否到了刷新时间; 返回true表示由当前线程负责刷新, 刷新期间其他线程调用都返回false **/
+        protected boolean startRefresh() {
+            if (refreshTime == 0 || refreshTime > System.currentTimeMillis()) {
+                return false;
+            }
+            return REFRESHING.compareAndSet(this, 0, 1);
+        }
+
+        /** 刷新失败, 允许再次刷新 **/
+        protected void finishRefresh() {
+            REFRESHING.set(this, 0);
+        }
+
+        /** 访问次数衰减为原来的一半 **/
+        protected void decay() {
+            this.accessCount = this.accessCount >> 1;
+        }
+
+        public long getLastAccessTime() {
+            return lastAccessTime;
+        }
+
+        public long getAccessCount() {
+            return accessCount;
+        }
+
+        public long getBytes() {
+            return bytes.get();
+        }
+
+        protected void addBytes(long delta) {
+            bytes.addAndGet(delta);
+        }
     }
 
     /** 简单缓存类 **/
-    protected static class SimpleItem extends VolatileData<String> {
+    protected static class SimpleItem extends BaseItem<Object> {
 
-        public SimpleItem(String value) {
+        public SimpleItem(Object value) {
             super(value);
         }
     }
 
     /** Map缓存类 **/
-    protected static class MapItem extends VolatileData<Map<String, String>> {
+    protected static class MapItem extends BaseItem<Map<String, Object>> {
 
-        public MapItem(Map<String, String> value) {
+        public MapItem(Map<String, Object> value) {
             super(value);
         }
     }
+
+    /** 创建守护线程 **/
+    private static class DaemonThreadFactory implements ThreadFactory {
+
+        private final String name;
+        private final AtomicLong sequence = new AtomicLong();
+
+        public DaemonThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, name + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /** 淘汰候选项, 分值小的先淘汰, 分值相同的最后访问时间早的先淘汰 **/
+    private static class EvictCandidate implements Comparable<EvictCandidate> {
+
+        private final String key;
+        private final BaseItem<?> item;
+        private final long score;
+        private final long lastAccessTime;
+
+        public EvictCandidate(String key, BaseItem<?> item, long score) {
+            this.key = key;
+            this.item = item;
+            this.score = score;
+            this.lastAccessTime = item.getLastAccessTime();
+        }
+
+        @Override
+        public int compareTo(EvictCandidate other) {
+            if (this.score != other.score) {
+                return this.score < other.score ? -1 : 1;
+            }
+            if (this.lastAccessTime != other.lastAccessTime) {
+                return this.lastAccessTime < other.lastAccessTime ? -1 : 1;
+            }
+            return 0;
+        }
+    }
 }
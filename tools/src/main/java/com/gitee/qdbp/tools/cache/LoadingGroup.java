@@ -0,0 +1,74 @@
+package com.gitee.qdbp.tools.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * 合并同一个KEY的并发加载<br>
+ * 同一时刻同一个KEY只有一个线程执行加载, 其他线程等待并共享这一次的加载结果
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class LoadingGroup {
+
+    private final ConcurrentMap<String, FutureTask<?>> loadings = new ConcurrentHashMap<>();
+
+    /**
+     * 执行加载
+     *
+     * @param key 关键字
+     * @param callable 加载方法
+     * @return 加载结果
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T load(String key, Callable<T> callable) {
+        FutureTask<T> task = new FutureTask<>(callable);
+        FutureTask<T> existing = (FutureTask<T>) loadings.putIfAbsent(key, task);
+        if (existing == null) {
+            try {
+                task.run();
+            } finally {
+                loadings.remove(key, task);
+            }
+            return getResult(key, task);
+        } else {
+            return getResult(key, existing);
+        }
+    }
+
+    /** 是否正在加载 **/
+    public boolean isLoading(String key) {
+        return loadings.containsKey(key);
+    }
+
+    private <T> T getResult(String key, FutureTask<T> task) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    // 等待其他线程的加载结果时不响应中断, 结束后恢复中断标记
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new IllegalStateException("Failed to load cache, key: " + key, cause);
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
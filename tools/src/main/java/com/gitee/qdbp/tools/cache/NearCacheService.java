@@ -0,0 +1,323 @@
+package com.gitee.qdbp.tools.cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import com.gitee.qdbp.able.beans.Duration;
+import com.gitee.qdbp.tools.utils.VerifyTools;
+
+/**
+ * 二级缓存(近端缓存)<br>
+ * 在远程缓存(L2)前面加一层容量有限的本地缓存(L1), L1的过期时间较短, 用于减少远程缓存的访问次数<br>
+ * 读操作: get/list/hget/hlist先查L1, 未命中再查L2并回填L1; 其余的读操作直接访问L2(L1中的哈希表可能是不完整的)<br>
+ * 写操作: 先写L2再清除L1中对应的KEY, 同时通知InvalidationListener(用于通知其他节点清除各自的L1)<br>
+ * 收到其他节点的通知时, 调用invalidate()清除本地L1<br>
+ * getStats()的命中/未命中统计的是L1, 详细数据见getLocalCache().getStats()和getRemoteCache().getStats()
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class NearCacheService extends AbstractCacheService {
+
+    /** 本地缓存(L1) **/
+    private final InMemoryCache local;
+    /** 远程缓存(L2) **/
+    private final ICacheService remote;
+    /** 本地缓存的过期时间 **/
+    private final Duration localExpire;
+    /** 失效通知监听器 **/
+    private final List<InvalidationListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 构造函数
+     *
+     * @param remote 远程缓存(L2)
+     * @param localMaxEntries 本地缓存的最大条数
+     * @param localExpire 本地缓存的过期时间
+     */
+    public NearCacheService(ICacheService remote, int localMaxEntries, Duration localExpire) {
+        this(remote, new InMemoryCache(localMaxEntries), localExpire);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param remote 远程缓存(L2)
+     * @param local 本地缓存(L1), 应当是有容量限制的
+     * @param localExpire 本地缓存的过期时间
+     */
+    public NearCacheService(ICacheService remote, InMemoryCache local, Duration localExpire) {
+        VerifyTools.requireNotBlank(remote, "remote");
+        VerifyTools.requireNotBlank(local, "local");
+        VerifyTools.requireNotBlank(localExpire, "localExpire");
+        this.remote = remote;
+        this.local = local;
+        this.localExpire = localExpire;
+    }
+
+    /** 添加失效通知监听器, 本地写操作清除L1时会通知监听器 **/
+    public void addInvalidationListener(InvalidationListener listener) {
+        this.listeners.add(listener);
+    }
+
+    /** 移除失效通知监听器 **/
+    public void removeInvalidationListener(InvalidationListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * 清除本地缓存(L1), 用于接收其他节点的失效通知, 不会再通知监听器
+     *
+     * @param key 关键字
+     * @param subkey 子关键字
+     */
+    public void invalidate(String key, String subkey) {
+        local.del(key, subkey);
+    }
+
+    /** 清除全部本地缓存(L1) **/
+    public void invalidateAll() {
+        local.clear();
+    }
+
+    /** 写操作之后清除L1并通知监听器 **/
+    protected void afterWrite(String key, String subkey) {
+        local.del(key, subkey);
+        for (InvalidationListener listener : listeners) {
+            listener.onInvalidate(key, subkey);
+        }
+    }
+
+    /** 本地缓存(L1) **/
+    public InMemoryCache getLocalCache() {
+        return local;
+    }
+
+    /** 远程缓存(L2) **/
+    public ICacheService getRemoteCache() {
+        return remote;
+    }
+
+    @Override
+    public boolean storable() {
+        return remote.storable();
+    }
+
+    @Override
+    public <T> void set(String key, String subkey, T value) {
+        remote.set(key, subkey, value);
+        afterWrite(key, subkey);
+    }
+
+    @Override
+    public <T> void set(String key, String subkey, T value, Duration expire) {
+        remote.set(key, subkey, value, expire);
+        afterWrite(key, subkey);
+    }
+
+    @Override
+    public <T> T get(String key, String subkey, Class<T> clazz) {
+        T value = local.get(key, subkey, clazz);
+        getStatsCounter().recordAccess(value != null);
+        if (value != null) return value;
+
+        value = remote.get(key, subkey, clazz);
+        if (value != null) {
+            local.set(key, subkey, value, localExpire);
+        }
+        return value;
+    }
+
+    @Override
+    public <T> List<T> list(String key, String subkey, Class<T> clazz) {
+        List<T> list = local.list(key, subkey, clazz);
+        getStatsCounter().recordAccess(list != null);
+        if (list != null) return list;
+
+        list = remote.list(key, subkey, clazz);
+        if (list != null) {
+            local.set(key, subkey, list, localExpire);
+        }
+        return list;
+    }
+
+    @Override
+    public boolean exist(String key, String subkey) {
+        return local.exist(key, subkey) || remote.exist(key, subkey);
+    }
+
+    @Override
+    public void del(String key, String subkey) {
+        remote.del(key, subkey);
+        afterWrite(key, subkey);
+    }
+
+    @Override
+    public void expire(String key, String subkey, Duration time) {
+        remote.expire(key, subkey, time);
+        afterWrite(key, subkey);
+    }
+
+    @Override
+    public void persist(String key, String subkey) {
+        remote.persist(key, subkey);
+        afterWrite(key, subkey);
+    }
+
+    @Override
+    public <T> void hset(String key, String subkey, String field, T value) {
+        remote.hset(key, subkey, field, value);
+        afterWrite(key, subkey);
+    }
+
+    @Override
+    public <T> T hget(String key, String subkey, String field, Class<T> clazz) {
+        T value = local.hget(key, subkey, field, clazz);
+        getStatsCounter().recordAccess(value != null);
+        if (value != null) return value;
+
+        value = remote.hget(key, subkey, field, clazz);
+        if (value != null) {
+            putLocalField(key, subkey, field, value);
+        }
+        return value;
+    }
+
+    @Override
+    public <T> List<T> hlist(String key, String subkey, String field, Class<T> clazz) {
+        List<T> list = local.hlist(key, subkey, field, clazz);
+        getStatsCounter().recordAccess(list != null);
+        if (list != null) return list;
+
+        list = remote.hlist(key, subkey, field, clazz);
+        if (list != null) {
+            putLocalField(key, subkey, field, list);
+        }
+        return list;
+    }
+
+    /** 回填L1的哈希表字段, 过期时间从哈希表创建时开始计算 **/
+    private <T> void putLocalField(String key, String subkey, String field, T value) {
+        // 并发时可能重复设置过期时间, 最多延长一个localExpire, 可以接受
+        boolean existed = local.exist(key, subkey);
+        local.hset(key, subkey, field, value);
+        if (!existed) {
+            local.expire(key, subkey, localExpire);
+        }
+    }
+
+    @Override
+    public boolean hexist(String key, String subkey, String field) {
+        return local.hexist(key, subkey, field) || remote.hexist(key, subkey, field);
+    }
+
+    @Override
+    public void hdel(String key, String subkey, String field) {
+        remote.hdel(key, subkey, field);
+        afterWrite(key, subkey);
+    }
+
+    @Override
+    public <T> void hmset(String key, String subkey, Map<String, T> map) {
+        remote.hmset(key, subkey, map);
+        afterWrite(key, subkey);
+    }
+
+    @Override
+    public Map<String, String> hmget(String key, String subkey, List<String> fields) {
+        return remote.hmget(key, subkey, fields);
+    }
+
+    @Override
+    public <T> Map<String, T> hmget(String key, String subkey, List<String> fields, Class<T> clazz) {
+        return remote.hmget(key, subkey, fields, clazz);
+    }
+
+    @Override
+    public long hmdel(String key, String subkey, List<String> fields) {
+        long count = remote.hmdel(key, subkey, fields);
+        afterWrite(key, subkey);
+        return count;
+    }
+
+    @Override
+    public <T> Map<String, T> haget(String key, String subkey, Class<T> clazz) {
+        return remote.haget(key, subkey, clazz);
+    }
+
+    @Override
+    public Map<String, String> haget(String key, String subkey) {
+        return remote.haget(key, subkey);
+    }
+
+    @Override
+    public <T> void hoset(String key, String subkey, T object) {
+        remote.hoset(key, subkey, object);
+        afterWrite(key, subkey);
+    }
+
+    @Override
+    public <T> T hoget(String key, String subkey, Class<T> clazz) {
+        return remote.hoget(key, subkey, clazz);
+    }
+
+    @Override
+    public Set<String> hkeys(String key, String subkey) {
+        return remote.hkeys(key, subkey);
+    }
+
+    @Override
+    public int hlen(String key, String subkey) {
+        return remote.hlen(key, subkey);
+    }
+
+    @Override
+    public <T> void mset(Map<String, T> map, Duration expire) {
+        remote.mset(map, expire);
+        if (map != null) {
+            for (String key : map.keySet()) {
+                afterWrite(key, null);
+            }
+        }
+    }
+
+    @Override
+    public long mdel(List<String> keys) {
+        long count = remote.mdel(keys);
+        if (keys != null) {
+            for (String key : keys) {
+                afterWrite(key, null);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void mexpire(List<String> keys, Duration time) {
+        remote.mexpire(keys, time);
+        if (keys != null) {
+            for (String key : keys) {
+                afterWrite(key, null);
+            }
+        }
+    }
+
+    /**
+     * 失效通知监听器<br>
+     * 本节点的写操作清除L1之后触发, 可以借此通过消息队列等方式通知其他节点调用invalidate()
+     *
+     * @author zhaohuihua
+     * @version 20201017
+     */
+    public static interface InvalidationListener {
+
+        /**
+         * KEY已失效
+         *
+         * @param key 关键字
+         * @param subkey 子关键字
+         */
+        void onInvalidate(String key, String subkey);
+    }
+}
@@ -1,5 +1,8 @@
 package com.gitee.qdbp.tools.specialized;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,6 +28,17 @@ import org.slf4j.LoggerFactory;
  * SnowFlake可以保证: <br>
  * -- 所有生成的id按时间趋势递增<br>
  * -- 整个分布式系统内不会产生重复id(因为有datacenterId和workerId来做区分)<br>
+ * 实现方式:<br>
+ * -- 时间戳差值和序列号打包在一个AtomicLong中, 通过CAS更新, 不加锁<br>
+ * -- nextIds(count)一次CAS预留一段连续的序列号, 适合批量生成<br>
+ * -- 同一毫秒内序列号用完时, 短暂休眠等待下一毫秒, 而不是空转<br>
+ * 时钟漂移容忍模式(setMaxBorrowMillis):<br>
+ * -- 默认为0, 时钟回拨时抛出异常, 与原先一致<br>
+ * -- 大于0时, 逻辑时间戳可以领先于系统时钟, 但不超过maxBorrowMillis<br>
+ * -- 时钟回拨不超过maxBorrowMillis时, 继续使用原先的时间戳, 不抛异常<br>
+ * -- 同一毫秒内序列号用完时, 直接借用下一毫秒, 用于吸收每毫秒超过4096个ID的突发请求<br>
+ * -- 领先多少可以通过getAheadMillis()/getMaxAheadMillis()查看<br>
+ * -- 注意: 重启间隔应当大于maxBorrowMillis, 否则重启后可能生成已被借用的时间戳上的ID<br>
  *
  * @author zhaohuihua copy from https://segmentfault.com/a/1190000011282426
  */
@@ -33,10 +47,22 @@ public class SnowFlakeIdWorker {
     /** 日志对象 **/
     private static final Logger log = LoggerFactory.getLogger(SnowFlakeIdWorker.class);
 
+    /** 同一毫秒内序列号用完时, 每次休眠的时间(纳秒) **/
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
     private final long epoch;
     private int workerId;
     private int datacenterId;
-    private long sequence;
+    /** 机器ID部分(datacenterId和workerId左移之后的值) **/
+    private final long machineBits;
+    /** 最后一次分配的时间戳差值和序列号: (timestamp - epoch) &lt;&lt; sequenceBits | sequence **/
+    private final AtomicLong state = new AtomicLong();
+    /** 逻辑时间戳最多可以领先系统时钟多少毫秒, 0表示不允许领先 **/
+    private volatile long maxBorrowMillis;
+    /** 逻辑时间戳领先系统时钟的最大值(毫秒) **/
+    private final AtomicLong maxAheadMillis = new AtomicLong();
+    /** 借用未来时间戳的次数 **/
+    private final AtomicLong borrowCount = new AtomicLong();
 
     /**
      * 构造函数
@@ -86,6 +112,7 @@ public class SnowFlakeIdWorker {
         this.epoch = epoch;
         this.workerId = workerId;
         this.datacenterId = datacenterId;
+        this.machineBits = ((long) datacenterId << datacenterIdShift) | ((long) workerId << workerIdShift);
     }
 
     private long workerIdBits = 5L;
@@ -99,8 +126,6 @@ public class SnowFlakeIdWorker {
     private long timestampLeftShift = sequenceBits + workerIdBits + datacenterIdBits;
     private long sequenceMask = -1L ^ (-1L << sequenceBits);
 
-    private long lastTimestamp = -1L;
-
     public long getWorkerId() {
         return workerId;
     }
@@ -113,36 +138,137 @@ public class SnowFlakeIdWorker {
         return System.currentTimeMillis();
     }
 
-    public synchronized long nextId() {
-        long timestamp = timeGen();
+    /** 逻辑时间戳最多可以领先系统时钟多少毫秒, 0表示不允许领先 **/
+    public long getMaxBorrowMillis() {
+        return maxBorrowMillis;
+    }
+
+    /**
+     * 设置逻辑时间戳最多可以领先系统时钟多少毫秒<br>
+     * 为0时(默认), 时钟回拨抛出异常, 序列号用完时等待下一毫秒<br>
+     * 大于0时, 时钟回拨或序列号用完时, 在此范围内借用未来的时间戳
+     *
+     * @param maxBorrowMillis 最大领先毫秒数
+     */
+    public void setMaxBorrowMillis(long maxBorrowMillis) {
+        if (maxBorrowMillis < 0) {
+            throw new IllegalArgumentException("maxBorrowMillis can't be less than 0");
+        }
+        this.maxBorrowMillis = maxBorrowMillis;
+    }
+
+    /** 当前逻辑时间戳领先系统时钟多少毫秒 **/
+    public long getAheadMillis() {
+        long lastTime = state.get() >>> sequenceBits;
+        return Math.max(0, lastTime - (timeGen() - epoch));
+    }
+
+    /** 逻辑时间戳领先系统时钟的最大值(毫秒) **/
+    public long getMaxAheadMillis() {
+        return maxAheadMillis.get();
+    }
+
+    /** 借用未来时间戳的次数 **/
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    /** 生成ID **/
+    public long nextId() {
+        return toId(reserve(1));
+    }
 
-        if (timestamp < lastTimestamp) {
-            log.error("clock is moving backwards.  Rejecting requests until {}.", lastTimestamp);
-            long millis = lastTimestamp - timestamp;
-            String msg = String.format("Clock moved backwards. Refusing to generate id for %d milliseconds", millis);
-            throw new RuntimeException(msg);
+    /**
+     * 批量生成ID, 一次CAS预留同一毫秒内的一段连续序列号
+     *
+     * @param count 数量
+     * @return ID列表, 按生成顺序递增
+     */
+    public long[] nextIds(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count can't be less than 0");
+        }
+        long[] ids = new long[count];
+        int index = 0;
+        while (index < count) {
+            int size = (int) Math.min(count - index, sequenceMask + 1);
+            long first = reserve(size);
+            for (int i = 0; i < size; i++) {
+                ids[index++] = toId(first + i);
+            }
         }
+        return ids;
+    }
 
-        if (lastTimestamp == timestamp) {
-            sequence = (sequence + 1) & sequenceMask;
-            if (sequence == 0) {
-                timestamp = tilNextMillis(lastTimestamp);
+    /**
+     * 预留count个连续的序列号
+     *
+     * @param count 数量, 不能超过每毫秒的序列号总数
+     * @return 第1个序列号对应的状态值(时间戳差值和序列号)
+     */
+    private long reserve(int count) {
+        while (true) {
+            long current = state.get();
+            long lastTime = current >>> sequenceBits;
+            long lastSequence = current & sequenceMask;
+            long now = timeGen() - epoch;
+            long borrow = maxBorrowMillis;
+            if (lastTime - now > borrow) {
+                long millis = lastTime - now;
+                log.error("clock is moving backwards.  Rejecting requests until {}.", lastTime + epoch);
+                String msg = String.format("Clock moved backwards. Refusing to generate id for %d milliseconds", millis);
+                throw new RuntimeException(msg);
+            }
+            long first;
+            boolean borrowed = false;
+            if (now > lastTime) {
+                first = now << sequenceBits;
+            } else if (lastSequence + count <= sequenceMask) {
+                // 时间戳未变化, 或时钟回拨在允许范围内, 继续使用原先的时间戳
+                first = current + 1;
+            } else if (lastTime + 1 - now <= borrow) {
+                // 当前毫秒内的序列号已用完, 借用下一毫秒
+                first = (lastTime + 1) << sequenceBits;
+                borrowed = true;
+            } else {
+                // 当前毫秒内的序列号已用完且不能再借用, 等待时钟追上来
+                waitNextMillis(lastTime - borrow);
+                continue;
+            }
+            if (state.compareAndSet(current, first + count - 1)) {
+                if (borrowed) {
+                    borrowCount.incrementAndGet();
+                }
+                long ahead = (first >>> sequenceBits) - now;
+                if (ahead > 0) {
+                    updateMaxAhead(ahead);
+                }
+                return first;
             }
-        } else {
-            sequence = 0;
         }
+    }
 
-        lastTimestamp = timestamp;
-        return ((timestamp - epoch) << timestampLeftShift) | (datacenterId << datacenterIdShift)
-                | (workerId << workerIdShift) | sequence;
+    /** 将状态值转换为ID **/
+    private long toId(long value) {
+        long timestamp = value >>> sequenceBits;
+        long sequence = value & sequenceMask;
+        return (timestamp << timestampLeftShift) | machineBits | sequence;
+    }
+
+    private void updateMaxAhead(long ahead) {
+        while (true) {
+            long max = maxAheadMillis.get();
+            if (ahead <= max || maxAheadMillis.compareAndSet(max, ahead)) {
+                return;
+            }
+        }
     }
 
-    private long tilNextMillis(long lastTimestamp) {
-        long timestamp = timeGen();
-        while (timestamp <= lastTimestamp) {
-            timestamp = timeGen();
+    /** 等待时间戳超过lastTime, 以短暂休眠代替空转 **/
+    private void waitNextMillis(long lastTime) {
+        while (timeGen() - epoch <= lastTime) {
+            LockSupport.parkNanos(PARK_NANOS);
         }
-        return timestamp;
     }
 
     private long timeGen() {
@@ -0,0 +1,371 @@
+package com.gitee.qdbp.able.matches;
+
+import com.gitee.qdbp.tools.base.BenchmarkTools;
+import com.gitee.qdbp.tools.utils.StringTools;
+
+/**
+ * AntStringMatcher性能测试<br>
+ * 对比原先每次匹配都拆分字符串的实现与预编译的实现, 同时检查两者的匹配结果是否一致
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class AntStringMatcherBenchmark {
+
+    private static final int ITERATIONS = 1000000;
+
+    private static final String[] PATTERNS = { "/**", "/api/**", "/api/*/detail", "/api/**/*.json", "/static/**/*.js",
+            "/user/?/info", "/**/admin/**", "/a/**/b/**/c", "*.html", "/docs/cvs/*.html", "/docs/", "/a/*",
+            "/a/b*c?d/**", "**/x", "/" };
+
+    private static final String[] PATHS = { "/", "", "/api", "/api/", "/api/user/detail", "/api/user/list/detail",
+            "/api/v1/user/list.json", "/static/js/lib/jquery.js", "/static/css/main.css", "/user/1/info",
+            "/user/12/info", "/sys/admin/user/edit", "/a/x/b/y/z/c", "/a/b/c", "/a/bxxcyd/e", "index.html",
+            "/docs/cvs/commit.html", "/docs/", "/docs", "/a/", "/a/ b /", "x", "/x", "a/x" };
+
+    public static void main(String[] args) {
+        checkSame(true);
+        checkSame(false);
+
+        for (final String pattern : new String[] { "/api/**/*.json", "/static/**/*.js", "/user/?/info" }) {
+            final LegacyMatcher legacy = new LegacyMatcher(pattern);
+            final AntStringMatcher compiled = new AntStringMatcher(pattern);
+            BenchmarkTools.run("legacy " + pattern, 1, ITERATIONS, new BenchmarkTools.Operation() {
+
+                @Override
+                public void execute(int thread, int index) {
+                    legacy.matches(PATHS[index % PATHS.length]);
+                }
+            });
+            BenchmarkTools.run("compiled " + pattern, 1, ITERATIONS, new BenchmarkTools.Operation() {
+
+                @Override
+                public void execute(int thread, int index) {
+                    compiled.matches(PATHS[index % PATHS.length]);
+                }
+            });
+        }
+    }
+
+    private static void checkSame(boolean fullMatch) {
+        int count = 0;
+        for (String pattern : PATTERNS) {
+            LegacyMatcher legacy = new LegacyMatcher(pattern);
+            AntStringMatcher compiled = new AntStringMatcher(pattern, fullMatch);
+            for (String path : PATHS) {
+                boolean expected = legacy.doMatch(pattern, path, fullMatch);
+                boolean actual = compiled.matches(path);
+                if (expected != actual) {
+                    String fmt = "Mismatch: pattern=%s, path=%s, fullMatch=%s, expected=%s, actual=%s";
+                    throw new IllegalStateException(String.format(fmt, pattern, path, fullMatch, expected, actual));
+                }
+                count++;
+            }
+        }
+        System.out.println("fullMatch=" + fullMatch + ", " + count + " cases passed.");
+    }
+
+    /** 原先每次匹配都拆分字符串的实现, 作为对照 **/
+    private static class LegacyMatcher {
+
+        private final String pattern;
+        private final char pathSeparator = '/';
+
+        public LegacyMatcher(String pattern) {
+            this.pattern = pattern;
+        }
+
+        public boolean matches(String path) {
+            return doMatch(pattern, path, true);
+        }
+
+        /**
+         * Actually match the given <code>path</code> against the given <code>pattern</code>.
+         *
+         * @param pattern   the pattern to match against
+         * @param path      the path String to test
+         * @param fullMatch whether a full pattern match is required
+         *                  (else a pattern match as far as the given base path goes is sufficient)
+         * @return <code>true</code> if the supplied <code>path</code> matched,
+         *         <code>false</code> if it didn't
+         */
+        protected boolean doMatch(String pattern, String path, boolean fullMatch) {
+            if (startsWithSeparator(path) != startsWithSeparator(pattern)) {
+                return false;
+            }
+
+            String[] pattDirs = StringTools.split(pattern, pathSeparator);
+            String[] pathDirs = StringTools.split(path, pathSeparator);
+
+            int pattIdxStart = 0;
+            int pattIdxEnd = pattDirs.length - 1;
+            int pathIdxStart = 0;
+            int pathIdxEnd = pathDirs.length - 1;
+
+            // Match all elements up to the first **
+            while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+                String patDir = pattDirs[pattIdxStart];
+                if ("**".equals(patDir)) {
+                    break;
+                }
+                if (!matchStrings(patDir, pathDirs[pathIdxStart])) {
+                    return false;
+                }
+                pattIdxStart++;
+                pathIdxStart++;
+            }
+
+            if (pathIdxStart > pathIdxEnd) {
+                // Path is exhausted, only match if rest of pattern is * or **'s
+                if (pattIdxStart > pattIdxEnd) {
+                    return (endsWithSeparator(pattern) ? endsWithSeparator(path) : !endsWithSeparator(path));
+                }
+                if (!fullMatch) {
+                    return true;
+                }
+                if (pattIdxStart == pattIdxEnd && pattDirs[pattIdxStart].equals("*") && endsWithSeparator(path)) {
+                    return true;
+                }
+                for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
+                    if (!pattDirs[i].equals("**")) {
+                        return false;
+                    }
+                }
+                return true;
+            } else if (pattIdxStart > pattIdxEnd) {
+                // String not exhausted, but pattern is. Failure.
+                return false;
+            } else if (!fullMatch && "**".equals(pattDirs[pattIdxStart])) {
+                // Path start definitely matches due to "**" part in pattern.
+                return true;
+            }
+
+            // up to last '**'
+            while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+                String patDir = pattDirs[pattIdxEnd];
+                if (patDir.equals("**")) {
+                    break;
+                }
+                if (!matchStrings(patDir, pathDirs[pathIdxEnd])) {
+                    return false;
+                }
+                pattIdxEnd--;
+                pathIdxEnd--;
+            }
+            if (pathIdxStart > pathIdxEnd) {
+                // String is exhausted
+                for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
+                    if (!pattDirs[i].equals("**")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            while (pattIdxStart != pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+                int patIdxTmp = -1;
+                for (int i = pattIdxStart + 1; i <= pattIdxEnd; i++) {
+                    if (pattDirs[i].equals("**")) {
+                        patIdxTmp = i;
+                        break;
+                    }
+                }
+                if (patIdxTmp == pattIdxStart + 1) {
+                    // '**/**' situation, so skip one
+                    pattIdxStart++;
+                    continue;
+                }
+                // Find the pattern between padIdxStart & padIdxTmp in str between
+                // strIdxStart & strIdxEnd
+                int patLength = (patIdxTmp - pattIdxStart - 1);
+                int strLength = (pathIdxEnd - pathIdxStart + 1);
+                int foundIdx = -1;
+
+                strLoop:
+                for (int i = 0; i <= strLength - patLength; i++) {
+                    for (int j = 0; j < patLength; j++) {
+                        String subPat = (String) pattDirs[pattIdxStart + j + 1];
+                        String subStr = (String) pathDirs[pathIdxStart + i + j];
+                        if (!matchStrings(subPat, subStr)) {
+                            continue strLoop;
+                        }
+                    }
+                    foundIdx = pathIdxStart + i;
+                    break;
+                }
+
+                if (foundIdx == -1) {
+                    return false;
+                }
+
+                pattIdxStart = patIdxTmp;
+                pathIdxStart = foundIdx + patLength;
+            }
+
+            for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
+                if (!pattDirs[i].equals("**")) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Tests whether or not a string matches against a pattern.
+         * The pattern may contain two special characters:<br>
+         * '*' means zero or more characters<br>
+         * '?' means one and only one character
+         *
+         * @param pattern pattern to match against.
+         *                Must not be <code>null</code>.
+         * @param str     string which must be matched against the pattern.
+         *                Must not be <code>null</code>.
+         * @return <code>true</code> if the string matches against the
+         *         pattern, or <code>false</code> otherwise.
+         */
+        private boolean matchStrings(String pattern, String str) {
+            char[] patArr = pattern.toCharArray();
+            char[] strArr = str.toCharArray();
+            int patIdxStart = 0;
+            int patIdxEnd = patArr.length - 1;
+            int strIdxStart = 0;
+            int strIdxEnd = strArr.length - 1;
+            char ch;
+
+            boolean containsStar = false;
+            for (char aPatArr : patArr) {
+                if (aPatArr == '*') {
+                    containsStar = true;
+                    break;
+                }
+            }
+
+            if (!containsStar) {
+                // No '*'s, so we make a shortcut
+                if (patIdxEnd != strIdxEnd) {
+                    return false; // Pattern and string do not have the same size
+                }
+                for (int i = 0; i <= patIdxEnd; i++) {
+                    ch = patArr[i];
+                    if (ch != '?') {
+                        if (ch != strArr[i]) {
+                            return false;// Character mismatch
+                        }
+                    }
+                }
+                return true; // String matches against pattern
+            }
+
+
+            if (patIdxEnd == 0) {
+                return true; // Pattern contains only '*', which matches anything
+            }
+
+            // Process characters before first star
+            while ((ch = patArr[patIdxStart]) != '*' && strIdxStart <= strIdxEnd) {
+                if (ch != '?') {
+                    if (ch != strArr[strIdxStart]) {
+                        return false;// Character mismatch
+                    }
+                }
+                patIdxStart++;
+                strIdxStart++;
+            }
+            if (strIdxStart > strIdxEnd) {
+                // All characters in the string are used. Check if only '*'s are
+                // left in the pattern. If so, we succeeded. Otherwise failure.
+                for (int i = patIdxStart; i <= patIdxEnd; i++) {
+                    if (patArr[i] != '*') {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            // Process characters after last star
+            while ((ch = patArr[patIdxEnd]) != '*' && strIdxStart <= strIdxEnd) {
+                if (ch != '?') {
+                    if (ch != strArr[strIdxEnd]) {
+                        return false;// Character mismatch
+                    }
+                }
+                patIdxEnd--;
+                strIdxEnd--;
+            }
+            if (strIdxStart > strIdxEnd) {
+                // All characters in the string are used. Check if only '*'s are
+                // left in the pattern. If so, we succeeded. Otherwise failure.
+                for (int i = patIdxStart; i <= patIdxEnd; i++) {
+                    if (patArr[i] != '*') {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            // process pattern between stars. padIdxStart and patIdxEnd point
+            // always to a '*'.
+            while (patIdxStart != patIdxEnd && strIdxStart <= strIdxEnd) {
+                int patIdxTmp = -1;
+                for (int i = patIdxStart + 1; i <= patIdxEnd; i++) {
+                    if (patArr[i] == '*') {
+                        patIdxTmp = i;
+                        break;
+                    }
+                }
+                if (patIdxTmp == patIdxStart + 1) {
+                    // Two stars next to each other, skip the first one.
+                    patIdxStart++;
+                    continue;
+                }
+                // Find the pattern between padIdxStart & padIdxTmp in str between
+                // strIdxStart & strIdxEnd
+                int patLength = (patIdxTmp - patIdxStart - 1);
+                int strLength = (strIdxEnd - strIdxStart + 1);
+                int foundIdx = -1;
+                strLoop:
+                for (int i = 0; i <= strLength - patLength; i++) {
+                    for (int j = 0; j < patLength; j++) {
+                        ch = patArr[patIdxStart + j + 1];
+                        if (ch != '?') {
+                            if (ch != strArr[strIdxStart + i + j]) {
+                                continue strLoop;
+                            }
+                        }
+                    }
+
+                    foundIdx = strIdxStart + i;
+                    break;
+                }
+
+                if (foundIdx == -1) {
+                    return false;
+                }
+
+                patIdxStart = patIdxTmp;
+                strIdxStart = foundIdx + patLength;
+            }
+
+            // All characters in the string are used. Check if only '*'s are left
+            // in the pattern. If so, we succeeded. Otherwise failure.
+            for (int i = patIdxStart; i <= patIdxEnd; i++) {
+                if (patArr[i] != '*') {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private boolean endsWithSeparator(String string) {
+            if (string == null || string.length() == 0) return false;
+            return string.charAt(string.length() - 1) == pathSeparator;
+        }
+
+        private boolean startsWithSeparator(String string) {
+            if (string == null || string.length() == 0) return false;
+            return string.charAt(0) == pathSeparator;
+        }
+    }
+}
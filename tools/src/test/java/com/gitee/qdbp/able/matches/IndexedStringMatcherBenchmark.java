@@ -0,0 +1,110 @@
+package com.gitee.qdbp.able.matches;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import com.gitee.qdbp.able.matches.StringMatcher.LogicType;
+import com.gitee.qdbp.tools.base.BenchmarkTools;
+
+/**
+ * IndexedStringMatcher性能测试<br>
+ * 数百条规则时对比WrapStringMatcher逐一判断与IndexedStringMatcher索引查找, 同时检查两者找到的规则是否一致
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class IndexedStringMatcherBenchmark {
+
+    private static final int ITERATIONS = 200000;
+
+    public static void main(String[] args) {
+        Random random = new Random(20201017);
+        StringBuilder patterns = new StringBuilder();
+        String[] modules = { "user", "order", "goods", "report", "admin", "static", "api", "file" };
+        for (int i = 0; i < 100; i++) {
+            String module = modules[i % modules.length];
+            patterns.append("equals:/").append(module).append("/page").append(i).append(".html\n");
+            patterns.append("starts:/").append(module).append("/v").append(i).append("/\n");
+            patterns.append("ends:.").append(module).append(i).append('\n');
+            patterns.append("contains:/tmp").append(i).append("/\n");
+            patterns.append("ant:/").append(module).append("/**/item").append(i).append("/*.json\n");
+        }
+        patterns.append("regexp:.*/debug/.*\n");
+        patterns.append("ant:/**/*.bak\n");
+        patterns.append("contains!:/\n");
+
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String module = modules[random.nextInt(modules.length)];
+            int n = random.nextInt(150);
+            switch (random.nextInt(8)) {
+            case 0:
+                sources.add("/" + module + "/page" + n + ".html");
+                break;
+            case 1:
+                sources.add("/" + module + "/v" + n + "/list");
+                break;
+            case 2:
+                sources.add("/" + module + "/data." + module + n);
+                break;
+            case 3:
+                sources.add("/" + module + "/tmp" + n + "/a.txt");
+                break;
+            case 4:
+                sources.add("/" + module + "/x/y/item" + n + "/" + n + ".json");
+                break;
+            case 5:
+                sources.add("/" + module + "/debug/" + n);
+                break;
+            case 6:
+                sources.add("/" + module + "/" + n + ".bak");
+                break;
+            default:
+                sources.add("/" + module + "/detail/" + n);
+            }
+        }
+
+        final WrapStringMatcher wrap = (WrapStringMatcher) WrapStringMatcher.parseMatchers(patterns.toString(),
+            LogicType.OR, "equals", '\n');
+        final IndexedStringMatcher indexed = IndexedStringMatcher.parseMatchers(patterns.toString(), LogicType.OR,
+            "equals", '\n');
+        System.out.println("patterns: " + indexed.getMatchers().size());
+
+        int matched = 0;
+        for (String source : sources) {
+            // 两边是分别解析的, 比较匹配规则的序号
+            int expected = -1;
+            List<StringMatcher> matchers = wrap.getMatchers();
+            for (int i = 0; i < matchers.size(); i++) {
+                if (matchers.get(i).matches(source)) {
+                    expected = i;
+                    break;
+                }
+            }
+            int actual = indexed.getMatchers().indexOf(indexed.findMatcher(source));
+            if (expected != actual || wrap.matches(source) != indexed.matches(source)) {
+                throw new IllegalStateException("Mismatch: " + source + ", expected=" + expected + ", actual=" + actual);
+            }
+            if (actual >= 0) {
+                matched++;
+            }
+        }
+        System.out.println(sources.size() + " sources checked, " + matched + " matched.");
+
+        final String[] array = sources.toArray(new String[0]);
+        BenchmarkTools.run("wrap matcher", 1, ITERATIONS, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                wrap.matches(array[index % array.length]);
+            }
+        });
+        BenchmarkTools.run("indexed matcher", 1, ITERATIONS, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                indexed.matches(array[index % array.length]);
+            }
+        });
+    }
+}
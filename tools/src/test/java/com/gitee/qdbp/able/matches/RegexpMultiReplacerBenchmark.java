@@ -0,0 +1,136 @@
+package com.gitee.qdbp.able.matches;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import com.gitee.qdbp.tools.base.BenchmarkTools;
+
+/**
+ * RegexpMultiMatcher/RegexpMultiReplacer性能测试<br>
+ * 对比逐一判断的RegexpStringMatcher与合并匹配, 依次调用的RegexpStringReplacer与合并替换<br>
+ * 规则之间互不影响时, 合并替换与依次替换的结果相同, 先检查结果是否一致; 最后演示回溯上限的保护
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class RegexpMultiReplacerBenchmark {
+
+    private static final int ITERATIONS = 100000;
+
+    public static void main(String[] args) {
+        String[] keywords = { "user", "order", "goods", "report", "admin", "static", "api", "file" };
+        List<String> matcherPatterns = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            String keyword = keywords[i % keywords.length];
+            matcherPatterns.add("/" + keyword + "/v" + i + "/[a-z]+\\.html?$");
+        }
+        matcherPatterns.add("^/debug/.*\\d{4,}");
+        // 反向引用不能转换为DFA, 由java.util.regex判断
+        matcherPatterns.add("/(\\w+)/\\1/");
+
+        // 替换规则: 各规则匹配的内容互不重叠
+        String[] replacements = { "\\d{11}", "***********", "[\\w.]+@[\\w.]+", "<email>", "\\s+", " ",
+                "(\\d{4})-(\\d{2})-(\\d{2})", "$1$2$3", "(?i)password=\\S*", "password=******" };
+
+        Random random = new Random(20201017);
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String keyword = keywords[random.nextInt(keywords.length)];
+            int n = random.nextInt(60);
+            switch (random.nextInt(4)) {
+            case 0:
+                sources.add("/" + keyword + "/v" + n + "/detail.html");
+                break;
+            case 1:
+                sources.add("/debug/" + keyword + "/" + random.nextInt(100000));
+                break;
+            case 2:
+                sources.add("/" + keyword + "/" + keyword + "/list");
+                break;
+            default:
+                sources.add("/" + keyword + "/" + n + "  mobile 1380013" + random.nextInt(10000) + " mail " + keyword
+                        + n + "@test.com  date 2020-10-" + (10 + random.nextInt(20)) + " password=" + n);
+            }
+        }
+
+        List<StringMatcher> matchers = new ArrayList<>();
+        for (String pattern : matcherPatterns) {
+            matchers.add(new RegexpStringMatcher(pattern));
+        }
+        final WrapStringMatcher wrapMatcher = new WrapStringMatcher(StringMatcher.LogicType.OR,
+            matchers.toArray(new StringMatcher[0]));
+        final RegexpMultiMatcher multiMatcher = new RegexpMultiMatcher(matcherPatterns.toArray(new String[0]));
+
+        List<RegexpStringReplacer> replacers = new ArrayList<>();
+        for (int i = 0; i < replacements.length; i += 2) {
+            replacers.add(new RegexpStringReplacer(replacements[i], replacements[i + 1]));
+        }
+        final RegexpStringReplacer[] chain = replacers.toArray(new RegexpStringReplacer[0]);
+        final RegexpMultiReplacer multiReplacer = RegexpMultiReplacer.of(chain);
+
+        for (String source : sources) {
+            if (wrapMatcher.matches(source) != multiMatcher.matches(source)) {
+                throw new IllegalStateException("Matcher mismatch: " + source);
+            }
+            String expected = source;
+            for (RegexpStringReplacer replacer : chain) {
+                expected = replacer.replace(expected);
+            }
+            String actual = multiReplacer.replace(source);
+            if (!expected.equals(actual)) {
+                throw new IllegalStateException("Replacer mismatch: " + source + "\n\t" + expected + "\n\t" + actual);
+            }
+        }
+        System.out.println(sources.size() + " sources checked.");
+        System.out.println("matcher hit counts: " + Arrays.toString(multiMatcher.getHitCounts()));
+        System.out.println("replacer hit counts: " + Arrays.toString(multiReplacer.getHitCounts()));
+
+        final String[] array = sources.toArray(new String[0]);
+        BenchmarkTools.run("wrap regexp matcher", 1, ITERATIONS, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                wrapMatcher.matches(array[index % array.length]);
+            }
+        });
+        BenchmarkTools.run("multi regexp matcher", 1, ITERATIONS, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                multiMatcher.matches(array[index % array.length]);
+            }
+        });
+        BenchmarkTools.run("chained regexp replacer", 1, ITERATIONS, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                String string = array[index % array.length];
+                for (RegexpStringReplacer replacer : chain) {
+                    string = replacer.replace(string);
+                }
+            }
+        });
+        BenchmarkTools.run("multi regexp replacer", 1, ITERATIONS, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                multiReplacer.replace(array[index % array.length]);
+            }
+        });
+
+        // (a+)+b能转换为DFA, 不会回溯; 带反向引用的规则由java.util.regex判断, 设置了回溯上限时超过上限抛出异常
+        String evil = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaac";
+        System.out.println("(a+)+b --> " + new RegexpMultiMatcher("(a+)+b").matches(evil));
+        RegexpMultiReplacer guarded = new RegexpMultiReplacer(Arrays.asList(Pattern.compile("(a+)+\\1b")),
+            Arrays.asList("-"));
+        guarded.setBacktrackLimit(1000);
+        try {
+            guarded.replace(evil);
+            System.out.println("(a+)+\\1b --> no limit exceeded");
+        } catch (IllegalStateException e) {
+            System.out.println("(a+)+\\1b --> " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.gitee.qdbp.tools.base;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 简易性能测试工具<br>
+ * 先预热一轮, 再计时一轮; 多线程时所有线程同时开始
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class BenchmarkTools {
+
+    /** 被测试的操作 **/
+    public static interface Operation {
+
+        /**
+         * 执行一次操作
+         *
+         * @param thread 线程序号
+         * @param index 本线程内的执行序号
+         */
+        void execute(int thread, int index) throws Exception;
+    }
+
+    /**
+     * 执行性能测试并打印结果
+     *
+     * @param name 测试名称
+     * @param threads 线程数
+     * @param iterations 每个线程的执行次数
+     * @param operation 被测试的操作
+     * @return 每毫秒执行次数
+     */
+    public static double run(String name, int threads, int iterations, Operation operation) {
+        doRun(threads, iterations, operation); // 预热
+        long elapsed = doRun(threads, iterations, operation);
+        long total = (long) threads * iterations;
+        double throughput = total * 1000000.0 / Math.max(elapsed, 1);
+        System.out.printf("%-40s threads=%-3d ops=%-10d elapsed=%8.2fms throughput=%12.2f ops/ms%n", name, threads,
+            total, elapsed / 1000000.0, throughput);
+        return throughput;
+    }
+
+    private static long doRun(int threads, final int iterations, final Operation operation) {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(threads);
+        final List<Throwable> errors = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < iterations; i++) {
+                            operation.execute(thread, i);
+                        }
+                    } catch (Throwable e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    } finally {
+                        finish.countDown();
+                    }
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        try {
+            finish.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long elapsed = System.nanoTime() - begin;
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("Benchmark failed", errors.get(0));
+        }
+        return elapsed;
+    }
+}
@@ -0,0 +1,119 @@
+package com.gitee.qdbp.tools.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import com.gitee.qdbp.able.beans.Duration;
+
+/**
+ * InMemoryCache淘汰测试<br>
+ * 超出数量限制时降至限制的90%, 检查淘汰的正好是分值最小的k个缓存项(LRU按最后访问时间, LFU按访问次数)
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class EvictionTest {
+
+    private static final int MAX_ENTRIES = 100;
+    /** 超出限制之后降至限制的90%, 需要淘汰的数量 **/
+    private static final int EVICT_COUNT = MAX_ENTRIES + 1 - MAX_ENTRIES * 90 / 100;
+
+    public static void main(String[] args) throws Exception {
+        testLru();
+        testLfu();
+        testExpiredFirst();
+        System.out.println("EvictionTest ok");
+    }
+
+    /** LRU: 淘汰最久未访问的k个, 最近访问过的全部保留 **/
+    private static void testLru() throws InterruptedException {
+        InMemoryCache cache = new InMemoryCache(MAX_ENTRIES, 0, EvictionPolicy.LRU);
+        for (int i = 0; i < MAX_ENTRIES; i++) {
+            cache.set("key" + i, "value" + i);
+            Thread.sleep(2); // 保证最后访问时间各不相同
+        }
+        // 访问前一半, 后一半中最早写入的成为最久未访问的
+        for (int i = 0; i < MAX_ENTRIES / 2; i++) {
+            cache.get("key" + i, String.class);
+        }
+        cache.set("key" + MAX_ENTRIES, "value" + MAX_ENTRIES);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = MAX_ENTRIES / 2; i < MAX_ENTRIES / 2 + EVICT_COUNT; i++) {
+            expected.add("key" + i);
+        }
+        checkEvicted("lru", cache, expected);
+    }
+
+    /** LFU: 淘汰访问次数最少的k个, 包括刚写入还未访问过的 **/
+    private static void testLfu() {
+        InMemoryCache cache = new InMemoryCache(MAX_ENTRIES, 0, EvictionPolicy.LFU);
+        for (int i = 0; i < MAX_ENTRIES; i++) {
+            cache.set("key" + i, "value" + i);
+        }
+        // 访问次数各不相同: key{i}访问 (i*37%100)+1 次
+        for (int i = 0; i < MAX_ENTRIES; i++) {
+            int times = i * 37 % MAX_ENTRIES + 1;
+            for (int j = 0; j < times; j++) {
+                cache.get("key" + i, String.class);
+            }
+        }
+        cache.set("key" + MAX_ENTRIES, "value" + MAX_ENTRIES);
+
+        // 新写入的访问次数为0, 其余是访问次数为1~(k-1)的
+        List<String> expected = new ArrayList<>();
+        expected.add("key" + MAX_ENTRIES);
+        for (int i = 0; i < MAX_ENTRIES; i++) {
+            int times = i * 37 % MAX_ENTRIES + 1;
+            if (times < EVICT_COUNT) {
+                expected.add("key" + i);
+            }
+        }
+        checkEvicted("lfu", cache, expected);
+    }
+
+    /** 已过期的直接清除, 不计入淘汰数量 **/
+    private static void testExpiredFirst() throws InterruptedException {
+        InMemoryCache cache = new InMemoryCache(MAX_ENTRIES, 0, EvictionPolicy.LFU);
+        for (int i = 0; i < EVICT_COUNT; i++) {
+            cache.set("expired" + i, (Object) ("value" + i), new Duration.Millis(1));
+        }
+        for (int i = EVICT_COUNT; i < MAX_ENTRIES; i++) {
+            cache.set("key" + i, "value" + i);
+        }
+        Thread.sleep(20);
+        cache.set("key" + MAX_ENTRIES, "value" + MAX_ENTRIES);
+
+        CacheStats stats = cache.getStats();
+        check("expired size", stats.getEntryCount() == MAX_ENTRIES + 1 - EVICT_COUNT, stats);
+        check("expired evictions", stats.getEvictionCount() == 0, stats);
+        check("expired expirations", stats.getExpirationCount() == EVICT_COUNT, stats);
+        List<String> missing = new ArrayList<>();
+        for (int i = EVICT_COUNT; i <= MAX_ENTRIES; i++) {
+            if (!cache.exist("key" + i)) {
+                missing.add("key" + i);
+            }
+        }
+        check("expired kept", missing.isEmpty(), missing);
+    }
+
+    private static void checkEvicted(String name, InMemoryCache cache, List<String> expected) {
+        check(name + " expected", expected.size() == EVICT_COUNT, expected);
+        List<String> evicted = new ArrayList<>();
+        for (int i = 0; i <= MAX_ENTRIES; i++) {
+            if (!cache.exist("key" + i)) {
+                evicted.add("key" + i);
+            }
+        }
+        CacheStats stats = cache.getStats();
+        check(name + " size", stats.getEntryCount() == MAX_ENTRIES + 1 - EVICT_COUNT, stats);
+        check(name + " evictions", stats.getEvictionCount() == EVICT_COUNT, stats);
+        check(name + " evicted", evicted.containsAll(expected) && expected.containsAll(evicted), evicted);
+    }
+
+    private static void check(String name, boolean condition, Object details) {
+        if (!condition) {
+            throw new IllegalStateException(name + " failed: " + details);
+        }
+        System.out.println(name + " ok");
+    }
+}
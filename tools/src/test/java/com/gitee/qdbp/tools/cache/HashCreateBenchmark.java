@@ -0,0 +1,56 @@
+package com.gitee.qdbp.tools.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import com.gitee.qdbp.tools.base.BenchmarkTools;
+
+/**
+ * 多线程hset新KEY(并发创建哈希表)的性能测试<br>
+ * 对比String.intern()加锁与putIfAbsent无锁创建
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class HashCreateBenchmark {
+
+    private static final int ITERATIONS = 100000;
+
+    public static void main(String[] args) {
+        int[] threadCounts = { 1, 8, 32 };
+        for (int threads : threadCounts) {
+            test("intern-lock", new InternLockCache(), threads);
+            test("lock-free", new InMemoryCache(), threads);
+        }
+    }
+
+    private static void test(String name, final InMemoryCache cache, int threads) {
+        BenchmarkTools.run(name + " hset new keys", threads, ITERATIONS, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                // 一半是线程独有的新KEY, 一半是所有线程争抢的同一批新KEY
+                String key = index % 2 == 0 ? "t" + thread + ":" + index : "shared:" + index;
+                cache.hset(key, "field", "value");
+            }
+        });
+    }
+
+    /** 原先基于String.intern()加锁的实现, 作为对照 **/
+    private static class InternLockCache extends InMemoryCache {
+
+        @Override
+        protected MapItem getOrCreateMapItem(String key, String subkey) {
+            String k = concat(key, subkey);
+            MapItem item = getMapItem(key, subkey);
+            if (item == null) {
+                synchronized (k.intern()) {
+                    item = getMapItem(key, subkey);
+                    if (item == null) {
+                        item = new MapItem(new ConcurrentHashMap<String, Object>());
+                        putItem(k, item);
+                    }
+                }
+            }
+            return item;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.gitee.qdbp.tools.cache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.gitee.qdbp.able.beans.Duration;
+
+/**
+ * InMemoryCache加载/刷新测试<br>
+ * 并发时只加载一次, 加载结果为null或加载失败时不缓存, 超过刷新时间返回旧值并在后台只刷新一次
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class LoaderTest {
+
+    public static void main(String[] args) throws Exception {
+        testConcurrentLoad();
+        testNullValue();
+        testLoadFailure();
+        testRefresh();
+        testRefreshResult();
+        testRefreshRejected();
+        System.out.println("LoaderTest ok");
+    }
+
+    /** 多个线程同时加载同一个KEY, 只调用一次加载器, 所有线程得到同一个结果 **/
+    private static void testConcurrentLoad() throws Exception {
+        final InMemoryCache cache = new InMemoryCache();
+        final CountingLoader loader = new CountingLoader("loaded", 100);
+        final CountDownLatch start = new CountDownLatch(1);
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(new Callable<String>() {
+
+                    @Override
+                    public String call() throws Exception {
+                        start.await();
+                        return cache.get("key", String.class, loader);
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<String> future : futures) {
+                check("concurrent value", "loaded".equals(future.get()), future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        check("concurrent calls", loader.calls.get() == 1, loader.calls);
+        check("concurrent cached", "loaded".equals(cache.get("key", String.class)), cache.get("key", String.class));
+        CacheStats stats = cache.getStats();
+        check("concurrent stats", stats.getLoadSuccessCount() == 1 && stats.getLoadFailureCount() == 0, stats);
+    }
+
+    /** 加载结果为null, 不缓存, 下次再次加载 **/
+    private static void testNullValue() throws Exception {
+        InMemoryCache cache = new InMemoryCache();
+        CountingLoader loader = new CountingLoader(null, 0);
+        check("null value", cache.get("key", String.class, loader) == null, "not null");
+        check("null not cached", !cache.exist("key"), "key");
+        cache.get("key", String.class, loader);
+        check("null reload", loader.calls.get() == 2, loader.calls);
+    }
+
+    /** 加载失败, 异常抛给调用方, 不缓存, 下次再次加载 **/
+    private static void testLoadFailure() throws Exception {
+        InMemoryCache cache = new InMemoryCache();
+        FailingLoader runtime = new FailingLoader(new IllegalArgumentException("runtime"));
+        try {
+            cache.get("key", String.class, runtime);
+            throw new IllegalStateException("Runtime exception should be thrown");
+        } catch (IllegalArgumentException e) {
+            check("runtime exception", "runtime".equals(e.getMessage()), e);
+        }
+        FailingLoader checked = new FailingLoader(new IOException("checked"));
+        try {
+            cache.get("key", String.class, checked);
+            throw new IllegalStateException("Checked exception should be wrapped");
+        } catch (IllegalStateException e) {
+            check("checked exception", e.getCause() instanceof IOException, e);
+        }
+        check("failure not cached", !cache.exist("key"), "key");
+        CacheStats stats = cache.getStats();
+        check("failure stats", stats.getLoadFailureCount() == 2, stats);
+
+        CountingLoader loader = new CountingLoader("recovered", 0);
+        check("failure reload", "recovered".equals(cache.get("key", String.class, loader)), loader.calls);
+    }
+
+    /** 超过刷新时间返回旧值, 只提交一次后台刷新, 刷新完成后返回新值 **/
+    private static void testRefresh() throws Exception {
+        InMemoryCache cache = new InMemoryCache();
+        ManualExecutor executor = new ManualExecutor();
+        cache.setRefreshExecutor(executor);
+        VersionLoader loader = new VersionLoader();
+        Duration expire = new Duration.Hour(1);
+        Duration refresh = new Duration.Millis(50);
+
+        check("refresh first", "v1".equals(cache.get("key", String.class, loader, expire, refresh)), loader.calls);
+        check("refresh fresh", "v1".equals(cache.get("key", String.class, loader, expire, refresh)), loader.calls);
+        check("refresh not submitted", executor.tasks.isEmpty(), executor.tasks);
+
+        Thread.sleep(80);
+        check("refresh stale", "v1".equals(cache.get("key", String.class, loader, expire, refresh)), loader.calls);
+        check("refresh stale again", "v1".equals(cache.get("key", String.class, loader, expire, refresh)), loader.calls);
+        check("refresh submitted once", executor.tasks.size() == 1 && loader.calls.get() == 1, executor.tasks);
+
+        executor.runAll();
+        check("refresh loaded", loader.calls.get() == 2, loader.calls);
+        check("refresh new value", "v2".equals(cache.get("key", String.class, loader, expire, refresh)), loader.calls);
+        check("refresh time reset", executor.tasks.isEmpty(), executor.tasks);
+    }
+
+    /** 刷新结果为null时删除缓存, 刷新失败时保留旧值且允许再次刷新 **/
+    private static void testRefreshResult() throws Exception {
+        InMemoryCache cache = new InMemoryCache();
+        ManualExecutor executor = new ManualExecutor();
+        cache.setRefreshExecutor(executor);
+        Duration expire = new Duration.Hour(1);
+        Duration refresh = new Duration.Millis(20);
+
+        cache.get("key", String.class, new CountingLoader("old", 0), expire, refresh);
+        Thread.sleep(40);
+        FailingLoader failing = new FailingLoader(new IOException("refresh"));
+        check("failed stale", "old".equals(cache.get("key", String.class, failing, expire, refresh)), "old");
+        executor.runAll();
+        check("failed kept", "old".equals(cache.get("key", String.class)), cache.get("key", String.class));
+        cache.get("key", String.class, failing, expire, refresh);
+        check("failed retry", executor.tasks.size() == 1, executor.tasks);
+        executor.tasks.clear();
+
+        InMemoryCache nullCache = new InMemoryCache();
+        nullCache.setRefreshExecutor(executor);
+        nullCache.get("key", String.class, new CountingLoader("old", 0), expire, refresh);
+        Thread.sleep(40);
+        nullCache.get("key", String.class, new CountingLoader(null, 0), expire, refresh);
+        executor.runAll();
+        check("null removed", !nullCache.exist("key"), nullCache.get("key", String.class));
+    }
+
+    /** 后台线程池拒绝刷新任务, 返回旧值, 下次访问时再次尝试 **/
+    private static void testRefreshRejected() throws Exception {
+        InMemoryCache cache = new InMemoryCache();
+        final AtomicInteger rejected = new AtomicInteger();
+        cache.setRefreshExecutor(new Executor() {
+
+            @Override
+            public void execute(Runnable command) {
+                rejected.incrementAndGet();
+                throw new RejectedExecutionException("full");
+            }
+        });
+        Duration expire = new Duration.Hour(1);
+        Duration refresh = new Duration.Millis(20);
+        VersionLoader loader = new VersionLoader();
+        cache.get("key", String.class, loader, expire, refresh);
+        Thread.sleep(40);
+        check("rejected stale", "v1".equals(cache.get("key", String.class, loader, expire, refresh)), loader.calls);
+        check("rejected retry", "v1".equals(cache.get("key", String.class, loader, expire, refresh)), loader.calls);
+        check("rejected count", rejected.get() == 2, rejected);
+    }
+
+    private static class CountingLoader implements CacheLoader<String> {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final String value;
+        private final long sleep;
+
+        public CountingLoader(String value, long sleep) {
+            this.value = value;
+            this.sleep = sleep;
+        }
+
+        @Override
+        public String load(String key) throws Exception {
+            calls.incrementAndGet();
+            if (sleep > 0) {
+                Thread.sleep(sleep);
+            }
+            return value;
+        }
+    }
+
+    private static class VersionLoader implements CacheLoader<String> {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public String load(String key) {
+            return "v" + calls.incrementAndGet();
+        }
+    }
+
+    private static class FailingLoader implements CacheLoader<String> {
+
+        private final Exception exception;
+
+        public FailingLoader(Exception exception) {
+            this.exception = exception;
+        }
+
+        @Override
+        public String load(String key) throws Exception {
+            throw exception;
+        }
+    }
+
+    /** 提交的任务先保存起来, 由测试代码手动执行 **/
+    private static class ManualExecutor implements Executor {
+
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public synchronized void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        public synchronized void runAll() {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+            tasks.clear();
+        }
+    }
+
+    private static void check(String name, boolean condition, Object details) {
+        if (!condition) {
+            throw new IllegalStateException(name + " failed: " + details);
+        }
+        System.out.println(name + " ok");
+    }
+}
@@ -0,0 +1,71 @@
+package com.gitee.qdbp.tools.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import com.gitee.qdbp.able.beans.Duration;
+import com.gitee.qdbp.tools.base.BenchmarkTools;
+
+/**
+ * 二级缓存的性能测试<br>
+ * 用带有固定延迟的InMemoryCache模拟远程缓存
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class NearCacheBenchmark {
+
+    private static final int KEYS = 200;
+    private static final int ITERATIONS = 2000;
+
+    public static void main(String[] args) {
+        final LatencyCache remote = new LatencyCache(TimeUnit.MICROSECONDS.toNanos(200));
+        for (int i = 0; i < KEYS; i++) {
+            remote.set("user:" + i, "name-" + i);
+            remote.hset("config", "item-" + i, i);
+        }
+        final NearCacheService near = new NearCacheService(remote, 1000, new Duration.Second(5));
+
+        test("remote", remote);
+        test("near", near);
+        System.out.println("local: " + near.getLocalCache().getStats());
+    }
+
+    private static void test(String name, final ICacheService cache) {
+        BenchmarkTools.run(name + " get", 8, ITERATIONS, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                cache.get("user:" + (index % KEYS), String.class);
+            }
+        });
+        BenchmarkTools.run(name + " hget", 8, ITERATIONS, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                cache.hget("config", "item-" + (index % KEYS), Integer.class);
+            }
+        });
+    }
+
+    /** 模拟远程缓存, 每次读取都有固定的延迟 **/
+    private static class LatencyCache extends InMemoryCache {
+
+        private final long latency;
+
+        public LatencyCache(long latency) {
+            this.latency = latency;
+        }
+
+        @Override
+        public <T> T get(String key, String subkey, Class<T> clazz) {
+            LockSupport.parkNanos(latency);
+            return super.get(key, subkey, clazz);
+        }
+
+        @Override
+        public <T> T hget(String key, String subkey, String field, Class<T> clazz) {
+            LockSupport.parkNanos(latency);
+            return super.hget(key, subkey, field, clazz);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.gitee.qdbp.tools.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import com.gitee.qdbp.able.beans.Duration;
+import com.gitee.qdbp.tools.cache.NearCacheService.InvalidationListener;
+
+/**
+ * 二级缓存失效测试<br>
+ * 两个节点共用一个远程缓存, 节点A的失效通知转发给节点B<br>
+ * 检查写操作清除本节点的L1并通知其他节点, 绕过二级缓存直接修改远程缓存时L1在过期之后才更新
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class NearCacheTest {
+
+    private static final long LOCAL_EXPIRE = 100;
+
+    public static void main(String[] args) throws Exception {
+        InMemoryCache remote = new InMemoryCache();
+        final NearCacheService nodeA = new NearCacheService(remote, 100, new Duration.Millis(LOCAL_EXPIRE));
+        final NearCacheService nodeB = new NearCacheService(remote, 100, new Duration.Millis(LOCAL_EXPIRE));
+        final List<String> events = new ArrayList<>();
+        // 模拟消息队列: 节点A的失效通知转发给节点B, 节点B的转发给节点A
+        nodeA.addInvalidationListener(new InvalidationListener() {
+
+            @Override
+            public void onInvalidate(String key, String subkey) {
+                events.add("A:" + key + ":" + subkey);
+                nodeB.invalidate(key, subkey);
+            }
+        });
+        nodeB.addInvalidationListener(new InvalidationListener() {
+
+            @Override
+            public void onInvalidate(String key, String subkey) {
+                events.add("B:" + key + ":" + subkey);
+                nodeA.invalidate(key, subkey);
+            }
+        });
+
+        testSimpleValue(remote, nodeA, nodeB, events);
+        testHashField(remote, nodeA, nodeB, events);
+        testMultiKeys(remote, nodeA, nodeB, events);
+        testLocalExpire(remote, nodeA, nodeB);
+        testInvalidateAll(remote, nodeA);
+        System.out.println("NearCacheTest ok");
+    }
+
+    /** set/del之后两个节点都读到新值 **/
+    private static void testSimpleValue(InMemoryCache remote, NearCacheService nodeA, NearCacheService nodeB,
+            List<String> events) {
+        remote.set("user", "v1");
+        check("simple A", "v1".equals(nodeA.get("user", String.class)), nodeA.get("user", String.class));
+        check("simple B", "v1".equals(nodeB.get("user", String.class)), nodeB.get("user", String.class));
+        check("simple cached", nodeA.getLocalCache().exist("user") && nodeB.getLocalCache().exist("user"), "L1");
+
+        nodeA.set("user", "v2");
+        check("set event", events.equals(Arrays.asList("A:user:null")), events);
+        check("set local A", !nodeA.getLocalCache().exist("user"), "A");
+        check("set local B", !nodeB.getLocalCache().exist("user"), "B");
+        check("set A", "v2".equals(nodeA.get("user", String.class)), nodeA.get("user", String.class));
+        check("set B", "v2".equals(nodeB.get("user", String.class)), nodeB.get("user", String.class));
+
+        nodeB.del("user");
+        check("del A", nodeA.get("user", String.class) == null, nodeA.get("user", String.class));
+        check("del B", nodeB.get("user", String.class) == null, nodeB.get("user", String.class));
+        check("del remote", !remote.exist("user"), "remote");
+
+        // invalidate()只清除本地, 不再通知, 避免节点之间循环通知
+        check("no loop", events.equals(Arrays.asList("A:user:null", "B:user:null")), events);
+        events.clear();
+    }
+
+    /** hset/hdel之后两个节点都读到新的字段值 **/
+    private static void testHashField(InMemoryCache remote, NearCacheService nodeA, NearCacheService nodeB,
+            List<String> events) {
+        remote.hset("config", "color", "red");
+        check("hash A", "red".equals(nodeA.hget("config", "color", String.class)), "A");
+        check("hash B", "red".equals(nodeB.hget("config", "color", String.class)), "B");
+        check("hash cached", nodeB.getLocalCache().hexist("config", "color"), "B");
+
+        nodeA.hset("config", "color", "blue");
+        check("hset A", "blue".equals(nodeA.hget("config", "color", String.class)), "A");
+        check("hset B", "blue".equals(nodeB.hget("config", "color", String.class)), "B");
+
+        nodeA.hdel("config", "color");
+        check("hdel A", nodeA.hget("config", "color", String.class) == null, "A");
+        check("hdel B", nodeB.hget("config", "color", String.class) == null, "B");
+        check("hash events", events.equals(Arrays.asList("A:config:null", "A:config:null")), events);
+        events.clear();
+    }
+
+    /** mset/mdel清除每一个KEY **/
+    private static void testMultiKeys(InMemoryCache remote, NearCacheService nodeA, NearCacheService nodeB,
+            List<String> events) {
+        remote.set("k1", "old1");
+        remote.set("k2", "old2");
+        nodeB.get("k1", String.class);
+        nodeB.get("k2", String.class);
+
+        Map<String, String> map = new HashMap<>();
+        map.put("k1", "new1");
+        map.put("k2", "new2");
+        nodeA.mset(map, null);
+        check("mset k1", "new1".equals(nodeB.get("k1", String.class)), nodeB.get("k1", String.class));
+        check("mset k2", "new2".equals(nodeB.get("k2", String.class)), nodeB.get("k2", String.class));
+
+        nodeA.mdel(Arrays.asList("k1", "k2"));
+        check("mdel k1", nodeB.get("k1", String.class) == null, nodeB.get("k1", String.class));
+        check("mdel k2", nodeB.get("k2", String.class) == null, nodeB.get("k2", String.class));
+        check("multi events", events.size() == 4, events);
+        events.clear();
+    }
+
+    /** 绕过二级缓存直接修改远程缓存, L1过期之前读到旧值, 过期之后读到新值 **/
+    private static void testLocalExpire(InMemoryCache remote, NearCacheService nodeA, NearCacheService nodeB)
+            throws InterruptedException {
+        remote.set("stale", "old");
+        remote.hset("stale-hash", "field", "old");
+        check("expire A", "old".equals(nodeA.get("stale", String.class)), "A");
+        check("expire hash A", "old".equals(nodeA.hget("stale-hash", "field", String.class)), "A");
+
+        remote.set("stale", "new");
+        remote.hset("stale-hash", "field", "new");
+        check("stale A", "old".equals(nodeA.get("stale", String.class)), nodeA.get("stale", String.class));
+        check("stale hash A", "old".equals(nodeA.hget("stale-hash", "field", String.class)), "A");
+        check("fresh B", "new".equals(nodeB.get("stale", String.class)), nodeB.get("stale", String.class));
+
+        Thread.sleep(LOCAL_EXPIRE + 50);
+        check("expired A", "new".equals(nodeA.get("stale", String.class)), nodeA.get("stale", String.class));
+        check("expired hash A", "new".equals(nodeA.hget("stale-hash", "field", String.class)), "A");
+    }
+
+    /** invalidateAll清除全部L1 **/
+    private static void testInvalidateAll(InMemoryCache remote, NearCacheService node) {
+        remote.set("all1", "old");
+        remote.set("all2", "old");
+        node.get("all1", String.class);
+        node.get("all2", String.class);
+        remote.set("all1", "new");
+        remote.set("all2", "new");
+        node.invalidateAll();
+        check("all1", "new".equals(node.get("all1", String.class)), node.get("all1", String.class));
+        check("all2", "new".equals(node.get("all2", String.class)), node.get("all2", String.class));
+    }
+
+    private static void check(String name, boolean condition, Object details) {
+        if (!condition) {
+            throw new IllegalStateException(name + " failed: " + details);
+        }
+        System.out.println(name + " ok");
+    }
+}
@@ -0,0 +1,98 @@
+package com.gitee.qdbp.tools.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import com.gitee.qdbp.able.beans.Duration;
+import com.gitee.qdbp.tools.files.FileTools;
+
+/**
+ * InMemoryCache快照测试<br>
+ * 保存后加载到新的缓存, 检查简单值/哈希表/剩余过期时间, 已存在的KEY不覆盖, 保存失败时原快照不变且不留临时文件
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class SnapshotTest {
+
+    public static void main(String[] args) throws Exception {
+        Path root = Files.createTempDirectory("snapshot");
+        try {
+            File file = root.resolve("cache.snapshot").toFile();
+            InMemoryCache cache = new InMemoryCache();
+            cache.set("name", "中文 snapshot");
+            cache.set("empty", "");
+            cache.set("long", (Object) "1 hour", new Duration.Hour(1));
+            cache.set("short", (Object) "300 millis", new Duration.Millis(300));
+            cache.set("expired", (Object) "expired", new Duration.Millis(1));
+            cache.hset("user", "id", "1001");
+            cache.hset("user", "name", "zhaohuihua");
+            Thread.sleep(20);
+            int saved = cache.saveSnapshot(file);
+            check("saved", saved == 5, saved);
+            check("no temp file", !new File(file.getPath() + ".tmp").exists(), file);
+
+            // 已存在的KEY不会被覆盖
+            InMemoryCache loaded = new InMemoryCache();
+            loaded.set("name", "existing");
+            int count = loaded.loadSnapshot(file);
+            check("loaded", count == 4, count);
+            check("not overwritten", "existing".equals(loaded.get("name", String.class)), loaded.get("name", String.class));
+            check("empty", "".equals(loaded.get("empty", String.class)), loaded.get("empty", String.class));
+            check("long", "1 hour".equals(loaded.get("long", String.class)), loaded.get("long", String.class));
+            check("short", "300 millis".equals(loaded.get("short", String.class)), loaded.get("short", String.class));
+            check("expired", !loaded.exist("expired"), "expired");
+            check("hash", "zhaohuihua".equals(loaded.hget("user", "name", String.class)), loaded.haget("user"));
+            check("hash size", loaded.hlen("user") == 2, loaded.haget("user"));
+
+            // 剩余过期时间扣除了保存之后经过的时间
+            Thread.sleep(400);
+            check("short expired", !loaded.exist("short"), loaded.get("short", String.class));
+            check("long kept", loaded.exist("long"), "long");
+            InMemoryCache late = new InMemoryCache();
+            count = late.loadSnapshot(file);
+            check("late loaded", count == 4 && !late.exist("short") && late.exist("name"), count);
+
+            // 再次保存覆盖原快照
+            cache.del("name");
+            cache.hset("user", "age", "30");
+            saved = cache.saveSnapshot(file);
+            InMemoryCache reloaded = new InMemoryCache();
+            reloaded.loadSnapshot(file);
+            check("replaced", !reloaded.exist("name") && reloaded.hlen("user") == 3, saved);
+
+            // 保存失败(目标是非空文件夹), 不留临时文件
+            File folder = root.resolve("folder").toFile();
+            new File(folder, "child").mkdirs();
+            try {
+                cache.saveSnapshot(folder);
+                throw new IllegalStateException("Save to folder should fail");
+            } catch (IOException e) {
+                System.out.println("save failed: " + e.getClass().getSimpleName());
+            }
+            check("failed no temp", !new File(folder.getPath() + ".tmp").exists(), folder);
+
+            // 损坏的快照, 加载失败
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+            try {
+                new InMemoryCache().loadSnapshot(file);
+                throw new IllegalStateException("Truncated snapshot should fail");
+            } catch (IOException e) {
+                System.out.println("truncated: " + e.getClass().getSimpleName());
+            }
+        } finally {
+            FileTools.delete(root.toFile());
+        }
+        System.out.println("SnapshotTest ok");
+    }
+
+    private static void check(String name, boolean condition, Object details) {
+        if (!condition) {
+            throw new IllegalStateException(name + " failed: " + details);
+        }
+        System.out.println(name + " ok");
+    }
+}
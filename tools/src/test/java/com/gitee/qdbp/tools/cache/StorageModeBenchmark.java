@@ -0,0 +1,114 @@
+package com.gitee.qdbp.tools.cache;
+
+import com.gitee.qdbp.able.beans.Copyable;
+import com.gitee.qdbp.tools.base.BenchmarkTools;
+import com.gitee.qdbp.tools.cache.InMemoryCache.StorageMode;
+
+/**
+ * InMemoryCache不同存储方式的性能对比
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class StorageModeBenchmark {
+
+    private static final int KEYS = 1000;
+    private static final int ITERATIONS = 200000;
+
+    public static void main(String[] args) {
+        for (StorageMode mode : StorageMode.values()) {
+            test(mode);
+        }
+    }
+
+    private static void test(StorageMode mode) {
+        final InMemoryCache cache = new InMemoryCache();
+        cache.setStorageMode(mode);
+        for (int i = 0; i < KEYS; i++) {
+            cache.set("order:" + i, newOrder(i));
+            cache.hset("orders", String.valueOf(i), newOrder(i));
+        }
+
+        BenchmarkTools.run(mode + " set", 4, ITERATIONS, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                int i = index % KEYS;
+                cache.set("order:" + i, newOrder(i));
+            }
+        });
+        BenchmarkTools.run(mode + " get", 4, ITERATIONS, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                cache.get("order:" + (index % KEYS), Order.class);
+            }
+        });
+        BenchmarkTools.run(mode + " hget", 4, ITERATIONS, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                cache.hget("orders", String.valueOf(index % KEYS), Order.class);
+            }
+        });
+    }
+
+    private static Order newOrder(int i) {
+        Order order = new Order();
+        order.setId("O" + i);
+        order.setUserId("U" + (i % 100));
+        order.setAmount(i * 100L);
+        order.setRemark("benchmark order " + i);
+        return order;
+    }
+
+    public static class Order implements Copyable {
+
+        private String id;
+        private String userId;
+        private Long amount;
+        private String remark;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public void setUserId(String userId) {
+            this.userId = userId;
+        }
+
+        public Long getAmount() {
+            return amount;
+        }
+
+        public void setAmount(Long amount) {
+            this.amount = amount;
+        }
+
+        public String getRemark() {
+            return remark;
+        }
+
+        public void setRemark(String remark) {
+            this.remark = remark;
+        }
+
+        @Override
+        public Order copy() {
+            Order copy = new Order();
+            copy.setId(id);
+            copy.setUserId(userId);
+            copy.setAmount(amount);
+            copy.setRemark(remark);
+            return copy;
+        }
+    }
+}
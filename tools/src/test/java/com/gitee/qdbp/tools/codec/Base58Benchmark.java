@@ -0,0 +1,53 @@
+package com.gitee.qdbp.tools.codec;
+
+import java.util.Random;
+import com.gitee.qdbp.tools.base.BenchmarkTools;
+
+/**
+ * Base58性能测试<br>
+ * 对比原先逐字节divmod与按块计算的编码解码耗时, 数据长度从id(16字节)到RSA密文(256字节)和大数据(4KB)
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class Base58Benchmark {
+
+    public static void main(String[] args) {
+        int[] lengths = { 16, 64, 256, 4096 };
+        Random random = new Random(20201017);
+        for (int length : lengths) {
+            final byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+            final String encoded = Base58Tools.encode(bytes);
+            int iterations = Math.max(20, 2000000 / length / length * 16);
+            BenchmarkTools.run("classic encode(" + length + ")", 1, iterations, new BenchmarkTools.Operation() {
+
+                @Override
+                public void execute(int thread, int index) {
+                    Base58PropertyTest.Classic.encode(bytes);
+                }
+            });
+            BenchmarkTools.run("block encode(" + length + ")", 1, iterations, new BenchmarkTools.Operation() {
+
+                @Override
+                public void execute(int thread, int index) {
+                    Base58Tools.encode(bytes);
+                }
+            });
+            BenchmarkTools.run("classic decode(" + length + ")", 1, iterations, new BenchmarkTools.Operation() {
+
+                @Override
+                public void execute(int thread, int index) {
+                    Base58PropertyTest.Classic.decode(encoded);
+                }
+            });
+            BenchmarkTools.run("block decode(" + length + ")", 1, iterations, new BenchmarkTools.Operation() {
+
+                @Override
+                public void execute(int thread, int index) {
+                    Base58Tools.decode(encoded);
+                }
+            });
+        }
+    }
+}
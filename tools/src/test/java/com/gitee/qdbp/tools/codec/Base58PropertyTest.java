@@ -0,0 +1,141 @@
+package com.gitee.qdbp.tools.codec;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Base58按块计算与原先逐字节divmod的对比测试<br>
+ * 随机长度, 随机前导0, 全0, 全0xFF等输入, 编码结果必须完全一致, 解码必须还原
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class Base58PropertyTest {
+
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : System.currentTimeMillis();
+        System.out.println("seed: " + seed);
+        Random random = new Random(seed);
+        int cases = 0;
+        for (int length = 0; length <= 300; length++) {
+            for (int round = 0; round < 50; round++) {
+                check(randomBytes(random, length, round));
+                cases++;
+            }
+        }
+        // 长输入, 如RSA密文
+        for (int round = 0; round < 20; round++) {
+            check(randomBytes(random, 256 + random.nextInt(4096), round));
+            cases++;
+        }
+        System.out.println(cases + " cases ok");
+    }
+
+    private static byte[] randomBytes(Random random, int length, int round) {
+        byte[] bytes = new byte[length];
+        switch (round % 5) {
+        case 0: // 全0
+            break;
+        case 1: // 全0xFF
+            Arrays.fill(bytes, (byte) 0xFF);
+            break;
+        case 2: // 前导0
+            random.nextBytes(bytes);
+            Arrays.fill(bytes, 0, random.nextInt(length + 1), (byte) 0);
+            break;
+        default:
+            random.nextBytes(bytes);
+        }
+        return bytes;
+    }
+
+    private static void check(byte[] bytes) {
+        String expected = Classic.encode(bytes);
+        String actual = Base58Tools.encode(bytes);
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException("Encode mismatch: " + HexTools.toString(bytes));
+        }
+        byte[] decoded = Base58Tools.decode(actual);
+        if (!Arrays.equals(bytes, decoded) || !Arrays.equals(Classic.decode(expected), decoded)) {
+            throw new IllegalStateException("Decode mismatch: " + expected);
+        }
+    }
+
+    /** 原先逐字节divmod的实现, 作为对比的基准 **/
+    static class Classic {
+
+        private static final char[] ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz"
+                .toCharArray();
+        private static final int[] INDEXES = new int[128];
+
+        static {
+            Arrays.fill(INDEXES, -1);
+            for (int i = 0; i < ALPHABET.length; i++) {
+                INDEXES[ALPHABET[i]] = i;
+            }
+        }
+
+        static String encode(byte[] input) {
+            if (input.length == 0) {
+                return "";
+            }
+            int zeros = 0;
+            while (zeros < input.length && input[zeros] == 0) {
+                ++zeros;
+            }
+            input = Arrays.copyOf(input, input.length);
+            char[] encoded = new char[input.length * 2];
+            int outputStart = encoded.length;
+            for (int inputStart = zeros; inputStart < input.length;) {
+                encoded[--outputStart] = ALPHABET[divmod(input, inputStart, 256, 58)];
+                if (input[inputStart] == 0) {
+                    ++inputStart;
+                }
+            }
+            while (outputStart < encoded.length && encoded[outputStart] == ALPHABET[0]) {
+                ++outputStart;
+            }
+            while (--zeros >= 0) {
+                encoded[--outputStart] = ALPHABET[0];
+            }
+            return new String(encoded, outputStart, encoded.length - outputStart);
+        }
+
+        static byte[] decode(String input) {
+            if (input.length() == 0) {
+                return new byte[0];
+            }
+            byte[] input58 = new byte[input.length()];
+            for (int i = 0; i < input.length(); ++i) {
+                input58[i] = (byte) INDEXES[input.charAt(i)];
+            }
+            int zeros = 0;
+            while (zeros < input58.length && input58[zeros] == 0) {
+                ++zeros;
+            }
+            byte[] decoded = new byte[input.length()];
+            int outputStart = decoded.length;
+            for (int inputStart = zeros; inputStart < input58.length;) {
+                decoded[--outputStart] = divmod(input58, inputStart, 58, 256);
+                if (input58[inputStart] == 0) {
+                    ++inputStart;
+                }
+            }
+            while (outputStart < decoded.length && decoded[outputStart] == 0) {
+                ++outputStart;
+            }
+            return Arrays.copyOfRange(decoded, outputStart - zeros, decoded.length);
+        }
+
+        private static byte divmod(byte[] number, int firstDigit, int base, int divisor) {
+            int remainder = 0;
+            for (int i = firstDigit; i < number.length; i++) {
+                int digit = (int) number[i] & 0xFF;
+                int temp = remainder * base + digit;
+                number[i] = (byte) (temp / divisor);
+                remainder = temp % divisor;
+            }
+            return (byte) remainder;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.gitee.qdbp.tools.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import com.gitee.qdbp.tools.base.BenchmarkTools;
+import com.gitee.qdbp.tools.codec.bytes.Base58Codec;
+import com.gitee.qdbp.tools.codec.bytes.Base64Codec;
+import com.gitee.qdbp.tools.codec.bytes.BufferByteCodec;
+import com.gitee.qdbp.tools.codec.bytes.HexCodec;
+
+/**
+ * BufferByteCodec性能测试<br>
+ * 检查写入调用方提供的数组与原有方法的结果是否一致,
+ * 然后对比每次创建字符串与复用char[]/StringBuilder的耗时, 以及Hex/Base58输入输出流的编码解码
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class ByteCodecBenchmark {
+
+    private static final int ITERATIONS = 1000000;
+
+    public static void main(String[] args) throws IOException {
+        Random random = new Random(20201017);
+        // 模拟id和签名
+        final byte[][] samples = new byte[256][];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = new byte[i % 2 == 0 ? 16 : 64];
+            random.nextBytes(samples[i]);
+        }
+
+        BufferByteCodec[] codecs = { HexCodec.INSTANCE, Base64Codec.INSTANCE, Base58Codec.INSTANCE };
+        for (BufferByteCodec codec : codecs) {
+            for (byte[] bytes : samples) {
+                String expected = codec.encode(bytes);
+                char[] chars = new char[codec.getMaxEncodedLength(bytes.length)];
+                int length = codec.encode(bytes, 0, bytes.length, chars, 0);
+                if (!expected.equals(new String(chars, 0, length))) {
+                    throw new IllegalStateException("Encode mismatch: " + codec.getClass().getSimpleName());
+                }
+                byte[] decoded = new byte[codec.getMaxDecodedLength(length)];
+                int size = codec.decode(expected, 0, expected.length(), decoded, 0);
+                if (!Arrays.equals(bytes, Arrays.copyOf(decoded, size))) {
+                    throw new IllegalStateException("Decode mismatch: " + codec.getClass().getSimpleName());
+                }
+            }
+        }
+
+        BenchmarkTools.run("HexTools.toString", 1, ITERATIONS, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                HexTools.toString(samples[index & 0xFF]);
+            }
+        });
+        final char[] hexChars = new char[128];
+        BenchmarkTools.run("HexTools.encode(char[])", 1, ITERATIONS, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                byte[] bytes = samples[index & 0xFF];
+                HexTools.encode(bytes, 0, bytes.length, hexChars, 0);
+            }
+        });
+        BenchmarkTools.run("Base64Tools.encode", 1, ITERATIONS, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                Base64Tools.encode(samples[index & 0xFF]);
+            }
+        });
+        final char[] base64Chars = new char[128];
+        BenchmarkTools.run("Base64Tools.encode(char[])", 1, ITERATIONS, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                byte[] bytes = samples[index & 0xFF];
+                Base64Tools.encode(bytes, 0, bytes.length, base64Chars, 0);
+            }
+        });
+        final StringBuilder buffer = new StringBuilder();
+        BenchmarkTools.run("Base64Tools.encode(StringBuilder)", 1, ITERATIONS, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                byte[] bytes = samples[index & 0xFF];
+                try {
+                    Base64Tools.encode(bytes, 0, bytes.length, buffer);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                buffer.setLength(0);
+            }
+        });
+        BenchmarkTools.run("Base58Tools.encode", 1, ITERATIONS / 10, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                Base58Tools.encode(samples[index & 0xFF]);
+            }
+        });
+        final char[] base58Chars = new char[128];
+        BenchmarkTools.run("Base58Tools.encode(char[])", 1, ITERATIONS / 10, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                byte[] bytes = samples[index & 0xFF];
+                Base58Tools.encode(bytes, 0, bytes.length, base58Chars, 0);
+            }
+        });
+
+        // 输入输出流
+        byte[] content = new byte[1024 * 1024];
+        random.nextBytes(content);
+        ByteArrayOutputStream hex = new ByteArrayOutputStream();
+        try (OutputStream os = HexTools.wrap(hex)) {
+            os.write(content);
+        }
+        checkStream("hex", content, HexTools.wrap(new ByteArrayInputStream(hex.toByteArray())));
+        byte[] small = Arrays.copyOf(content, 1024);
+        ByteArrayOutputStream base58 = new ByteArrayOutputStream();
+        try (OutputStream os = Base58Tools.wrap(base58)) {
+            os.write(small);
+        }
+        checkStream("base58", small, Base58Tools.wrap(new ByteArrayInputStream(base58.toByteArray())));
+    }
+
+    private static void checkStream(String name, byte[] expected, InputStream input) throws IOException {
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        try (InputStream is = input) {
+            byte[] buffer = new byte[1000];
+            int length;
+            while ((length = is.read(buffer)) > 0) {
+                actual.write(buffer, 0, length);
+            }
+        }
+        if (!Arrays.equals(expected, actual.toByteArray())) {
+            throw new IllegalStateException("Stream mismatch: " + name);
+        }
+        System.out.println(name + " stream: " + expected.length + " bytes ok");
+    }
+}
@@ -0,0 +1,118 @@
+package com.gitee.qdbp.tools.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import com.gitee.qdbp.tools.base.BenchmarkTools;
+import com.gitee.qdbp.tools.files.FileTools;
+
+/**
+ * DigestTools测试<br>
+ * 检查byte[]/InputStream/ByteBuffer/文件(跨越多个读取块)的摘要与MessageDigest一致, 字符串摘要的字符集与原先一致,
+ * 然后对比每次getInstance与线程复用的耗时, 以及分别读取三次与一次读取同时计算三种摘要的耗时
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class DigestBenchmark {
+
+    private static final String[] ALGORITHMS = { DigestTools.MD5, DigestTools.SHA1, DigestTools.SHA256 };
+
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(20201017);
+        // 跨越读取缓冲区大小的长度
+        int[] lengths = { 0, 1, 1000, 1024 * 1024, 1024 * 1024 + 1, 70 * 1024 * 1024 + 123 };
+        final Path root = Files.createTempDirectory("digest");
+        try {
+            for (int length : lengths) {
+                byte[] bytes = new byte[length];
+                random.nextBytes(bytes);
+                File file = root.resolve("data" + length).toFile();
+                Files.write(file.toPath(), bytes);
+                Map<String, byte[]> files = DigestTools.digests(file, ALGORITHMS);
+                Map<String, byte[]> streams = DigestTools.digests(new ByteArrayInputStream(bytes), ALGORITHMS);
+                Map<String, byte[]> buffers = DigestTools.digests(ByteBuffer.wrap(bytes), ALGORITHMS);
+                for (String algorithm : ALGORITHMS) {
+                    byte[] expected = MessageDigest.getInstance(algorithm).digest(bytes);
+                    check(algorithm + "(" + length + ") bytes", expected, DigestTools.digest(algorithm, bytes));
+                    check(algorithm + "(" + length + ") file", expected, files.get(algorithm));
+                    check(algorithm + "(" + length + ") stream", expected, streams.get(algorithm));
+                    check(algorithm + "(" + length + ") buffer", expected, buffers.get(algorithm));
+                }
+            }
+            System.out.println("md5(abc) = " + DigestTools.md5("abc"));
+            System.out.println("sha256(中文) = " + DigestTools.sha256("中文"));
+            // 不指定字符集时与原先一样使用平台默认的字符集
+            String text = "中文";
+            check("md5(text)", MessageDigest.getInstance("MD5").digest(text.getBytes()),
+                HexTools.toBytes(DigestTools.md5(text)));
+            check("sha256(text, UTF-8)", MessageDigest.getInstance("SHA-256").digest(text.getBytes("UTF-8")),
+                HexTools.toBytes(DigestTools.sha256(text, Charset.forName("UTF-8"))));
+            check("sha1(text, GBK)", MessageDigest.getInstance("SHA-1").digest(text.getBytes("GBK")),
+                HexTools.toBytes(DigestTools.sha1(text, Charset.forName("GBK"))));
+            System.out.println("digests ok");
+
+            final byte[] password = "password".getBytes("UTF-8");
+            BenchmarkTools.run("MessageDigest.getInstance", 1, 1000000, new BenchmarkTools.Operation() {
+
+                @Override
+                public void execute(int thread, int index) {
+                    try {
+                        MessageDigest.getInstance("MD5").digest(password);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            BenchmarkTools.run("DigestTools.digest", 1, 1000000, new BenchmarkTools.Operation() {
+
+                @Override
+                public void execute(int thread, int index) {
+                    DigestTools.digest(DigestTools.MD5, password);
+                }
+            });
+
+            final File file = root.resolve("data" + lengths[lengths.length - 1]).toFile();
+            BenchmarkTools.run("read file 3 times", 1, 5, new BenchmarkTools.Operation() {
+
+                @Override
+                public void execute(int thread, int index) {
+                    try {
+                        for (String algorithm : ALGORITHMS) {
+                            MessageDigest.getInstance(algorithm).digest(Files.readAllBytes(file.toPath()));
+                        }
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            BenchmarkTools.run("DigestTools.digests", 1, 5, new BenchmarkTools.Operation() {
+
+                @Override
+                public void execute(int thread, int index) {
+                    try {
+                        DigestTools.digests(file, ALGORITHMS);
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+        } finally {
+            FileTools.delete(root.toFile());
+        }
+    }
+
+    private static void check(String name, byte[] expected, byte[] actual) {
+        if (!Arrays.equals(expected, actual)) {
+            throw new IllegalStateException(name + " mismatch");
+        }
+    }
+}
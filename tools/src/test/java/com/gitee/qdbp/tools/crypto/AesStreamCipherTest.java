@@ -0,0 +1,162 @@
+package com.gitee.qdbp.tools.crypto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import com.gitee.qdbp.tools.codec.bytes.Base58Codec;
+import com.gitee.qdbp.tools.files.FileTools;
+
+/**
+ * AES/GCM和AES/CTR分块加解密测试<br>
+ * 字节数组/流/文件三种方式的结果必须互通; CTR必须与标准AES/CTR一致; GCM密文被篡改或截断必须解密失败
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class AesStreamCipherTest {
+
+    public static void main(String[] args) throws Exception {
+        String string = "[AES 流式加密 测试]";
+        AesStreamCipher[] ciphers = { new AesGcmCipher("password", Base58Codec.INSTANCE),
+                new AesCtrCipher("password", Base58Codec.INSTANCE) };
+        for (AesStreamCipher cipher : ciphers) {
+            String name = cipher.getClass().getSimpleName();
+            String ciphertext = cipher.encrypt(string);
+            System.out.println(name + " 加密: " + ciphertext);
+            System.out.println(name + " 解密: " + cipher.decrypt(ciphertext));
+        }
+
+        Random random = new Random(20201017);
+        int chunk = AesStreamCipher.CHUNK_SIZE;
+        int[] lengths = { 0, 1, 15, 16, chunk - 1, chunk, chunk + 1, chunk * 3, chunk * 3 + 100 };
+        for (AesStreamCipher cipher : ciphers) {
+            for (int length : lengths) {
+                byte[] plaintext = new byte[length];
+                random.nextBytes(plaintext);
+                checkAll(cipher, plaintext);
+            }
+            System.out.println(cipher.getClass().getSimpleName() + " ok");
+        }
+
+        // CTR与标准AES/CTR一致
+        byte[] plaintext = new byte[chunk * 2 + 33];
+        random.nextBytes(plaintext);
+        SecretKey key = AesTools.generateSecretKey("password".getBytes("UTF-8"), true);
+        byte[] ctr = new AesCtrCipher(key, Base58Codec.INSTANCE).encrypt(plaintext);
+        Cipher standard = Cipher.getInstance("AES/CTR/NoPadding");
+        standard.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(Arrays.copyOf(ctr, 16)));
+        assertEquals("standard ctr", plaintext, standard.doFinal(ctr, 16, ctr.length - 16));
+
+        // GCM防篡改, 防截断
+        AesGcmCipher gcm = new AesGcmCipher("password");
+        byte[] encrypted = gcm.encrypt(plaintext);
+        byte[] tampered = encrypted.clone();
+        tampered[100] ^= 1;
+        assertFailed("tampered", gcm, tampered);
+        // 去掉最后一块
+        int chunkLength = chunk + 16;
+        assertFailed("truncated", gcm, Arrays.copyOf(encrypted, 8 + chunkLength * 2));
+        assertFailed("truncated tag", gcm, Arrays.copyOf(encrypted, encrypted.length - 1));
+
+        // 大文件, 对比串行与并行
+        Path root = Files.createTempDirectory("aes");
+        try {
+            File source = root.resolve("source.bin").toFile();
+            byte[] content = new byte[64 * 1024 * 1024 + 12345];
+            random.nextBytes(content);
+            Files.write(source.toPath(), content);
+            for (AesStreamCipher cipher : ciphers) {
+                String name = cipher.getClass().getSimpleName();
+                File encryptedFile = root.resolve(name + ".enc").toFile();
+                File decryptedFile = root.resolve(name + ".dec").toFile();
+                // 单核机器上也至少用2个线程, 保证并行的代码路径被执行
+                int processors = Math.max(2, Runtime.getRuntime().availableProcessors());
+                for (int parallelism : new int[] { 1, processors }) {
+                    cipher.setParallelism(parallelism);
+                    long start = System.currentTimeMillis();
+                    cipher.encrypt(source, encryptedFile);
+                    long middle = System.currentTimeMillis();
+                    cipher.decrypt(encryptedFile, decryptedFile);
+                    long end = System.currentTimeMillis();
+                    System.out.println(name + " parallelism=" + cipher.getParallelism() + " encrypt " + (middle - start)
+                            + "ms, decrypt " + (end - middle) + "ms");
+                    assertEquals(name + " file", content, Files.readAllBytes(decryptedFile.toPath()));
+                }
+                long start = System.currentTimeMillis();
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                try (InputStream input = cipher.decrypt(Files.newInputStream(encryptedFile.toPath()))) {
+                    copy(input, buffer);
+                }
+                System.out.println(name + " stream decrypt " + (System.currentTimeMillis() - start) + "ms");
+                assertEquals(name + " stream", content, buffer.toByteArray());
+            }
+        } finally {
+            FileTools.delete(root.toFile());
+        }
+    }
+
+    private static void checkAll(AesStreamCipher cipher, byte[] plaintext) throws IOException {
+        String name = cipher.getClass().getSimpleName() + "(" + plaintext.length + ")";
+        byte[] encrypted = cipher.encrypt(plaintext);
+        assertEquals(name + " bytes", plaintext, cipher.decrypt(encrypted));
+
+        // 流加密, 逐字节写入和分段写入
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (OutputStream output = cipher.encrypt(buffer)) {
+            int half = plaintext.length / 2;
+            for (int i = 0; i < half; i++) {
+                output.write(plaintext[i]);
+            }
+            output.write(plaintext, half, plaintext.length - half);
+        }
+        byte[] streamed = buffer.toByteArray();
+        if (streamed.length != encrypted.length) {
+            throw new IllegalStateException(name + " stream length mismatch");
+        }
+        assertEquals(name + " stream to bytes", plaintext, cipher.decrypt(streamed));
+        buffer.reset();
+        try (InputStream input = cipher.decrypt(new ByteArrayInputStream(encrypted))) {
+            copy(input, buffer);
+        }
+        assertEquals(name + " bytes to stream", plaintext, buffer.toByteArray());
+    }
+
+    private static void assertFailed(String name, AesStreamCipher cipher, byte[] ciphertext) {
+        try {
+            cipher.decrypt(ciphertext);
+        } catch (RuntimeException e) {
+            try (InputStream input = cipher.decrypt(new ByteArrayInputStream(ciphertext))) {
+                copy(input, new ByteArrayOutputStream());
+            } catch (IOException ioe) {
+                System.out.println(name + ": " + ioe.getMessage());
+                return;
+            }
+            throw new IllegalStateException(name + " should fail in stream");
+        }
+        throw new IllegalStateException(name + " should fail");
+    }
+
+    private static void assertEquals(String name, byte[] expected, byte[] actual) {
+        if (!Arrays.equals(expected, actual)) {
+            throw new IllegalStateException(name + " mismatch");
+        }
+    }
+
+    private static void copy(InputStream input, OutputStream output) throws IOException {
+        byte[] buffer = new byte[10000];
+        int length;
+        while ((length = input.read(buffer)) >= 0) {
+            output.write(buffer, 0, length);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.gitee.qdbp.tools.crypto;
+
+import java.lang.ref.WeakReference;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import com.gitee.qdbp.tools.base.BenchmarkTools;
+
+/**
+ * CipherCache性能测试<br>
+ * 对比原先每次getInstance+解析密钥与缓存Cipher实例和密钥对象的耗时, 数据是小数据(32字节)<br>
+ * 并检查没有声明为长期持有的私钥/对称密钥不会留在线程缓存中
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class CipherCacheBenchmark {
+
+    private static final int ITERATIONS = 100000;
+
+    public static void main(String[] args) throws Exception {
+        final byte[] data = "0123456789abcdef0123456789abcdef".getBytes();
+
+        // AES/ECB
+        final SecretKey aesKey = AesTools.generateSecretKey("password".getBytes(), true);
+        final byte[] aesEncrypted = AesTools.ecbEncrypt(data, aesKey);
+        check("AES", data, AesTools.ecbDecrypt(aesEncrypted, aesKey));
+        BenchmarkTools.run("AES getInstance per call", 1, ITERATIONS, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                try {
+                    Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
+                    cipher.init(Cipher.DECRYPT_MODE, aesKey);
+                    cipher.doFinal(aesEncrypted);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        BenchmarkTools.run("AES CipherCache", 1, ITERATIONS, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                AesTools.ecbDecrypt(aesEncrypted, aesKey, true);
+            }
+        });
+
+        // RSA, 公钥加密的耗时主要在解析密钥和getInstance
+        KeyPair keyPair = RsaTools.generateKeyPair(1024);
+        final byte[] publicKey = keyPair.getPublic().getEncoded();
+        final byte[] privateKey = keyPair.getPrivate().getEncoded();
+        check("RSA", data, RsaTools.decrypt(RsaTools.encrypt(data, publicKey), privateKey));
+        BenchmarkTools.run("RSA encrypt parse per call", 1, ITERATIONS / 10, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                try {
+                    KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+                    PublicKey key = keyFactory.generatePublic(new X509EncodedKeySpec(publicKey));
+                    Cipher cipher = Cipher.getInstance("RSA");
+                    cipher.init(Cipher.ENCRYPT_MODE, key);
+                    cipher.doFinal(data);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        BenchmarkTools.run("RSA encrypt CipherCache", 1, ITERATIONS / 10, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                RsaTools.encrypt(data, publicKey);
+            }
+        });
+        final RsaCipher rsaCipher = new RsaCipher(publicKey, privateKey);
+        final byte[] rsaEncrypted = rsaCipher.encrypt(data);
+        check("RsaCipher", data, rsaCipher.decrypt(rsaEncrypted));
+        BenchmarkTools.run("RsaCipher decrypt", 1, ITERATIONS / 100, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                rsaCipher.decrypt(rsaEncrypted);
+            }
+        });
+
+        // 多线程, 每个线程各自缓存Cipher实例
+        BenchmarkTools.run("AES CipherCache 4 threads", 4, ITERATIONS, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                if (!Arrays.equals(data, AesTools.ecbDecrypt(aesEncrypted, aesKey, true))) {
+                    throw new IllegalStateException("AES mismatch");
+                }
+            }
+        });
+
+        // 失败后不能影响后续的使用
+        byte[] broken = aesEncrypted.clone();
+        broken[broken.length - 1] ^= 1;
+        try {
+            AesTools.ecbDecrypt(broken, aesKey, true);
+        } catch (RuntimeException e) {
+            System.out.println("broken: " + e.getClass().getSimpleName());
+        }
+        check("AES after failure", data, AesTools.ecbDecrypt(aesEncrypted, aesKey, true));
+
+        // 没有声明为长期持有的私钥和对称密钥, 用完之后不能被线程缓存引用
+        checkReleased("private key", RsaTools.generateKeyPair(1024), data);
+        checkReleased("secret key", AesTools.generateSecretKey("released".getBytes(), true), data);
+        // 声明为长期持有的密钥会被缓存, clear()之后释放
+        SecretKey longLived = AesTools.generateSecretKey("long-lived".getBytes(), true);
+        AesTools.ecbDecrypt(AesTools.ecbEncrypt(data, longLived), longLived, true);
+        WeakReference<SecretKey> reference = new WeakReference<>(longLived);
+        longLived = null;
+        if (isReleased(reference)) {
+            throw new IllegalStateException("long-lived key should be cached");
+        }
+        CipherCache.clear();
+        if (!isReleased(reference)) {
+            throw new IllegalStateException("long-lived key retained after clear()");
+        }
+        System.out.println("clear ok");
+    }
+
+    private static void checkReleased(String name, KeyPair keyPair, byte[] data) {
+        byte[] encrypted = RsaTools.encrypt(data, keyPair.getPublic());
+        check(name, data, RsaTools.decrypt(encrypted, keyPair.getPrivate()));
+        WeakReference<PrivateKey> reference = new WeakReference<>(keyPair.getPrivate());
+        keyPair = null;
+        if (!isReleased(reference)) {
+            throw new IllegalStateException(name + " retained by CipherCache");
+        }
+        System.out.println(name + " released");
+    }
+
+    private static void checkReleased(String name, SecretKey key, byte[] data) {
+        check(name, data, AesTools.ecbDecrypt(AesTools.ecbEncrypt(data, key), key));
+        WeakReference<SecretKey> reference = new WeakReference<>(key);
+        key = null;
+        if (!isReleased(reference)) {
+            throw new IllegalStateException(name + " retained by CipherCache");
+        }
+        System.out.println(name + " released");
+    }
+
+    private static boolean isReleased(WeakReference<?> reference) {
+        for (int i = 0; i < 10 && reference.get() != null; i++) {
+            System.gc();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return reference.get() == null;
+    }
+
+    private static void check(String name, byte[] expected, byte[] actual) {
+        if (!Arrays.equals(expected, actual)) {
+            throw new IllegalStateException(name + " mismatch");
+        }
+        System.out.println(name + " ok");
+    }
+}
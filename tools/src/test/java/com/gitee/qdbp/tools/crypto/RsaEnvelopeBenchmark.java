@@ -0,0 +1,131 @@
+package com.gitee.qdbp.tools.crypto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import com.gitee.qdbp.tools.base.BenchmarkTools;
+import com.gitee.qdbp.tools.codec.bytes.Base58Codec;
+
+/**
+ * RSA分块加密和数字信封测试<br>
+ * 检查超过一块的数据分块加密, 数字信封的字节数组/流, 批量解密的结果,
+ * 然后对比4KB数据分块RSA与数字信封, 以及登录密码逐个解密与批量解密的耗时
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class RsaEnvelopeBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        Random random = new Random(20201017);
+        final RsaCipher cipher = new RsaCipher(1024, Base58Codec.INSTANCE);
+
+        // 分块加密, 原先超过117字节就会报错
+        final byte[] large = new byte[4096];
+        random.nextBytes(large);
+        check("chunked", large, cipher.decrypt(cipher.encrypt(large)));
+        byte[] small = "password".getBytes("UTF-8");
+        check("single", small, cipher.decrypt(cipher.encrypt(small)));
+
+        // 数字信封
+        check("envelope", large, cipher.decryptEnvelope(cipher.encryptEnvelope(large)));
+        check("envelope empty", new byte[0], cipher.decryptEnvelope(cipher.encryptEnvelope(new byte[0])));
+        String text = "[RSA 数字信封 测试]";
+        if (!text.equals(cipher.decryptEnvelope(cipher.encryptEnvelope(text)))) {
+            throw new IllegalStateException("envelope text mismatch");
+        }
+        byte[] stream = new byte[300 * 1024];
+        random.nextBytes(stream);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (OutputStream output = cipher.encryptEnvelope(buffer)) {
+            output.write(stream);
+        }
+        check("envelope bytes", stream, cipher.decryptEnvelope(buffer.toByteArray()));
+        ByteArrayOutputStream decrypted = new ByteArrayOutputStream();
+        try (InputStream input = cipher.decryptEnvelope(new ByteArrayInputStream(buffer.toByteArray()))) {
+            byte[] bytes = new byte[8192];
+            int length;
+            while ((length = input.read(bytes)) >= 0) {
+                decrypted.write(bytes, 0, length);
+            }
+        }
+        check("envelope stream", stream, decrypted.toByteArray());
+
+        // 批量解密
+        final List<String> passwords = new ArrayList<>();
+        final List<String> ciphertexts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String password = "password-" + i;
+            passwords.add(password);
+            ciphertexts.add(i % 10 == 0 ? cipher.encryptEnvelope(password) : cipher.encrypt(password));
+        }
+        List<String> batch = new ArrayList<>();
+        for (int i = 0; i < ciphertexts.size(); i++) {
+            if (i % 10 != 0) {
+                batch.add(ciphertexts.get(i));
+            }
+        }
+        List<String> results = cipher.decrypt(batch);
+        for (int i = 0, j = 0; i < passwords.size(); i++) {
+            String expected = passwords.get(i);
+            String actual = i % 10 == 0 ? cipher.decryptEnvelope(ciphertexts.get(i)) : results.get(j++);
+            if (!expected.equals(actual)) {
+                throw new IllegalStateException("batch mismatch: " + expected);
+            }
+        }
+        System.out.println("batch ok");
+
+        final byte[] chunked = cipher.encrypt(large);
+        final byte[] envelope = cipher.encryptEnvelope(large);
+        BenchmarkTools.run("4KB chunked RSA decrypt", 1, 50, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                cipher.decrypt(chunked);
+            }
+        });
+        BenchmarkTools.run("4KB envelope decrypt", 1, 500, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                cipher.decryptEnvelope(envelope);
+            }
+        });
+        BenchmarkTools.run("4KB envelope encrypt", 1, 5000, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                cipher.encryptEnvelope(large);
+            }
+        });
+        BenchmarkTools.run("login decrypt one by one", 1, 10, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                for (String ciphertext : ciphertexts.subList(1, 10)) {
+                    cipher.decrypt(ciphertext);
+                }
+            }
+        });
+        BenchmarkTools.run("login decrypt batch", 1, 10, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                cipher.decrypt(ciphertexts.subList(1, 10));
+            }
+        });
+    }
+
+    private static void check(String name, byte[] expected, byte[] actual) {
+        if (!Arrays.equals(expected, actual)) {
+            throw new IllegalStateException(name + " mismatch");
+        }
+        System.out.println(name + " ok");
+    }
+}
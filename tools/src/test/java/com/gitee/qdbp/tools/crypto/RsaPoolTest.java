@@ -0,0 +1,74 @@
+package com.gitee.qdbp.tools.crypto;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import com.gitee.qdbp.tools.codec.bytes.Base58Codec;
+
+/**
+ * RsaPool密钥更换测试<br>
+ * 更换后旧公钥加密的数据由备用实例解密, 超过保留数量的旧密钥不能再解密; 后台定期更换不阻塞解密
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class RsaPoolTest {
+
+    public static void main(String[] args) throws InterruptedException {
+        RsaPool pool = new RsaPool(1024, 2);
+        String password = "[RSA 密钥更换 测试]";
+        String key0 = pool.getPublicKey();
+        String text0 = encrypt(key0, password);
+        pool.rotate();
+        String text1 = encrypt(pool.getPublicKey(), password);
+        pool.rotate();
+        String text2 = encrypt(pool.getPublicKey(), password);
+        // 保留2个备用实例, 全部可以解密
+        check(password, pool.decrypt(text0));
+        check(password, pool.decrypt(text1));
+        check(password, pool.decrypt(text2));
+        List<String> batch = pool.decrypt(Arrays.asList(text2, text1, text0));
+        check(password, batch.get(0));
+        check(password, batch.get(2));
+        System.out.println(pool.getMetrics());
+
+        pool.rotate();
+        try {
+            pool.decrypt(text0);
+            throw new IllegalStateException("key0 should be dropped");
+        } catch (RuntimeException e) {
+            System.out.println("key0 dropped: " + e.getClass().getSimpleName());
+        }
+        check(password, pool.decrypt(text1));
+
+        // 后台定期更换, 同时不断解密
+        pool.start(300, TimeUnit.MILLISECONDS);
+        long end = System.currentTimeMillis() + 2000;
+        long maxMillis = 0;
+        int count = 0;
+        while (System.currentTimeMillis() < end) {
+            String text = encrypt(pool.getPublicKey(), password);
+            long start = System.currentTimeMillis();
+            check(password, pool.decrypt(text));
+            maxMillis = Math.max(maxMillis, System.currentTimeMillis() - start);
+            count++;
+        }
+        pool.stop();
+        RsaPool.Metrics metrics = pool.getMetrics();
+        System.out.println(metrics);
+        System.out.println(count + " decrypts during rotation, max " + maxMillis + "ms");
+        if (metrics.getRotations() < 4 || metrics.getActiveKeys() != 3) {
+            throw new IllegalStateException("Background rotation not running");
+        }
+    }
+
+    private static String encrypt(String publicKey, String plaintext) {
+        return new RsaCipher(publicKey, null, Base58Codec.INSTANCE).encrypt(plaintext);
+    }
+
+    private static void check(String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException("Expected " + expected + " but " + actual);
+        }
+    }
+}
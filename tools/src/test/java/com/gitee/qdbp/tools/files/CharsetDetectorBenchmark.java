@@ -0,0 +1,138 @@
+package com.gitee.qdbp.tools.files;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import com.gitee.qdbp.tools.base.BenchmarkTools;
+
+/**
+ * CharsetDetector测试<br>
+ * 检查各种编码的判断结果, 然后对比原先逐字节读取全文件的方式与CharsetDetector抽样判断的耗时
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class CharsetDetectorBenchmark {
+
+    private static final String TEXT = "编号,名称,描述\n1,中文,字符集检测\n2,English,ASCII only\n3,繁體,中華人民共和國\n";
+
+    public static void main(String[] args) throws IOException {
+        CharsetDetector detector = new CharsetDetector();
+        Map<String, byte[]> samples = new LinkedHashMap<>();
+        samples.put("UTF-8", repeat(TEXT.getBytes("UTF-8"), 20));
+        samples.put("GBK", repeat(TEXT.getBytes("GBK"), 20));
+        // 𠀀(U+20000)在GB18030中是四字节编码
+        samples.put("GB18030", repeat((TEXT + "𠀀\n").getBytes("GB18030"), 20));
+        samples.put("UTF-16LE", repeat(TEXT.getBytes("UTF-16LE"), 20));
+        samples.put("UTF-16BE", repeat(TEXT.getBytes("UTF-16BE"), 20));
+        for (Map.Entry<String, byte[]> entry : samples.entrySet()) {
+            byte[] bytes = entry.getValue();
+            CharsetDetector.Result result = detector.detect(bytes, 0, bytes.length);
+            System.out.println(entry.getKey() + " --> " + result);
+            check(entry.getKey(), result);
+        }
+        // UTF-8为主, 混有少量GBK
+        byte[] mixed = concat(repeat(TEXT.getBytes("UTF-8"), 50), "中文".getBytes("GBK"));
+        check("UTF-8", detector.detect(mixed, 0, mixed.length));
+        // BOM
+        byte[] bom = concat(new byte[] { (byte) 0xFF, (byte) 0xFE }, TEXT.getBytes("UTF-16LE"));
+        CharsetDetector.Result result = detector.detect(bom, 0, bom.length);
+        check("UTF-16LE", result);
+        if (result.getBomLength() != 2) {
+            throw new IllegalStateException("BOM length should be 2: " + result.getBomLength());
+        }
+        check("UTF-8", detector.detect("ASCII only".getBytes(), 0, 10));
+
+        final Path root = Files.createTempDirectory("charset");
+        try {
+            // 开头是ASCII, 中文只出现在中间: 原先的方式要读到中间才能判断
+            final Path file = root.resolve("large.csv");
+            byte[] ascii = repeat("1,English,ASCII only\n".getBytes(), 1024 * 1024);
+            Files.write(file, concat(concat(ascii, repeat(TEXT.getBytes("UTF-8"), 1000)), ascii));
+            System.out.println("file size: " + Files.size(file));
+            String legacy = legacyEncoding(file);
+            String encoding = FileTools.getEncoding(file.toFile());
+            System.out.println("legacy: " + legacy + ", detector: " + encoding);
+            if (!"UTF-8".equals(encoding)) {
+                throw new IllegalStateException("Expected UTF-8 but " + encoding);
+            }
+
+            BenchmarkTools.run("legacy byte by byte", 1, 5, new BenchmarkTools.Operation() {
+
+                @Override
+                public void execute(int thread, int index) {
+                    legacyEncoding(file);
+                }
+            });
+            BenchmarkTools.run("CharsetDetector", 1, 1000, new BenchmarkTools.Operation() {
+
+                @Override
+                public void execute(int thread, int index) {
+                    FileTools.getEncoding(file.toFile());
+                }
+            });
+        } finally {
+            FileTools.delete(root.toFile());
+        }
+    }
+
+    private static void check(String expected, CharsetDetector.Result result) {
+        if (!Charset.forName(expected).equals(result.getCharset())) {
+            throw new IllegalStateException("Expected " + expected + " but " + result);
+        }
+    }
+
+    private static byte[] repeat(byte[] bytes, int times) {
+        byte[] result = new byte[bytes.length * times];
+        for (int i = 0; i < times; i++) {
+            System.arraycopy(bytes, 0, result, i * bytes.length, bytes.length);
+        }
+        return result;
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = new byte[a.length + b.length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    /** 原先的方式: 逐字节读取, 遇到第一个可判断的字节为止 **/
+    private static String legacyEncoding(Path file) {
+        try (InputStream input = new BufferedInputStream(new FileInputStream(file.toFile()))) {
+            String encoding = "GBK";
+            int read;
+            while ((read = input.read()) != -1) {
+                if (read >= 0xF0 || 0x80 <= read && read <= 0xBF) {
+                    break;
+                }
+                if (0xC0 <= read && read <= 0xDF) {
+                    read = input.read();
+                    if (0x80 <= read && read <= 0xBF) {
+                        continue;
+                    } else {
+                        break;
+                    }
+                } else if (0xE0 <= read && read <= 0xEF) {
+                    read = input.read();
+                    if (0x80 <= read && read <= 0xBF) {
+                        read = input.read();
+                        if (0x80 <= read && read <= 0xBF) {
+                            encoding = "UTF-8";
+                        }
+                    }
+                    break;
+                }
+            }
+            return encoding;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
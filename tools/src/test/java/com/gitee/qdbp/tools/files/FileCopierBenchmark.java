@@ -0,0 +1,114 @@
+package com.gitee.qdbp.tools.files;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import com.gitee.qdbp.tools.files.FileCopier.CopyStats;
+
+/**
+ * FileCopier性能测试<br>
+ * 对比FileTools.copy()逐个复制与FileCopier并行复制的耗时, 检查复制结果,
+ * 然后演示同步时跳过未修改的文件, 以及跨文件夹移动
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class FileCopierBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        Path root = Files.createTempDirectory("copier");
+        try {
+            Path source = root.resolve("source");
+            generateFiles(source);
+
+            long start = System.currentTimeMillis();
+            FileTools.copy(source.toFile(), root.resolve("legacy").toFile());
+            System.out.println("FileTools.copy: " + (System.currentTimeMillis() - start) + "ms");
+
+            final AtomicLong progress = new AtomicLong();
+            FileCopier copier = new FileCopier();
+            copier.setExceptionWatcher(new FileCopier.ProgressWatcher() {
+
+                @Override
+                public boolean onCaughtException(String message, Throwable e) {
+                    System.out.println(message);
+                    return true;
+                }
+
+                @Override
+                public boolean onProgress(Path source, CopyStats stats) {
+                    progress.incrementAndGet();
+                    return true;
+                }
+            });
+            Path target = root.resolve("target");
+            CopyStats stats = copier.copy(source, target);
+            System.out.println("FileCopier.copy: " + stats + ", progress=" + progress.get());
+            checkSame(source, target);
+
+            // 第二次同步, 全部跳过
+            CopyStats mirror = FileTools.mirror(source.toString(), target.toString(), null);
+            System.out.println("mirror unchanged: " + mirror);
+            if (mirror.getCopiedFiles() != 0 || mirror.getSkippedFiles() != stats.getCopiedFiles()) {
+                throw new IllegalStateException("Unchanged files should be skipped: " + mirror);
+            }
+            // 修改一个文件之后同步, 只复制这一个
+            Path changed = source.resolve("dir3").resolve("file3.dat");
+            Files.write(changed, new byte[] { 1, 2, 3 });
+            Files.setLastModifiedTime(changed, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+            mirror = FileTools.mirror(source.toString(), target.toString(), null);
+            System.out.println("mirror changed: " + mirror);
+            if (mirror.getCopiedFiles() != 1) {
+                throw new IllegalStateException("Only changed file should be copied: " + mirror);
+            }
+            checkSame(source, target);
+
+            Path moved = root.resolve("moved");
+            CopyStats move = new FileCopier().move(target, moved);
+            System.out.println("move: " + move);
+            checkSame(source, moved);
+            if (Files.exists(target)) {
+                throw new IllegalStateException("Source of move should be deleted: " + target);
+            }
+        } finally {
+            FileTools.delete(root.toFile());
+        }
+    }
+
+    private static void generateFiles(Path source) throws IOException {
+        Random random = new Random(20201017);
+        for (int d = 0; d < 8; d++) {
+            Path folder = source.resolve("dir" + d);
+            Files.createDirectories(folder);
+            for (int f = 0; f < 10; f++) {
+                // 大文件和小文件混合
+                byte[] bytes = new byte[f < 2 ? 4 * 1024 * 1024 : 16 * 1024];
+                random.nextBytes(bytes);
+                Files.write(folder.resolve("file" + f + ".dat"), bytes);
+            }
+        }
+    }
+
+    private static void checkSame(Path expected, Path actual) throws IOException {
+        String[] names = expected.toFile().list();
+        Arrays.sort(names);
+        String[] actualNames = actual.toFile().list();
+        Arrays.sort(actualNames);
+        if (!Arrays.equals(names, actualNames)) {
+            throw new IllegalStateException("Different files: " + expected + " <> " + actual);
+        }
+        for (String name : names) {
+            Path e = expected.resolve(name);
+            Path a = actual.resolve(name);
+            if (Files.isDirectory(e)) {
+                checkSame(e, a);
+            } else if (!Arrays.equals(Files.readAllBytes(e), Files.readAllBytes(a))) {
+                throw new IllegalStateException("Different content: " + e + " <> " + a);
+            }
+        }
+    }
+}
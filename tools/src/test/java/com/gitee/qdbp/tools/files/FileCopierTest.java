@@ -0,0 +1,152 @@
+package com.gitee.qdbp.tools.files;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import com.gitee.qdbp.tools.files.FileCopier.CopyStats;
+
+/**
+ * FileCopier边界情况测试<br>
+ * 覆盖时目标是符号链接, 相对路径复制到自身的子文件夹, 复制/移动到同一个文件, 移动时覆盖已存在的文件
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class FileCopierTest {
+
+    public static void main(String[] args) throws IOException {
+        Path root = Files.createTempDirectory("copier").toAbsolutePath();
+        try {
+            testSymbolicLinkDestination(root.resolve("link"));
+            testCopyIntoItself(root.resolve("self"));
+            testSameFile(root.resolve("same"));
+            testMoveReplace(root.resolve("move"));
+        } finally {
+            FileTools.delete(root.toFile());
+        }
+        System.out.println("FileCopierTest ok");
+    }
+
+    /** 覆盖时目标是符号链接, 应替换链接本身, 链接指向的文件(在目标文件夹之外)保持不变 **/
+    private static void testSymbolicLinkDestination(Path root) throws IOException {
+        Path source = root.resolve("source");
+        Path target = root.resolve("target");
+        Path outside = root.resolve("outside.txt");
+        Files.createDirectories(source);
+        Files.createDirectories(target);
+        write(source.resolve("a.txt"), "new");
+        write(outside, "outside");
+        try {
+            Files.createSymbolicLink(target.resolve("a.txt"), outside);
+        } catch (IOException | UnsupportedOperationException e) {
+            System.out.println("symbolic link not supported, skipped: " + e);
+            return;
+        }
+
+        FileCopier copier = new FileCopier();
+        copier.setReplaceExisting(true);
+        CopyStats stats = copier.copy(source, target);
+        check("link stats", stats.getCopiedFiles() == 1 && stats.getFailedFiles() == 0, stats);
+        check("link target untouched", "outside".equals(read(outside)), read(outside));
+        check("link replaced", !Files.isSymbolicLink(target.resolve("a.txt")), target.resolve("a.txt"));
+        check("link content", "new".equals(read(target.resolve("a.txt"))), read(target.resolve("a.txt")));
+
+        // mirror同样不能写入链接指向的文件
+        Files.delete(target.resolve("a.txt"));
+        Files.createSymbolicLink(target.resolve("a.txt"), outside);
+        FileTools.mirror(source.toString(), target.toString(), null);
+        check("mirror target untouched", "outside".equals(read(outside)), read(outside));
+        check("mirror content", "new".equals(read(target.resolve("a.txt"))), read(target.resolve("a.txt")));
+
+        // 不覆盖时报告失败, 链接和链接指向的文件都保持不变
+        Files.delete(target.resolve("a.txt"));
+        Files.createSymbolicLink(target.resolve("a.txt"), outside);
+        stats = new FileCopier().copy(source, target);
+        check("no replace stats", stats.getFailedFiles() == 1, stats);
+        check("no replace untouched", "outside".equals(read(outside)), read(outside));
+    }
+
+    /** 相对路径的源文件夹复制到绝对路径的子文件夹, 不能复制到自身 **/
+    private static void testCopyIntoItself(Path root) throws IOException {
+        Path source = root.resolve("a");
+        Files.createDirectories(source.resolve("sub"));
+        write(source.resolve("1.txt"), "1");
+        write(source.resolve("sub").resolve("2.txt"), "2");
+        Path relative = Paths.get("").toAbsolutePath().relativize(source);
+        Path target = source.resolve("b");
+
+        CopyStats stats = new FileCopier().copy(relative, target);
+        check("self stats", stats.getCopiedFiles() == 2 && stats.getFailedFiles() == 0, stats);
+        check("self content", "2".equals(read(target.resolve("sub").resolve("2.txt"))), target);
+        check("self not nested", !Files.exists(target.resolve("b")), target.resolve("b"));
+    }
+
+    /** 复制或移动到同一个文件(相对路径或符号链接), 源文件不能被清空或删除 **/
+    private static void testSameFile(Path root) throws IOException {
+        Path file = root.resolve("same.txt");
+        write(file, "same");
+        Path alias = root.resolve(".").resolve("same.txt");
+
+        FileCopier copier = new FileCopier();
+        copier.setReplaceExisting(true);
+        copier.copy(file, alias);
+        check("same copy", "same".equals(read(file)), read(file));
+        copier.move(file, alias);
+        check("same move", "same".equals(read(file)), read(file));
+        check("same transfer", FileCopier.transferFile(file, alias, true) == 0, file);
+
+        Path link = root.resolve("link.txt");
+        try {
+            Files.createSymbolicLink(link, file);
+        } catch (IOException | UnsupportedOperationException e) {
+            return;
+        }
+        copier.copy(link, file);
+        check("same link copy", "same".equals(read(file)), read(file));
+        check("same link transfer", FileCopier.transferFile(file, link, true) == 0, file);
+        check("same link kept", "same".equals(read(file)), read(file));
+    }
+
+    /** 移动时覆盖已存在的文件, 源文件夹被删除 **/
+    private static void testMoveReplace(Path root) throws IOException {
+        Path source = root.resolve("source");
+        Path target = root.resolve("target");
+        Files.createDirectories(source.resolve("sub"));
+        Files.createDirectories(target.resolve("sub"));
+        write(source.resolve("sub").resolve("1.txt"), "new");
+        write(target.resolve("sub").resolve("1.txt"), "old");
+        write(target.resolve("keep.txt"), "keep");
+
+        // 不覆盖时, 已存在的文件移动失败, 源文件保留
+        CopyStats stats = new FileCopier().move(source, target);
+        check("move no replace", stats.getFailedFiles() == 1, stats);
+        check("move source kept", Files.exists(source.resolve("sub").resolve("1.txt")), source);
+        check("move target kept", "old".equals(read(target.resolve("sub").resolve("1.txt"))), target);
+
+        FileCopier copier = new FileCopier();
+        copier.setReplaceExisting(true);
+        stats = copier.move(source, target);
+        check("move replace", stats.getCopiedFiles() == 1 && stats.getFailedFiles() == 0, stats);
+        check("move content", "new".equals(read(target.resolve("sub").resolve("1.txt"))), target);
+        check("move other kept", "keep".equals(read(target.resolve("keep.txt"))), target);
+        check("move source deleted", !Files.exists(source), source);
+    }
+
+    private static void write(Path path, String text) throws IOException {
+        Files.createDirectories(path.getParent());
+        Files.write(path, text.getBytes("UTF-8"));
+    }
+
+    private static String read(Path path) throws IOException {
+        return new String(Files.readAllBytes(path), "UTF-8");
+    }
+
+    private static void check(String name, boolean condition, Object details) {
+        if (!condition) {
+            throw new IllegalStateException(name + " failed: " + details);
+        }
+        System.out.println(name + " ok");
+    }
+}
@@ -0,0 +1,152 @@
+package com.gitee.qdbp.tools.files;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import com.gitee.qdbp.able.matches.AntFileMatcher;
+import com.gitee.qdbp.able.matches.FileMatcher;
+import com.gitee.qdbp.able.matches.StringMatcher.LogicType;
+import com.gitee.qdbp.able.matches.WrapFileMatcher;
+import com.gitee.qdbp.tools.base.BenchmarkTools;
+
+/**
+ * FileTreeWalker性能测试<br>
+ * 在临时文件夹中生成文件树, 检查FileTreeWalker/FileTools.treelist()与逐一判断的结果是否一致,
+ * 然后对比逐一判断, treelist()和并行遍历的耗时
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class FileTreeWalkerBenchmark {
+
+    private static final int ITERATIONS = 20;
+
+    public static void main(String[] args) throws IOException {
+        final Path root = Files.createTempDirectory("walker");
+        try {
+            generateFiles(root);
+            String rootPath = PathTools.formatPath(root.toAbsolutePath().toString());
+            List<FileMatcher> matchers = new ArrayList<>();
+            matchers.add(null);
+            matchers.add(new AntFileMatcher("*.txt", FileMatcher.Target.FileName));
+            // 按路径匹配, 可以跳过其他模块的文件夹
+            matchers.add(new AntFileMatcher(rootPath + "/module3/**/*.txt", FileMatcher.Target.FilePath));
+            matchers.add(WrapFileMatcher.parseMatchers(
+                "path:starts:" + rootPath + "/module1/dir1/, path:ant:" + rootPath + "/module5/dir*/*.log",
+                LogicType.OR));
+            // 重写了formatFilePath(File)的子类, 遍历时也要使用重写后的路径格式
+            final String prefix = rootPath + "/";
+            matchers.add(new AntFileMatcher("module2/**/*.log", FileMatcher.Target.FilePath) {
+
+                @Override
+                protected String formatFilePath(File file) {
+                    String path = super.formatFilePath(file);
+                    return path.startsWith(prefix) ? path.substring(prefix.length()) : path;
+                }
+            });
+
+            for (FileMatcher matcher : matchers) {
+                List<String> expected = toSortedPaths(legacyList(root, matcher));
+                List<String> treelist = toSortedPaths(FileTools.treelist(root.toString(), matcher));
+                List<String> walked = toSortedPaths(new FileTreeWalker(matcher).list(root.toString()));
+                if (!expected.equals(treelist) || !expected.equals(walked)) {
+                    throw new IllegalStateException("Mismatch: " + matcher);
+                }
+                if (expected.isEmpty() && matcher != null) {
+                    throw new IllegalStateException("No files matched: " + matcher);
+                }
+                System.out.println(matcher + " --> " + expected.size() + " files");
+            }
+            int limited = new FileTreeWalker(null).list(root.toString(), 10).size();
+            if (limited != 10) {
+                throw new IllegalStateException("Early termination failed: " + limited);
+            }
+
+            final FileMatcher matcher = matchers.get(2);
+            BenchmarkTools.run("legacy walkFileTree", 1, ITERATIONS, new BenchmarkTools.Operation() {
+
+                @Override
+                public void execute(int thread, int index) {
+                    legacyList(root, matcher);
+                }
+            });
+            BenchmarkTools.run("treelist(pruned)", 1, ITERATIONS, new BenchmarkTools.Operation() {
+
+                @Override
+                public void execute(int thread, int index) {
+                    FileTools.treelist(root.toString(), matcher);
+                }
+            });
+            final FileTreeWalker fullWalker = new FileTreeWalker(matchers.get(1));
+            // 复用线程池, 避免每次遍历创建线程的开销
+            fullWalker.setPool(new ForkJoinPool());
+            BenchmarkTools.run("legacy walkFileTree(*.txt)", 1, ITERATIONS, new BenchmarkTools.Operation() {
+
+                @Override
+                public void execute(int thread, int index) {
+                    legacyList(root, fullWalker.getMatcher());
+                }
+            });
+            BenchmarkTools.run("parallel walker(*.txt)", 1, ITERATIONS, new BenchmarkTools.Operation() {
+
+                @Override
+                public void execute(int thread, int index) {
+                    fullWalker.list(root.toString());
+                }
+            });
+            fullWalker.getPool().shutdown();
+        } finally {
+            FileTools.delete(root.toFile());
+        }
+    }
+
+    private static void generateFiles(Path root) throws IOException {
+        for (int m = 0; m < 8; m++) {
+            for (int d = 0; d < 20; d++) {
+                Path folder = root.resolve("module" + m).resolve("dir" + d);
+                Files.createDirectories(folder);
+                for (int f = 0; f < 30; f++) {
+                    String extension = f % 3 == 0 ? ".txt" : f % 3 == 1 ? ".log" : ".json";
+                    Files.createFile(folder.resolve("file" + f + extension));
+                }
+            }
+        }
+    }
+
+    /** 原先的方式: 遍历所有文件, 逐一判断 **/
+    private static List<File> legacyList(Path root, final FileMatcher matcher) {
+        final List<File> items = new ArrayList<>();
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (matcher == null || matcher.matches(file.toFile())) {
+                        items.add(file.toFile());
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return items;
+    }
+
+    private static List<String> toSortedPaths(List<File> files) {
+        List<String> paths = new ArrayList<>();
+        for (File file : files) {
+            paths.add(file.getAbsolutePath());
+        }
+        Collections.sort(paths);
+        return paths;
+    }
+}
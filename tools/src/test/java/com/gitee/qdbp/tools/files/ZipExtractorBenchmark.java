@@ -0,0 +1,217 @@
+package com.gitee.qdbp.tools.files;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import com.gitee.qdbp.able.exception.FileOversizeException;
+import com.gitee.qdbp.able.matches.AntStringMatcher;
+import com.gitee.qdbp.tools.files.ZipTools.FileItem;
+
+/**
+ * ZipExtractor性能测试<br>
+ * 对比ZipFile逐个解压与ZipExtractor并行解压的耗时, 检查解压结果,
+ * 然后演示按路径过滤, 以及zip-slip和zip炸弹的检查
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class ZipExtractorBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        Path root = Files.createTempDirectory("extractor");
+        try {
+            Path source = root.resolve("source");
+            generateFiles(source);
+            List<FileItem> items = ZipTools.collectFiles(source.toString(), "*");
+            String zipPath = root.resolve("source.zip").toString();
+            ZipTools.compression(items, zipPath);
+
+            Path legacy = root.resolve("legacy");
+            long start = System.currentTimeMillis();
+            legacyExtract(zipPath, legacy.toFile());
+            System.out.println("ZipFile extract: " + (System.currentTimeMillis() - start) + "ms");
+
+            Path target = root.resolve("target");
+            start = System.currentTimeMillis();
+            ZipTools.decompression(zipPath, target.toString());
+            System.out.println("ZipExtractor extract: " + (System.currentTimeMillis() - start) + "ms");
+            checkSame(source, legacy);
+            checkSame(source, target);
+
+            // 只解压dir1下的文本文件
+            List<File> filtered = ZipTools.decompression(zipPath, root.resolve("filtered").toString(),
+                new AntStringMatcher("dir1/*.txt"));
+            System.out.println("filtered: " + filtered.size() + " files");
+            if (filtered.size() != 4) {
+                throw new IllegalStateException("Filter mismatch: " + filtered);
+            }
+
+            // zip-slip: 压缩项的路径超出保存路径
+            String slipPath = root.resolve("slip.zip").toString();
+            writeZip(slipPath, "../evil.txt", "evil".getBytes());
+            try {
+                ZipTools.decompression(slipPath, root.resolve("slip").toString());
+                throw new IllegalStateException("Zip slip should be rejected");
+            } catch (ZipException e) {
+                System.out.println("zip slip: " + e.getMessage());
+            }
+            if (Files.exists(root.resolve("evil.txt"))) {
+                throw new IllegalStateException("Zip slip file created");
+            }
+
+            // 以/开头的压缩项解压到保存路径之下, 不当作绝对路径
+            String absolutePath = root.resolve("absolute.zip").toString();
+            writeZip(absolutePath, "/docs/a.txt", "absolute".getBytes());
+            ZipTools.decompression(absolutePath, root.resolve("absolute").toString());
+            Path absolute = root.resolve("absolute").resolve("docs").resolve("a.txt");
+            if (!Files.exists(absolute) || !"absolute".equals(new String(Files.readAllBytes(absolute)))) {
+                throw new IllegalStateException("Leading slash entry should be extracted under save folder");
+            }
+
+            // 被过滤掉的压缩项即使超出保存路径, 也不影响其他压缩项的解压
+            String mixedPath = root.resolve("mixed.zip").toString();
+            try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(mixedPath))) {
+                zos.putNextEntry(new ZipEntry("../evil.txt"));
+                zos.write("evil".getBytes());
+                zos.closeEntry();
+                zos.putNextEntry(new ZipEntry("keep/b.txt"));
+                zos.write("keep".getBytes());
+                zos.closeEntry();
+            }
+            List<File> kept = ZipTools.decompression(mixedPath, root.resolve("mixed").toString(),
+                new AntStringMatcher("keep/*.txt"));
+            if (kept.size() != 1 || Files.exists(root.resolve("evil.txt"))) {
+                throw new IllegalStateException("Filtered entry should be ignored: " + kept);
+            }
+
+            // 同名的压缩项, 最后一个生效
+            String duplicatePath = root.resolve("duplicate.zip").toString();
+            try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(duplicatePath))) {
+                String name = "same.txt";
+                for (int i = 0; i < 20; i++, name = "./" + name) {
+                    zos.putNextEntry(new ZipEntry(name));
+                    zos.write(("content" + i).getBytes());
+                    zos.closeEntry();
+                }
+            }
+            List<File> duplicates = ZipTools.decompression(duplicatePath, root.resolve("duplicate").toString(), null);
+            byte[] last = Files.readAllBytes(root.resolve("duplicate").resolve("same.txt"));
+            if (duplicates.size() != 1 || !"content19".equals(new String(last))) {
+                throw new IllegalStateException("Duplicate entries mismatch: " + new String(last));
+            }
+
+            // zip炸弹: 64MB的0压缩后只有几十KB
+            String bombPath = root.resolve("bomb.zip").toString();
+            writeZip(bombPath, "bomb.dat", new byte[64 * 1024 * 1024]);
+            // 默认不限制, 与原先的解压结果相同
+            ZipTools.decompression(bombPath, root.resolve("unlimited").toString());
+            if (Files.size(root.resolve("unlimited").resolve("bomb.dat")) != 64 * 1024 * 1024) {
+                throw new IllegalStateException("Compressible file should be extracted by default");
+            }
+            ZipExtractor extractor = new ZipExtractor();
+            extractor.setMaxRatio(100);
+            try {
+                extractor.extract(bombPath, root.resolve("bomb").toString());
+                throw new IllegalStateException("Zip bomb should be rejected");
+            } catch (FileOversizeException e) {
+                System.out.println("zip bomb: " + e.getMessage());
+            }
+            extractor.setMaxRatio(0);
+            extractor.setMaxTotalSize(16 * 1024 * 1024);
+            try {
+                extractor.extract(bombPath, root.resolve("bomb").toString());
+                throw new IllegalStateException("Total size limit should be checked");
+            } catch (FileOversizeException e) {
+                System.out.println("total size: " + e.getMessage());
+            }
+            if (Files.exists(root.resolve("bomb").resolve("bomb.dat"))) {
+                throw new IllegalStateException("Partial file should be deleted");
+            }
+        } finally {
+            FileTools.delete(root.toFile());
+        }
+    }
+
+    private static void generateFiles(Path source) throws IOException {
+        Random random = new Random(20201017);
+        for (int d = 0; d < 8; d++) {
+            Path folder = source.resolve("dir" + d);
+            Files.createDirectories(folder);
+            for (int f = 0; f < 10; f++) {
+                // 不可压缩的大文件和可压缩的文本文件混合
+                if (f < 2) {
+                    byte[] bytes = new byte[4 * 1024 * 1024];
+                    random.nextBytes(bytes);
+                    Files.write(folder.resolve("file" + f + ".dat"), bytes);
+                } else if (f % 2 == 0) {
+                    StringBuilder buffer = new StringBuilder();
+                    for (int i = 0; i < 20000; i++) {
+                        buffer.append("line ").append(i).append(": ").append(random.nextInt()).append('\n');
+                    }
+                    Files.write(folder.resolve("file" + f + ".txt"), buffer.toString().getBytes());
+                } else {
+                    Files.write(folder.resolve("file" + f + ".log"), new byte[0]);
+                }
+            }
+        }
+    }
+
+    private static void writeZip(String zipPath, String name, byte[] content) throws IOException {
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zipPath))) {
+            zos.putNextEntry(new ZipEntry(name));
+            zos.write(content);
+            zos.closeEntry();
+        }
+    }
+
+    /** 原先的方式: ZipFile逐个解压 **/
+    private static void legacyExtract(String zipPath, File saveFolder) throws IOException {
+        try (ZipFile zipFile = new ZipFile(zipPath)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                File file = new File(saveFolder, entry.getName());
+                if (entry.isDirectory()) {
+                    FileTools.mkdirsIfNotExists(file, false);
+                    continue;
+                }
+                FileTools.mkdirsIfNotExists(file, true);
+                try (InputStream is = zipFile.getInputStream(entry);
+                        OutputStream os = new FileOutputStream(file)) {
+                    FileTools.copy(is, os);
+                }
+            }
+        }
+    }
+
+    private static void checkSame(Path expected, Path actual) throws IOException {
+        String[] names = expected.toFile().list();
+        Arrays.sort(names);
+        String[] actualNames = actual.toFile().list();
+        Arrays.sort(actualNames);
+        if (!Arrays.equals(names, actualNames)) {
+            throw new IllegalStateException("Different files: " + expected + " <> " + actual);
+        }
+        for (String name : names) {
+            Path e = expected.resolve(name);
+            Path a = actual.resolve(name);
+            if (Files.isDirectory(e)) {
+                checkSame(e, a);
+            } else if (!Arrays.equals(Files.readAllBytes(e), Files.readAllBytes(a))) {
+                throw new IllegalStateException("Different content: " + e + " <> " + a);
+            }
+        }
+    }
+}
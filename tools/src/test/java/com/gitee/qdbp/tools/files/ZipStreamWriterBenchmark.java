@@ -0,0 +1,180 @@
+package com.gitee.qdbp.tools.files;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import com.gitee.qdbp.tools.files.ZipTools.FileItem;
+import com.gitee.qdbp.tools.files.ZipTools.UrlItem;
+import com.gitee.qdbp.tools.files.ZipTools.ZipItem;
+
+/**
+ * ZipStreamWriter性能测试<br>
+ * 对比ZipOutputStream逐个压缩与ZipStreamWriter并行压缩的耗时, 并用ZipFile检查压缩结果<br>
+ * 然后检查大量小文件写入无缓冲的输出流时的write次数, 以及复用线程池多次压缩
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class ZipStreamWriterBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        Path root = Files.createTempDirectory("zipwriter");
+        try {
+            List<ZipItem> items = generateFiles(root);
+            File legacy = root.resolve("legacy.zip").toFile();
+            long start = System.currentTimeMillis();
+            legacyCompression(items, legacy);
+            long legacyTime = System.currentTimeMillis() - start;
+            System.out.println("ZipOutputStream: " + legacyTime + "ms, " + legacy.length() + " bytes");
+
+            File target = root.resolve("stream.zip").toFile();
+            start = System.currentTimeMillis();
+            try (FileOutputStream output = new FileOutputStream(target)) {
+                new ZipStreamWriter().write(items, output.getChannel());
+            }
+            long streamTime = System.currentTimeMillis() - start;
+            System.out.println("ZipStreamWriter: " + streamTime + "ms, " + target.length() + " bytes");
+            check(items, target);
+            System.out.println(items.size() + " entries checked.");
+
+            // 大量小文件写入无缓冲的输出流, 文件头等小数据应合并写入
+            List<ZipItem> smalls = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                Path file = root.resolve("small" + i + ".txt");
+                Files.write(file, ("small file " + i).getBytes("UTF-8"));
+                smalls.add(new FileItem("small/" + i + ".txt", file.toFile()));
+            }
+            ExecutorService readExecutor = Executors.newFixedThreadPool(4);
+            ExecutorService compressExecutor = Executors.newFixedThreadPool(4);
+            try {
+                ZipStreamWriter writer = new ZipStreamWriter();
+                writer.setReadExecutor(readExecutor);
+                writer.setCompressExecutor(compressExecutor);
+                for (int round = 0; round < 2; round++) {
+                    File small = root.resolve("small" + round + ".zip").toFile();
+                    CountingOutputStream counting;
+                    try (FileOutputStream output = new FileOutputStream(small)) {
+                        counting = new CountingOutputStream(output);
+                        writer.write(smalls, counting);
+                    }
+                    System.out.println("small files: " + counting.writes + " writes, " + small.length() + " bytes");
+                    if (counting.writes > smalls.size() / 10) {
+                        throw new IllegalStateException("Too many small writes: " + counting.writes);
+                    }
+                    check(smalls, small);
+                }
+                if (readExecutor.isShutdown() || compressExecutor.isShutdown()) {
+                    throw new IllegalStateException("Shared executors should not be shut down");
+                }
+            } finally {
+                readExecutor.shutdownNow();
+                compressExecutor.shutdownNow();
+            }
+        } finally {
+            FileTools.delete(root.toFile());
+        }
+    }
+
+    private static List<ZipItem> generateFiles(Path root) throws IOException {
+        Random random = new Random(20201017);
+        List<ZipItem> items = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200000; i++) {
+            text.append("line ").append(i).append(": ").append(random.nextInt(1000)).append(" qdbp tools\n");
+        }
+        byte[] textBytes = text.toString().getBytes("UTF-8");
+        for (int i = 0; i < 8; i++) {
+            Path file = root.resolve("text" + i + ".txt");
+            Files.write(file, textBytes);
+            items.add(new FileItem("text/" + i + ".txt", file.toFile()));
+        }
+        // 已经压缩过的文件, 使用STORED模式
+        for (int i = 0; i < 8; i++) {
+            byte[] bytes = new byte[2 * 1024 * 1024];
+            random.nextBytes(bytes);
+            Path file = root.resolve("image" + i + ".png");
+            Files.write(file, bytes);
+            items.add(new FileItem("image/" + i + ".png", file.toFile()));
+            items.add(new UrlItem("url/" + i + ".png", file.toUri().toURL()));
+        }
+        return items;
+    }
+
+    /** 原先的方式: ZipOutputStream逐个读取并压缩 **/
+    private static void legacyCompression(List<ZipItem> items, File target) throws IOException {
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(target))) {
+            for (ZipItem item : items) {
+                zos.putNextEntry(new ZipEntry(item.getPath()));
+                try (InputStream input = open(item)) {
+                    FileTools.copy(input, zos);
+                }
+            }
+        }
+    }
+
+    private static void check(List<ZipItem> items, File target) throws IOException {
+        try (ZipFile zip = new ZipFile(target)) {
+            for (ZipItem item : items) {
+                ZipEntry entry = zip.getEntry(item.getPath());
+                byte[] expected = toBytes(open(item));
+                byte[] actual = toBytes(zip.getInputStream(entry));
+                if (!Arrays.equals(expected, actual)) {
+                    throw new IllegalStateException("Mismatch: " + item.getPath());
+                }
+            }
+        }
+    }
+
+    /** 统计write调用次数的无缓冲输出流 **/
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private int writes;
+
+        public CountingOutputStream(OutputStream output) {
+            super(output);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            writes++;
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            writes++;
+            out.write(b, off, len);
+        }
+    }
+
+    private static InputStream open(ZipItem item) throws IOException {
+        if (item instanceof UrlItem) {
+            return ((UrlItem) item).getUrl().openStream();
+        } else {
+            return new FileInputStream(((FileItem) item).getFile());
+        }
+    }
+
+    private static byte[] toBytes(InputStream input) throws IOException {
+        try (InputStream is = input; ByteArrayOutputStream output = new ByteArrayOutputStream()) {
+            FileTools.copy(is, output);
+            return output.toByteArray();
+        }
+    }
+}
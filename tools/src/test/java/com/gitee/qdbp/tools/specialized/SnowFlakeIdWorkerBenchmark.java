@@ -0,0 +1,120 @@
+package com.gitee.qdbp.tools.specialized;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import com.gitee.qdbp.tools.base.BenchmarkTools;
+
+/**
+ * SnowFlakeIdWorker多线程性能测试<br>
+ * 对比原先synchronized加锁的实现, CAS无锁的nextId(), 批量的nextIds(), 以及允许借用未来时间戳的nextId()<br>
+ * 注意: 每毫秒最多生成4096个ID, 单线程也很容易达到这个上限, 测试结果主要反映等待下一毫秒的开销
+ *
+ * @author zhaohuihua
+ * @version 20201017
+ */
+public class SnowFlakeIdWorkerBenchmark {
+
+    private static final int ITERATIONS = 200000;
+    private static final int BATCH_SIZE = 64;
+
+    public static void main(String[] args) {
+        int[] threadCounts = { 1, 8, 64 };
+        for (int threads : threadCounts) {
+            final SynchronizedIdWorker locked = new SynchronizedIdWorker(0, 0);
+            BenchmarkTools.run("synchronized nextId", threads, ITERATIONS / threads, new BenchmarkTools.Operation() {
+
+                @Override
+                public void execute(int thread, int index) {
+                    locked.nextId();
+                }
+            });
+
+            final SnowFlakeIdWorker worker = new SnowFlakeIdWorker(0, 0);
+            BenchmarkTools.run("cas nextId", threads, ITERATIONS / threads, new BenchmarkTools.Operation() {
+
+                @Override
+                public void execute(int thread, int index) {
+                    worker.nextId();
+                }
+            });
+
+            int batches = Math.max(1, ITERATIONS / threads / BATCH_SIZE);
+            BenchmarkTools.run("cas nextIds(" + BATCH_SIZE + ")", threads, batches, new BenchmarkTools.Operation() {
+
+                @Override
+                public void execute(int thread, int index) {
+                    worker.nextIds(BATCH_SIZE);
+                }
+            });
+
+            final SnowFlakeIdWorker borrower = new SnowFlakeIdWorker(0, 0);
+            borrower.setMaxBorrowMillis(100);
+            BenchmarkTools.run("borrow nextId", threads, ITERATIONS / threads, new BenchmarkTools.Operation() {
+
+                @Override
+                public void execute(int thread, int index) {
+                    borrower.nextId();
+                }
+            });
+            System.out.println("maxAheadMillis=" + borrower.getMaxAheadMillis() + ", borrowCount="
+                    + borrower.getBorrowCount());
+        }
+        checkUnique();
+    }
+
+    /** 多线程混合调用nextId()和nextIds(), 检查是否有重复的ID **/
+    private static void checkUnique() {
+        final SnowFlakeIdWorker worker = new SnowFlakeIdWorker(0, 0);
+        final Set<Long> ids = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+        BenchmarkTools.run("check unique", 16, 2000, new BenchmarkTools.Operation() {
+
+            @Override
+            public void execute(int thread, int index) {
+                if (index % 2 == 0) {
+                    add(ids, worker.nextId());
+                } else {
+                    for (long id : worker.nextIds(100)) {
+                        add(ids, id);
+                    }
+                }
+            }
+        });
+        System.out.println("unique ids: " + ids.size());
+    }
+
+    private static void add(Set<Long> ids, long id) {
+        if (!ids.add(id)) {
+            throw new IllegalStateException("Duplicate id: " + id);
+        }
+    }
+
+    /** 原先synchronized加锁的实现, 作为对照 **/
+    private static class SynchronizedIdWorker {
+
+        private final long epoch = 1262304000000L;
+        private final long machineBits;
+        private long sequence;
+        private long lastTimestamp = -1L;
+
+        public SynchronizedIdWorker(int workerId, int datacenterId) {
+            this.machineBits = ((long) datacenterId << 17) | ((long) workerId << 12);
+        }
+
+        public synchronized long nextId() {
+            long timestamp = System.currentTimeMillis();
+            if (lastTimestamp == timestamp) {
+                sequence = (sequence + 1) & 4095;
+                if (sequence == 0) {
+                    while (timestamp <= lastTimestamp) {
+                        timestamp = System.currentTimeMillis();
+                    }
+                }
+            } else {
+                sequence = 0;
+            }
+            lastTimestamp = timestamp;
+            return ((timestamp - epoch) << 22) | machineBits | sequence;
+        }
+    }
+}